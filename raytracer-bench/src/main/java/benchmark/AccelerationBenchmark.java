@@ -0,0 +1,84 @@
+package benchmark;
+
+import acceleration.Bvh;
+import math.Ray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import scene.Scene;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rayon primaire le plus proche selon la structure d'accélération : parcours linéaire des formes,
+ * hiérarchie binaire, hiérarchie à 4 enfants par nœud avec tests de boîtes scalaires ou SIMD.
+ * Les variantes "-blocks" testent en plus les triangles des feuilles par blocs de 4 avec l'API Vector.
+ * La JVM de mesure est lancée avec le module jdk.incubator.vector.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class AccelerationBenchmark {
+
+    private static final int RAYS = 4096;
+
+    @Param({"final_avec_bonus.scene", "jalon6/tp63.test", "jalon6/tp64.test"})
+    public String scene;
+
+    @Param({"linear", "binary", "binary-blocks", "wide", "wide-simd", "wide-simd-blocks"})
+    public String structure;
+
+    private Scene loaded;
+    private Ray[] rays;
+
+    @Setup
+    public void setUp() {
+        loaded = BenchScenes.load(scene);
+        rays = BenchScenes.primaryRays(loaded, RAYS, 7);
+        Bvh bvh = loaded.getAccelerationStructure();
+        switch (structure) {
+            case "linear": loaded.setAccelerationStructure(null); break;
+            case "binary": break;
+            case "wide": bvh.widen(false); break;
+            case "binary-blocks":
+                requireSimd();
+                bvh.groupTriangles(true);
+                break;
+            case "wide-simd":
+                requireSimd();
+                bvh.widen(true);
+                break;
+            case "wide-simd-blocks":
+                requireSimd();
+                bvh.widen(true);
+                bvh.groupTriangles(true);
+                break;
+            default: throw new IllegalArgumentException("Structure inconnue : " + structure);
+        }
+    }
+
+    private static void requireSimd() {
+        if (!Bvh.isSimdAvailable()) throw new IllegalStateException("API Vector indisponible sur cette machine.");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void findClosestIntersection(Blackhole blackhole) {
+        for (Ray ray : rays) {
+            blackhole.consume(loaded.findClosestIntersection(ray));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package benchmark;
+
+import geometry.Sphere;
+import imaging.Color;
+import math.Point;
+import math.Ray;
+import math.Vector;
+import parsing.SceneFileParser;
+import raytracer.Camera;
+import raytracer.OrthonormalBasis;
+import raytracer.PointLight;
+import scene.Scene;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Accès aux scènes livrées avec le lanceur de rayons, pour les bancs d'essai.
+ *
+ * Les scènes sont lues dans le dossier donné par la propriété système
+ * {@value #SCENES_PROPERTY}, par défaut celui du module raytracer voisin.
+ */
+final class BenchScenes {
+
+    /** Propriété système donnant le dossier des scènes. */
+    static final String SCENES_PROPERTY = "raytracer.scenes";
+
+    private static final String DEFAULT_SCENES_DIR = "../raytracer/src/main/resources/scenes";
+
+    private BenchScenes() {
+    }
+
+    /** Dossier des scènes. */
+    static Path directory() {
+        return Paths.get(System.getProperty(SCENES_PROPERTY, DEFAULT_SCENES_DIR));
+    }
+
+    /**
+     * Chemin d'une scène.
+     * @param name Nom relatif au dossier des scènes (par exemple "final.scene")
+     */
+    static Path path(String name) {
+        Path path = directory().resolve(name);
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalStateException("Scène introuvable : " + path.toAbsolutePath()
+                    + " (régler -D" + SCENES_PROPERTY + "=<dossier des scènes>)");
+        }
+        return path;
+    }
+
+    /** Toutes les scènes des dossiers jalon*, triées par nom. */
+    static List<Path> jalonScenes() {
+        try (Stream<Path> files = Files.walk(directory())) {
+            return files.filter(p -> p.getParent().getFileName().toString().startsWith("jalon"))
+                    .filter(p -> p.toString().endsWith(".test") || p.toString().endsWith(".scene"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Analyse une scène (sans passer par la scène compilée). */
+    static Scene load(String name) {
+        try {
+            return new SceneFileParser().parse(path(name).toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Scène générée : sphères de tailles voisines réparties uniformément dans un cube,
+     * le cas favorable à la grille régulière. Image de 640 x 480, une lumière ponctuelle.
+     * @param count Nombre de sphères
+     * @param seed Graine du tirage
+     */
+    static Scene sphereField(int count, long seed) {
+        Scene scene = new Scene();
+        scene.setWidth(640);
+        scene.setHeight(480);
+        // Environ une sphère de rayon 0.4 par unité de volume
+        double side = Math.cbrt(count);
+        scene.setCamera(new Camera(new Point(0, 0, 1.5 * side), new Point(0, 0, 0), new Vector(0, 1, 0), 45));
+        scene.setAmbient(new Color(0.1, 0.1, 0.1));
+        scene.addLight(new PointLight(new Point(side, side, 2 * side), new Color(0.8, 0.8, 0.8)));
+
+        Random random = new Random(seed);
+        Color specular = new Color(0.2, 0.2, 0.2);
+        for (int k = 0; k < count; k++) {
+            Point center = new Point((random.nextDouble() - 0.5) * side,
+                    (random.nextDouble() - 0.5) * side, (random.nextDouble() - 0.5) * side);
+            Color diffuse = new Color(random.nextDouble() * 0.8, random.nextDouble() * 0.8, random.nextDouble() * 0.8);
+            scene.addShape(new Sphere(center, 0.3 + random.nextDouble() * 0.2, diffuse, specular, 20));
+        }
+        return scene;
+    }
+
+    /**
+     * Rayons primaires passant par des pixels tirés au hasard, calculés comme dans RayTracer.
+     * @param scene Scène (taille et caméra)
+     * @param count Nombre de rayons
+     * @param seed Graine du tirage
+     */
+    static Ray[] primaryRays(Scene scene, int count, long seed) {
+        int width = scene.getWidth();
+        int height = scene.getHeight();
+        OrthonormalBasis onb = new OrthonormalBasis(scene.getCamera());
+        double pixelHeight = Math.tan(Math.toRadians(scene.getCamera().getFov()) / 2.0);
+        double pixelWidth = pixelHeight * width / height;
+        Point origin = scene.getCamera().getLookFrom();
+
+        Random random = new Random(seed);
+        Ray[] rays = new Ray[count];
+        for (int k = 0; k < count; k++) {
+            int i = random.nextInt(width);
+            int j = random.nextInt(height);
+            double a = (pixelWidth * (i - (width / 2.0) + 0.5)) / (width / 2.0);
+            double b = (pixelHeight * ((height / 2.0) - j + 0.5)) / (height / 2.0);
+            Vector d = onb.getU().multiply(a).add(onb.getV().multiply(b)).subtract(onb.getW()).normalize();
+            rays[k] = new Ray(origin, d);
+        }
+        return rays;
+    }
+}
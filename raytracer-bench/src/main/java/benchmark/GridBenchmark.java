@@ -0,0 +1,72 @@
+package benchmark;
+
+import acceleration.Accelerator;
+import math.Ray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import scene.Scene;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grille régulière contre hiérarchie : construction de la structure, puis rayon primaire
+ * le plus proche. Les scènes "spheres-N" sont générées (N sphères de tailles voisines
+ * réparties dans un cube, voir BenchScenes.sphereField) ; le dragon sert de contre-exemple
+ * (géométrie concentrée sur une petite partie de sa boîte).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GridBenchmark {
+
+    private static final int RAYS = 4096;
+    private static final String GENERATED = "spheres-";
+
+    @Param({"spheres-1000", "spheres-20000", "spheres-200000", "final_avec_bonus.scene"})
+    public String scene;
+
+    @Param({"bvh", "grid"})
+    public String structure;
+
+    private Scene loaded;
+    private Ray[] rays;
+
+    @Setup
+    public void setUp() {
+        loaded = scene.startsWith(GENERATED)
+                ? BenchScenes.sphereField(Integer.parseInt(scene.substring(GENERATED.length())), 5)
+                : BenchScenes.load(scene);
+        loaded.setAccelerator(Accelerator.fromKey(structure));
+        loaded.buildAccelerationStructure();
+        rays = BenchScenes.primaryRays(loaded, RAYS, 7);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Scene build() {
+        loaded.buildAccelerationStructure();
+        return loaded;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(RAYS)
+    public void findClosestIntersection(Blackhole blackhole) {
+        for (Ray ray : rays) {
+            blackhole.consume(loaded.findClosestIntersection(ray));
+        }
+    }
+}
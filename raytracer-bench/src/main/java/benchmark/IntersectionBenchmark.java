@@ -0,0 +1,112 @@
+package benchmark;
+
+import geometry.Plane;
+import geometry.Shape;
+import geometry.Sphere;
+import geometry.Triangle;
+import imaging.Color;
+import math.Point;
+import math.Ray;
+import math.Vector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Intersection rayon-forme isolée : sphère, triangle et plan,
+ * par l'API complète (intersect) et par la distance seule (hitDistance).
+ * Environ la moitié des rayons touchent la forme.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IntersectionBenchmark {
+
+    private static final int RAYS = 1024;
+
+    private Sphere sphere;
+    private Triangle triangle;
+    private Plane plane;
+    private Ray[] rays;
+
+    @Setup
+    public void setUp() {
+        Color diffuse = new Color(0.5, 0.5, 0.5);
+        Color specular = new Color(0.2, 0.2, 0.2);
+        sphere = new Sphere(new Point(0, 0, 0), 1.0, diffuse, specular, 10);
+        triangle = new Triangle(new Point(-1, -1, 0), new Point(1, -1, 0), new Point(0, 1, 0), diffuse, specular, 10);
+        plane = new Plane(new Point(0, 0, 0), new Vector(0.1, 0.2, 1), diffuse, specular, 10);
+
+        // Rayons partant de z = -5 vers une cible du carré [-2, 2]² du plan z = 0
+        Random random = new Random(42);
+        rays = new Ray[RAYS];
+        for (int k = 0; k < RAYS; k++) {
+            Point origin = new Point(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -5);
+            Point target = new Point(4 * random.nextDouble() - 2, 4 * random.nextDouble() - 2, 0);
+            rays[k] = new Ray(origin, target.subtract(origin).normalize());
+        }
+    }
+
+    private void intersectAll(Shape shape, Blackhole blackhole) {
+        for (Ray ray : rays) {
+            blackhole.consume(shape.intersect(ray));
+        }
+    }
+
+    private void hitDistanceAll(Shape shape, Blackhole blackhole) {
+        for (Ray ray : rays) {
+            blackhole.consume(shape.hitDistance(ray));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void sphereIntersect(Blackhole blackhole) {
+        intersectAll(sphere, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void sphereHitDistance(Blackhole blackhole) {
+        hitDistanceAll(sphere, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void triangleIntersect(Blackhole blackhole) {
+        intersectAll(triangle, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void triangleHitDistance(Blackhole blackhole) {
+        hitDistanceAll(triangle, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void planeIntersect(Blackhole blackhole) {
+        intersectAll(plane, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void planeHitDistance(Blackhole blackhole) {
+        hitDistanceAll(plane, blackhole);
+    }
+}
@@ -0,0 +1,68 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import parsing.ParsingException;
+import parsing.SceneFileParser;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analyse des fichiers de scène (SceneFileParser.parse), construction de la hiérarchie comprise.
+ * Un parser neuf est créé à chaque fichier, comme dans Main.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+    private List<String> jalonScenes;
+    private String dragon;
+
+    @Setup
+    public void setUp() {
+        // Certaines scènes de test sont volontairement invalides : on ne garde que les autres
+        jalonScenes = new ArrayList<>();
+        for (Path path : BenchScenes.jalonScenes()) {
+            try {
+                new SceneFileParser().parse(path.toString());
+                jalonScenes.add(path.toString());
+            } catch (ParsingException | IOException e) {
+                // Ignorée
+            }
+        }
+        dragon = BenchScenes.path("final_avec_bonus.scene").toString();
+    }
+
+    /** Toutes les scènes valides des dossiers jalon*, l'une après l'autre. */
+    @Benchmark
+    public void parseJalonScenes(Blackhole blackhole) throws IOException {
+        for (String scene : jalonScenes) {
+            blackhole.consume(new SceneFileParser().parse(scene));
+        }
+    }
+
+    /** Le dragon : 100 000 triangles. */
+    @Benchmark
+    @Warmup(iterations = 2, time = 5)
+    @Measurement(iterations = 3, time = 5)
+    public void parseDragon(Blackhole blackhole) throws IOException {
+        blackhole.consume(new SceneFileParser().parse(dragon));
+    }
+}
@@ -0,0 +1,64 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import raytracer.RayTracer;
+import scene.Scene;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Couleur d'un pixel (RayTracer.getPixelColor) : rayon primaire, ombres et réflexions.
+ * Les pixels sont tirés au hasard dans toute l'image.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RayTracerBenchmark {
+
+    private static final int PIXELS = 1024;
+
+    @Param({"final.scene", "final_avec_bonus.scene"})
+    public String scene;
+
+    private RayTracer rayTracer;
+    private int[] columns;
+    private int[] rows;
+
+    @Setup
+    public void setUp() {
+        Scene loaded = BenchScenes.load(scene);
+        rayTracer = new RayTracer(loaded);
+
+        Random random = new Random(3);
+        columns = new int[PIXELS];
+        rows = new int[PIXELS];
+        for (int k = 0; k < PIXELS; k++) {
+            columns[k] = random.nextInt(loaded.getWidth());
+            rows[k] = random.nextInt(loaded.getHeight());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIXELS)
+    public void getPixelColor(Blackhole blackhole) {
+        for (int k = 0; k < PIXELS; k++) {
+            blackhole.consume(rayTracer.getPixelColor(columns[k], rows[k]));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package benchmark;
+
+import imaging.Renderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import scene.Scene;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendu complet d'une image (Renderer.render), scène déjà chargée.
+ * La taille de l'image est réduite pour garder des itérations courtes ;
+ * la caméra et le champ de vision restent ceux de la scène.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RenderBenchmark {
+
+    @Param({"final.scene:320x180", "final_avec_bonus.scene:160x120"})
+    public String scene;
+
+    @Param({"1", "8"})
+    public int threads;
+
+    private Scene loaded;
+    private Renderer renderer;
+
+    @Setup
+    public void setUp() {
+        String[] nameAndSize = scene.split(":");
+        String[] size = nameAndSize[1].split("x");
+        loaded = BenchScenes.load(nameAndSize[0]);
+        loaded.setWidth(Integer.parseInt(size[0]));
+        loaded.setHeight(Integer.parseInt(size[1]));
+        renderer = new Renderer(threads, Renderer.DEFAULT_TILE_SIZE);
+    }
+
+    @Benchmark
+    public BufferedImage render() {
+        return renderer.render(loaded);
+    }
+}
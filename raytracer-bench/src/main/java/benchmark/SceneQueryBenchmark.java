@@ -0,0 +1,91 @@
+package benchmark;
+
+import math.Point;
+import math.Ray;
+import math.Vector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import raytracer.AbstractLight;
+import raytracer.Intersection;
+import scene.Scene;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requêtes sur une scène complète : rayon primaire le plus proche
+ * (Scene.findClosestIntersection) et rayon d'ombre (Scene.isShadowed).
+ * Les rayons d'ombre partent des impacts des rayons primaires vers la première lumière.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SceneQueryBenchmark {
+
+    private static final int RAYS = 4096;
+
+    @Param({"final.scene", "final_avec_bonus.scene"})
+    public String scene;
+
+    private Scene loaded;
+    private Ray[] primaryRays;
+    private Ray[] shadowRays;
+    private double[] lightDistances;
+
+    @Setup
+    public void setUp() {
+        loaded = BenchScenes.load(scene);
+        primaryRays = BenchScenes.primaryRays(loaded, RAYS, 7);
+
+        AbstractLight light = loaded.getLights().get(0);
+        List<Ray> shadows = new ArrayList<>();
+        List<Double> distances = new ArrayList<>();
+        for (Ray ray : primaryRays) {
+            Optional<Intersection> hit = loaded.findClosestIntersection(ray);
+            if (hit.isEmpty()) continue;
+            Point p = hit.get().getPoint();
+            Vector l = light.getL(p);
+            shadows.add(new Ray(p, l));
+            distances.add(light.getDistance(p));
+        }
+        // Longueur fixe pour OperationsPerInvocation : on répète les rayons d'ombre obtenus
+        shadowRays = new Ray[RAYS];
+        lightDistances = new double[RAYS];
+        for (int k = 0; k < RAYS; k++) {
+            shadowRays[k] = shadows.get(k % shadows.size());
+            lightDistances[k] = distances.get(k % shadows.size());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void findClosestIntersection(Blackhole blackhole) {
+        for (Ray ray : primaryRays) {
+            blackhole.consume(loaded.findClosestIntersection(ray));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void isShadowed(Blackhole blackhole) {
+        for (int k = 0; k < RAYS; k++) {
+            blackhole.consume(loaded.isShadowed(shadowRays[k], lightDistances[k]));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package acceleration;
+
+/**
+ * Structure d'accélération d'une scène, choisie par la ligne {@code accelerator} du fichier.
+ * Toutes donnent la même image : seule la vitesse de construction et de parcours change.
+ */
+public enum Accelerator {
+    /** Hiérarchie de volumes englobants ({@link Bvh}) : le meilleur choix dans la plupart des scènes. */
+    BVH("bvh"),
+    /** Grille régulière ({@link UniformGrid}) : pour les scènes denses d'objets de tailles voisines, répartis uniformément. */
+    GRID("grid");
+
+    private final String key;
+
+    Accelerator(String key) {
+        this.key = key;
+    }
+
+    /** Nom utilisé dans le fichier de scène. */
+    public String getKey() { return key; }
+
+    /**
+     * Structure correspondant à un nom du fichier de scène.
+     * @param key Nom de la structure (bvh ou grid)
+     * @return La structure
+     * @throws IllegalArgumentException Si le nom est inconnu
+     */
+    public static Accelerator fromKey(String key) {
+        for (Accelerator accelerator : values()) {
+            if (accelerator.key.equals(key)) return accelerator;
+        }
+        throw new IllegalArgumentException("Structure d'accélération inconnue : " + key);
+    }
+}
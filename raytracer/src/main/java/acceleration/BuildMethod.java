@@ -0,0 +1,34 @@
+package acceleration;
+
+/**
+ * Méthodes de construction de la hiérarchie de volumes englobants.
+ * Toutes donnent la même image : seule la vitesse de construction et de parcours change.
+ */
+public enum BuildMethod {
+    /** Heuristique d'aire de surface : arbre de meilleure qualité, construction plus longue. */
+    SAH("sah"),
+    /** Tri des centres par code de Morton (LBVH) : construction en temps linéaire, pour les aperçus. */
+    LBVH("lbvh");
+
+    private final String key;
+
+    BuildMethod(String key) {
+        this.key = key;
+    }
+
+    /** Nom utilisé sur la ligne de commande. */
+    public String getKey() { return key; }
+
+    /**
+     * Méthode correspondant à un nom de la ligne de commande.
+     * @param key Nom de la méthode (sah ou lbvh)
+     * @return La méthode
+     * @throws IllegalArgumentException Si le nom est inconnu
+     */
+    public static BuildMethod fromKey(String key) {
+        for (BuildMethod method : values()) {
+            if (method.key.equals(key)) return method;
+        }
+        throw new IllegalArgumentException("Méthode de construction inconnue : " + key);
+    }
+}
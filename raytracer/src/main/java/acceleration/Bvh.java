@@ -0,0 +1,1253 @@
+package acceleration;
+
+import geometry.BoundingBox;
+import geometry.Shape;
+import math.Point;
+import math.Ray;
+import math.Vector;
+import raytracer.HitRecord;
+import raytracer.Intersection;
+import stats.RayCounters;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Hiérarchie de volumes englobants (BVH) construite selon l'heuristique d'aire de surface (SAH)
+ * ou, pour les aperçus, par tri des primitives selon un code de Morton (LBVH, voir {@link BuildMethod}).
+ * L'arbre range des primitives (une par forme simple, une par triangle de maillage),
+ * numérotées dans l'ordre de la scène. Les formes infinies (plans) restent dans
+ * une petite liste testée à chaque rayon.
+ * Le résultat est identique au parcours linéaire : à distance égale,
+ * la primitive ajoutée en premier à la scène l'emporte.
+ */
+public class Bvh {
+
+    /** Nombre maximal de formes dans une feuille. */
+    private static final int MAX_LEAF_SIZE = 4;
+    /** Coût d'un test rayon-boîte, relatif au coût d'un test rayon-forme. */
+    private static final double TRAVERSAL_COST = 0.125;
+    /** Marge ajoutée aux boîtes pour absorber les erreurs d'arrondi. */
+    private static final double BOX_MARGIN = 1e-7;
+    /** Nombre de classes par axe pour l'évaluation SAH. */
+    private static final int BIN_COUNT = 16;
+    /** Taille minimale d'un sous-arbre pour le confier à une autre tâche de construction. */
+    private static final int PARALLEL_THRESHOLD = 4096;
+    /** Nombre de cellules par axe de la grille des codes de Morton (21 bits, 63 bits par code). */
+    private static final int MORTON_CELLS = 1 << 21;
+    // Deuxième valeur d'un nœud dans nodes[] : nombre de primitives (> 0) pour une feuille,
+    // -1 - axe de la coupe (< 0) pour un nœud interne. La première valeur est l'indice de
+    // la première primitive dans primitives[] pour une feuille, celui de l'enfant droit sinon.
+    private static final int LEAF_COUNT = 1;
+    // Résultats du test d'une boîte pour tout un paquet (voir classify)
+    private static final int PACKET_MISS = 0;
+    private static final int PACKET_HIT = 1;
+    private static final int PACKET_MIXED = 2;
+    /** Nombre minimal de rayons actifs pour tester une boîte d'abord pour tout le paquet. */
+    private static final int PACKET_MIN_RAYS = 4;
+
+    private final Shape[] shapes;       // Toutes les formes, dans l'ordre de la scène
+    private final int[] refShape;       // Pour chaque primitive : indice de sa forme
+    private final int[] refPrimitive;   // Pour chaque primitive : indice dans sa forme
+    private final int[] unbounded;      // Primitives non bornées
+    private final int[] primitives;     // Primitives bornées, dans l'ordre des feuilles
+
+    // Arbre aplati en préordre : l'enfant gauche d'un nœud interne le suit immédiatement.
+    // Aucun tableau n'est vide dès qu'il y a une primitive bornée ; la racine est le nœud 0.
+    private double[] nodeBounds;        // Boîte de chaque nœud : 6 valeurs (min, max)
+    private int[] nodes;                // 2 valeurs par nœud, voir LEAF_COUNT
+    private int maxDepth;               // Profondeur maximale, pour dimensionner la pile de parcours
+    private WideBvh wide;               // Version à 4 enfants par nœud, utilisée si non null (voir widen)
+    private TriangleBlocks leaves;      // Triangles des feuilles par blocs de 4, utilisés si non null
+    private long buildNanos;            // Durée de la construction (0 pour un arbre relu)
+    // Pile de parcours de chaque thread, réutilisée d'une requête à l'autre
+    private final ThreadLocal<TraversalStack> stacks = ThreadLocal.withInitial(() -> new TraversalStack(maxDepth + 1));
+
+    // Données de construction, libérées une fois l'arbre construit
+    // Boîtes des primitives bornées : 6 valeurs (min, max) par case de primitives[], déplacées
+    // avec elles lors des partitions pour que chaque passe lise la mémoire dans l'ordre
+    private double[] boxes;
+    private ForkJoinPool buildPool;     // Pool de construction parallèle (null : construction séquentielle)
+    private long[] mortonCodes;         // Codes de Morton triés, par case (construction LBVH uniquement)
+
+    /**
+     * Nœud de construction : soit interne (deux enfants), soit feuille (plage de primitives).
+     * L'arbre est ensuite aplati dans nodeBounds et nodes, et ces objets sont abandonnés.
+     */
+    private static final class Node {
+        final BoundingBox bounds;
+        Node left;
+        Node right;
+        int axis;  // Axe de la coupe, pour l'ordre de parcours des enfants
+        int start;
+        int count; // > 0 pour une feuille
+
+        Node(BoundingBox bounds) {
+            this.bounds = bounds;
+        }
+    }
+
+    /**
+     * Construit la hiérarchie sur les formes de la scène, en parallèle sur tous les cœurs.
+     * @param sceneShapes Formes de la scène, dans leur ordre d'ajout
+     */
+    public Bvh(List<Shape> sceneShapes) {
+        this(sceneShapes, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Construit la hiérarchie sur les formes de la scène.
+     * L'arbre obtenu est le même quel que soit le nombre de threads.
+     * @param sceneShapes Formes de la scène, dans leur ordre d'ajout
+     * @param threads Nombre de threads de construction (1 = construction séquentielle)
+     */
+    public Bvh(List<Shape> sceneShapes, int threads) {
+        this(sceneShapes, BuildMethod.SAH, threads);
+    }
+
+    /**
+     * Construit la hiérarchie sur les formes de la scène avec la méthode choisie.
+     * L'arbre obtenu est le même quel que soit le nombre de threads.
+     * @param sceneShapes Formes de la scène, dans leur ordre d'ajout
+     * @param method Méthode de construction
+     * @param threads Nombre de threads de construction (1 = construction séquentielle)
+     */
+    public Bvh(List<Shape> sceneShapes, BuildMethod method, int threads) {
+        this(sceneShapes, null, method, threads);
+    }
+
+    /**
+     * Recrée une hiérarchie sauvegardée par {@link #writeTo}, sans refaire la construction.
+     * @param sceneShapes Formes de la scène, dans l'ordre utilisé lors de la sauvegarde
+     * @param saved Données sauvegardées, lues à partir de la position courante
+     * @return La hiérarchie restaurée
+     * @throws IllegalArgumentException Si la sauvegarde ne correspond pas aux formes
+     */
+    public static Bvh readFrom(List<Shape> sceneShapes, ByteBuffer saved) {
+        return new Bvh(sceneShapes, saved, BuildMethod.SAH, 1);
+    }
+
+    private Bvh(List<Shape> sceneShapes, ByteBuffer saved, BuildMethod method, int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Nombre de threads invalide : " + threads);
+        long startTime = System.nanoTime();
+        this.shapes = sceneShapes.toArray(new Shape[0]);
+
+        int refCount = 0;
+        int boundedCount = 0;
+        for (Shape shape : shapes) {
+            refCount += shape.getPrimitiveCount();
+            if (shape.isBounded()) boundedCount += shape.getPrimitiveCount();
+        }
+        this.refShape = new int[refCount];
+        this.refPrimitive = new int[refCount];
+        this.primitives = new int[boundedCount];
+        this.unbounded = new int[refCount - boundedCount];
+        if (saved == null) {
+            this.boxes = new double[6 * boundedCount];
+        }
+
+        int ref = 0;
+        int b = 0;
+        int u = 0;
+        for (int shapeIndex = 0; shapeIndex < shapes.length; shapeIndex++) {
+            Shape shape = shapes[shapeIndex];
+            for (int primitive = 0; primitive < shape.getPrimitiveCount(); primitive++, ref++) {
+                refShape[ref] = shapeIndex;
+                refPrimitive[ref] = primitive;
+                if (!shape.isBounded()) {
+                    unbounded[u++] = ref;
+                    continue;
+                }
+                if (saved == null) {
+                    BoundingBox box = shape.getBoundingBox(primitive).expand(BOX_MARGIN);
+                    boxes[6 * b]     = box.getMinX();
+                    boxes[6 * b + 1] = box.getMinY();
+                    boxes[6 * b + 2] = box.getMinZ();
+                    boxes[6 * b + 3] = box.getMaxX();
+                    boxes[6 * b + 4] = box.getMaxY();
+                    boxes[6 * b + 5] = box.getMaxZ();
+                }
+                primitives[b++] = ref;
+            }
+        }
+
+        if (saved != null) {
+            restore(saved);
+            return;
+        }
+        if (boundedCount == 0) {
+            this.nodeBounds = new double[0];
+            this.nodes = new int[0];
+        } else {
+            if (threads > 1 && boundedCount >= PARALLEL_THRESHOLD) buildPool = new ForkJoinPool(threads);
+            try {
+                if (method == BuildMethod.LBVH) sortByMortonCode(boundedCount);
+                BuildTask task = new BuildTask(0, boundedCount);
+                flatten(buildPool == null ? task.compute() : buildPool.invoke(task));
+            } finally {
+                if (buildPool != null) buildPool.shutdown();
+                buildPool = null;
+                mortonCodes = null;
+            }
+        }
+        this.boxes = null;
+        this.buildNanos = System.nanoTime() - startTime;
+    }
+
+    /**
+     * Range l'arbre construit dans nodeBounds et nodes, en préordre.
+     */
+    private void flatten(Node root) {
+        int nodeCount = countNodes(root);
+        nodeBounds = new double[6 * nodeCount];
+        nodes = new int[2 * nodeCount];
+        flattenNode(root, 0, 1);
+    }
+
+    private static int countNodes(Node node) {
+        return node.count > 0 ? 1 : 1 + countNodes(node.left) + countNodes(node.right);
+    }
+
+    /** Range un sous-arbre à partir de l'indice index et renvoie l'indice suivant. */
+    private int flattenNode(Node node, int index, int depth) {
+        maxDepth = Math.max(maxDepth, depth);
+        BoundingBox b = node.bounds;
+        nodeBounds[6 * index]     = b.getMinX();
+        nodeBounds[6 * index + 1] = b.getMinY();
+        nodeBounds[6 * index + 2] = b.getMinZ();
+        nodeBounds[6 * index + 3] = b.getMaxX();
+        nodeBounds[6 * index + 4] = b.getMaxY();
+        nodeBounds[6 * index + 5] = b.getMaxZ();
+        if (node.count > 0) {
+            nodes[2 * index] = node.start;
+            nodes[2 * index + LEAF_COUNT] = node.count;
+            return index + 1;
+        }
+        int right = flattenNode(node.left, index + 1, depth + 1);
+        nodes[2 * index] = right;
+        nodes[2 * index + LEAF_COUNT] = -1 - node.axis;
+        return flattenNode(node.right, right, depth + 1);
+    }
+
+    /**
+     * Sauvegarde l'arbre construit : ordre des primitives dans les feuilles, puis les deux
+     * tableaux de nœuds tels qu'ils sont en mémoire, pour pouvoir être relus en bloc.
+     * @param out Flux de sortie
+     * @throws IOException Si l'écriture échoue
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(primitives.length);
+        for (int ref : primitives) out.writeInt(ref);
+        out.writeInt(nodes.length / 2);
+        for (double value : nodeBounds) out.writeDouble(value);
+        for (int value : nodes) out.writeInt(value);
+    }
+
+    /**
+     * Relit l'arbre écrit par writeTo directement dans les tableaux de nœuds, en vérifiant
+     * qu'il couvre bien les primitives de la scène et qu'il forme un arbre.
+     */
+    private void restore(ByteBuffer in) {
+        if (in.getInt() != primitives.length) {
+            throw new IllegalArgumentException("Hiérarchie sauvegardée incompatible avec la scène.");
+        }
+        readInts(in, primitives);
+        for (int ref : primitives) {
+            if (ref < 0 || ref >= refShape.length || !shapes[refShape[ref]].isBounded()) {
+                throw new IllegalArgumentException("Primitive invalide dans la hiérarchie sauvegardée : " + ref);
+            }
+        }
+
+        int nodeCount = in.getInt();
+        if (nodeCount < 0 || nodeCount > in.remaining() / (6 * Double.BYTES + 2 * Integer.BYTES)
+                || (nodeCount == 0) != (primitives.length == 0)) {
+            throw new IllegalArgumentException("Hiérarchie sauvegardée vide ou incohérente.");
+        }
+        nodeBounds = new double[6 * nodeCount];
+        nodes = new int[2 * nodeCount];
+        in.asDoubleBuffer().get(nodeBounds);
+        in.position(in.position() + Double.BYTES * nodeBounds.length);
+        readInts(in, nodes);
+
+        // Chaque nœud sauf la racine doit avoir un seul parent, placé avant lui : c'est alors un arbre
+        int[] parents = new int[nodeCount];
+        int[] depths = new int[nodeCount];
+        for (int index = 0; index < nodeCount; index++) {
+            if (index > 0 && parents[index] != 1) {
+                throw new IllegalArgumentException("Hiérarchie sauvegardée incohérente.");
+            }
+            int depth = index == 0 ? 1 : depths[index];
+            maxDepth = Math.max(maxDepth, depth);
+            int first = nodes[2 * index];
+            int info = nodes[2 * index + LEAF_COUNT];
+            if (info > 0) {
+                if (first < 0 || first + info > primitives.length || first + info < 0) {
+                    throw new IllegalArgumentException("Feuille invalide dans la hiérarchie sauvegardée.");
+                }
+            } else {
+                if (info < -3 || info == 0 || first <= index + 1 || first >= nodeCount) {
+                    throw new IllegalArgumentException("Hiérarchie sauvegardée incohérente.");
+                }
+                parents[index + 1]++;
+                parents[first]++;
+                depths[index + 1] = depth + 1;
+                depths[first] = depth + 1;
+            }
+        }
+    }
+
+    private static void readInts(ByteBuffer in, int[] values) {
+        in.asIntBuffer().get(values);
+        in.position(in.position() + Integer.BYTES * values.length);
+    }
+
+    /** Nombre de primitives rangées dans l'arbre. */
+    public int getBoundedCount() { return primitives.length; }
+
+    /** Nombre de primitives non bornées testées à part. */
+    public int getUnboundedCount() { return unbounded.length; }
+
+    /** Profondeur de l'arbre. */
+    public int getDepth() { return maxDepth; }
+
+    /** Durée de la construction en nanosecondes (0 pour un arbre relu par readFrom). */
+    public long getBuildTime() { return buildNanos; }
+
+    /**
+     * Mémoire occupée par les tableaux de l'arbre, version à 4 enfants et blocs de triangles
+     * compris, en octets. C'est une estimation : les formes elles-mêmes ne sont pas comptées.
+     */
+    public long getMemoryFootprint() {
+        long bytes = 8L * shapes.length + 8L * nodeBounds.length
+                + 4L * (refShape.length + refPrimitive.length + unbounded.length + primitives.length + nodes.length);
+        if (wide != null) bytes += wide.getMemoryFootprint();
+        if (leaves != null) bytes += leaves.getMemoryFootprint();
+        return bytes;
+    }
+
+    /**
+     * Regroupe les nœuds par 4 : les requêtes suivantes parcourent cette version, dont les quatre
+     * boîtes d'un nœud sont testées ensemble. L'arbre binaire reste celui qui est sauvegardé.
+     * @param simd Tester les boîtes avec l'API Vector quand elle est disponible
+     *             (sinon, ou si false : boucle scalaire)
+     */
+    public void widen(boolean simd) {
+        wide = new WideBvh(shapes, refShape, refPrimitive, unbounded, primitives,
+                nodeBounds, nodes, maxDepth, simd && WideBvh.isSimdAvailable());
+        wide.setLeaves(leaves);
+    }
+
+    /**
+     * Regroupe les triangles de chaque feuille en blocs de 4 (structure de tableaux) : les requêtes
+     * sans compteurs testent ensuite les triangles d'un bloc d'un seul coup, dans cet arbre comme
+     * dans sa version à 4 enfants. Les requêtes avec compteurs gardent le test primitive par primitive.
+     * @param simd Tester les blocs avec l'API Vector quand elle est disponible
+     *             (sinon, ou si false : boucle scalaire)
+     */
+    public void groupTriangles(boolean simd) {
+        leaves = new TriangleBlocks(shapes, refShape, refPrimitive, primitives,
+                nodes, simd && WideBvh.isSimdAvailable());
+        if (wide != null) wide.setLeaves(leaves);
+    }
+
+    /** Les triangles des feuilles sont-ils regroupés en blocs (voir groupTriangles) ? */
+    public boolean isGrouped() { return leaves != null; }
+
+    /** Les blocs de triangles sont-ils testés avec l'API Vector ? */
+    public boolean isSimdGrouped() { return leaves != null && leaves.isSimd(); }
+
+    /** Les requêtes parcourent-elles la version à 4 enfants par nœud ? */
+    public boolean isWide() { return wide != null; }
+
+    /** Les boîtes de la version à 4 enfants sont-elles testées avec l'API Vector ? */
+    public boolean isSimd() { return wide != null && wide.isSimd(); }
+
+    /**
+     * L'API Vector est-elle utilisable ? Il faut lancer la JVM avec
+     * --add-modules jdk.incubator.vector, sur une machine dotée d'AVX.
+     */
+    public static boolean isSimdAvailable() { return WideBvh.isSimdAvailable(); }
+
+    /**
+     * Construit récursivement le sous-arbre des primitives [start, end).
+     * Sur chaque axe, les centres des primitives sont répartis en classes de même largeur
+     * (au plus BIN_COUNT) ; la coupe SAH est cherchée entre deux classes, puis la plage est
+     * partitionnée sur place. Les gros sous-arbres sont construits en parallèle : le résultat
+     * ne dépend que de l'ordre des primitives, jamais du nombre de threads.
+     */
+    private Node build(int start, int end, BinScratch scratch) {
+        int count = end - start;
+
+        // Boîte des primitives et boîte de leurs centres
+        double[] bounds = new double[6];
+        double[] centroidBounds = scratch.centroidBounds;
+        computeBounds(start, end, bounds, centroidBounds);
+        Node node = new Node(toBox(bounds));
+        if (count == 1) {
+            return makeLeaf(node, start, count);
+        }
+
+        // Peu de primitives : autant de classes que de primitives suffit
+        int binCount = Math.min(BIN_COUNT, count);
+        double[] scales = scratch.scales;
+        for (int axis = 0; axis < 3; axis++) {
+            double extent = centroidBounds[axis + 3] - centroidBounds[axis];
+            scales[axis] = extent > 0 ? binCount / extent : 0; // Centres confondus : pas de coupe sur cet axe
+        }
+        fillBins(start, end, binCount, scratch);
+
+        double parentArea = node.bounds.surfaceArea();
+        double bestCost = Double.POSITIVE_INFINITY;
+        int bestAxis = -1;
+        int bestBin = 0;
+
+        int[] binCounts = scratch.counts;
+        double[] binBounds = scratch.bounds;
+        int[] rightCounts = scratch.rightCounts;
+        double[] rightAreas = scratch.rightAreas;
+        double[] acc = scratch.accumulator;
+        for (int axis = 0; axis < 3; axis++) {
+            if (scales[axis] == 0) continue;
+            int first = axis * BIN_COUNT;
+
+            // Boîtes des classes [b, binCount)
+            resetBin(acc, 0);
+            int n = 0;
+            for (int b = binCount - 1; b > 0; b--) {
+                mergeBin(acc, binBounds, first + b);
+                n += binCounts[first + b];
+                rightCounts[b] = n;
+                rightAreas[b] = area(acc);
+            }
+
+            // Balayage des coupes : coût = Ct * A + A(gauche) * N(gauche) + A(droite) * N(droite)
+            resetBin(acc, 0);
+            n = 0;
+            for (int b = 1; b < binCount; b++) {
+                mergeBin(acc, binBounds, first + b - 1);
+                n += binCounts[first + b - 1];
+                if (n == 0 || rightCounts[b] == 0) continue;
+                double cost = TRAVERSAL_COST * parentArea + area(acc) * n + rightAreas[b] * rightCounts[b];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBin = b;
+                }
+            }
+        }
+
+        double leafCost = count * parentArea;
+        if (count <= MAX_LEAF_SIZE && leafCost <= bestCost) {
+            return makeLeaf(node, start, count);
+        }
+
+        int middle;
+        if (bestAxis < 0) {
+            // Aucune coupe possible entre classes (centres confondus) : on coupe la plage en deux
+            middle = start + count / 2;
+        } else {
+            middle = partition(start, end, bestAxis, centroidBounds[bestAxis], scales[bestAxis], binCount, bestBin);
+        }
+
+        node.axis = Math.max(bestAxis, 0);
+        if (buildPool != null && count >= PARALLEL_THRESHOLD) {
+            BuildTask left = new BuildTask(start, middle);
+            left.fork();
+            node.right = build(middle, end, scratch);
+            node.left = left.join();
+        } else {
+            node.left = build(start, middle, scratch);
+            node.right = build(middle, end, scratch);
+        }
+        return node;
+    }
+
+    /**
+     * Construction d'un sous-arbre dans le pool de construction.
+     */
+    private final class BuildTask extends RecursiveTask<Node> {
+        private final int start;
+        private final int end;
+
+        BuildTask(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Node compute() {
+            BinScratch scratch = new BinScratch();
+            return mortonCodes == null ? build(start, end, scratch) : buildLinear(start, end, scratch);
+        }
+    }
+
+    /**
+     * Trie les primitives [0, count) par code de Morton de leur centre, calculé sur une grille
+     * de MORTON_CELLS cellules par axe tendue sur la boîte des centres. Le tri est stable :
+     * à code égal, l'ordre de la scène est conservé.
+     */
+    private void sortByMortonCode(int count) {
+        double[] centroidBounds = new double[6];
+        computeBounds(0, count, new double[6], centroidBounds);
+        double[] scales = new double[3];
+        for (int axis = 0; axis < 3; axis++) {
+            double extent = centroidBounds[axis + 3] - centroidBounds[axis];
+            scales[axis] = extent > 0 ? MORTON_CELLS / extent : 0;
+        }
+
+        long[] codes = new long[count];
+        int[] order = new int[count];
+        for (int k = 0; k < count; k++) {
+            order[k] = k;
+            codes[k] = mortonCode(cellOf(k, 0, centroidBounds[0], scales[0]),
+                    cellOf(k, 1, centroidBounds[1], scales[1]),
+                    cellOf(k, 2, centroidBounds[2], scales[2]));
+        }
+        RadixSort.sort(codes, order, 63, buildPool);
+
+        // Primitives et boîtes rangées dans l'ordre des codes
+        int[] sortedPrimitives = new int[count];
+        double[] sortedBoxes = new double[6 * count];
+        for (int k = 0; k < count; k++) {
+            sortedPrimitives[k] = primitives[order[k]];
+            System.arraycopy(boxes, 6 * order[k], sortedBoxes, 6 * k, 6);
+        }
+        System.arraycopy(sortedPrimitives, 0, primitives, 0, count);
+        boxes = sortedBoxes;
+        mortonCodes = codes;
+    }
+
+    /** Cellule de la grille de Morton contenant le centre de la case k sur un axe. */
+    private int cellOf(int k, int axis, double min, double scale) {
+        int cell = (int) ((centroid(k, axis) - min) * scale);
+        return cell < MORTON_CELLS ? cell : MORTON_CELLS - 1;
+    }
+
+    /**
+     * Code de Morton d'une cellule : bits des trois coordonnées entrelacés (x, y, z, de poids fort à faible).
+     * @param x Coordonnée sur 21 bits
+     * @param y Coordonnée sur 21 bits
+     * @param z Coordonnée sur 21 bits
+     * @return Code sur 63 bits
+     */
+    static long mortonCode(int x, int y, int z) {
+        return (spreadBits(x) << 2) | (spreadBits(y) << 1) | spreadBits(z);
+    }
+
+    /** Intercale deux zéros entre chacun des 21 bits de poids faible. */
+    private static long spreadBits(int value) {
+        long v = value & 0x1fffffL;
+        v = (v | (v << 32)) & 0x1f00000000ffffL;
+        v = (v | (v << 16)) & 0x1f0000ff0000ffL;
+        v = (v | (v << 8)) & 0x100f00f00f00f00fL;
+        v = (v | (v << 4)) & 0x10c30c30c30c30c3L;
+        v = (v | (v << 2)) & 0x1249249249249249L;
+        return v;
+    }
+
+    /**
+     * Construit le sous-arbre des primitives [start, end), déjà triées par code de Morton.
+     * La plage est coupée là où change le bit de poids fort qui distingue ses codes extrêmes,
+     * trouvé par dichotomie : aucun coût n'est évalué et chaque primitive n'est relue qu'à la feuille.
+     */
+    private Node buildLinear(int start, int end, BinScratch scratch) {
+        int count = end - start;
+        if (count <= MAX_LEAF_SIZE) {
+            double[] bounds = new double[6];
+            computeBounds(start, end, bounds, scratch.centroidBounds);
+            return makeLeaf(new Node(toBox(bounds)), start, count);
+        }
+
+        long first = mortonCodes[start];
+        long last = mortonCodes[end - 1];
+        int middle;
+        int axis = 0;
+        if (first == last) {
+            // Codes identiques : on coupe la plage en deux
+            middle = start + count / 2;
+        } else {
+            // Premier code ayant le bit distinctif à 1 (les codes de la plage partagent les bits plus forts)
+            long bit = Long.highestOneBit(first ^ last);
+            axis = 2 - Long.numberOfTrailingZeros(bit) % 3; // Bits x, y, z de poids décroissant
+            int low = start + 1;
+            int high = end - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if ((mortonCodes[mid] & bit) != 0) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            middle = low;
+        }
+
+        Node left;
+        Node right;
+        if (buildPool != null && count >= PARALLEL_THRESHOLD) {
+            BuildTask leftTask = new BuildTask(start, middle);
+            leftTask.fork();
+            right = buildLinear(middle, end, scratch);
+            left = leftTask.join();
+        } else {
+            left = buildLinear(start, middle, scratch);
+            right = buildLinear(middle, end, scratch);
+        }
+        Node node = new Node(left.bounds.union(right.bounds));
+        node.left = left;
+        node.right = right;
+        node.axis = axis;
+        return node;
+    }
+
+    /**
+     * Tableaux de travail d'une tâche de construction, réutilisés d'un nœud à l'autre.
+     * Leur contenu n'est valable que jusqu'aux appels récursifs.
+     */
+    private static final class BinScratch {
+        final double[] centroidBounds = new double[6];
+        final double[] scales = new double[3];
+        final int[] counts = new int[3 * BIN_COUNT];           // Classe axis * BIN_COUNT + b
+        final double[] bounds = new double[6 * 3 * BIN_COUNT];
+        final int[] rightCounts = new int[BIN_COUNT];
+        final double[] rightAreas = new double[BIN_COUNT];
+        final double[] accumulator = new double[6];
+    }
+
+    /** Boîte des primitives [start, end) et boîte de leurs centres. */
+    private void computeBounds(int start, int end, double[] bounds, double[] centroidBounds) {
+        // Accumulateurs locaux : les tableaux ne sont écrits qu'à la fin
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        double cMinX = Double.POSITIVE_INFINITY, cMinY = Double.POSITIVE_INFINITY, cMinZ = Double.POSITIVE_INFINITY;
+        double cMaxX = Double.NEGATIVE_INFINITY, cMaxY = Double.NEGATIVE_INFINITY, cMaxZ = Double.NEGATIVE_INFINITY;
+        for (int k = start; k < end; k++) {
+            int o = 6 * k;
+            double x0 = boxes[o], y0 = boxes[o + 1], z0 = boxes[o + 2];
+            double x1 = boxes[o + 3], y1 = boxes[o + 4], z1 = boxes[o + 5];
+            minX = Math.min(minX, x0); minY = Math.min(minY, y0); minZ = Math.min(minZ, z0);
+            maxX = Math.max(maxX, x1); maxY = Math.max(maxY, y1); maxZ = Math.max(maxZ, z1);
+            double cx = 0.5 * (x0 + x1), cy = 0.5 * (y0 + y1), cz = 0.5 * (z0 + z1);
+            cMinX = Math.min(cMinX, cx); cMinY = Math.min(cMinY, cy); cMinZ = Math.min(cMinZ, cz);
+            cMaxX = Math.max(cMaxX, cx); cMaxY = Math.max(cMaxY, cy); cMaxZ = Math.max(cMaxZ, cz);
+        }
+        bounds[0] = minX; bounds[1] = minY; bounds[2] = minZ;
+        bounds[3] = maxX; bounds[4] = maxY; bounds[5] = maxZ;
+        centroidBounds[0] = cMinX; centroidBounds[1] = cMinY; centroidBounds[2] = cMinZ;
+        centroidBounds[3] = cMaxX; centroidBounds[4] = cMaxY; centroidBounds[5] = cMaxZ;
+    }
+
+    /** Répartit les primitives [start, end) dans les classes des trois axes, en une passe. */
+    private void fillBins(int start, int end, int binCount, BinScratch scratch) {
+        int[] binCounts = scratch.counts;
+        double[] binBounds = scratch.bounds;
+        double[] centroidBounds = scratch.centroidBounds;
+        double[] scales = scratch.scales;
+        for (int axis = 0; axis < 3; axis++) {
+            for (int b = axis * BIN_COUNT; b < axis * BIN_COUNT + binCount; b++) {
+                binCounts[b] = 0;
+                resetBin(binBounds, b);
+            }
+        }
+        for (int k = start; k < end; k++) {
+            for (int axis = 0; axis < 3; axis++) {
+                int b = axis * BIN_COUNT + binOf(k, axis, centroidBounds[axis], scales[axis], binCount);
+                binCounts[b]++;
+                growBin(binBounds, b, k);
+            }
+        }
+    }
+
+    /** Centre de la boîte de la case k sur un axe. */
+    private double centroid(int k, int axis) {
+        return 0.5 * (boxes[6 * k + axis] + boxes[6 * k + 3 + axis]);
+    }
+
+    /** Classe de la primitive de la case k sur un axe. */
+    private int binOf(int k, int axis, double min, double scale, int binCount) {
+        int b = (int) ((centroid(k, axis) - min) * scale);
+        return b < binCount ? b : binCount - 1;
+    }
+
+    /**
+     * Range à gauche les primitives [start, end) dont la classe est inférieure à split.
+     * @return Début de la partie droite
+     */
+    private int partition(int start, int end, int axis, double min, double scale, int binCount, int split) {
+        int i = start;
+        int j = end - 1;
+        while (i <= j) {
+            if (binOf(i, axis, min, scale, binCount) < split) {
+                i++;
+            } else {
+                swap(i, j--);
+            }
+        }
+        return i;
+    }
+
+    /** Échange deux cases de primitives[] avec leurs boîtes. */
+    private void swap(int i, int j) {
+        int ref = primitives[i];
+        primitives[i] = primitives[j];
+        primitives[j] = ref;
+        for (int v = 0; v < 6; v++) {
+            double value = boxes[6 * i + v];
+            boxes[6 * i + v] = boxes[6 * j + v];
+            boxes[6 * j + v] = value;
+        }
+    }
+
+    private static BoundingBox toBox(double[] bounds) {
+        return new BoundingBox(bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5]);
+    }
+
+    private Node makeLeaf(Node node, int start, int count) {
+        node.start = start;
+        node.count = count;
+        return node;
+    }
+
+    private void grow(double[] acc, int k) {
+        for (int axis = 0; axis < 3; axis++) {
+            acc[axis] = Math.min(acc[axis], boxes[6 * k + axis]);
+            acc[axis + 3] = Math.max(acc[axis + 3], boxes[6 * k + 3 + axis]);
+        }
+    }
+
+    private static void resetBin(double[] bins, int b) {
+        for (int axis = 0; axis < 3; axis++) {
+            bins[6 * b + axis] = Double.POSITIVE_INFINITY;
+            bins[6 * b + 3 + axis] = Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    // Boîtes des classes : comparaisons simples plutôt que Math.min/max (pas de NaN ici),
+    // elles ne servent qu'à estimer le coût SAH
+    private void growBin(double[] bins, int b, int k) {
+        for (int axis = 0; axis < 3; axis++) {
+            double min = boxes[6 * k + axis];
+            double max = boxes[6 * k + 3 + axis];
+            if (min < bins[6 * b + axis]) bins[6 * b + axis] = min;
+            if (max > bins[6 * b + 3 + axis]) bins[6 * b + 3 + axis] = max;
+        }
+    }
+
+    private static void mergeBin(double[] acc, double[] bins, int b) {
+        for (int axis = 0; axis < 3; axis++) {
+            acc[axis] = Math.min(acc[axis], bins[6 * b + axis]);
+            acc[axis + 3] = Math.max(acc[axis + 3], bins[6 * b + 3 + axis]);
+        }
+    }
+
+    private static double area(double[] acc) {
+        double dx = acc[3] - acc[0];
+        double dy = acc[4] - acc[1];
+        double dz = acc[5] - acc[2];
+        return 2.0 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Cherche l'intersection la plus proche au-delà de tMin.
+     *
+     * @param ray Le rayon à tester
+     * @param tMin Distance minimale (évite l'auto-intersection)
+     * @return L'intersection la plus proche, ou vide
+     */
+    public Optional<Intersection> findClosestIntersection(Ray ray, double tMin) {
+        return findClosestIntersection(ray, tMin, null);
+    }
+
+    /**
+     * Cherche l'intersection la plus proche au-delà de tMin, en comptant les tests.
+     *
+     * @param ray Le rayon à tester
+     * @param tMin Distance minimale (évite l'auto-intersection)
+     * @param counters Compteurs du thread courant, ou null pour ne rien compter
+     * @return L'intersection la plus proche, ou vide
+     */
+    public Optional<Intersection> findClosestIntersection(Ray ray, double tMin, RayCounters counters) {
+        Point o = ray.getOrigin();
+        Vector d = ray.getDirection();
+        HitRecord hit = new HitRecord();
+        if (!findClosestHit(o.getX(), o.getY(), o.getZ(), d.getX(), d.getY(), d.getZ(), tMin, hit, counters)) {
+            return Optional.empty();
+        }
+        // Les données de surface ne sont construites que pour la primitive retenue
+        return Optional.of(hit.getShape().surfaceAt(hit.getPrimitive(), ray, hit.getT()));
+    }
+
+    /**
+     * Cherche l'impact le plus proche au-delà de tMin, sans aucune allocation : le rayon est
+     * donné par ses composantes, la pile de parcours est celle du thread courant.
+     * Mêmes règles et même résultat que findClosestIntersection.
+     *
+     * @param tMin Distance minimale (évite l'auto-intersection)
+     * @param out Reçoit l'impact s'il existe
+     * @param counters Compteurs du thread courant, ou null pour ne rien compter
+     * @return true si un impact est trouvé
+     */
+    public boolean findClosestHit(double ox, double oy, double oz, double dx, double dy, double dz,
+                                  double tMin, HitRecord out, RayCounters counters) {
+        if (wide != null) return wide.findClosestHit(ox, oy, oz, dx, dy, dz, tMin, out, counters);
+
+        // Meilleur impact : à distance égale, le numéro de primitive le plus petit l'emporte
+        double closestT = Double.MAX_VALUE;
+        int closestRef = Integer.MAX_VALUE;
+
+        for (int ref : unbounded) {
+            double t = shapes[refShape[ref]].hitDistance(refPrimitive[ref], ox, oy, oz, dx, dy, dz);
+            if (counters != null) counters.countTest(shapes[refShape[ref]], t > tMin);
+            if (t > tMin && (t < closestT || (t == closestT && ref < closestRef))) {
+                closestT = t;
+                closestRef = ref;
+            }
+        }
+
+        if (nodes.length > 0) {
+            double invDx = 1.0 / dx, invDy = 1.0 / dy, invDz = 1.0 / dz;
+
+            TraversalStack traversal = stacks.get().ensure(maxDepth + 1);
+            int[] stack = traversal.nodes;
+            double[] entries = traversal.entries;
+            int top = 0;
+            // Les blocs de triangles ne comptent pas leurs tests : on ne s'en sert que sans compteurs.
+            // Pendant le parcours, seul leaves.closest change le meilleur impact, recopié à chaque feuille.
+            TriangleBlocks.Hit hit = null;
+            if (leaves != null && counters == null) {
+                hit = traversal.hit;
+                hit.t = closestT;
+                hit.ref = closestRef;
+            }
+
+            double rootEntry = entryDistance(0, ox, oy, oz, invDx, invDy, invDz, closestT);
+            if (rootEntry != Double.POSITIVE_INFINITY) {
+                stack[top] = 0;
+                entries[top++] = rootEntry;
+            }
+
+            while (top > 0) {
+                int node = stack[--top];
+                if (entries[top] > closestT) continue; // Un impact plus proche a été trouvé depuis l'empilement
+
+                int first = nodes[2 * node];
+                int info = nodes[2 * node + LEAF_COUNT];
+                if (info > 0 && hit != null) {
+                    leaves.closest(first, info, ox, oy, oz, dx, dy, dz, tMin, hit);
+                    closestT = hit.t;
+                    closestRef = hit.ref;
+                    continue;
+                }
+                if (info > 0) {
+                    for (int k = first; k < first + info; k++) {
+                        int ref = primitives[k];
+                        double t = shapes[refShape[ref]].hitDistance(refPrimitive[ref], ox, oy, oz, dx, dy, dz);
+                        if (counters != null) counters.countTest(shapes[refShape[ref]], t > tMin);
+                        if (t > tMin && (t < closestT || (t == closestT && ref < closestRef))) {
+                            closestT = t;
+                            closestRef = ref;
+                        }
+                    }
+                    continue;
+                }
+
+                int left = node + 1;
+                double tLeft = entryDistance(left, ox, oy, oz, invDx, invDy, invDz, closestT);
+                double tRight = entryDistance(first, ox, oy, oz, invDx, invDy, invDz, closestT);
+
+                // On empile le plus lointain d'abord pour visiter le plus proche en premier ;
+                // à distance d'entrée égale, le sens du rayon sur l'axe de coupe désigne le plus proche
+                if (tLeft < tRight || (tLeft == tRight && !isNegative(-1 - info, dx, dy, dz))) {
+                    if (tRight != Double.POSITIVE_INFINITY) { stack[top] = first; entries[top++] = tRight; }
+                    if (tLeft != Double.POSITIVE_INFINITY) { stack[top] = left; entries[top++] = tLeft; }
+                } else {
+                    if (tLeft != Double.POSITIVE_INFINITY) { stack[top] = left; entries[top++] = tLeft; }
+                    if (tRight != Double.POSITIVE_INFINITY) { stack[top] = first; entries[top++] = tRight; }
+                }
+            }
+        }
+
+        if (closestRef == Integer.MAX_VALUE) {
+            return false;
+        }
+        out.set(closestT, shapes[refShape[closestRef]], refPrimitive[closestRef]);
+        return true;
+    }
+
+    /**
+     * Vérifie si une forme coupe le rayon entre tMin et tMax.
+     * S'arrête au premier obstacle trouvé, sans construire d'intersection.
+     *
+     * @param ray Le rayon à tester
+     * @param tMin Distance minimale (évite l'auto-intersection)
+     * @param tMax Distance maximale (par exemple la distance à la lumière)
+     * @return true si un obstacle est trouvé
+     */
+    public boolean isOccluded(Ray ray, double tMin, double tMax) {
+        return isOccluded(ray, tMin, tMax, null);
+    }
+
+    /**
+     * Vérifie si une forme coupe le rayon entre tMin et tMax, en comptant les tests.
+     *
+     * @param ray Le rayon à tester
+     * @param tMin Distance minimale (évite l'auto-intersection)
+     * @param tMax Distance maximale (par exemple la distance à la lumière)
+     * @param counters Compteurs du thread courant, ou null pour ne rien compter
+     * @return true si un obstacle est trouvé
+     */
+    public boolean isOccluded(Ray ray, double tMin, double tMax, RayCounters counters) {
+        Point o = ray.getOrigin();
+        Vector d = ray.getDirection();
+        return isOccluded(o.getX(), o.getY(), o.getZ(), d.getX(), d.getY(), d.getZ(), tMin, tMax, counters);
+    }
+
+    /**
+     * Vérifie si une forme coupe le rayon entre tMin et tMax, sans aucune allocation :
+     * le rayon est donné par ses composantes. Même résultat que isOccluded(ray, ...).
+     *
+     * @param tMin Distance minimale (évite l'auto-intersection)
+     * @param tMax Distance maximale (par exemple la distance à la lumière)
+     * @param counters Compteurs du thread courant, ou null pour ne rien compter
+     * @return true si un obstacle est trouvé
+     */
+    public boolean isOccluded(double ox, double oy, double oz, double dx, double dy, double dz,
+                              double tMin, double tMax, RayCounters counters) {
+        if (wide != null) return wide.isOccluded(ox, oy, oz, dx, dy, dz, tMin, tMax, counters);
+
+        for (int ref : unbounded) {
+            if (blocks(ref, ox, oy, oz, dx, dy, dz, tMin, tMax, counters)) return true;
+        }
+        if (nodes.length == 0) return false;
+
+        double invDx = 1.0 / dx, invDy = 1.0 / dy, invDz = 1.0 / dz;
+
+        TraversalStack traversal = stacks.get().ensure(maxDepth + 1);
+        int[] stack = traversal.nodes;
+        int top = 0;
+        stack[top++] = 0;
+        double[] scratch = leaves != null && counters == null ? traversal.nearest : null;
+
+        while (top > 0) {
+            int node = stack[--top];
+            if (entryDistance(node, ox, oy, oz, invDx, invDy, invDz, tMax) == Double.POSITIVE_INFINITY) {
+                continue;
+            }
+            int first = nodes[2 * node];
+            int info = nodes[2 * node + LEAF_COUNT];
+            if (info > 0 && scratch != null) {
+                if (leaves.blocks(first, info, ox, oy, oz, dx, dy, dz, tMin, tMax, scratch)) return true;
+            } else if (info > 0) {
+                for (int k = first; k < first + info; k++) {
+                    if (blocks(primitives[k], ox, oy, oz, dx, dy, dz, tMin, tMax, counters)) return true;
+                }
+            } else if (isNegative(-1 - info, dx, dy, dz)) {
+                // Enfant proche (côté de l'origine du rayon sur l'axe de coupe) dépilé en premier
+                stack[top++] = node + 1;
+                stack[top++] = first;
+            } else {
+                stack[top++] = first;
+                stack[top++] = node + 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Intersections les plus proches au-delà de tMin pour tous les rayons d'un paquet cohérent.
+     * Le paquet parcourt l'arbre binaire en bloc : chaque nœud dépilé porte le masque de ses rayons
+     * actifs ; il est écarté pour tout le paquet si les intervalles du paquet manquent sa boîte,
+     * sinon testé rayon par rayon. Les nœuds sont ainsi lus une fois pour tout le paquet.
+     * Un paquet divergent est tracé rayon par rayon. Chaque résultat est exactement celui
+     * de findClosestIntersection (même distance, même primitive).
+     *
+     * @param packet Les rayons à tester
+     * @param tMin Distance minimale (évite l'auto-intersection)
+     * @param out Reçoit l'intersection de chaque rayon, ou null s'il ne touche rien
+     */
+    public void findClosestIntersections(RayPacket packet, double tMin, Intersection[] out) {
+        int n = packet.size();
+        if (!packet.isCoherent()) {
+            for (int r = 0; r < n; r++) {
+                out[r] = findClosestIntersection(packet.get(r), tMin, null).orElse(null);
+            }
+            return;
+        }
+
+        // Meilleur impact de chaque rayon, mêmes règles que pour un rayon seul
+        double[] closestT = new double[n];
+        int[] closestRef = new int[n];
+        for (int r = 0; r < n; r++) {
+            closestT[r] = Double.MAX_VALUE;
+            closestRef[r] = Integer.MAX_VALUE;
+            for (int ref : unbounded) {
+                double t = shapes[refShape[ref]].hitDistance(refPrimitive[ref], packet.ox[r], packet.oy[r], packet.oz[r],
+                        packet.dx[r], packet.dy[r], packet.dz[r]);
+                if (t > tMin && (t < closestT[r] || (t == closestT[r] && ref < closestRef[r]))) {
+                    closestT[r] = t;
+                    closestRef[r] = ref;
+                }
+            }
+        }
+
+        if (nodes.length > 0) {
+            int[] stack = new int[maxDepth + 1];
+            int[] masks = new int[maxDepth + 1];
+            TriangleBlocks.Hit hit = leaves != null ? new TriangleBlocks.Hit(0.0, 0) : null;
+            int top = 0;
+            stack[top] = 0;
+            masks[top++] = (1 << n) - 1;
+
+            while (top > 0) {
+                int node = stack[--top];
+                int mask = masks[top];
+                int active = activeRays(node, packet, mask, closestT);
+                if (active == 0) continue;
+
+                int first = nodes[2 * node];
+                int info = nodes[2 * node + LEAF_COUNT];
+                if (info > 0) {
+                    if (hit != null) {
+                        for (int m = active; m != 0; m &= m - 1) {
+                            int r = Integer.numberOfTrailingZeros(m);
+                            hit.t = closestT[r];
+                            hit.ref = closestRef[r];
+                            leaves.closest(first, info, packet.ox[r], packet.oy[r], packet.oz[r],
+                                    packet.dx[r], packet.dy[r], packet.dz[r], tMin, hit);
+                            closestT[r] = hit.t;
+                            closestRef[r] = hit.ref;
+                        }
+                        continue;
+                    }
+                    // Chaque primitive de la feuille est lue une fois pour tous les rayons actifs
+                    for (int k = first; k < first + info; k++) {
+                        int ref = primitives[k];
+                        Shape shape = shapes[refShape[ref]];
+                        for (int m = active; m != 0; m &= m - 1) {
+                            int r = Integer.numberOfTrailingZeros(m);
+                            double t = shape.hitDistance(refPrimitive[ref], packet.ox[r], packet.oy[r], packet.oz[r],
+                        packet.dx[r], packet.dy[r], packet.dz[r]);
+                            if (t > tMin && (t < closestT[r] || (t == closestT[r] && ref < closestRef[r]))) {
+                                closestT[r] = t;
+                                closestRef[r] = ref;
+                            }
+                        }
+                    }
+                    continue;
+                }
+
+                // Le paquet étant cohérent, le sens de son premier rayon actif désigne l'enfant proche,
+                // dépilé en premier
+                int lead = Integer.numberOfTrailingZeros(active);
+                if (isNegative(-1 - info, packet.dx[lead], packet.dy[lead], packet.dz[lead])) {
+                    stack[top] = node + 1; masks[top++] = active;
+                    stack[top] = first; masks[top++] = active;
+                } else {
+                    stack[top] = first; masks[top++] = active;
+                    stack[top] = node + 1; masks[top++] = active;
+                }
+            }
+        }
+
+        for (int r = 0; r < n; r++) {
+            int ref = closestRef[r];
+            out[r] = ref == Integer.MAX_VALUE ? null
+                    : shapes[refShape[ref]].surfaceAt(refPrimitive[ref], packet.rays[r], closestT[r]);
+        }
+    }
+
+    /**
+     * Pour chaque rayon d'un paquet, une forme coupe-t-elle le rayon entre tMin et sa distance maximale ?
+     * Même parcours en bloc que findClosestIntersections ; un rayon quitte le paquet dès qu'un
+     * obstacle est trouvé. Chaque résultat est celui de isOccluded.
+     *
+     * @param packet Les rayons à tester (par exemple vers une même lumière)
+     * @param tMin Distance minimale (évite l'auto-intersection)
+     * @param tMax Distance maximale de chaque rayon (par exemple la distance à la lumière)
+     * @param out Reçoit true pour chaque rayon qui rencontre un obstacle
+     */
+    public void areOccluded(RayPacket packet, double tMin, double[] tMax, boolean[] out) {
+        int n = packet.size();
+        if (!packet.isCoherent()) {
+            for (int r = 0; r < n; r++) {
+                out[r] = isOccluded(packet.get(r), tMin, tMax[r], null);
+            }
+            return;
+        }
+
+        int pending = 0; // Rayons sans obstacle trouvé
+        for (int r = 0; r < n; r++) {
+            out[r] = false;
+            for (int ref : unbounded) {
+                if (blocks(ref, packet.ox[r], packet.oy[r], packet.oz[r], packet.dx[r], packet.dy[r], packet.dz[r],
+                        tMin, tMax[r], null)) {
+                    out[r] = true;
+                    break;
+                }
+            }
+            if (!out[r]) pending |= 1 << r;
+        }
+        if (nodes.length == 0) return;
+
+        int[] stack = new int[maxDepth + 1];
+        int[] masks = new int[maxDepth + 1];
+        double[] scratch = leaves != null ? new double[1] : null;
+        int top = 0;
+        stack[top] = 0;
+        masks[top++] = pending;
+
+        while (top > 0 && pending != 0) {
+            int node = stack[--top];
+            int mask = masks[top] & pending;
+            if (mask == 0) continue;
+
+            int active = activeRays(node, packet, mask, tMax);
+            if (active == 0) continue;
+
+            int first = nodes[2 * node];
+            int info = nodes[2 * node + LEAF_COUNT];
+            if (info > 0) {
+                for (int m = active; m != 0; m &= m - 1) {
+                    int r = Integer.numberOfTrailingZeros(m);
+                    boolean blocked;
+                    if (scratch != null) {
+                        blocked = leaves.blocks(first, info, packet.ox[r], packet.oy[r], packet.oz[r],
+                                packet.dx[r], packet.dy[r], packet.dz[r], tMin, tMax[r], scratch);
+                    } else {
+                        blocked = false;
+                        for (int k = first; k < first + info && !blocked; k++) {
+                            blocked = blocks(primitives[k], packet.ox[r], packet.oy[r], packet.oz[r],
+                                    packet.dx[r], packet.dy[r], packet.dz[r], tMin, tMax[r], null);
+                        }
+                    }
+                    if (blocked) {
+                        out[r] = true;
+                        pending &= ~(1 << r);
+                    }
+                }
+                continue;
+            }
+
+            int lead = Integer.numberOfTrailingZeros(active);
+            if (isNegative(-1 - info, packet.dx[lead], packet.dy[lead], packet.dz[lead])) {
+                stack[top] = node + 1; masks[top++] = active;
+                stack[top] = first; masks[top++] = active;
+            } else {
+                stack[top] = first; masks[top++] = active;
+                stack[top] = node + 1; masks[top++] = active;
+            }
+        }
+    }
+
+    /**
+     * Rayons d'un masque dont le slab test sur la boîte du nœud réussit avant leur distance maximale.
+     * Tant que le masque compte au moins PACKET_MIN_RAYS rayons, la boîte est d'abord testée
+     * pour tout le paquet (classify) ; en deçà, les rayons ont divergé et sont testés un par un.
+     */
+    private int activeRays(int node, RayPacket packet, int mask, double[] tMax) {
+        if (Integer.bitCount(mask) >= PACKET_MIN_RAYS) {
+            double tMaxLo = Double.POSITIVE_INFINITY, tMaxHi = 0.0;
+            for (int m = mask; m != 0; m &= m - 1) {
+                double t = tMax[Integer.numberOfTrailingZeros(m)];
+                tMaxLo = Math.min(tMaxLo, t);
+                tMaxHi = Math.max(tMaxHi, t);
+            }
+            int packetTest = classify(node, packet, tMaxLo, tMaxHi);
+            if (packetTest == PACKET_MISS) return 0;
+            if (packetTest == PACKET_HIT) return mask;
+        }
+        int active = 0;
+        for (int m = mask; m != 0; m &= m - 1) {
+            int r = Integer.numberOfTrailingZeros(m);
+            if (entryDistance(node, packet.ox[r], packet.oy[r], packet.oz[r],
+                    packet.invDx[r], packet.invDy[r], packet.invDz[r], tMax[r]) != Double.POSITIVE_INFINITY) {
+                active |= 1 << r;
+            }
+        }
+        return active;
+    }
+
+    /**
+     * Test de la boîte d'un nœud pour tout un paquet cohérent, par arithmétique d'intervalles :
+     * les distances de slab de chaque rayon sont encadrées par les produits des bornes de
+     * l'intervalle des origines et de celui des inverses des directions (coins du domaine).
+     * @param tMaxLo Plus petite distance maximale des rayons testés
+     * @param tMaxHi Plus grande distance maximale des rayons testés
+     * @return PACKET_MISS si aucun rayon ne peut toucher la boîte, PACKET_HIT si tous la touchent,
+     *         PACKET_MIXED sinon (test rayon par rayon)
+     */
+    private int classify(int node, RayPacket packet, double tMaxLo, double tMaxHi) {
+        int b = 6 * node;
+        double nearLo = 0.0, nearHi = 0.0;
+        double farLo = tMaxLo, farHi = tMaxHi;
+        for (int axis = 0; axis < 3; axis++) {
+            // Plan d'entrée et plan de sortie selon le sens (commun) des rayons sur cet axe
+            double entry = nodeBounds[b + (packet.negative[axis] ? axis + 3 : axis)];
+            double exit = nodeBounds[b + (packet.negative[axis] ? axis : axis + 3)];
+            double iLo = packet.invLo[axis], iHi = packet.invHi[axis];
+
+            double p = entry - packet.originHi[axis], q = entry - packet.originLo[axis];
+            double a = p * iLo, c = p * iHi, e = q * iLo, f = q * iHi;
+            nearLo = Math.max(nearLo, Math.min(Math.min(a, c), Math.min(e, f)));
+            nearHi = Math.max(nearHi, Math.max(Math.max(a, c), Math.max(e, f)));
+
+            p = exit - packet.originHi[axis];
+            q = exit - packet.originLo[axis];
+            a = p * iLo; c = p * iHi; e = q * iLo; f = q * iHi;
+            farLo = Math.min(farLo, Math.min(Math.min(a, c), Math.min(e, f)));
+            farHi = Math.min(farHi, Math.max(Math.max(a, c), Math.max(e, f)));
+        }
+        if (nearLo > farHi) return PACKET_MISS;
+        return nearHi <= farLo ? PACKET_HIT : PACKET_MIXED;
+    }
+
+    /** Le rayon va-t-il vers les coordonnées décroissantes sur cet axe ? */
+    private static boolean isNegative(int axis, double dx, double dy, double dz) {
+        return (axis == 0 ? dx : axis == 1 ? dy : dz) < 0;
+    }
+
+    /**
+     * Test rayon-boîte par la méthode des "slabs" sur la boîte d'un nœud,
+     * mêmes calculs que {@link BoundingBox#entryDistance}.
+     * @return Distance d'entrée dans la boîte, ou +infini si elle est manquée
+     */
+    private double entryDistance(int node, double ox, double oy, double oz,
+                                 double invDx, double invDy, double invDz, double tMax) {
+        int b = 6 * node;
+        double tNear = 0.0;
+        double tFar = tMax;
+
+        double t1 = (nodeBounds[b] - ox) * invDx;
+        double t2 = (nodeBounds[b + 3] - ox) * invDx;
+        if (t1 > t2) { double tmp = t1; t1 = t2; t2 = tmp; }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+
+        t1 = (nodeBounds[b + 1] - oy) * invDy;
+        t2 = (nodeBounds[b + 4] - oy) * invDy;
+        if (t1 > t2) { double tmp = t1; t1 = t2; t2 = tmp; }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+
+        t1 = (nodeBounds[b + 2] - oz) * invDz;
+        t2 = (nodeBounds[b + 5] - oz) * invDz;
+        if (t1 > t2) { double tmp = t1; t1 = t2; t2 = tmp; }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+
+        return tNear <= tFar ? tNear : Double.POSITIVE_INFINITY;
+    }
+
+    private boolean blocks(int ref, double ox, double oy, double oz, double dx, double dy, double dz,
+                           double tMin, double tMax, RayCounters counters) {
+        double t = shapes[refShape[ref]].hitDistance(refPrimitive[ref], ox, oy, oz, dx, dy, dz);
+        boolean hit = t > tMin && t < tMax;
+        if (counters != null) counters.countTest(shapes[refShape[ref]], hit);
+        return hit;
+    }
+}
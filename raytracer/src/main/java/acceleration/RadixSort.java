@@ -0,0 +1,117 @@
+package acceleration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Tri par base (LSD, 8 bits par passe) de clés long positives, accompagnées d'une valeur int.
+ * Le tri est stable : à clé égale, les valeurs gardent leur ordre de départ.
+ * Chaque passe compte puis distribue les clés par tranches, en parallèle si un pool est fourni ;
+ * les tranches sont recollées dans l'ordre, si bien que le résultat ne dépend pas du nombre de threads.
+ */
+final class RadixSort {
+
+    private static final int DIGIT_BITS = 8;
+    private static final int BUCKETS = 1 << DIGIT_BITS;
+    /** Taille minimale d'une tranche traitée par une tâche. */
+    private static final int MIN_CHUNK = 1 << 15;
+
+    private RadixSort() {
+    }
+
+    /**
+     * Trie les clés par ordre croissant, en déplaçant les valeurs avec elles.
+     * @param keys Clés positives ou nulles (triées sur place)
+     * @param values Valeurs associées (réordonnées sur place)
+     * @param bits Nombre de bits significatifs des clés (au plus 63)
+     * @param pool Pool de threads, ou null pour trier sur le thread courant
+     */
+    static void sort(long[] keys, int[] values, int bits, ForkJoinPool pool) {
+        int n = keys.length;
+        int chunks = pool == null ? 1 : Math.max(1, Math.min(pool.getParallelism() * 4, n / MIN_CHUNK));
+        int chunkSize = (n + chunks - 1) / chunks;
+        int[][] histograms = new int[chunks][BUCKETS];
+
+        long[] sourceKeys = keys;
+        int[] sourceValues = values;
+        long[] targetKeys = new long[n];
+        int[] targetValues = new int[n];
+
+        for (int shift = 0; shift < bits; shift += DIGIT_BITS) {
+            long[] fromKeys = sourceKeys;
+            int[] fromValues = sourceValues;
+            long[] toKeys = targetKeys;
+            int[] toValues = targetValues;
+            int digitShift = shift;
+
+            // 1. Effectif de chaque chiffre, par tranche
+            forEachChunk(pool, chunks, c -> {
+                int[] histogram = histograms[c];
+                Arrays.fill(histogram, 0);
+                int end = Math.min(n, (c + 1) * chunkSize);
+                for (int k = c * chunkSize; k < end; k++) {
+                    histogram[(int) (fromKeys[k] >>> digitShift) & (BUCKETS - 1)]++;
+                }
+            });
+
+            // 2. Position de départ de chaque (chiffre, tranche) ; passe inutile si un seul chiffre est présent
+            boolean single = false;
+            int offset = 0;
+            for (int digit = 0; digit < BUCKETS; digit++) {
+                int digitTotal = 0;
+                for (int c = 0; c < chunks; c++) {
+                    int count = histograms[c][digit];
+                    histograms[c][digit] = offset + digitTotal;
+                    digitTotal += count;
+                }
+                if (digitTotal == n) single = true;
+                offset += digitTotal;
+            }
+            if (single) continue;
+
+            // 3. Distribution stable : chaque tranche écrit dans ses propres cases
+            forEachChunk(pool, chunks, c -> {
+                int[] next = histograms[c];
+                int end = Math.min(n, (c + 1) * chunkSize);
+                for (int k = c * chunkSize; k < end; k++) {
+                    int position = next[(int) (fromKeys[k] >>> digitShift) & (BUCKETS - 1)]++;
+                    toKeys[position] = fromKeys[k];
+                    toValues[position] = fromValues[k];
+                }
+            });
+
+            sourceKeys = toKeys;
+            sourceValues = toValues;
+            targetKeys = fromKeys;
+            targetValues = fromValues;
+        }
+
+        if (sourceKeys != keys) {
+            System.arraycopy(sourceKeys, 0, keys, 0, n);
+            System.arraycopy(sourceValues, 0, values, 0, n);
+        }
+    }
+
+    private static void forEachChunk(ForkJoinPool pool, int chunks, IntConsumer body) {
+        if (pool == null || chunks == 1) {
+            for (int c = 0; c < chunks; c++) body.accept(c);
+            return;
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            int chunk = c;
+            tasks.add(ForkJoinTask.adapt(() -> body.accept(chunk)));
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+    }
+}
@@ -0,0 +1,99 @@
+package acceleration;
+
+import math.Point;
+import math.Ray;
+import math.Vector;
+
+/**
+ * Paquet de rayons cohérents (au plus {@link #MAX_SIZE}), tracés ensemble dans la hiérarchie :
+ * typiquement les rayons primaires d'un bloc de 4 x 4 pixels, ou leurs rayons d'ombre vers
+ * une même lumière. Les composantes de chaque rayon sont rangées dans des tableaux de double.
+ *
+ * Le paquet garde aussi, par axe, l'intervalle des origines et celui des inverses des directions.
+ * Quand toutes les directions ont le même signe non nul sur chaque axe, ces intervalles
+ * bornent les distances de slab de chaque rayon (l'arrondi de - et de * est monotone) :
+ * un nœud dont la boîte est manquée par tout l'intervalle est écarté pour tout le paquet
+ * d'un seul test. Sinon le paquet est dit divergent et ses rayons sont tracés un par un.
+ */
+public final class RayPacket {
+
+    /** Nombre maximal de rayons d'un paquet (un masque int par nœud). */
+    public static final int MAX_SIZE = 16;
+
+    final Ray[] rays = new Ray[MAX_SIZE];
+    final double[] ox = new double[MAX_SIZE], oy = new double[MAX_SIZE], oz = new double[MAX_SIZE];
+    final double[] dx = new double[MAX_SIZE], dy = new double[MAX_SIZE], dz = new double[MAX_SIZE];
+    final double[] invDx = new double[MAX_SIZE], invDy = new double[MAX_SIZE], invDz = new double[MAX_SIZE];
+    private int size;
+
+    // Intervalles par axe (x, y, z), valables si le paquet est cohérent
+    final double[] originLo = new double[3], originHi = new double[3];
+    final double[] invLo = new double[3], invHi = new double[3];
+    final boolean[] negative = new boolean[3];
+    private boolean coherent;
+    private boolean bounded; // Intervalles à jour
+
+    /** Vide le paquet. */
+    public void clear() {
+        size = 0;
+        bounded = false;
+    }
+
+    /**
+     * Ajoute un rayon au paquet.
+     * @throws IllegalStateException Si le paquet est plein
+     */
+    public void add(Ray ray) {
+        if (size == MAX_SIZE) throw new IllegalStateException("Paquet plein (" + MAX_SIZE + " rayons).");
+        Point o = ray.getOrigin();
+        Vector d = ray.getDirection();
+        rays[size] = ray;
+        ox[size] = o.getX(); oy[size] = o.getY(); oz[size] = o.getZ();
+        dx[size] = d.getX(); dy[size] = d.getY(); dz[size] = d.getZ();
+        invDx[size] = 1.0 / dx[size]; invDy[size] = 1.0 / dy[size]; invDz[size] = 1.0 / dz[size];
+        size++;
+        bounded = false;
+    }
+
+    /** Nombre de rayons du paquet. */
+    public int size() { return size; }
+
+    /** Rayon d'indice k, dans l'ordre d'ajout. */
+    public Ray get(int k) { return rays[k]; }
+
+    /**
+     * Les directions ont-elles toutes le même signe, non nul, sur chaque axe ?
+     * Calcule au passage les intervalles du paquet.
+     */
+    boolean isCoherent() {
+        if (!bounded) {
+            coherent = size > 0
+                    && bound(0, ox, dx, invDx)
+                    && bound(1, oy, dy, invDy)
+                    && bound(2, oz, dz, invDz);
+            bounded = true;
+        }
+        return coherent;
+    }
+
+    private boolean bound(int axis, double[] origins, double[] directions, double[] inverses) {
+        boolean neg = directions[0] < 0;
+        double oLo = origins[0], oHi = oLo;
+        double iLo = inverses[0], iHi = iLo;
+        for (int k = 0; k < size; k++) {
+            double d = directions[k];
+            // Direction nulle (inverse infini) ou de signe différent : pas d'intervalle utilisable
+            if (!(neg ? d < 0 : d > 0) || Double.isInfinite(inverses[k])) return false;
+            oLo = Math.min(oLo, origins[k]);
+            oHi = Math.max(oHi, origins[k]);
+            iLo = Math.min(iLo, inverses[k]);
+            iHi = Math.max(iHi, inverses[k]);
+        }
+        originLo[axis] = oLo;
+        originHi[axis] = oHi;
+        invLo[axis] = iLo;
+        invHi[axis] = iHi;
+        negative[axis] = neg;
+        return true;
+    }
+}
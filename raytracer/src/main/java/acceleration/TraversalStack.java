@@ -0,0 +1,31 @@
+package acceleration;
+
+/**
+ * Pile de parcours et tampons d'une requête sur une hiérarchie, réutilisés d'une requête à
+ * l'autre par le thread qui les possède (voir Bvh) : une requête n'alloue rien.
+ * Chaque hiérarchie a les siennes, si bien qu'un parcours peut en déclencher un autre
+ * (hiérarchie d'une forme) sans les écraser.
+ */
+final class TraversalStack {
+
+    int[] nodes;
+    double[] entries;
+    final double[] laneEntries = new double[WideBvh.WIDTH];
+    final int[] order = new int[WideBvh.WIDTH];
+    final TriangleBlocks.Hit hit = new TriangleBlocks.Hit(0, 0);
+    final double[] nearest = new double[1];
+
+    TraversalStack(int size) {
+        nodes = new int[size];
+        entries = new double[size];
+    }
+
+    /** Agrandit la pile si besoin (hiérarchie élargie ou reconstruite depuis). */
+    TraversalStack ensure(int size) {
+        if (nodes.length < size) {
+            nodes = new int[size];
+            entries = new double[size];
+        }
+        return this;
+    }
+}
@@ -0,0 +1,191 @@
+package acceleration;
+
+import geometry.Shape;
+import geometry.Triangle;
+
+/**
+ * Triangles des feuilles d'une hiérarchie regroupés en blocs de 4, en structure de tableaux :
+ * chaque bloc range 4 sommets A puis 4 arêtes B - A et 4 arêtes C - A, composante par
+ * composante (4 ax, 4 ay, ..., 4 e2z). Une feuille occupe un ou plusieurs blocs consécutifs ;
+ * les voies sans triangle (formes d'un autre type, fin de feuille) restent à zéro et sont
+ * écartées par masque.
+ *
+ * Les triangles d'un bloc sont testés ensemble avec l'API Vector ({@link VectorTriangles}),
+ * ou un par un avec Triangle.hitDistance si le module n'est pas chargé. Les autres formes
+ * d'une feuille sont testées une par une, comme dans le parcours de Bvh. Le résultat suit les
+ * règles de Bvh : à distance égale, la primitive de plus petit numéro l'emporte.
+ */
+final class TriangleBlocks {
+
+    /** Nombre de triangles par bloc. */
+    static final int LANES = 4;
+    /** Valeurs par bloc : 9 composantes de 4 voies. */
+    private static final int STRIDE = 9 * LANES;
+
+    private final Shape[] shapes;
+    private final int[] refShape;
+    private final int[] refPrimitive;
+    private final int[] primitives;
+
+    private final int[] blockOf;        // Par case de primitives[] : premier bloc de la feuille qui y commence
+    private final int[] triangleLanes;  // Par bloc : voies occupées par un triangle (bit i pour la voie i)
+    private final double[] data;        // STRIDE valeurs par bloc
+    private final boolean simd;
+
+    /** Meilleur impact courant d'une requête, mis à jour feuille après feuille. */
+    static final class Hit {
+        double t;
+        int ref;
+        private final double[] nearest = new double[1]; // Sortie du noyau vectoriel
+
+        Hit(double t, int ref) {
+            this.t = t;
+            this.ref = ref;
+        }
+    }
+
+    /**
+     * Regroupe les triangles des feuilles d'un arbre binaire aplati.
+     * @param nodes Nœuds binaires (2 valeurs par nœud, codés comme dans Bvh)
+     * @param simd Tester les blocs avec l'API Vector (le module doit être chargé)
+     */
+    TriangleBlocks(Shape[] shapes, int[] refShape, int[] refPrimitive, int[] primitives,
+                   int[] nodes, boolean simd) {
+        this.shapes = shapes;
+        this.refShape = refShape;
+        this.refPrimitive = refPrimitive;
+        this.primitives = primitives;
+        this.simd = simd;
+        this.blockOf = new int[primitives.length];
+
+        int blockCount = 0;
+        for (int node = 0; node < nodes.length / 2; node++) {
+            int count = nodes[2 * node + 1];
+            if (count > 0) {
+                blockOf[nodes[2 * node]] = blockCount;
+                blockCount += (count + LANES - 1) / LANES;
+            }
+        }
+        this.triangleLanes = new int[blockCount];
+        this.data = new double[STRIDE * blockCount];
+
+        double[] triangle = new double[9];
+        for (int node = 0; node < nodes.length / 2; node++) {
+            int count = nodes[2 * node + 1];
+            if (count <= 0) continue;
+            int first = nodes[2 * node];
+            for (int k = 0; k < count; k++) {
+                int ref = primitives[first + k];
+                if (!shapes[refShape[ref]].triangleData(refPrimitive[ref], triangle)) continue;
+                int block = blockOf[first] + k / LANES;
+                int lane = k % LANES;
+                triangleLanes[block] |= 1 << lane;
+                for (int v = 0; v < 9; v++) {
+                    data[STRIDE * block + v * LANES + lane] = triangle[v];
+                }
+            }
+        }
+    }
+
+    /** Les blocs sont-ils testés avec l'API Vector ? */
+    boolean isSimd() { return simd; }
+
+    /** Mémoire occupée par les blocs, en octets (les autres tableaux sont ceux de Bvh). */
+    long getMemoryFootprint() {
+        return 8L * data.length + 4L * (blockOf.length + triangleLanes.length);
+    }
+
+    /** Nombre de blocs. */
+    int getBlockCount() { return triangleLanes.length; }
+
+    /**
+     * Teste les primitives d'une feuille et met à jour le meilleur impact au-delà de tMin.
+     * @param first Première case de la feuille dans primitives[]
+     * @param count Nombre de primitives de la feuille
+     */
+    void closest(int first, int count, double ox, double oy, double oz,
+                 double dx, double dy, double dz, double tMin, Hit hit) {
+        int block = blockOf[first];
+        for (int k = first; k < first + count; k += LANES, block++) {
+            int lanes = triangleLanes[block];
+            if (lanes != 0) {
+                long tied = nearest(block, lanes, ox, oy, oz, dx, dy, dz, tMin, hit.nearest);
+                double t = hit.nearest[0];
+                // Plusieurs voies à la même distance : la règle du plus petit numéro les départage
+                for (; tied != 0; tied &= tied - 1) {
+                    int ref = primitives[k + Long.numberOfTrailingZeros(tied)];
+                    if (t < hit.t || (t == hit.t && ref < hit.ref)) {
+                        hit.t = t;
+                        hit.ref = ref;
+                    }
+                }
+            }
+            for (int others = otherLanes(k, first + count, lanes); others != 0; others &= others - 1) {
+                int ref = primitives[k + Integer.numberOfTrailingZeros(others)];
+                double t = shapes[refShape[ref]].hitDistance(refPrimitive[ref], ox, oy, oz, dx, dy, dz);
+                if (t > tMin && (t < hit.t || (t == hit.t && ref < hit.ref))) {
+                    hit.t = t;
+                    hit.ref = ref;
+                }
+            }
+        }
+    }
+
+    /**
+     * Une primitive de la feuille coupe-t-elle le rayon entre tMin et tMax ?
+     * @param scratch Tableau d'au moins une case, pour la sortie du noyau
+     */
+    boolean blocks(int first, int count, double ox, double oy, double oz,
+                   double dx, double dy, double dz, double tMin, double tMax, double[] scratch) {
+        int block = blockOf[first];
+        for (int k = first; k < first + count; k += LANES, block++) {
+            int lanes = triangleLanes[block];
+            if (lanes != 0 && nearest(block, lanes, ox, oy, oz, dx, dy, dz, tMin, scratch) != 0
+                    && scratch[0] < tMax) {
+                return true;
+            }
+            for (int others = otherLanes(k, first + count, lanes); others != 0; others &= others - 1) {
+                int ref = primitives[k + Integer.numberOfTrailingZeros(others)];
+                double t = shapes[refShape[ref]].hitDistance(refPrimitive[ref], ox, oy, oz, dx, dy, dz);
+                if (t > tMin && t < tMax) return true;
+            }
+        }
+        return false;
+    }
+
+    /** Voies du bloc commençant à la case k qui portent une autre forme qu'un triangle. */
+    private static int otherLanes(int k, int end, int triangles) {
+        int used = (1 << Math.min(LANES, end - k)) - 1;
+        return used & ~triangles;
+    }
+
+    /**
+     * Noyau d'un bloc : API Vector, ou boucle scalaire sur Triangle.hitDistance.
+     * @return Voies touchées à la distance minimale, écrite dans out[0]
+     */
+    private long nearest(int block, int lanes, double ox, double oy, double oz,
+                         double dx, double dy, double dz, double tMin, double[] out) {
+        int b = STRIDE * block;
+        if (simd) {
+            return VectorTriangles.nearest(data, b, lanes, ox, oy, oz, dx, dy, dz, tMin, out);
+        }
+        double min = Double.POSITIVE_INFINITY;
+        long tied = 0;
+        for (int lane = 0; lane < LANES; lane++) {
+            if ((lanes & (1 << lane)) == 0) continue;
+            double t = Triangle.hitDistance(ox, oy, oz, dx, dy, dz,
+                    data[b + lane], data[b + LANES + lane], data[b + 2 * LANES + lane],
+                    data[b + 3 * LANES + lane], data[b + 4 * LANES + lane], data[b + 5 * LANES + lane],
+                    data[b + 6 * LANES + lane], data[b + 7 * LANES + lane], data[b + 8 * LANES + lane]);
+            if (!(t > tMin)) continue;
+            if (t < min) {
+                min = t;
+                tied = 1L << lane;
+            } else if (t == min) {
+                tied |= 1L << lane;
+            }
+        }
+        out[0] = min;
+        return tied;
+    }
+}
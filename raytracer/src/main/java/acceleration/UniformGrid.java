@@ -0,0 +1,447 @@
+package acceleration;
+
+import geometry.BoundingBox;
+import geometry.Shape;
+import math.Point;
+import math.Ray;
+import math.Vector;
+import raytracer.HitRecord;
+import raytracer.Intersection;
+import stats.RayCounters;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Grille régulière sur les primitives de la scène, parcourue cellule par cellule le long du
+ * rayon (3D-DDA d'Amanatides et Woo). Construction en temps linéaire et parcours sans pile :
+ * elle l'emporte sur la hiérarchie pour les scènes denses d'objets de tailles voisines,
+ * répartis uniformément. Le nombre de cellules est proportionnel au nombre de primitives
+ * ({@value #DENSITY} par primitive pour une scène cubique).
+ *
+ * Une primitive qui chevauche plusieurs cellules n'est testée qu'une fois par rayon :
+ * chaque thread note, primitive par primitive, le dernier rayon qui l'a testée (mailboxing).
+ * Comme pour {@link Bvh}, le résultat est identique au parcours linéaire : à distance égale,
+ * la primitive ajoutée en premier à la scène l'emporte, et les formes infinies (plans)
+ * restent dans une petite liste testée à chaque rayon.
+ */
+public final class UniformGrid {
+
+    /** Nombre moyen de cellules par primitive. */
+    static final double DENSITY = 3.0;
+    /** Nombre maximal de cellules par axe. */
+    static final int MAX_RESOLUTION = 128;
+    // Marge des boîtes, comme dans Bvh : couvre les arrondis des tests d'intersection
+    private static final double BOX_MARGIN = 1e-7;
+
+    private final Shape[] shapes;
+    private final int[] refShape;       // Forme de chaque primitive, dans l'ordre de la scène
+    private final int[] refPrimitive;   // Indice de chaque primitive dans sa forme
+    private final int[] unbounded;      // Primitives non bornées
+
+    // Boîte de la grille et nombre de cellules par axe
+    private final double minX, minY, minZ;
+    private final double sizeX, sizeY, sizeZ;       // Côtés d'une cellule
+    private final double invSizeX, invSizeY, invSizeZ;
+    private final int nx, ny, nz;
+
+    // Primitives de chaque cellule : cellRefs[cellStart[c]] à cellRefs[cellStart[c + 1] - 1]
+    private final int[] cellStart;
+    private final int[] cellRefs;
+
+    private final ThreadLocal<Mailbox> mailboxes;
+    private final long buildNanos;
+
+    /**
+     * Construit la grille sur toutes les primitives des formes.
+     * @param sceneShapes Formes de la scène, dans l'ordre de la scène
+     */
+    public UniformGrid(List<Shape> sceneShapes) {
+        long startTime = System.nanoTime();
+        this.shapes = sceneShapes.toArray(new Shape[0]);
+
+        int refCount = 0;
+        int boundedCount = 0;
+        for (Shape shape : shapes) {
+            refCount += shape.getPrimitiveCount();
+            if (shape.isBounded()) boundedCount += shape.getPrimitiveCount();
+        }
+        this.refShape = new int[refCount];
+        this.refPrimitive = new int[refCount];
+        this.unbounded = new int[refCount - boundedCount];
+
+        // Boîtes des primitives bornées (6 valeurs chacune) et boîte de la scène
+        int[] bounded = new int[boundedCount];
+        double[] boxes = new double[6 * boundedCount];
+        double loX = Double.POSITIVE_INFINITY, loY = Double.POSITIVE_INFINITY, loZ = Double.POSITIVE_INFINITY;
+        double hiX = Double.NEGATIVE_INFINITY, hiY = Double.NEGATIVE_INFINITY, hiZ = Double.NEGATIVE_INFINITY;
+        int ref = 0;
+        int b = 0;
+        int u = 0;
+        for (int shapeIndex = 0; shapeIndex < shapes.length; shapeIndex++) {
+            Shape shape = shapes[shapeIndex];
+            for (int primitive = 0; primitive < shape.getPrimitiveCount(); primitive++, ref++) {
+                refShape[ref] = shapeIndex;
+                refPrimitive[ref] = primitive;
+                if (!shape.isBounded()) {
+                    unbounded[u++] = ref;
+                    continue;
+                }
+                BoundingBox box = shape.getBoundingBox(primitive).expand(BOX_MARGIN);
+                boxes[6 * b]     = box.getMinX();
+                boxes[6 * b + 1] = box.getMinY();
+                boxes[6 * b + 2] = box.getMinZ();
+                boxes[6 * b + 3] = box.getMaxX();
+                boxes[6 * b + 4] = box.getMaxY();
+                boxes[6 * b + 5] = box.getMaxZ();
+                loX = Math.min(loX, box.getMinX());
+                loY = Math.min(loY, box.getMinY());
+                loZ = Math.min(loZ, box.getMinZ());
+                hiX = Math.max(hiX, box.getMaxX());
+                hiY = Math.max(hiY, box.getMaxY());
+                hiZ = Math.max(hiZ, box.getMaxZ());
+                bounded[b++] = ref;
+            }
+        }
+
+        if (boundedCount == 0) {
+            loX = loY = loZ = hiX = hiY = hiZ = 0;
+        }
+        this.minX = loX;
+        this.minY = loY;
+        this.minZ = loZ;
+
+        // Résolution : cellules à peu près cubiques, DENSITY * n au total pour une scène cubique
+        double extentX = hiX - loX, extentY = hiY - loY, extentZ = hiZ - loZ;
+        double maxExtent = Math.max(extentX, Math.max(extentY, extentZ));
+        double cellsPerUnit = maxExtent > 0 ? Math.cbrt(DENSITY * boundedCount) / maxExtent : 0;
+        this.nx = boundedCount == 0 ? 0 : resolution(extentX, cellsPerUnit);
+        this.ny = boundedCount == 0 ? 0 : resolution(extentY, cellsPerUnit);
+        this.nz = boundedCount == 0 ? 0 : resolution(extentZ, cellsPerUnit);
+        this.sizeX = nx == 0 ? 0 : extentX / nx;
+        this.sizeY = ny == 0 ? 0 : extentY / ny;
+        this.sizeZ = nz == 0 ? 0 : extentZ / nz;
+        this.invSizeX = sizeX > 0 ? 1.0 / sizeX : 0;
+        this.invSizeY = sizeY > 0 ? 1.0 / sizeY : 0;
+        this.invSizeZ = sizeZ > 0 ? 1.0 / sizeZ : 0;
+
+        // Deux passes : nombre de primitives par cellule, puis remplissage (dans l'ordre de la scène)
+        int cellCount = nx * ny * nz;
+        this.cellStart = new int[cellCount + 1];
+        int[] ranges = new int[6];
+        for (int k = 0; k < boundedCount; k++) {
+            cellRange(boxes, k, ranges);
+            for (int z = ranges[2]; z <= ranges[5]; z++) {
+                for (int y = ranges[1]; y <= ranges[4]; y++) {
+                    for (int x = ranges[0]; x <= ranges[3]; x++) {
+                        cellStart[cellIndex(x, y, z) + 1]++;
+                    }
+                }
+            }
+        }
+        for (int c = 0; c < cellCount; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        this.cellRefs = new int[cellStart[cellCount]];
+        int[] fill = Arrays.copyOf(cellStart, cellCount);
+        for (int k = 0; k < boundedCount; k++) {
+            cellRange(boxes, k, ranges);
+            for (int z = ranges[2]; z <= ranges[5]; z++) {
+                for (int y = ranges[1]; y <= ranges[4]; y++) {
+                    for (int x = ranges[0]; x <= ranges[3]; x++) {
+                        cellRefs[fill[cellIndex(x, y, z)]++] = bounded[k];
+                    }
+                }
+            }
+        }
+
+        this.mailboxes = ThreadLocal.withInitial(() -> new Mailbox(refShape.length));
+        this.buildNanos = System.nanoTime() - startTime;
+    }
+
+    private static int resolution(double extent, double cellsPerUnit) {
+        return (int) Math.max(1, Math.min(MAX_RESOLUTION, Math.round(extent * cellsPerUnit)));
+    }
+
+    /** Cellules couvertes par la boîte k : x, y, z minimaux puis maximaux. */
+    private void cellRange(double[] boxes, int k, int[] out) {
+        out[0] = cellX(boxes[6 * k]);
+        out[1] = cellY(boxes[6 * k + 1]);
+        out[2] = cellZ(boxes[6 * k + 2]);
+        out[3] = cellX(boxes[6 * k + 3]);
+        out[4] = cellY(boxes[6 * k + 4]);
+        out[5] = cellZ(boxes[6 * k + 5]);
+    }
+
+    private int cellX(double x) { return clamp((int) ((x - minX) * invSizeX), nx); }
+    private int cellY(double y) { return clamp((int) ((y - minY) * invSizeY), ny); }
+    private int cellZ(double z) { return clamp((int) ((z - minZ) * invSizeZ), nz); }
+
+    private static int clamp(int cell, int count) {
+        return Math.max(0, Math.min(count - 1, cell));
+    }
+
+    private int cellIndex(int x, int y, int z) {
+        return (z * ny + y) * nx + x;
+    }
+
+    /** Durée de la construction, en nanosecondes. */
+    public long getBuildTime() { return buildNanos; }
+
+    /** Nombre de cellules sur l'axe 0 (x), 1 (y) ou 2 (z). */
+    public int getResolution(int axis) {
+        return axis == 0 ? nx : axis == 1 ? ny : nz;
+    }
+
+    /** Nombre total de cellules. */
+    public int getCellCount() { return nx * ny * nz; }
+
+    /** Nombre de références de primitives dans les cellules (une primitive compte dans chaque cellule qu'elle touche). */
+    public int getReferenceCount() { return cellRefs.length; }
+
+    /** Nombre de primitives non bornées, testées à chaque rayon. */
+    public int getUnboundedCount() { return unbounded.length; }
+
+    /** Mémoire occupée par les tableaux de la grille, en octets (estimation, formes non comptées). */
+    public long getMemoryFootprint() {
+        return 8L * shapes.length
+                + 4L * (refShape.length + refPrimitive.length + unbounded.length + cellStart.length + cellRefs.length);
+    }
+
+    /**
+     * Cherche l'intersection la plus proche au-delà de tMin, en comptant les tests.
+     *
+     * @param ray Le rayon à tester
+     * @param tMin Distance minimale (évite l'auto-intersection)
+     * @param counters Compteurs du thread courant, ou null pour ne rien compter
+     * @return L'intersection la plus proche, ou vide
+     */
+    public Optional<Intersection> findClosestIntersection(Ray ray, double tMin, RayCounters counters) {
+        Point o = ray.getOrigin();
+        Vector d = ray.getDirection();
+        HitRecord hit = new HitRecord();
+        if (!findClosestHit(o.getX(), o.getY(), o.getZ(), d.getX(), d.getY(), d.getZ(), tMin, hit, counters)) {
+            return Optional.empty();
+        }
+        return Optional.of(hit.getShape().surfaceAt(hit.getPrimitive(), ray, hit.getT()));
+    }
+
+    /**
+     * Cherche l'impact le plus proche au-delà de tMin, sans aucune allocation
+     * (voir Bvh.findClosestHit).
+     *
+     * @param tMin Distance minimale (évite l'auto-intersection)
+     * @param out Reçoit l'impact s'il existe
+     * @param counters Compteurs du thread courant, ou null pour ne rien compter
+     * @return true si un impact est trouvé
+     */
+    public boolean findClosestHit(double ox, double oy, double oz, double dx, double dy, double dz,
+                                  double tMin, HitRecord out, RayCounters counters) {
+        // Meilleur impact : à distance égale, le numéro de primitive le plus petit l'emporte
+        double closestT = Double.MAX_VALUE;
+        int closestRef = Integer.MAX_VALUE;
+
+        for (int ref : unbounded) {
+            double t = shapes[refShape[ref]].hitDistance(refPrimitive[ref], ox, oy, oz, dx, dy, dz);
+            if (counters != null) counters.countTest(shapes[refShape[ref]], t > tMin);
+            if (t > tMin && (t < closestT || (t == closestT && ref < closestRef))) {
+                closestT = t;
+                closestRef = ref;
+            }
+        }
+
+        Walk walk = start(ox, oy, oz, dx, dy, dz);
+        if (walk != null) {
+            int[] stamps = walk.mailbox.stamps;
+            int stamp = walk.mailbox.stamp;
+            do {
+                int cell = cellIndex(walk.x, walk.y, walk.z);
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int ref = cellRefs[k];
+                    if (stamps[ref] == stamp) continue; // Déjà testée depuis une autre cellule
+                    stamps[ref] = stamp;
+                    // Un impact hors de la cellule reste un impact : il sert de borne pour la suite
+                    double t = shapes[refShape[ref]].hitDistance(refPrimitive[ref], ox, oy, oz, dx, dy, dz);
+                    if (counters != null) counters.countTest(shapes[refShape[ref]], t > tMin);
+                    if (t > tMin && (t < closestT || (t == closestT && ref < closestRef))) {
+                        closestT = t;
+                        closestRef = ref;
+                    }
+                }
+                // Les cellules suivantes commencent au-delà du meilleur impact : rien de plus proche
+            } while (walk.exit() <= closestT && walk.step());
+        }
+
+        if (closestRef == Integer.MAX_VALUE) {
+            return false;
+        }
+        out.set(closestT, shapes[refShape[closestRef]], refPrimitive[closestRef]);
+        return true;
+    }
+
+    /**
+     * Vérifie si une forme coupe le rayon entre tMin et tMax, en comptant les tests.
+     *
+     * @param ray Le rayon à tester
+     * @param tMin Distance minimale (évite l'auto-intersection)
+     * @param tMax Distance maximale (par exemple la distance à la lumière)
+     * @param counters Compteurs du thread courant, ou null pour ne rien compter
+     * @return true si un obstacle est trouvé
+     */
+    public boolean isOccluded(Ray ray, double tMin, double tMax, RayCounters counters) {
+        Point o = ray.getOrigin();
+        Vector d = ray.getDirection();
+        return isOccluded(o.getX(), o.getY(), o.getZ(), d.getX(), d.getY(), d.getZ(), tMin, tMax, counters);
+    }
+
+    /**
+     * Vérifie si une forme coupe le rayon entre tMin et tMax, sans aucune allocation.
+     * S'arrête au premier obstacle trouvé.
+     *
+     * @param tMin Distance minimale (évite l'auto-intersection)
+     * @param tMax Distance maximale (par exemple la distance à la lumière)
+     * @param counters Compteurs du thread courant, ou null pour ne rien compter
+     * @return true si un obstacle est trouvé
+     */
+    public boolean isOccluded(double ox, double oy, double oz, double dx, double dy, double dz,
+                              double tMin, double tMax, RayCounters counters) {
+        for (int ref : unbounded) {
+            if (blocks(ref, ox, oy, oz, dx, dy, dz, tMin, tMax, counters)) return true;
+        }
+
+        Walk walk = start(ox, oy, oz, dx, dy, dz);
+        if (walk == null) return false;
+        int[] stamps = walk.mailbox.stamps;
+        int stamp = walk.mailbox.stamp;
+        do {
+            int cell = cellIndex(walk.x, walk.y, walk.z);
+            for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                int ref = cellRefs[k];
+                if (stamps[ref] == stamp) continue;
+                stamps[ref] = stamp;
+                if (blocks(ref, ox, oy, oz, dx, dy, dz, tMin, tMax, counters)) return true;
+            }
+        } while (walk.exit() <= tMax && walk.step());
+        return false;
+    }
+
+    private boolean blocks(int ref, double ox, double oy, double oz, double dx, double dy, double dz,
+                           double tMin, double tMax, RayCounters counters) {
+        double t = shapes[refShape[ref]].hitDistance(refPrimitive[ref], ox, oy, oz, dx, dy, dz);
+        boolean hit = t > tMin && t < tMax;
+        if (counters != null) counters.countTest(shapes[refShape[ref]], hit);
+        return hit;
+    }
+
+    /**
+     * Prépare le parcours d'un rayon : première cellule touchée et distances aux plans de
+     * cellules suivants sur chaque axe. Renvoie null si le rayon manque la grille.
+     * Le parcours et le tampon de mailboxing sont ceux du thread courant.
+     */
+    private Walk start(double ox, double oy, double oz, double dx, double dy, double dz) {
+        if (cellRefs.length == 0) return null;
+
+        // Entrée et sortie du rayon dans la boîte de la grille (méthode des dalles)
+        double tEnter = 0.0;
+        double tLeave = Double.POSITIVE_INFINITY;
+        for (int axis = 0; axis < 3; axis++) {
+            double o = axis == 0 ? ox : axis == 1 ? oy : oz;
+            double d = axis == 0 ? dx : axis == 1 ? dy : dz;
+            double min = axis == 0 ? minX : axis == 1 ? minY : minZ;
+            double size = axis == 0 ? sizeX : axis == 1 ? sizeY : sizeZ;
+            int count = axis == 0 ? nx : axis == 1 ? ny : nz;
+            double inv = 1.0 / d;
+            double t0 = (min - o) * inv;
+            double t1 = (min + size * count - o) * inv;
+            if (t0 > t1) { double swap = t0; t0 = t1; t1 = swap; }
+            // Rayon parallèle à la dalle : NaN si l'origine est sur un bord, traité comme un passage
+            if (t0 == t0) tEnter = Math.max(tEnter, t0);
+            if (t1 == t1) tLeave = Math.min(tLeave, t1);
+        }
+        if (tEnter > tLeave) return null;
+
+        Mailbox mailbox = mailboxes.get();
+        mailbox.next();
+        Walk walk = mailbox.walk;
+        walk.mailbox = mailbox;
+        double px = ox + dx * tEnter, py = oy + dy * tEnter, pz = oz + dz * tEnter;
+        walk.x = cellX(px);
+        walk.y = cellY(py);
+        walk.z = cellZ(pz);
+        walk.setAxis(0, walk.x, nx, minX, sizeX, ox, dx);
+        walk.setAxis(1, walk.y, ny, minY, sizeY, oy, dy);
+        walk.setAxis(2, walk.z, nz, minZ, sizeZ, oz, dz);
+        return walk;
+    }
+
+    /** Position courante d'un rayon dans la grille (Amanatides et Woo). */
+    private static final class Walk {
+        Mailbox mailbox;
+        int x, y, z;
+        final int[] step = new int[3];      // +1, -1 ou 0 (rayon parallèle à l'axe)
+        final int[] limit = new int[3];     // Indice de sortie de la grille sur chaque axe
+        final double[] next = new double[3];  // Distance au prochain plan de cellules
+        final double[] delta = new double[3]; // Distance entre deux plans de cellules
+
+        void setAxis(int axis, int cell, int count, double min, double size, double o, double d) {
+            if (d > 0) {
+                step[axis] = 1;
+                limit[axis] = count;
+                next[axis] = (min + (cell + 1) * size - o) / d;
+                delta[axis] = size / d;
+            } else if (d < 0) {
+                step[axis] = -1;
+                limit[axis] = -1;
+                next[axis] = (min + cell * size - o) / d;
+                delta[axis] = -size / d;
+            } else {
+                step[axis] = 0;
+                limit[axis] = -1;
+                next[axis] = Double.POSITIVE_INFINITY;
+                delta[axis] = Double.POSITIVE_INFINITY;
+            }
+        }
+
+        /** Distance à laquelle le rayon quitte la cellule courante. */
+        double exit() {
+            return Math.min(next[0], Math.min(next[1], next[2]));
+        }
+
+        /** Passe à la cellule voisine ; false si le rayon sort de la grille. */
+        boolean step() {
+            int axis = next[0] < next[1]
+                    ? (next[0] < next[2] ? 0 : 2)
+                    : (next[1] < next[2] ? 1 : 2);
+            next[axis] += delta[axis];
+            switch (axis) {
+                case 0: x += step[0]; return x != limit[0];
+                case 1: y += step[1]; return y != limit[1];
+                default: z += step[2]; return z != limit[2];
+            }
+        }
+    }
+
+    /**
+     * Tampon de mailboxing d'un thread : pour chaque primitive, le numéro du dernier rayon
+     * qui l'a testée. Le parcours d'un rayon est rangé avec, pour ne rien allouer.
+     */
+    private static final class Mailbox {
+        final int[] stamps;
+        int stamp;
+        final Walk walk = new Walk();
+
+        Mailbox(int refCount) {
+            stamps = new int[refCount];
+        }
+
+        /** Nouveau numéro de rayon ; les numéros sont remis à zéro quand ils s'épuisent. */
+        void next() {
+            if (stamp == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                stamp = 0;
+            }
+            stamp++;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package acceleration;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Test rayon-boîte des quatre enfants d'un nœud large avec l'API Vector (jdk.incubator.vector).
+ *
+ * Cette classe ne doit être utilisée que si le module est présent (voir WideBvh.isSimdAvailable) :
+ * son initialisation échoue sinon.
+ * Les calculs reprennent ceux de BoundingBox.entryDistance voie par voie, y compris
+ * pour les valeurs NaN, ignorées comme dans la version scalaire : le résultat est identique.
+ */
+final class VectorSlabs {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_256;
+    private static final int W = WideBvh.WIDTH;
+
+    private VectorSlabs() {
+    }
+
+    /** Nombre de voies double des vecteurs natifs de la machine. */
+    static int preferredLanes() {
+        return DoubleVector.SPECIES_PREFERRED.length();
+    }
+
+    /**
+     * Distances d'entrée dans les 4 boîtes rangées composante par composante à partir de offset.
+     * @param out Reçoit les 4 distances (+infini pour une boîte manquée)
+     */
+    static void entries(double[] bounds, int offset, double ox, double oy, double oz,
+                        double invDx, double invDy, double invDz, double tMax, double[] out) {
+        DoubleVector tNear = DoubleVector.zero(SPECIES);
+        DoubleVector tFar = DoubleVector.broadcast(SPECIES, tMax);
+
+        // Axe X
+        DoubleVector t1 = DoubleVector.fromArray(SPECIES, bounds, offset).sub(ox).mul(invDx);
+        DoubleVector t2 = DoubleVector.fromArray(SPECIES, bounds, offset + 3 * W).sub(ox).mul(invDx);
+        VectorMask<Double> swap = t1.compare(VectorOperators.GT, t2);
+        DoubleVector near = t1.blend(t2, swap);
+        DoubleVector far = t2.blend(t1, swap);
+        tNear = tNear.blend(near, near.compare(VectorOperators.GT, tNear));
+        tFar = tFar.blend(far, far.compare(VectorOperators.LT, tFar));
+
+        // Axe Y
+        t1 = DoubleVector.fromArray(SPECIES, bounds, offset + W).sub(oy).mul(invDy);
+        t2 = DoubleVector.fromArray(SPECIES, bounds, offset + 4 * W).sub(oy).mul(invDy);
+        swap = t1.compare(VectorOperators.GT, t2);
+        near = t1.blend(t2, swap);
+        far = t2.blend(t1, swap);
+        tNear = tNear.blend(near, near.compare(VectorOperators.GT, tNear));
+        tFar = tFar.blend(far, far.compare(VectorOperators.LT, tFar));
+
+        // Axe Z
+        t1 = DoubleVector.fromArray(SPECIES, bounds, offset + 2 * W).sub(oz).mul(invDz);
+        t2 = DoubleVector.fromArray(SPECIES, bounds, offset + 5 * W).sub(oz).mul(invDz);
+        swap = t1.compare(VectorOperators.GT, t2);
+        near = t1.blend(t2, swap);
+        far = t2.blend(t1, swap);
+        tNear = tNear.blend(near, near.compare(VectorOperators.GT, tNear));
+        tFar = tFar.blend(far, far.compare(VectorOperators.LT, tFar));
+
+        VectorMask<Double> hit = tNear.compare(VectorOperators.LE, tFar);
+        DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY).blend(tNear, hit).intoArray(out, 0);
+    }
+}
@@ -0,0 +1,72 @@
+package acceleration;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Möller-Trumbore sur les 4 triangles d'un bloc de {@link TriangleBlocks} avec l'API Vector.
+ *
+ * Comme {@link VectorSlabs}, cette classe ne doit être utilisée que si le module est présent.
+ * Chaque voie refait les opérations de Triangle.hitDistance dans le même ordre, sans FMA :
+ * les distances sont identiques au bit près. Les tests de rejet deviennent des masques,
+ * écrits sous la même forme (un NaN n'élimine une voie qu'au test final t > 1e-8).
+ */
+final class VectorTriangles {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_256;
+    private static final int W = TriangleBlocks.LANES;
+
+    private VectorTriangles() {
+    }
+
+    /**
+     * Impact le plus proche au-delà de tMin parmi les voies d'un bloc.
+     * @param lanes Voies à tester (bit i pour la voie i)
+     * @param out Reçoit la distance minimale en out[0] (+infini si aucune voie ne touche)
+     * @return Voies touchées à cette distance minimale (0 si aucune)
+     */
+    static long nearest(double[] blocks, int offset, int lanes,
+                        double ox, double oy, double oz, double dx, double dy, double dz,
+                        double tMin, double[] out) {
+        DoubleVector e1x = DoubleVector.fromArray(SPECIES, blocks, offset + 3 * W);
+        DoubleVector e1y = DoubleVector.fromArray(SPECIES, blocks, offset + 4 * W);
+        DoubleVector e1z = DoubleVector.fromArray(SPECIES, blocks, offset + 5 * W);
+        DoubleVector e2x = DoubleVector.fromArray(SPECIES, blocks, offset + 6 * W);
+        DoubleVector e2y = DoubleVector.fromArray(SPECIES, blocks, offset + 7 * W);
+        DoubleVector e2z = DoubleVector.fromArray(SPECIES, blocks, offset + 8 * W);
+
+        // pvec = d x edge2
+        DoubleVector px = e2z.mul(dy).sub(e2y.mul(dz));
+        DoubleVector py = e2x.mul(dz).sub(e2z.mul(dx));
+        DoubleVector pz = e2y.mul(dx).sub(e2x.mul(dy));
+        DoubleVector det = e1x.mul(px).add(e1y.mul(py)).add(e1z.mul(pz));
+        VectorMask<Double> valid = VectorMask.fromLong(SPECIES, lanes)
+                .andNot(det.abs().compare(VectorOperators.LT, 1e-8));
+
+        DoubleVector invDet = DoubleVector.broadcast(SPECIES, 1.0).div(det);
+        DoubleVector tx = DoubleVector.broadcast(SPECIES, ox).sub(DoubleVector.fromArray(SPECIES, blocks, offset));
+        DoubleVector ty = DoubleVector.broadcast(SPECIES, oy).sub(DoubleVector.fromArray(SPECIES, blocks, offset + W));
+        DoubleVector tz = DoubleVector.broadcast(SPECIES, oz).sub(DoubleVector.fromArray(SPECIES, blocks, offset + 2 * W));
+
+        DoubleVector u = tx.mul(px).add(ty.mul(py)).add(tz.mul(pz)).mul(invDet);
+        valid = valid.andNot(u.compare(VectorOperators.LT, 0.0)).andNot(u.compare(VectorOperators.GT, 1.0));
+
+        // qvec = tvec x edge1
+        DoubleVector qx = ty.mul(e1z).sub(tz.mul(e1y));
+        DoubleVector qy = tz.mul(e1x).sub(tx.mul(e1z));
+        DoubleVector qz = tx.mul(e1y).sub(ty.mul(e1x));
+
+        DoubleVector v = qx.mul(dx).add(qy.mul(dy)).add(qz.mul(dz)).mul(invDet);
+        valid = valid.andNot(v.compare(VectorOperators.LT, 0.0)).andNot(u.add(v).compare(VectorOperators.GT, 1.0));
+
+        DoubleVector t = e2x.mul(qx).add(e2y.mul(qy)).add(e2z.mul(qz)).mul(invDet);
+        valid = valid.and(t.compare(VectorOperators.GT, 1e-8)).and(t.compare(VectorOperators.GT, tMin));
+
+        // Réduction masquée : les voies éliminées ne participent pas au minimum
+        double min = t.reduceLanes(VectorOperators.MIN, valid);
+        out[0] = min;
+        return valid.and(t.compare(VectorOperators.EQ, min)).toLong();
+    }
+}
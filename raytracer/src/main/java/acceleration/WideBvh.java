@@ -0,0 +1,360 @@
+package acceleration;
+
+import geometry.Shape;
+import raytracer.HitRecord;
+import stats.RayCounters;
+
+import java.util.Arrays;
+
+/**
+ * Version à 4 enfants par nœud d'une hiérarchie binaire aplatie : chaque nœud large regroupe
+ * jusqu'à quatre sous-arbres du nœud binaire correspondant, en ouvrant en priorité l'enfant
+ * de plus grande aire. Les boîtes des quatre enfants sont rangées composante par composante
+ * (4 minX, 4 minY, ..., 4 maxZ), ce qui permet de les tester d'un seul coup avec l'API Vector
+ * ({@link VectorSlabs}), ou par une boucle scalaire équivalente si le module n'est pas chargé.
+ * Les primitives et les feuilles sont celles de l'arbre binaire : le résultat est le même.
+ */
+final class WideBvh {
+
+    /** Nombre d'enfants par nœud. */
+    static final int WIDTH = 4;
+    // Valeurs par nœud dans children[] : WIDTH débuts puis WIDTH informations, codées comme dans Bvh
+    // (nombre de primitives > 0 pour une feuille, 0 pour un nœud large, -1 pour une case vide)
+    private static final int INFO = WIDTH;
+    private static final int EMPTY = -1;
+
+    private static final boolean SIMD_AVAILABLE = detectSimd();
+
+    private final Shape[] shapes;
+    private final int[] refShape;
+    private final int[] refPrimitive;
+    private final int[] unbounded;
+    private final int[] primitives;
+
+    private double[] bounds;   // 6 * WIDTH valeurs par nœud large, composante par composante
+    private int[] children;    // 2 * WIDTH valeurs par nœud large
+    private int nodeCount;
+    private final int stackSize;
+    private final boolean simd;
+    private TriangleBlocks leaves; // Triangles des feuilles par blocs, ou null (voir Bvh.groupTriangles)
+    // Pile de parcours de chaque thread, réutilisée d'une requête à l'autre
+    private final ThreadLocal<TraversalStack> stacks;
+
+    // Arbre binaire source (partagé avec Bvh), lu pendant la conversion
+    private final double[] binaryBounds;
+    private final int[] binaryNodes;
+
+    /**
+     * Regroupe les nœuds d'un arbre binaire aplati.
+     * @param binaryBounds Boîtes des nœuds binaires (6 valeurs par nœud)
+     * @param binaryNodes Nœuds binaires (2 valeurs par nœud, voir Bvh)
+     * @param binaryDepth Profondeur de l'arbre binaire
+     * @param simd Tester les boîtes avec l'API Vector (le module doit être chargé)
+     */
+    WideBvh(Shape[] shapes, int[] refShape, int[] refPrimitive, int[] unbounded, int[] primitives,
+            double[] binaryBounds, int[] binaryNodes, int binaryDepth, boolean simd) {
+        this.shapes = shapes;
+        this.refShape = refShape;
+        this.refPrimitive = refPrimitive;
+        this.unbounded = unbounded;
+        this.primitives = primitives;
+        this.binaryBounds = binaryBounds;
+        this.binaryNodes = binaryNodes;
+        this.simd = simd;
+
+        // Au plus un nœud large par nœud binaire interne (et un pour une racine feuille)
+        int capacity = Math.max(1, binaryNodes.length / 2);
+        this.bounds = new double[6 * WIDTH * capacity];
+        this.children = new int[2 * WIDTH * capacity];
+        if (binaryNodes.length > 0) emit(0);
+        this.bounds = Arrays.copyOf(bounds, 6 * WIDTH * nodeCount);
+        this.children = Arrays.copyOf(children, 2 * WIDTH * nodeCount);
+        // Chaque niveau dépile un nœud et en empile au plus WIDTH
+        this.stackSize = (WIDTH - 1) * binaryDepth + 1;
+        this.stacks = ThreadLocal.withInitial(() -> new TraversalStack(stackSize));
+    }
+
+    /**
+     * L'API Vector est-elle utilisable : module jdk.incubator.vector chargé
+     * (option --add-modules) et au moins 4 voies double en natif ? Sans AVX,
+     * l'API serait émulée et plus lente que la boucle scalaire.
+     */
+    static boolean isSimdAvailable() {
+        return SIMD_AVAILABLE;
+    }
+
+    private static boolean detectSimd() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return false;
+        try {
+            return VectorSlabs.preferredLanes() >= WIDTH;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    /** Nombre de nœuds larges. */
+    int getNodeCount() { return nodeCount; }
+
+    /** Les boîtes sont-elles testées avec l'API Vector ? */
+    boolean isSimd() { return simd; }
+
+    /** Mémoire occupée par les nœuds larges, en octets (les autres tableaux sont ceux de Bvh). */
+    long getMemoryFootprint() {
+        return 8L * bounds.length + 4L * children.length;
+    }
+
+    /** Blocs de triangles des feuilles (partagés avec l'arbre binaire), ou null. */
+    void setLeaves(TriangleBlocks leaves) { this.leaves = leaves; }
+
+    /**
+     * Crée le nœud large du nœud binaire donné, puis ceux de ses sous-arbres, en préordre.
+     * @return Indice du nœud large
+     */
+    private int emit(int binaryNode) {
+        int wide = nodeCount++;
+        int[] lanes = new int[WIDTH];
+        int laneCount;
+        if (isBinaryLeaf(binaryNode)) {
+            lanes[0] = binaryNode;
+            laneCount = 1;
+        } else {
+            lanes[0] = binaryNode + 1;
+            lanes[1] = binaryNodes[2 * binaryNode];
+            laneCount = 2;
+            // Ouvre l'enfant interne de plus grande aire tant qu'il reste de la place
+            while (laneCount < WIDTH) {
+                int best = -1;
+                double bestArea = -1;
+                for (int lane = 0; lane < laneCount; lane++) {
+                    if (isBinaryLeaf(lanes[lane])) continue;
+                    double area = binaryArea(lanes[lane]);
+                    if (area > bestArea) {
+                        bestArea = area;
+                        best = lane;
+                    }
+                }
+                if (best < 0) break;
+                int opened = lanes[best];
+                System.arraycopy(lanes, best + 1, lanes, best + 2, laneCount - best - 1);
+                lanes[best] = opened + 1;
+                lanes[best + 1] = binaryNodes[2 * opened];
+                laneCount++;
+            }
+        }
+
+        int b = 6 * WIDTH * wide;
+        int c = 2 * WIDTH * wide;
+        for (int lane = 0; lane < WIDTH; lane++) {
+            if (lane >= laneCount) {
+                children[c + INFO + lane] = EMPTY;
+                continue;
+            }
+            int node = lanes[lane];
+            for (int v = 0; v < 6; v++) {
+                bounds[b + v * WIDTH + lane] = binaryBounds[6 * node + v];
+            }
+            if (isBinaryLeaf(node)) {
+                children[c + lane] = binaryNodes[2 * node];
+                children[c + INFO + lane] = binaryNodes[2 * node + 1];
+            } else {
+                children[c + INFO + lane] = 0;
+                children[c + lane] = emit(node);
+            }
+        }
+        return wide;
+    }
+
+    private boolean isBinaryLeaf(int node) {
+        return binaryNodes[2 * node + 1] > 0;
+    }
+
+    private double binaryArea(int node) {
+        double dx = binaryBounds[6 * node + 3] - binaryBounds[6 * node];
+        double dy = binaryBounds[6 * node + 4] - binaryBounds[6 * node + 1];
+        double dz = binaryBounds[6 * node + 5] - binaryBounds[6 * node + 2];
+        return 2.0 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Impact le plus proche au-delà de tMin, mêmes règles que Bvh.findClosestHit.
+     */
+    boolean findClosestHit(double ox, double oy, double oz, double dx, double dy, double dz,
+                           double tMin, HitRecord out, RayCounters counters) {
+        double closestT = Double.MAX_VALUE;
+        int closestRef = Integer.MAX_VALUE;
+
+        for (int ref : unbounded) {
+            double t = shapes[refShape[ref]].hitDistance(refPrimitive[ref], ox, oy, oz, dx, dy, dz);
+            if (counters != null) counters.countTest(shapes[refShape[ref]], t > tMin);
+            if (t > tMin && (t < closestT || (t == closestT && ref < closestRef))) {
+                closestT = t;
+                closestRef = ref;
+            }
+        }
+
+        if (nodeCount > 0) {
+            double invDx = 1.0 / dx, invDy = 1.0 / dy, invDz = 1.0 / dz;
+
+            TraversalStack traversal = stacks.get().ensure(stackSize);
+            int[] stack = traversal.nodes;
+            double[] entries = traversal.entries;
+            double[] laneEntries = traversal.laneEntries;
+            int[] order = traversal.order;
+            int top = 0;
+            TriangleBlocks.Hit hit = null;
+            if (leaves != null && counters == null) {
+                hit = traversal.hit;
+                hit.t = closestT;
+                hit.ref = closestRef;
+            }
+            stack[top] = 0;
+            entries[top++] = 0.0;
+
+            while (top > 0) {
+                int node = stack[--top];
+                if (entries[top] > closestT) continue; // Un impact plus proche a été trouvé depuis l'empilement
+
+                slabs(node, ox, oy, oz, invDx, invDy, invDz, closestT, laneEntries);
+
+                // Enfants touchés, triés par distance d'entrée croissante (tri par insertion, 4 au plus)
+                int c = 2 * WIDTH * node;
+                int hits = 0;
+                for (int lane = 0; lane < WIDTH && children[c + INFO + lane] != EMPTY; lane++) {
+                    double entry = laneEntries[lane];
+                    if (entry == Double.POSITIVE_INFINITY) continue;
+                    int k = hits++;
+                    while (k > 0 && laneEntries[order[k - 1]] > entry) {
+                        order[k] = order[k - 1];
+                        k--;
+                    }
+                    order[k] = lane;
+                }
+
+                // Feuilles testées tout de suite, de la plus proche à la plus lointaine
+                for (int h = 0; h < hits; h++) {
+                    int lane = order[h];
+                    int count = children[c + INFO + lane];
+                    if (count == 0 || laneEntries[lane] > closestT) continue;
+                    int first = children[c + lane];
+                    if (hit != null) {
+                        leaves.closest(first, count, ox, oy, oz, dx, dy, dz, tMin, hit);
+                        closestT = hit.t;
+                        closestRef = hit.ref;
+                        continue;
+                    }
+                    for (int k = first; k < first + count; k++) {
+                        int ref = primitives[k];
+                        double t = shapes[refShape[ref]].hitDistance(refPrimitive[ref], ox, oy, oz, dx, dy, dz);
+                        if (counters != null) counters.countTest(shapes[refShape[ref]], t > tMin);
+                        if (t > tMin && (t < closestT || (t == closestT && ref < closestRef))) {
+                            closestT = t;
+                            closestRef = ref;
+                        }
+                    }
+                }
+
+                // Nœuds internes empilés du plus lointain au plus proche
+                for (int h = hits - 1; h >= 0; h--) {
+                    int lane = order[h];
+                    if (children[c + INFO + lane] != 0 || laneEntries[lane] > closestT) continue;
+                    stack[top] = children[c + lane];
+                    entries[top++] = laneEntries[lane];
+                }
+            }
+        }
+
+        if (closestRef == Integer.MAX_VALUE) {
+            return false;
+        }
+        out.set(closestT, shapes[refShape[closestRef]], refPrimitive[closestRef]);
+        return true;
+    }
+
+    /**
+     * Une forme coupe-t-elle le rayon entre tMin et tMax ? Mêmes règles que Bvh.isOccluded.
+     */
+    boolean isOccluded(double ox, double oy, double oz, double dx, double dy, double dz,
+                       double tMin, double tMax, RayCounters counters) {
+        for (int ref : unbounded) {
+            if (blocks(ref, ox, oy, oz, dx, dy, dz, tMin, tMax, counters)) return true;
+        }
+        if (nodeCount == 0) return false;
+
+        double invDx = 1.0 / dx, invDy = 1.0 / dy, invDz = 1.0 / dz;
+
+        TraversalStack traversal = stacks.get().ensure(stackSize);
+        int[] stack = traversal.nodes;
+        double[] laneEntries = traversal.laneEntries;
+        int top = 0;
+        stack[top++] = 0;
+        double[] scratch = leaves != null && counters == null ? traversal.nearest : null;
+
+        while (top > 0) {
+            int node = stack[--top];
+            slabs(node, ox, oy, oz, invDx, invDy, invDz, tMax, laneEntries);
+            int c = 2 * WIDTH * node;
+            for (int lane = 0; lane < WIDTH && children[c + INFO + lane] != EMPTY; lane++) {
+                if (laneEntries[lane] == Double.POSITIVE_INFINITY) continue;
+                int count = children[c + INFO + lane];
+                if (count == 0) {
+                    stack[top++] = children[c + lane];
+                    continue;
+                }
+                int first = children[c + lane];
+                if (scratch != null) {
+                    if (leaves.blocks(first, count, ox, oy, oz, dx, dy, dz, tMin, tMax, scratch)) return true;
+                    continue;
+                }
+                for (int k = first; k < first + count; k++) {
+                    if (blocks(primitives[k], ox, oy, oz, dx, dy, dz, tMin, tMax, counters)) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean blocks(int ref, double ox, double oy, double oz, double dx, double dy, double dz,
+                           double tMin, double tMax, RayCounters counters) {
+        double t = shapes[refShape[ref]].hitDistance(refPrimitive[ref], ox, oy, oz, dx, dy, dz);
+        boolean hit = t > tMin && t < tMax;
+        if (counters != null) counters.countTest(shapes[refShape[ref]], hit);
+        return hit;
+    }
+
+    /**
+     * Distances d'entrée du rayon dans les boîtes des enfants d'un nœud (+infini si manquée).
+     * Les cases vides donnent une valeur quelconque, ignorée par le parcours.
+     */
+    private void slabs(int node, double ox, double oy, double oz,
+                       double invDx, double invDy, double invDz, double tMax, double[] out) {
+        int b = 6 * WIDTH * node;
+        if (simd) {
+            VectorSlabs.entries(bounds, b, ox, oy, oz, invDx, invDy, invDz, tMax, out);
+            return;
+        }
+        for (int lane = 0; lane < WIDTH; lane++) {
+            double tNear = 0.0;
+            double tFar = tMax;
+
+            double t1 = (bounds[b + lane] - ox) * invDx;
+            double t2 = (bounds[b + 3 * WIDTH + lane] - ox) * invDx;
+            if (t1 > t2) { double tmp = t1; t1 = t2; t2 = tmp; }
+            if (t1 > tNear) tNear = t1;
+            if (t2 < tFar) tFar = t2;
+
+            t1 = (bounds[b + WIDTH + lane] - oy) * invDy;
+            t2 = (bounds[b + 4 * WIDTH + lane] - oy) * invDy;
+            if (t1 > t2) { double tmp = t1; t1 = t2; t2 = tmp; }
+            if (t1 > tNear) tNear = t1;
+            if (t2 < tFar) tFar = t2;
+
+            t1 = (bounds[b + 2 * WIDTH + lane] - oz) * invDz;
+            t2 = (bounds[b + 5 * WIDTH + lane] - oz) * invDz;
+            if (t1 > t2) { double tmp = t1; t1 = t2; t2 = tmp; }
+            if (t1 > tNear) tNear = t1;
+            if (t2 < tFar) tFar = t2;
+
+            out[lane] = tNear <= tFar ? tNear : Double.POSITIVE_INFINITY;
+        }
+    }
+}
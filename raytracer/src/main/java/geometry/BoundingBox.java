@@ -0,0 +1,188 @@
+package geometry;
+
+import math.Point;
+
+/**
+ * Boîte englobante alignée sur les axes (AABB).
+ * Utilisée par les structures d'accélération pour écarter rapidement
+ * les formes qu'un rayon ne peut pas toucher.
+ */
+public final class BoundingBox {
+
+    /** Boîte vide : élément neutre de l'union. */
+    public static final BoundingBox EMPTY = new BoundingBox(
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
+
+    /** Boîte infinie, pour les formes non bornées (plan). */
+    public static final BoundingBox INFINITE = new BoundingBox(
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+    private final double minX, minY, minZ;
+    private final double maxX, maxY, maxZ;
+
+    /**
+     * Crée une boîte à partir de ses coordonnées extrêmes.
+     */
+    public BoundingBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    /**
+     * Crée la plus petite boîte contenant deux points.
+     *
+     * @param a Premier point
+     * @param b Second point
+     */
+    public BoundingBox(Point a, Point b) {
+        this(Math.min(a.getX(), b.getX()), Math.min(a.getY(), b.getY()), Math.min(a.getZ(), b.getZ()),
+                Math.max(a.getX(), b.getX()), Math.max(a.getY(), b.getY()), Math.max(a.getZ(), b.getZ()));
+    }
+
+    public double getMinX() { return minX; }
+    public double getMinY() { return minY; }
+    public double getMinZ() { return minZ; }
+    public double getMaxX() { return maxX; }
+    public double getMaxY() { return maxY; }
+    public double getMaxZ() { return maxZ; }
+
+    /** Coin minimal. */
+    public Point getMin() { return new Point(minX, minY, minZ); }
+    /** Coin maximal. */
+    public Point getMax() { return new Point(maxX, maxY, maxZ); }
+
+    /**
+     * Union de deux boîtes.
+     * @param other Autre boîte
+     * @return Boîte contenant les deux
+     */
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(
+                Math.min(minX, other.minX), Math.min(minY, other.minY), Math.min(minZ, other.minZ),
+                Math.max(maxX, other.maxX), Math.max(maxY, other.maxY), Math.max(maxZ, other.maxZ));
+    }
+
+    /**
+     * Agrandit la boîte pour contenir un point.
+     * @param p Point à inclure
+     * @return Nouvelle boîte
+     */
+    public BoundingBox include(Point p) {
+        return new BoundingBox(
+                Math.min(minX, p.getX()), Math.min(minY, p.getY()), Math.min(minZ, p.getZ()),
+                Math.max(maxX, p.getX()), Math.max(maxY, p.getY()), Math.max(maxZ, p.getZ()));
+    }
+
+    /**
+     * Élargit la boîte d'une marge dans toutes les directions.
+     * @param margin Marge à ajouter de chaque côté
+     * @return Nouvelle boîte
+     */
+    public BoundingBox expand(double margin) {
+        return new BoundingBox(minX - margin, minY - margin, minZ - margin,
+                maxX + margin, maxY + margin, maxZ + margin);
+    }
+
+    /**
+     * Coordonnée du centre sur un axe.
+     * @param axis 0 = X, 1 = Y, 2 = Z
+     */
+    public double getCentroid(int axis) {
+        switch (axis) {
+            case 0: return 0.5 * (minX + maxX);
+            case 1: return 0.5 * (minY + maxY);
+            default: return 0.5 * (minZ + maxZ);
+        }
+    }
+
+    /**
+     * Borne minimale sur un axe.
+     * @param axis 0 = X, 1 = Y, 2 = Z
+     */
+    public double getMin(int axis) {
+        switch (axis) {
+            case 0: return minX;
+            case 1: return minY;
+            default: return minZ;
+        }
+    }
+
+    /**
+     * Borne maximale sur un axe.
+     * @param axis 0 = X, 1 = Y, 2 = Z
+     */
+    public double getMax(int axis) {
+        switch (axis) {
+            case 0: return maxX;
+            case 1: return maxY;
+            default: return maxZ;
+        }
+    }
+
+    /** Vrai si la boîte ne contient aucun point. */
+    public boolean isEmpty() {
+        return minX > maxX || minY > maxY || minZ > maxZ;
+    }
+
+    /**
+     * Aire de la surface de la boîte (utilisée par l'heuristique SAH).
+     */
+    public double surfaceArea() {
+        if (isEmpty()) return 0.0;
+        double dx = maxX - minX;
+        double dy = maxY - minY;
+        double dz = maxZ - minZ;
+        return 2.0 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Test rayon-boîte par la méthode des "slabs".
+     * Les composantes NaN (rayon parallèle à un plan de la boîte et partant de ce plan)
+     * sont ignorées, ce qui rend le test conservateur.
+     *
+     * @param ox Origine X du rayon
+     * @param oy Origine Y du rayon
+     * @param oz Origine Z du rayon
+     * @param invDx Inverse de la direction X
+     * @param invDy Inverse de la direction Y
+     * @param invDz Inverse de la direction Z
+     * @param tMax Distance maximale utile
+     * @return Distance d'entrée dans la boîte, ou +infini si elle est manquée
+     */
+    public double entryDistance(double ox, double oy, double oz,
+                                double invDx, double invDy, double invDz, double tMax) {
+        double tNear = 0.0;
+        double tFar = tMax;
+
+        double t1 = (minX - ox) * invDx;
+        double t2 = (maxX - ox) * invDx;
+        if (t1 > t2) { double tmp = t1; t1 = t2; t2 = tmp; }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+
+        t1 = (minY - oy) * invDy;
+        t2 = (maxY - oy) * invDy;
+        if (t1 > t2) { double tmp = t1; t1 = t2; t2 = tmp; }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+
+        t1 = (minZ - oz) * invDz;
+        t2 = (maxZ - oz) * invDz;
+        if (t1 > t2) { double tmp = t1; t1 = t2; t2 = tmp; }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+
+        return tNear <= tFar ? tNear : Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[(%f, %f, %f) - (%f, %f, %f)]", minX, minY, minZ, maxX, maxY, maxZ);
+    }
+}
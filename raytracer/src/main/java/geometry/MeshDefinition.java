@@ -0,0 +1,52 @@
+package geometry;
+
+import acceleration.Bvh;
+
+import java.util.List;
+
+/**
+ * Maillage nommé d'une scène, destiné à être instancié ({@link MeshInstance}).
+ * Les triangles sont donnés dans le repère de l'objet ; leur hiérarchie englobante (niveau bas)
+ * est construite une seule fois et partagée par toutes les instances : la mémoire et le temps
+ * de construction croissent avec la géométrie distincte, pas avec le nombre de copies.
+ */
+public final class MeshDefinition {
+
+    private final String name;
+    private final TriangleMesh mesh;
+    private final Bvh bvh;
+    private final BoundingBox bounds;
+
+    /**
+     * Crée la définition et construit sa hiérarchie.
+     * @param name Nom utilisé par les instances
+     * @param mesh Triangles, dans le repère de l'objet
+     */
+    public MeshDefinition(String name, TriangleMesh mesh) {
+        this(name, mesh, new Bvh(List.of(mesh)));
+    }
+
+    /**
+     * Crée la définition avec une hiérarchie déjà construite (scène compilée).
+     * @param name Nom utilisé par les instances
+     * @param mesh Triangles, dans le repère de l'objet
+     * @param bvh Hiérarchie construite sur le seul maillage
+     */
+    public MeshDefinition(String name, TriangleMesh mesh, Bvh bvh) {
+        this.name = name;
+        this.mesh = mesh;
+        this.bvh = bvh;
+        this.bounds = mesh.getBoundingBox();
+    }
+
+    public String getName() { return name; }
+
+    /** Triangles partagés, dans le repère de l'objet. */
+    public TriangleMesh getMesh() { return mesh; }
+
+    /** Hiérarchie de niveau bas, partagée par les instances. */
+    public Bvh getAccelerationStructure() { return bvh; }
+
+    /** Boîte englobante dans le repère de l'objet. */
+    public BoundingBox getBoundingBox() { return bounds; }
+}
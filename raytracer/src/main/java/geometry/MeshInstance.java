@@ -0,0 +1,142 @@
+package geometry;
+
+import imaging.Color;
+import math.Point;
+import math.Ray;
+import math.Transform;
+import math.Vector;
+import math.VectorMath;
+import raytracer.HitRecord;
+import raytracer.Intersection;
+
+/**
+ * Copie placée d'un maillage partagé ({@link MeshDefinition}) : une transformation affine et
+ * un matériau propre, sans aucun triangle. Pour la structure d'accélération de la scène
+ * (niveau haut), une instance est une seule primitive, de boîte englobante transformée.
+ *
+ * Le rayon est ramené dans le repère de l'objet par la transformation inverse, sans être
+ * normalisé : la distance t est donc la même dans les deux repères. La hiérarchie partagée de
+ * la définition est ensuite parcourue avec sa propre pile, si bien qu'elle peut l'être pendant
+ * le parcours de la hiérarchie de la scène.
+ */
+public class MeshInstance extends Shape {
+
+    /**
+     * Distance minimale d'un impact dans l'instance, comme dans Scene : l'impact d'un rayon
+     * qui repart de la surface ne doit pas masquer les triangles suivants de la même instance.
+     */
+    private static final double MIN_DISTANCE = 1e-4;
+
+    /** Tampons du thread courant : une requête n'alloue rien. */
+    private static final class Scratch {
+        final HitRecord hit = new HitRecord();
+        final double[] origin = new double[3];
+        final double[] direction = new double[3];
+        final double[] normal = new double[3];
+    }
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final MeshDefinition definition;
+    private final Transform transform;
+    private final BoundingBox bounds;
+
+    /**
+     * Crée une instance d'un maillage partagé.
+     *
+     * @param definition Maillage partagé
+     * @param transform Passage du repère de l'objet à celui de la scène
+     * @param diffuse Couleur diffuse (remplace celle du maillage)
+     * @param specular Couleur spéculaire
+     * @param shininess Exposant de brillance
+     */
+    public MeshInstance(MeshDefinition definition, Transform transform,
+                        Color diffuse, Color specular, double shininess) {
+        super(diffuse, specular, shininess);
+        this.definition = definition;
+        this.transform = transform;
+        this.bounds = transformBox(definition.getBoundingBox(), transform);
+    }
+
+    public MeshDefinition getDefinition() { return definition; }
+
+    public Transform getTransform() { return transform; }
+
+    /** Boîte contenant les 8 coins transformés de la boîte de l'objet. */
+    private static BoundingBox transformBox(BoundingBox box, Transform transform) {
+        if (box.isEmpty()) return box;
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        double[] p = new double[3];
+        for (int corner = 0; corner < 8; corner++) {
+            transform.transformPoint(
+                    (corner & 1) == 0 ? box.getMinX() : box.getMaxX(),
+                    (corner & 2) == 0 ? box.getMinY() : box.getMaxY(),
+                    (corner & 4) == 0 ? box.getMinZ() : box.getMaxZ(), p);
+            minX = Math.min(minX, p[0]);
+            minY = Math.min(minY, p[1]);
+            minZ = Math.min(minZ, p[2]);
+            maxX = Math.max(maxX, p[0]);
+            maxY = Math.max(maxY, p[1]);
+            maxZ = Math.max(maxZ, p[2]);
+        }
+        return new BoundingBox(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return bounds;
+    }
+
+    /**
+     * Cherche l'impact le plus proche dans le repère de l'objet.
+     * @return true si un triangle est touché (impact dans s.hit)
+     */
+    private boolean findHit(double ox, double oy, double oz, double dx, double dy, double dz, Scratch s) {
+        transform.inversePoint(ox, oy, oz, s.origin);
+        transform.inverseVector(dx, dy, dz, s.direction);
+        return definition.getAccelerationStructure().findClosestHit(
+                s.origin[0], s.origin[1], s.origin[2], s.direction[0], s.direction[1], s.direction[2],
+                MIN_DISTANCE, s.hit, null);
+    }
+
+    @Override
+    public double hitDistance(Ray ray) {
+        Point o = ray.getOrigin();
+        Vector d = ray.getDirection();
+        return hitDistance(0, o.getX(), o.getY(), o.getZ(), d.getX(), d.getY(), d.getZ());
+    }
+
+    @Override
+    public double hitDistance(int primitive, double ox, double oy, double oz, double dx, double dy, double dz) {
+        Scratch s = SCRATCH.get();
+        return findHit(ox, oy, oz, dx, dy, dz, s) ? s.hit.getT() : NO_HIT;
+    }
+
+    /**
+     * Normale du triangle touché, ramenée dans le repère de la scène : le triangle est
+     * retrouvé en refaisant la requête, qui ne concerne que l'impact retenu.
+     */
+    @Override
+    public void normalAt(int primitive, double ox, double oy, double oz, double dx, double dy, double dz,
+                         double t, double[] out) {
+        Scratch s = SCRATCH.get();
+        if (!findHit(ox, oy, oz, dx, dy, dz, s)) {
+            throw new IllegalArgumentException("L'instance n'est pas touchée à la distance " + t);
+        }
+        s.hit.getShape().normalAt(s.hit.getPrimitive(), s.origin[0], s.origin[1], s.origin[2],
+                s.direction[0], s.direction[1], s.direction[2], s.hit.getT(), s.normal);
+        transform.transformNormal(s.normal[0], s.normal[1], s.normal[2], s.normal);
+        VectorMath.normalize(s.normal[0], s.normal[1], s.normal[2], out);
+    }
+
+    @Override
+    public Intersection surfaceAt(Ray ray, double t) {
+        Point o = ray.getOrigin();
+        Vector d = ray.getDirection();
+        double[] n = new double[3];
+        normalAt(0, o.getX(), o.getY(), o.getZ(), d.getX(), d.getY(), d.getZ(), t, n);
+        return new Intersection(ray.pointAt(t), new Vector(n[0], n[1], n[2]),
+                getDiffuse(), getSpecular(), getShininess(), t, this);
+    }
+}
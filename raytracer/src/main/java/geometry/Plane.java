@@ -6,8 +6,6 @@ import math.Ray;
 import math.Vector;
 import raytracer.Intersection;
 
-import java.util.Optional;
-
 /**
  * Représente un plan infini défini par un point et une normale.
  */
@@ -30,49 +28,102 @@ public class Plane extends Shape {
         this.normal = normal.normalize(); // On s'assure que la normale est normalisée
     }
 
+    private Plane(Point point, Vector unitNormal, Color diffuse, Color specular, double shininess, boolean normalized) {
+        super(diffuse, specular, shininess);
+        this.point = point;
+        this.normal = unitNormal;
+    }
+
+    /**
+     * Crée un plan dont la normale est déjà unitaire (telle que renvoyée par {@link #getNormal()}).
+     * Elle est reprise telle quelle : normaliser à nouveau pourrait la déplacer d'un ulp.
+     */
+    public static Plane withUnitNormal(Point point, Vector unitNormal, Color diffuse, Color specular, double shininess) {
+        return new Plane(point, unitNormal, diffuse, specular, shininess, true);
+    }
+
     /** Un point du plan. */
     public Point getPoint() { return point; }
     /** Normale du plan. */
     public Vector getNormal() { return normal; }
 
+    /** Un plan est infini : il n'a pas de boîte englobante finie. */
+    @Override
+    public BoundingBox getBoundingBox() {
+        return BoundingBox.INFINITE;
+    }
+
+    @Override
+    public boolean isBounded() {
+        return false;
+    }
+
     /**
-     * Calcule l'intersection entre le rayon et ce plan.
+     * Calcule la distance d'intersection entre le rayon et ce plan.
      *
      * @param ray Le rayon à tester
-     * @return Un Optional contenant l'intersection, vide sinon
+     * @return La distance de l'impact, ou NO_HIT
      */
     @Override
-    public Optional<Intersection> intersect(Ray ray) {
+    public double hitDistance(Ray ray) {
+        Point o = ray.getOrigin();
+        Vector d = ray.getDirection();
+        return hitDistance(0, o.getX(), o.getY(), o.getZ(), d.getX(), d.getY(), d.getZ());
+    }
+
+    /**
+     * Intersection rayon-plan sur les composantes du rayon, sans allocation.
+     */
+    @Override
+    public double hitDistance(int primitive, double ox, double oy, double oz, double dx, double dy, double dz) {
         // Formule d'intersection Rayon-Plan :
         // t = ((point_plan - origine_rayon) . normale_plan) / (direction_rayon . normale_plan)
+        double nx = normal.getX(), ny = normal.getY(), nz = normal.getZ();
 
-        double denominator = ray.getDirection().dot(this.normal);
+        double denominator = dx * nx + dy * ny + dz * nz;
 
         // Si le dénominateur est proche de 0, le rayon est parallèle au plan -> Pas d'intersection
         if (Math.abs(denominator) < 1e-6) {
-            return Optional.empty();
+            return NO_HIT;
         }
 
-        Vector originToPlane = this.point.subtract(ray.getOrigin());
-        double t = originToPlane.dot(this.normal) / denominator;
+        double t = ((point.getX() - ox) * nx
+                + (point.getY() - oy) * ny
+                + (point.getZ() - oz) * nz) / denominator;
 
         // L'intersection doit être devant la caméra (t > 0)
-        if (t > 1e-6) {
-            Point p = ray.pointAt(t);
-
-            // Pour un plan, la normale est constante
-            // (Optionnel : si on veut voir le plan des deux côtés, on peut inverser la normale si denominator > 0)
-            return Optional.of(new Intersection(
-                    p,
-                    this.normal,
-                    this.getDiffuse(),
-                    this.getSpecular(),
-                    this.getShininess(),
-                    t,
-                    this
-            ));
-        }
+        return t > 1e-6 ? t : NO_HIT;
+    }
+
+    /**
+     * Construit l'intersection au point d'impact.
+     *
+     * @param ray Le rayon testé
+     * @param t Distance de l'impact
+     * @return L'intersection (point, normale, matériau)
+     */
+    @Override
+    public void normalAt(int primitive, double ox, double oy, double oz, double dx, double dy, double dz,
+                         double t, double[] out) {
+        out[0] = normal.getX();
+        out[1] = normal.getY();
+        out[2] = normal.getZ();
+    }
+
+    @Override
+    public Intersection surfaceAt(Ray ray, double t) {
+        Point p = ray.pointAt(t);
 
-        return Optional.empty();
+        // Pour un plan, la normale est constante
+        // (Optionnel : si on veut voir le plan des deux côtés, on peut inverser la normale si denominator > 0)
+        return new Intersection(
+                p,
+                this.normal,
+                this.getDiffuse(),
+                this.getSpecular(),
+                this.getShininess(),
+                t,
+                this
+        );
     }
 }
@@ -1,7 +1,9 @@
 package geometry;
 
 import imaging.Color;
+import math.Point;
 import math.Ray;
+import math.Vector;
 import raytracer.Intersection;
 
 import java.util.Optional;
@@ -12,6 +14,9 @@ import java.util.Optional;
  */
 public abstract class Shape {
 
+    /** Distance renvoyée par hitDistance() quand le rayon manque la forme. */
+    public static final double NO_HIT = Double.POSITIVE_INFINITY;
+
     protected final Color diffuse;   // Couleur diffuse de l'objet
     protected final Color specular;  // Couleur spéculaire de l'objet
     protected final double shininess; // Exposant de brillance
@@ -43,11 +48,153 @@ public abstract class Shape {
     }
 
     /**
-     * Calcule l'intersection entre un rayon et la forme.
+     * Phase 1 de l'intersection : distance seule, sans aucune allocation.
      * C'est à la forme de connaître sa propre équation
      *
      * @param ray Le rayon à tester
+     * @return La distance t de l'impact sur le rayon, ou NO_HIT
+     */
+    public abstract double hitDistance(Ray ray);
+
+    /**
+     * Phase 2 de l'intersection : données de surface (point, normale, matériau)
+     * pour un impact déjà trouvé par hitDistance(). N'est appelée que pour la forme retenue.
+     *
+     * @param ray Le rayon testé
+     * @param t Distance renvoyée par hitDistance()
+     * @return L'intersection complète
+     */
+    public abstract Intersection surfaceAt(Ray ray, double t);
+
+    /**
+     * Calcule l'intersection entre un rayon et la forme (les deux phases à la suite).
+     *
+     * @param ray Le rayon à tester
      * @return Un Optional<Intersection>
      */
-    public abstract Optional<Intersection> intersect(Ray ray);
+    public Optional<Intersection> intersect(Ray ray) {
+        double t = hitDistance(ray);
+        if (t == NO_HIT) {
+            return Optional.empty();
+        }
+        return Optional.of(surfaceAt(ray, t));
+    }
+
+    /**
+     * Test d'occultation pour les rayons d'ombre : indique seulement si une primitive
+     * de la forme coupe le rayon strictement entre tMin et tMax. N'alloue rien.
+     *
+     * @param ray Le rayon à tester
+     * @param tMin Distance minimale (évite l'auto-intersection)
+     * @param tMax Distance maximale (distance à la lumière)
+     * @return true si la forme bloque le rayon
+     */
+    public boolean occludes(Ray ray, double tMin, double tMax) {
+        for (int primitive = 0; primitive < getPrimitiveCount(); primitive++) {
+            double t = hitDistance(primitive, ray);
+            if (t > tMin && t < tMax) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Nombre de primitives élémentaires de la forme.
+     * Une forme simple en a une seule ; un maillage en a une par triangle.
+     * Les structures d'accélération et la scène travaillent primitive par primitive.
+     *
+     * @return 1 par défaut
+     */
+    public int getPrimitiveCount() {
+        return 1;
+    }
+
+    /**
+     * Distance d'intersection avec une primitive de la forme (phase 1).
+     *
+     * @param primitive Indice de la primitive, dans [0, getPrimitiveCount()[
+     * @param ray Le rayon à tester
+     * @return La distance t de l'impact, ou NO_HIT
+     */
+    public double hitDistance(int primitive, Ray ray) {
+        return hitDistance(ray);
+    }
+
+    /**
+     * Distance d'intersection avec une primitive, le rayon étant donné par ses composantes.
+     * Même résultat que hitDistance(primitive, ray), sans aucune allocation pour les formes
+     * de base ; par défaut, un Ray est construit.
+     *
+     * @param primitive Indice de la primitive, dans [0, getPrimitiveCount()[
+     * @return La distance t de l'impact, ou NO_HIT
+     */
+    public double hitDistance(int primitive, double ox, double oy, double oz, double dx, double dy, double dz) {
+        return hitDistance(primitive, new Ray(new Point(ox, oy, oz), new Vector(dx, dy, dz)));
+    }
+
+    /**
+     * Données de surface pour un impact sur une primitive (phase 2).
+     *
+     * @param primitive Indice de la primitive touchée
+     * @param ray Le rayon testé
+     * @param t Distance renvoyée par hitDistance(primitive, ray)
+     * @return L'intersection complète
+     */
+    public Intersection surfaceAt(int primitive, Ray ray, double t) {
+        return surfaceAt(ray, t);
+    }
+
+    /**
+     * Normale au point d'impact d'une primitive : celle de surfaceAt(primitive, ray, t),
+     * sans aucune allocation pour les formes de base ; par défaut, l'intersection est construite.
+     *
+     * @param primitive Indice de la primitive touchée
+     * @param t Distance renvoyée par hitDistance
+     * @param out Reçoit les 3 composantes de la normale
+     */
+    public void normalAt(int primitive, double ox, double oy, double oz, double dx, double dy, double dz,
+                         double t, double[] out) {
+        Vector n = surfaceAt(primitive, new Ray(new Point(ox, oy, oz), new Vector(dx, dy, dz)), t).getNormal();
+        out[0] = n.getX();
+        out[1] = n.getY();
+        out[2] = n.getZ();
+    }
+
+    /**
+     * Données de Möller-Trumbore d'une primitive triangulaire, pour les tests par blocs
+     * des structures d'accélération.
+     *
+     * @param primitive Indice de la primitive
+     * @param out Reçoit 9 valeurs : sommet A, arête B - A puis arête C - A
+     * @return true si la primitive est un triangle, false sinon (rien n'est écrit)
+     */
+    public boolean triangleData(int primitive, double[] out) {
+        return false;
+    }
+
+    /**
+     * Boîte englobante d'une primitive de la forme.
+     *
+     * @param primitive Indice de la primitive
+     * @return La boîte englobante de cette primitive
+     */
+    public BoundingBox getBoundingBox(int primitive) {
+        return getBoundingBox();
+    }
+
+    /**
+     * Boîte englobante de la forme, utilisée par les structures d'accélération.
+     *
+     * @return La boîte englobante (infinie si la forme n'est pas bornée)
+     */
+    public abstract BoundingBox getBoundingBox();
+
+    /**
+     * Indique si la forme a une étendue finie.
+     * Les formes non bornées sont testées à part, hors de la hiérarchie.
+     *
+     * @return true par défaut
+     */
+    public boolean isBounded() {
+        return true;
+    }
 }
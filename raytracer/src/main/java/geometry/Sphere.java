@@ -4,10 +4,9 @@ import imaging.Color;
 import math.Point;
 import math.Ray;
 import math.Vector;
+import math.VectorMath;
 import raytracer.Intersection;
 
-import java.util.Optional;
-
 /**
  * Classe représentant une sphère dans l'espace 3D.
  * Fournit le calcul d'intersection rayon-sphère pour le raytracing.
@@ -44,39 +43,60 @@ public class Sphere extends Shape {
         return radius;
     }
 
+    /** Cube centré de demi-côté égal au rayon. */
+    @Override
+    public BoundingBox getBoundingBox() {
+        double r = Math.abs(radius);
+        return new BoundingBox(
+                center.getX() - r, center.getY() - r, center.getZ() - r,
+                center.getX() + r, center.getY() + r, center.getZ() + r);
+    }
+
     /**
-     * Calcule l'intersection (point, normale) entre le rayon et la sphère.
+     * Calcule la distance d'intersection entre le rayon et la sphère.
      *
      * @param ray Le rayon à tester
-     * @return Un Optional contenant l'intersection, vide sinon
+     * @return La plus petite distance positive, ou NO_HIT
+     */
+    @Override
+    public double hitDistance(Ray ray) {
+        Point o = ray.getOrigin();
+        Vector d = ray.getDirection();
+        return hitDistance(0, o.getX(), o.getY(), o.getZ(), d.getX(), d.getY(), d.getZ());
+    }
+
+    /**
+     * Intersection rayon-sphère sur les composantes du rayon, sans allocation.
      */
     @Override
-    public Optional<Intersection> intersect(Ray ray) {
+    public double hitDistance(int primitive, double ox, double oy, double oz, double dx, double dy, double dz) {
         // o = origine du rayon
         // d = direction du rayon
         // c = centre de la sphère
         // r = rayon de la sphère
 
         // Vecteur (o - c)
-        Vector o_minus_c = ray.getOrigin().subtract(this.center);
+        double ocx = ox - center.getX();
+        double ocy = oy - center.getY();
+        double ocz = oz - center.getZ();
 
         // Résolution de a*t^2 + b*t + c = 0
 
         // a = d . d
-        double a = ray.getDirection().dot(ray.getDirection());
+        double a = dx * dx + dy * dy + dz * dz;
 
         // b = 2 * (o - c) . d
-        double b = 2.0 * o_minus_c.dot(ray.getDirection());
+        double b = 2.0 * (ocx * dx + ocy * dy + ocz * dz);
 
         // c = (o - c) . (o - c) - r^2
-        double c = o_minus_c.dot(o_minus_c) - (this.radius * this.radius);
+        double c = (ocx * ocx + ocy * ocy + ocz * ocz) - (this.radius * this.radius);
 
         // Calcul du discriminant Delta = b^2 - 4ac
         double delta = b * b - 4 * a * c;
 
         // Si Delta < 0, pas d'intersection
         if (delta < 0) {
-            return Optional.empty();
+            return NO_HIT;
         }
 
         double sqrtDelta = Math.sqrt(delta);
@@ -86,18 +106,33 @@ public class Sphere extends Shape {
         double t2 = (-b - sqrtDelta) / (2 * a);
 
         // On cherche la plus petite intersection positive
-        double t = -1;
         if (t2 > 0) {
-            t = t2;
+            return t2;
         } else if (t1 > 0) {
-            t = t1;
-        } else {
-            // Toutes les intersections sont derrière la caméra
-            return Optional.empty();
+            return t1;
         }
+        // Toutes les intersections sont derrière la caméra
+        return NO_HIT;
+    }
 
-        // --- MISE À JOUR JALON 4 : Calcul des données pour l'éclairage ---
+    /** Normale (P - Centre) normalisée, calculée comme dans surfaceAt. */
+    @Override
+    public void normalAt(int primitive, double ox, double oy, double oz, double dx, double dy, double dz,
+                         double t, double[] out) {
+        // P = Origine + t * Direction, comme Ray.pointAt
+        double px = ox + dx * t, py = oy + dy * t, pz = oz + dz * t;
+        VectorMath.normalize(px - center.getX(), py - center.getY(), pz - center.getZ(), out);
+    }
 
+    /**
+     * Calcule les données pour l'éclairage au point d'impact.
+     *
+     * @param ray Le rayon testé
+     * @param t Distance de l'impact
+     * @return L'intersection (point, normale, matériau)
+     */
+    @Override
+    public Intersection surfaceAt(Ray ray, double t) {
         // 1. Point d'intersection P = Origine + t * Direction
         Point p = ray.pointAt(t);
 
@@ -106,7 +141,7 @@ public class Sphere extends Shape {
         Vector normal = p.subtract(this.center).normalize();
 
         // 3. Retourne l'intersection enrichie avec P, la Normale, et la couleur diffuse
-        return Optional.of(new Intersection(
+        return new Intersection(
                 p,
                 normal,
                 this.getDiffuse(),
@@ -114,6 +149,6 @@ public class Sphere extends Shape {
                 this.getShininess(),
                 t,
                 this
-        ));
+        );
     }
 }
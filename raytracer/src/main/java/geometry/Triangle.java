@@ -6,8 +6,6 @@ import math.Ray;
 import math.Vector;
 import raytracer.Intersection;
 
-import java.util.Optional;
-
 /**
  * Classe représentant un triangle dans l'espace 3D (trois sommets).
  * Utilise l'algorithme de Möller-Trumbore pour l'intersection rayon-triangle.
@@ -29,6 +27,10 @@ public class Triangle extends Shape {
     private final Point c;
     private final Vector normal; // Normale calculée
 
+    // Arêtes pré-calculées (edge1 = B - A, edge2 = C - A) pour l'intersection
+    private final double e1x, e1y, e1z;
+    private final double e2x, e2y, e2z;
+
     public Triangle(Point a, Point b, Point c, Color diffuse, Color specular, double shininess) {
         super(diffuse, specular, shininess);
         this.a = a;
@@ -39,6 +41,9 @@ public class Triangle extends Shape {
         Vector edge1 = b.subtract(a);
         Vector edge2 = c.subtract(a);
         this.normal = edge1.cross(edge2).normalize();
+
+        this.e1x = edge1.getX(); this.e1y = edge1.getY(); this.e1z = edge1.getZ();
+        this.e2x = edge2.getX(); this.e2y = edge2.getY(); this.e2z = edge2.getZ();
     }
 
     /** Premier sommet. */
@@ -48,61 +53,119 @@ public class Triangle extends Shape {
     /** Troisième sommet. */
     public Point getC() { return c; }
 
+    /** Plus petite boîte contenant les trois sommets. */
+    @Override
+    public BoundingBox getBoundingBox() {
+        return new BoundingBox(a, b).include(c);
+    }
+
     /**
-     * Calcule l'intersection entre ce triangle et le rayon.
+     * Calcule la distance d'intersection entre ce triangle et le rayon
+     * (algorithme de Möller-Trumbore sur des composantes primitives).
      *
      * @param ray Le rayon à tester
-     * @return Un Optional contenant l'intersection, vide sinon
+     * @return La distance de l'impact, ou NO_HIT
      */
     @Override
-    public Optional<Intersection> intersect(Ray ray) {
-        // Algorithme d'intersection de Möller-Trumbore
-        Vector edge1 = b.subtract(a);
-        Vector edge2 = c.subtract(a);
+    public double hitDistance(Ray ray) {
+        Point o = ray.getOrigin();
+        Vector d = ray.getDirection();
+        return hitDistance(o.getX(), o.getY(), o.getZ(), d.getX(), d.getY(), d.getZ(),
+                a.getX(), a.getY(), a.getZ(), e1x, e1y, e1z, e2x, e2y, e2z);
+    }
+
+    /**
+     * Möller-Trumbore sur les composantes du rayon, sans allocation.
+     */
+    @Override
+    public double hitDistance(int primitive, double ox, double oy, double oz, double dx, double dy, double dz) {
+        return hitDistance(ox, oy, oz, dx, dy, dz, a.getX(), a.getY(), a.getZ(), e1x, e1y, e1z, e2x, e2y, e2z);
+    }
+
+    @Override
+    public void normalAt(int primitive, double ox, double oy, double oz, double dx, double dy, double dz,
+                         double t, double[] out) {
+        out[0] = normal.getX();
+        out[1] = normal.getY();
+        out[2] = normal.getZ();
+    }
+
+    @Override
+    public boolean triangleData(int primitive, double[] out) {
+        out[0] = a.getX(); out[1] = a.getY(); out[2] = a.getZ();
+        out[3] = e1x; out[4] = e1y; out[5] = e1z;
+        out[6] = e2x; out[7] = e2y; out[8] = e2z;
+        return true;
+    }
 
-        Vector pvec = ray.getDirection().cross(edge2);
-        double det = edge1.dot(pvec);
+    /**
+     * Noyau de Möller-Trumbore sur des composantes primitives, partagé avec TriangleMesh
+     * et avec les tests par blocs des structures d'accélération.
+     *
+     * @return La distance de l'impact, ou NO_HIT
+     */
+    public static double hitDistance(double ox, double oy, double oz, double dx, double dy, double dz,
+                              double ax, double ay, double az,
+                              double e1x, double e1y, double e1z,
+                              double e2x, double e2y, double e2z) {
+        // pvec = d x edge2
+        double px = dy * e2z - dz * e2y;
+        double py = dz * e2x - dx * e2z;
+        double pz = dx * e2y - dy * e2x;
+        double det = e1x * px + e1y * py + e1z * pz;
 
         // Si le déterminant est proche de 0, le rayon est parallèle au triangle
         if (Math.abs(det) < 1e-8) {
-            return Optional.empty();
+            return NO_HIT;
         }
 
         double invDet = 1.0 / det;
-        Vector tvec = ray.getOrigin().subtract(a);
+        double tx = ox - ax, ty = oy - ay, tz = oz - az;
 
         // Calcul de la coordonnée barycentrique u
-        double u = tvec.dot(pvec) * invDet;
+        double u = (tx * px + ty * py + tz * pz) * invDet;
         if (u < 0.0 || u > 1.0) {
-            return Optional.empty();
+            return NO_HIT;
         }
 
-        Vector qvec = tvec.cross(edge1);
+        // qvec = tvec x edge1
+        double qx = ty * e1z - tz * e1y;
+        double qy = tz * e1x - tx * e1z;
+        double qz = tx * e1y - ty * e1x;
 
         // Calcul de la coordonnée barycentrique v
-        double v = ray.getDirection().dot(qvec) * invDet;
+        double v = (dx * qx + dy * qy + dz * qz) * invDet;
         if (v < 0.0 || u + v > 1.0) {
-            return Optional.empty();
+            return NO_HIT;
         }
 
         // Calcul de t
-        double t = edge2.dot(qvec) * invDet;
-
-        if (t > 1e-8) { // Intersection valide devant la caméra
-            Point p = ray.pointAt(t);
-
-            // On retourne l'intersection avec la normale pré-calculée
-            return Optional.of(new Intersection(
-                    p,
-                    this.normal,
-                    this.getDiffuse(),
-                    this.getSpecular(),
-                    this.getShininess(),
-                    t,
-                    this
-            ));
-        }
+        double t = (e2x * qx + e2y * qy + e2z * qz) * invDet;
+
+        // Intersection valide devant la caméra
+        return t > 1e-8 ? t : NO_HIT;
+    }
 
-        return Optional.empty();
+    /**
+     * Construit l'intersection au point d'impact.
+     *
+     * @param ray Le rayon testé
+     * @param t Distance de l'impact
+     * @return L'intersection (point, normale, matériau)
+     */
+    @Override
+    public Intersection surfaceAt(Ray ray, double t) {
+        Point p = ray.pointAt(t);
+
+        // On retourne l'intersection avec la normale pré-calculée
+        return new Intersection(
+                p,
+                this.normal,
+                this.getDiffuse(),
+                this.getSpecular(),
+                this.getShininess(),
+                t,
+                this
+        );
     }
 }
@@ -0,0 +1,222 @@
+package geometry;
+
+import imaging.Color;
+import math.Point;
+import math.Ray;
+import math.Vector;
+import math.VectorMath;
+import raytracer.Intersection;
+
+/**
+ * Maillage de triangles indexé, partageant un même matériau.
+ * Les sommets sont lus dans un tampon de double partagé (x, y, z consécutifs)
+ * et chaque triangle est décrit par trois indices dans ce tampon.
+ * Le sommet A et les arêtes de chaque triangle sont pré-calculés en structure
+ * de tableaux (SoA) : la boucle d'intersection ne lit que des tableaux de double,
+ * sans aucun objet Point ou Vector par triangle.
+ */
+public class TriangleMesh extends Shape {
+
+    private final double[] vertices; // Tampon de sommets (peut être partagé entre maillages)
+    private final int[] indices;     // 3 indices de sommet par triangle
+    private final int triangleCount;
+
+    // Sommet A et arêtes (edge1 = B - A, edge2 = C - A) de chaque triangle
+    private final double[] ax, ay, az;
+    private final double[] e1x, e1y, e1z;
+    private final double[] e2x, e2y, e2z;
+
+    /**
+     * Crée un maillage à partir d'un tampon de sommets et d'un tampon d'indices.
+     *
+     * @param vertices Coordonnées des sommets (x, y, z consécutifs)
+     * @param indices Indices des sommets, 3 par triangle
+     * @param diffuse Couleur diffuse
+     * @param specular Couleur spéculaire
+     * @param shininess Exposant de brillance
+     */
+    public TriangleMesh(double[] vertices, int[] indices, Color diffuse, Color specular, double shininess) {
+        super(diffuse, specular, shininess);
+        if (indices.length % 3 != 0) {
+            throw new IllegalArgumentException("Le tampon d'indices doit contenir 3 indices par triangle.");
+        }
+        int vertexCount = vertices.length / 3;
+        for (int index : indices) {
+            if (index < 0 || index >= vertexCount) {
+                throw new IllegalArgumentException("Indice de sommet invalide : " + index);
+            }
+        }
+
+        this.vertices = vertices;
+        this.indices = indices;
+        this.triangleCount = indices.length / 3;
+
+        this.ax = new double[triangleCount];
+        this.ay = new double[triangleCount];
+        this.az = new double[triangleCount];
+        this.e1x = new double[triangleCount];
+        this.e1y = new double[triangleCount];
+        this.e1z = new double[triangleCount];
+        this.e2x = new double[triangleCount];
+        this.e2y = new double[triangleCount];
+        this.e2z = new double[triangleCount];
+
+        for (int tri = 0; tri < triangleCount; tri++) {
+            int ia = 3 * indices[3 * tri];
+            int ib = 3 * indices[3 * tri + 1];
+            int ic = 3 * indices[3 * tri + 2];
+            ax[tri] = vertices[ia];
+            ay[tri] = vertices[ia + 1];
+            az[tri] = vertices[ia + 2];
+            e1x[tri] = vertices[ib] - vertices[ia];
+            e1y[tri] = vertices[ib + 1] - vertices[ia + 1];
+            e1z[tri] = vertices[ib + 2] - vertices[ia + 2];
+            e2x[tri] = vertices[ic] - vertices[ia];
+            e2y[tri] = vertices[ic + 1] - vertices[ia + 1];
+            e2z[tri] = vertices[ic + 2] - vertices[ia + 2];
+        }
+    }
+
+    /** Tampon de sommets (x, y, z consécutifs), partagé : à ne pas modifier. */
+    public double[] getVertexBuffer() { return vertices; }
+
+    /** Tampon d'indices (3 par triangle), partagé : à ne pas modifier. */
+    public int[] getIndexBuffer() { return indices; }
+
+    /** Nombre de triangles du maillage. */
+    public int getTriangleCount() { return triangleCount; }
+
+    /**
+     * Sommet d'un triangle.
+     * @param triangle Indice du triangle
+     * @param corner 0 (A), 1 (B) ou 2 (C)
+     * @return Le sommet
+     */
+    public Point getVertex(int triangle, int corner) {
+        int i = 3 * indices[3 * triangle + corner];
+        return new Point(vertices[i], vertices[i + 1], vertices[i + 2]);
+    }
+
+    /** Normale d'un triangle, calculée comme dans Triangle. */
+    public Vector getNormal(int triangle) {
+        Vector edge1 = new Vector(e1x[triangle], e1y[triangle], e1z[triangle]);
+        Vector edge2 = new Vector(e2x[triangle], e2y[triangle], e2z[triangle]);
+        return edge1.cross(edge2).normalize();
+    }
+
+    @Override
+    public int getPrimitiveCount() {
+        return triangleCount;
+    }
+
+    /** Boîte englobant tous les triangles du maillage. */
+    @Override
+    public BoundingBox getBoundingBox() {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (int index : indices) {
+            int i = 3 * index;
+            minX = Math.min(minX, vertices[i]);
+            minY = Math.min(minY, vertices[i + 1]);
+            minZ = Math.min(minZ, vertices[i + 2]);
+            maxX = Math.max(maxX, vertices[i]);
+            maxY = Math.max(maxY, vertices[i + 1]);
+            maxZ = Math.max(maxZ, vertices[i + 2]);
+        }
+        return new BoundingBox(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /** Plus petite boîte contenant les trois sommets du triangle. */
+    @Override
+    public BoundingBox getBoundingBox(int triangle) {
+        double minX = vertices[3 * indices[3 * triangle]], maxX = minX;
+        double minY = vertices[3 * indices[3 * triangle] + 1], maxY = minY;
+        double minZ = vertices[3 * indices[3 * triangle] + 2], maxZ = minZ;
+        for (int corner = 1; corner < 3; corner++) {
+            int i = 3 * indices[3 * triangle + corner];
+            minX = Math.min(minX, vertices[i]);
+            minY = Math.min(minY, vertices[i + 1]);
+            minZ = Math.min(minZ, vertices[i + 2]);
+            maxX = Math.max(maxX, vertices[i]);
+            maxY = Math.max(maxY, vertices[i + 1]);
+            maxZ = Math.max(maxZ, vertices[i + 2]);
+        }
+        return new BoundingBox(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Möller-Trumbore sur un triangle du maillage, à partir des arêtes pré-calculées.
+     */
+    @Override
+    public double hitDistance(int triangle, Ray ray) {
+        Point o = ray.getOrigin();
+        Vector d = ray.getDirection();
+        return hitDistance(triangle, o.getX(), o.getY(), o.getZ(), d.getX(), d.getY(), d.getZ());
+    }
+
+    @Override
+    public double hitDistance(int triangle, double ox, double oy, double oz, double dx, double dy, double dz) {
+        return Triangle.hitDistance(ox, oy, oz, dx, dy, dz,
+                ax[triangle], ay[triangle], az[triangle],
+                e1x[triangle], e1y[triangle], e1z[triangle],
+                e2x[triangle], e2y[triangle], e2z[triangle]);
+    }
+
+    /** Normale du triangle (edge1 x edge2 normalisé), calculée comme getNormal. */
+    @Override
+    public void normalAt(int triangle, double ox, double oy, double oz, double dx, double dy, double dz,
+                         double t, double[] out) {
+        VectorMath.normalize(
+                e1y[triangle] * e2z[triangle] - e1z[triangle] * e2y[triangle],
+                e1z[triangle] * e2x[triangle] - e1x[triangle] * e2z[triangle],
+                e1x[triangle] * e2y[triangle] - e1y[triangle] * e2x[triangle], out);
+    }
+
+    @Override
+    public boolean triangleData(int triangle, double[] out) {
+        out[0] = ax[triangle]; out[1] = ay[triangle]; out[2] = az[triangle];
+        out[3] = e1x[triangle]; out[4] = e1y[triangle]; out[5] = e1z[triangle];
+        out[6] = e2x[triangle]; out[7] = e2y[triangle]; out[8] = e2z[triangle];
+        return true;
+    }
+
+    @Override
+    public Intersection surfaceAt(int triangle, Ray ray, double t) {
+        return new Intersection(
+                ray.pointAt(t),
+                getNormal(triangle),
+                this.getDiffuse(),
+                this.getSpecular(),
+                this.getShininess(),
+                t,
+                this
+        );
+    }
+
+    /**
+     * Distance du triangle le plus proche (parcours linéaire du maillage).
+     * À distance égale, le premier triangle l'emporte.
+     */
+    @Override
+    public double hitDistance(Ray ray) {
+        double closest = NO_HIT;
+        for (int tri = 0; tri < triangleCount; tri++) {
+            double t = hitDistance(tri, ray);
+            if (t < closest) closest = t;
+        }
+        return closest;
+    }
+
+    /**
+     * Données de surface du premier triangle touché à la distance t.
+     */
+    @Override
+    public Intersection surfaceAt(Ray ray, double t) {
+        for (int tri = 0; tri < triangleCount; tri++) {
+            if (hitDistance(tri, ray) == t) {
+                return surfaceAt(tri, ray, t);
+            }
+        }
+        throw new IllegalArgumentException("Aucun triangle du maillage n'est touché à la distance " + t);
+    }
+}
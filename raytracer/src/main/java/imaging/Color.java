@@ -56,9 +56,11 @@ public final class Color extends AbstractVec3 {
     }
 
     /**
-     * Limite une valeur 'double' entre 0.0 et 1.0
+     * Limite une valeur 'double' entre 0.0 et 1.0, comme le fait chaque constructeur :
+     * les calculs sur composantes doivent l'appliquer après chaque opération pour
+     * retrouver les couleurs exactes de add, multiply et schur.
      */
-    private static double clamp(double value) {
+    public static double clamp(double value) {
         return Math.max(0.0, Math.min(1.0, value));
     }
 
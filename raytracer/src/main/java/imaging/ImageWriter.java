@@ -3,6 +3,11 @@ package imaging;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import javax.imageio.ImageIO;
 
 /**
@@ -21,4 +26,28 @@ public class ImageWriter {
         File outputFile = new File(filePath);
         ImageIO.write(image, "PNG", outputFile);
     }
+
+    /**
+     * Remplace une image sur disque sans jamais laisser de fichier à moitié écrit : l'image est
+     * écrite à côté, puis renommée. Sert aux aperçus d'un rendu progressif, qu'une visionneuse
+     * peut relire pendant le rendu.
+     *
+     * @param image L'image à sauver
+     * @param filePath Chemin du fichier cible
+     * @throws IOException si erreur d'écriture
+     */
+    public void replaceImage(BufferedImage image, String filePath) throws IOException {
+        Path target = Paths.get(filePath);
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            if (!ImageIO.write(image, "PNG", temporary.toFile())) throw new IOException("Encodeur PNG indisponible.");
+            try {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
 }
@@ -0,0 +1,85 @@
+package imaging;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Passe d'un rendu progressif : les pixels d'une grille régulière, décalée, de l'image
+ * (colonnes offsetX, offsetX + stepX..., lignes offsetY, offsetY + stepY...).
+ *
+ * Les passes d'un même plan ({@link #schedule(int)}) ne partagent aucun pixel et, toutes
+ * ensemble, couvrent l'image : chaque pixel est tracé une seule fois. Après chaque passe,
+ * les pixels déjà tracés forment eux-mêmes une grille régulière, dont chaque point donne
+ * sa couleur au bloc qu'il représente dans l'aperçu.
+ */
+public final class RefinementPass {
+
+    private final int offsetX;
+    private final int offsetY;
+    private final int stepX;
+    private final int stepY;
+
+    /**
+     * Crée une passe.
+     * @param offsetX Première colonne
+     * @param offsetY Première ligne
+     * @param stepX Écart entre deux colonnes
+     * @param stepY Écart entre deux lignes
+     */
+    public RefinementPass(int offsetX, int offsetY, int stepX, int stepY) {
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+        this.stepX = stepX;
+        this.stepY = stepY;
+    }
+
+    public int getOffsetX() { return offsetX; }
+    public int getOffsetY() { return offsetY; }
+    public int getStepX() { return stepX; }
+    public int getStepY() { return stepY; }
+
+    /** Nombre de colonnes de la passe dans une image de largeur width. */
+    public int columns(int width) {
+        return offsetX >= width ? 0 : (width - offsetX + stepX - 1) / stepX;
+    }
+
+    /** Nombre de lignes de la passe dans une image de hauteur height. */
+    public int rows(int height) {
+        return offsetY >= height ? 0 : (height - offsetY + stepY - 1) / stepY;
+    }
+
+    /**
+     * Écart horizontal entre deux pixels tracés, une fois cette passe finie (passes
+     * précédentes du plan comprises).
+     */
+    public int getTracedStepX() {
+        return offsetX > 0 ? offsetX : stepX;
+    }
+
+    /** Écart vertical entre deux pixels tracés, une fois cette passe finie. */
+    public int getTracedStepY() {
+        return offsetY > 0 ? offsetY : stepY;
+    }
+
+    /**
+     * Plan des passes, comme l'entrelacement Adam7 du PNG mais depuis une grille plus lâche :
+     * un pixel sur coarseStep dans chaque direction, puis, à chaque niveau, les colonnes
+     * intermédiaires et enfin les lignes intermédiaires, jusqu'au pas de 1.
+     * Pour coarseStep = 8, ce sont exactement les 7 passes d'Adam7.
+     *
+     * @param coarseStep Pas de la première passe, puissance de 2
+     * @return Les passes, de la plus grossière à la dernière (la moitié des pixels)
+     */
+    public static List<RefinementPass> schedule(int coarseStep) {
+        if (coarseStep < 1 || Integer.bitCount(coarseStep) != 1) {
+            throw new IllegalArgumentException("Pas de la première passe invalide : " + coarseStep + " (puissance de 2 attendue).");
+        }
+        List<RefinementPass> passes = new ArrayList<>();
+        passes.add(new RefinementPass(0, 0, coarseStep, coarseStep));
+        for (int step = coarseStep; step > 1; step /= 2) {
+            passes.add(new RefinementPass(step / 2, 0, step, step));
+            passes.add(new RefinementPass(0, step / 2, step / 2, step));
+        }
+        return passes;
+    }
+}
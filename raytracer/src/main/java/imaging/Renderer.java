@@ -2,15 +2,118 @@ package imaging;
 
 import scene.Scene;
 import raytracer.RayTracer;
+import raytracer.WavefrontIntegrator;
+import stats.RenderStatistics;
 import imaging.Color;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 /**
  * Classe pour le rendu de l'image
  * Contient la boucle principale de génération d'image.
+ * En mode parallèle, l'image est découpée en tuiles réparties sur un ForkJoinPool.
  */
 public class Renderer {
 
+    /** Côté par défaut d'une tuile, en pixels. */
+    public static final int DEFAULT_TILE_SIZE = 32;
+    /** Côté d'un bloc de pixels tracé en paquet (16 rayons primaires). */
+    public static final int PACKET_SIZE = 4;
+    /** Pas de la première passe d'un rendu progressif : un pixel sur 16 dans chaque direction. */
+    public static final int PROGRESSIVE_STEP = 16;
+
+    private static final BooleanSupplier NEVER_CANCELLED = () -> false;
+
+    /** Reçoit les aperçus d'un rendu progressif. */
+    public interface PreviewListener {
+        /**
+         * @param preview Image complète : chaque pixel pas encore tracé prend la couleur du
+         *                pixel tracé qui représente son bloc
+         * @param pass Nombre de passes terminées
+         * @param passCount Nombre total de passes
+         */
+        void preview(BufferedImage preview, int pass, int passCount);
+    }
+
+    private final int threads;
+    private final int tileSize;
+    private final boolean packets;
+    private final boolean wavefront;
+    private final ForkJoinPool pool; // Pool partagé entre plusieurs rendus, ou null : un pool par rendu
+
+    /**
+     * Crée un moteur de rendu séquentiel (un seul thread).
+     */
+    public Renderer() {
+        this(1, DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Crée un moteur de rendu parallèle par tuiles.
+     * @param threads Nombre de threads de calcul (1 = rendu séquentiel)
+     * @param tileSize Côté d'une tuile en pixels
+     */
+    public Renderer(int threads, int tileSize) {
+        this(threads, tileSize, false);
+    }
+
+    /**
+     * Crée un moteur de rendu parallèle par tuiles, avec ou sans paquets de rayons.
+     * @param threads Nombre de threads de calcul (1 = rendu séquentiel)
+     * @param tileSize Côté d'une tuile en pixels
+     * @param packets Tracer les rayons primaires par blocs de PACKET_SIZE x PACKET_SIZE pixels
+     *                (image identique)
+     */
+    public Renderer(int threads, int tileSize, boolean packets) {
+        this(threads, tileSize, packets, false);
+    }
+
+    /**
+     * Crée un moteur de rendu parallèle par tuiles, avec l'intégrateur récursif ou "wavefront".
+     * @param threads Nombre de threads de calcul (1 = rendu séquentiel)
+     * @param tileSize Côté d'une tuile en pixels
+     * @param packets Tracer les rayons par paquets (blocs de pixels, ou files de l'intégrateur wavefront)
+     * @param wavefront Tracer chaque tuile étape par étape avec un {@link WavefrontIntegrator}
+     *                  (image identique)
+     */
+    public Renderer(int threads, int tileSize, boolean packets, boolean wavefront) {
+        this(threads, tileSize, packets, wavefront, null);
+    }
+
+    /**
+     * Crée un moteur de rendu par tuiles sur un pool de threads fourni, que plusieurs rendus
+     * simultanés peuvent se partager (par exemple les images d'une animation) : les tuiles
+     * d'une image occupent les threads laissés libres par la fin de la précédente.
+     * @param threads Nombre de threads de calcul (sans effet avec un pool fourni)
+     * @param tileSize Côté d'une tuile en pixels
+     * @param packets Tracer les rayons par paquets
+     * @param wavefront Tracer chaque tuile avec un {@link WavefrontIntegrator}
+     * @param pool Pool de calcul partagé, que le moteur ne ferme pas ; null pour un pool par rendu
+     */
+    public Renderer(int threads, int tileSize, boolean packets, boolean wavefront, ForkJoinPool pool) {
+        if (threads < 1) throw new IllegalArgumentException("Nombre de threads invalide : " + threads);
+        if (tileSize < 1) throw new IllegalArgumentException("Taille de tuile invalide : " + tileSize);
+        this.threads = threads;
+        this.tileSize = tileSize;
+        this.packets = packets;
+        this.wavefront = wavefront;
+        this.pool = pool;
+    }
+
+    public int getThreads() { return threads; }
+    public int getTileSize() { return tileSize; }
+    public boolean isPacketTracing() { return packets; }
+    public boolean isWavefront() { return wavefront; }
+
     /**
      * Effectue le rendu pixellisé d'une scène.
      *
@@ -18,27 +121,254 @@ public class Renderer {
      * @return Image générée après raytracing
      */
     public BufferedImage render(Scene scene) {
+        return render(scene, null);
+    }
+
+    /**
+     * Effectue le rendu d'une scène en alimentant des statistiques de rayons.
+     *
+     * @param scene La scène à rendre
+     * @param statistics Statistiques à alimenter, ou null
+     * @return Image générée après raytracing
+     */
+    public BufferedImage render(Scene scene, RenderStatistics statistics) {
+        return render(scene, statistics, NEVER_CANCELLED);
+    }
+
+    /**
+     * Effectue le rendu d'une scène, interrompu si on le demande : la demande est vérifiée avant
+     * chaque ligne de pixels (ou de paquets) et avant chaque tuile de l'intégrateur wavefront.
+     *
+     * @param scene La scène à rendre
+     * @param statistics Statistiques à alimenter, ou null
+     * @param cancelled Vrai quand le rendu doit s'arrêter
+     * @return Image générée après raytracing
+     * @throws CancellationException Si le rendu a été interrompu
+     */
+    public BufferedImage render(Scene scene, RenderStatistics statistics, BooleanSupplier cancelled) {
+        int width = scene.getWidth();
+        int height = scene.getHeight();
+
+        // Tampon de pixels 0xRRGGBB, ligne par ligne : chaque tuile écrit dans sa propre zone
+        int[] pixels = new int[width * height];
+
+        // Initialiser le traceur de rayons (lecture seule : partageable entre threads)
+        RayTracer rayTracer = new RayTracer(scene, statistics);
+
+        if (pool == null && threads == 1 && !wavefront) {
+            renderTile(rayTracer, pixels, width, new Tile(0, 0, width, height), packets, false, cancelled);
+            return toImage(pixels, width, height);
+        }
+
+        List<Tile> tiles = Tile.split(width, height, tileSize);
+        if (pool == null && threads == 1) {
+            // Les files de l'intégrateur wavefront restent à la taille d'une tuile
+            for (Tile tile : tiles) renderTile(rayTracer, pixels, width, tile, packets, true, cancelled);
+        } else if (!tiles.isEmpty()) {
+            ForkJoinPool workers = pool != null ? pool : new ForkJoinPool(threads);
+            try {
+                workers.invoke(new TileRangeTask(tiles, 0, tiles.size(),
+                        tile -> renderTile(rayTracer, pixels, width, tile, packets, wavefront, cancelled)));
+            } finally {
+                if (pool == null) workers.shutdown();
+            }
+        }
+
+        return toImage(pixels, width, height); // Retourner l'image à main
+    }
+
+    /**
+     * Effectue le rendu progressif d'une scène : d'abord un pixel sur PROGRESSIVE_STEP dans
+     * chaque direction, puis les passes de {@link RefinementPass#schedule(int)} qui complètent
+     * la grille jusqu'au dernier pixel. Aucun pixel n'est tracé deux fois, et l'image finale est
+     * celle de {@link #render(Scene, RenderStatistics, BooleanSupplier)}.
+     *
+     * Un aperçu est transmis après la première passe, puis après chaque passe terminée au moins
+     * intervalMillis après le précédent, et enfin pour l'image finale. Les aperçus sont calculés
+     * entre deux passes, sur le thread appelant. Chaque passe est découpée en tuiles sur le pool
+     * de threads ; les pixels d'une passe n'étant pas contigus, ils sont tracés un par un (sans
+     * paquets ni wavefront), avec les mêmes couleurs.
+     *
+     * @param scene La scène à rendre
+     * @param statistics Statistiques à alimenter, ou null
+     * @param cancelled Vrai quand le rendu doit s'arrêter (vérifié avant chaque ligne de pixels)
+     * @param intervalMillis Délai minimal entre deux aperçus, en millisecondes (0 : à chaque passe)
+     * @param listener Destinataire des aperçus
+     * @return Image générée après raytracing
+     * @throws CancellationException Si le rendu a été interrompu
+     */
+    public BufferedImage renderProgressive(Scene scene, RenderStatistics statistics, BooleanSupplier cancelled,
+                                           long intervalMillis, PreviewListener listener) {
+        if (intervalMillis < 0) throw new IllegalArgumentException("Délai entre aperçus invalide : " + intervalMillis);
         int width = scene.getWidth();
         int height = scene.getHeight();
+        int[] pixels = new int[width * height];
+        RayTracer rayTracer = new RayTracer(scene, statistics);
+        List<RefinementPass> passes = RefinementPass.schedule(PROGRESSIVE_STEP);
+
+        ForkJoinPool workers = pool != null ? pool : threads > 1 ? new ForkJoinPool(threads) : null;
+        try {
+            long lastPreview = 0;
+            for (int p = 0; p < passes.size(); p++) {
+                RefinementPass pass = passes.get(p);
+                // Tuiles de la grille de la passe : au plus tileSize x tileSize pixels tracés chacune
+                List<Tile> tiles = Tile.split(pass.columns(width), pass.rows(height), tileSize);
+                if (workers == null) {
+                    for (Tile tile : tiles) renderPassTile(rayTracer, pixels, width, pass, tile, cancelled);
+                } else if (!tiles.isEmpty()) {
+                    workers.invoke(new TileRangeTask(tiles, 0, tiles.size(),
+                            tile -> renderPassTile(rayTracer, pixels, width, pass, tile, cancelled)));
+                }
+
+                long now = System.nanoTime();
+                if (p < passes.size() - 1 && (p == 0 || now - lastPreview >= intervalMillis * 1_000_000)) {
+                    listener.preview(toImage(preview(pixels, width, height, pass), width, height), p + 1, passes.size());
+                    lastPreview = now;
+                }
+            }
+        } finally {
+            if (pool == null && workers != null) workers.shutdown();
+        }
+
+        BufferedImage image = toImage(pixels, width, height);
+        listener.preview(image, passes.size(), passes.size());
+        return image;
+    }
 
-        // Créer l'image en mémoire
-        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    /**
+     * Calcule les pixels d'une tuile de la grille d'une passe (tuile en colonnes et lignes de
+     * la passe, pas en pixels de l'image).
+     */
+    private static void renderPassTile(RayTracer rayTracer, int[] pixels, int imageWidth, RefinementPass pass,
+                                       Tile tile, BooleanSupplier cancelled) {
+        for (int row = tile.getY(); row < tile.getY() + tile.getHeight(); row++) {
+            checkCancelled(cancelled);
+            int j = pass.getOffsetY() + row * pass.getStepY();
+            for (int column = tile.getX(); column < tile.getX() + tile.getWidth(); column++) {
+                int i = pass.getOffsetX() + column * pass.getStepX();
+                pixels[j * imageWidth + i] = rayTracer.getPixelColor(i, j).toRGB();
+            }
+        }
+    }
 
-        // Initialiser le traceur de rayons
-        RayTracer rayTracer = new RayTracer(scene);
+    /**
+     * Aperçu après une passe : chaque pixel prend la couleur du pixel tracé en haut à gauche
+     * de son bloc (les pixels tracés forment une grille de pas getTracedStepX x getTracedStepY).
+     */
+    private static int[] preview(int[] pixels, int width, int height, RefinementPass pass) {
+        int stepX = pass.getTracedStepX();
+        int stepY = pass.getTracedStepY();
+        int[] preview = new int[pixels.length];
+        for (int y = 0; y < height; y++) {
+            int source = (y - y % stepY) * width;
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                preview[row + x] = pixels[source + x - x % stepX];
+            }
+        }
+        return preview;
+    }
 
-        // Boucle principale : pour chaque pixel (i, j)
-        for (int j = 0; j < height; j++) { // Lignes (y)
-            for (int i = 0; i < width; i++) { // Colonnes (x)
+    /**
+     * Enveloppe un tampon de pixels 0xRRGGBB dans une image TYPE_INT_RGB, sans copie.
+     */
+    private static BufferedImage toImage(int[] pixels, int width, int height) {
+        DirectColorModel colorModel = new DirectColorModel(24, 0xff0000, 0x00ff00, 0x0000ff);
+        WritableRaster raster = Raster.createPackedRaster(new DataBufferInt(pixels, pixels.length),
+                width, height, width, colorModel.getMasks(), null);
+        return new BufferedImage(colorModel, raster, false, null);
+    }
+
+    /**
+     * Calcule les pixels d'une tuile directement dans le tampon de l'image.
+     * Les tuiles ne se recouvrent pas : aucune synchronisation n'est nécessaire.
+     */
+    private static void renderTile(RayTracer rayTracer, int[] pixels, int imageWidth, Tile tile,
+                                   boolean packets, boolean wavefront, BooleanSupplier cancelled) {
+        if (wavefront) {
+            checkCancelled(cancelled);
+            renderTileWavefront(rayTracer, pixels, imageWidth, tile, packets);
+            return;
+        }
+        if (packets) {
+            renderTilePackets(rayTracer, pixels, imageWidth, tile, cancelled);
+            return;
+        }
+        // Boucle principale : pour chaque pixel (i, j) de la tuile
+        for (int j = tile.getY(); j < tile.getY() + tile.getHeight(); j++) { // Lignes (y)
+            checkCancelled(cancelled);
+            int row = j * imageWidth;
+            for (int i = tile.getX(); i < tile.getX() + tile.getWidth(); i++) { // Colonnes (x)
 
                 // Interroger le RayTracer pour la couleur
                 Color pixelColor = rayTracer.getPixelColor(i, j);
+                pixels[row + i] = pixelColor.toRGB();
+            }
+        }
+    }
 
-                // Peindre le pixel
-                image.setRGB(i, j, pixelColor.toRGB());
+    /**
+     * Calcule les pixels d'une tuile par blocs de PACKET_SIZE x PACKET_SIZE (plus petits au bord).
+     */
+    private static void renderTilePackets(RayTracer rayTracer, int[] pixels, int imageWidth, Tile tile,
+                                          BooleanSupplier cancelled) {
+        Color[] colors = new Color[PACKET_SIZE * PACKET_SIZE];
+        int endX = tile.getX() + tile.getWidth();
+        int endY = tile.getY() + tile.getHeight();
+        for (int y = tile.getY(); y < endY; y += PACKET_SIZE) {
+            checkCancelled(cancelled);
+            int h = Math.min(PACKET_SIZE, endY - y);
+            for (int x = tile.getX(); x < endX; x += PACKET_SIZE) {
+                int w = Math.min(PACKET_SIZE, endX - x);
+                rayTracer.getPixelColors(x, y, w, h, colors);
+                for (int k = 0; k < w * h; k++) {
+                    pixels[(y + k / w) * imageWidth + x + k % w] = colors[k].toRGB();
+                }
             }
         }
+    }
+
+    private static void checkCancelled(BooleanSupplier cancelled) {
+        if (cancelled.getAsBoolean()) throw new CancellationException("Rendu interrompu.");
+    }
 
-        return image; // Retourner l'image à main
+    /**
+     * Calcule les pixels d'une tuile avec l'intégrateur wavefront.
+     */
+    private static void renderTileWavefront(RayTracer rayTracer, int[] pixels, int imageWidth, Tile tile,
+                                            boolean packets) {
+        int w = tile.getWidth();
+        Color[] colors = new Color[w * tile.getHeight()];
+        new WavefrontIntegrator(rayTracer, packets).trace(tile.getX(), tile.getY(), w, tile.getHeight(), colors);
+        for (int k = 0; k < colors.length; k++) {
+            pixels[(tile.getY() + k / w) * imageWidth + tile.getX() + k % w] = colors[k].toRGB();
+        }
+    }
+
+    /**
+     * Tâche fork/join : coupe la liste de tuiles en deux jusqu'à n'en garder qu'une.
+     */
+    private static final class TileRangeTask extends RecursiveAction {
+        private final List<Tile> tiles;
+        private final int from;
+        private final int to;
+        private final Consumer<Tile> renderTile;
+
+        TileRangeTask(List<Tile> tiles, int from, int to, Consumer<Tile> renderTile) {
+            this.tiles = tiles;
+            this.from = from;
+            this.to = to;
+            this.renderTile = renderTile;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                renderTile.accept(tiles.get(from));
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new TileRangeTask(tiles, from, middle, renderTile), new TileRangeTask(tiles, middle, to, renderTile));
+        }
     }
 }
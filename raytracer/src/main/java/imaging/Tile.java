@@ -0,0 +1,57 @@
+package imaging;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Zone rectangulaire de l'image, unité de travail du rendu parallèle.
+ */
+public final class Tile {
+
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+
+    /**
+     * Crée une tuile.
+     * @param x Colonne du coin haut-gauche
+     * @param y Ligne du coin haut-gauche
+     * @param width Largeur en pixels
+     * @param height Hauteur en pixels
+     */
+    public Tile(int x, int y, int width, int height) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+    }
+
+    public int getX() { return x; }
+    public int getY() { return y; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+
+    /**
+     * Découpe une image en tuiles carrées, ligne par ligne.
+     * Les tuiles du bord droit et du bord bas peuvent être plus petites.
+     *
+     * @param imageWidth Largeur de l'image
+     * @param imageHeight Hauteur de l'image
+     * @param tileSize Côté d'une tuile en pixels
+     * @return Liste des tuiles couvrant toute l'image
+     */
+    public static List<Tile> split(int imageWidth, int imageHeight, int tileSize) {
+        if (tileSize <= 0) throw new IllegalArgumentException("Taille de tuile invalide : " + tileSize);
+
+        List<Tile> tiles = new ArrayList<>();
+        for (int ty = 0; ty < imageHeight; ty += tileSize) {
+            for (int tx = 0; tx < imageWidth; tx += tileSize) {
+                tiles.add(new Tile(tx, ty,
+                        Math.min(tileSize, imageWidth - tx),
+                        Math.min(tileSize, imageHeight - ty)));
+            }
+        }
+        return tiles;
+    }
+}
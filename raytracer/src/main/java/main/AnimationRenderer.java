@@ -0,0 +1,217 @@
+package main;
+
+import imaging.ImageWriter;
+import imaging.Renderer;
+import parsing.CameraPathParser;
+import parsing.ParsingException;
+import raytracer.Camera;
+import raytracer.CameraPath;
+import scene.Scene;
+import stats.RenderStatistics;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rendu d'une animation : les images d'une trajectoire de caméra ({@link CameraPath}), toutes
+ * tirées d'une même scène analysée une seule fois (formes, hiérarchie et matériaux partagés).
+ *
+ * Deux images sont rendues à la fois sur un même pool de threads : les tuiles de l'image
+ * suivante occupent les threads que la fin de la précédente laisse libres. Chaque image rendue
+ * est encodée et écrite par un thread à part pendant que les suivantes se calculent ; le nombre
+ * d'images rendues mais pas encore écrites est borné, pour ne pas accumuler d'images en mémoire
+ * si le disque ne suit pas.
+ */
+final class AnimationRenderer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnimationRenderer.class);
+
+    /** Nombre d'images rendues en même temps. */
+    static final int FRAMES_IN_FLIGHT = 2;
+    /** Nombre maximal d'images rendues ou en cours de rendu, pas encore écrites. */
+    static final int MAX_PENDING_FRAMES = 4;
+
+    /** Écriture d'une image (sur disque, sauf dans les tests). */
+    interface FrameWriter {
+        void write(BufferedImage image, String file) throws IOException;
+    }
+
+    private final Renderer renderer;
+    private final FrameWriter writer;
+
+    /**
+     * @param renderer Moteur de rendu, de préférence sur un pool partagé (voir Renderer)
+     * @param writer Écriture des images
+     */
+    AnimationRenderer(Renderer renderer, FrameWriter writer) {
+        this.renderer = renderer;
+        this.writer = writer;
+    }
+
+    /**
+     * Lance le rendu de l'animation décrite par les options, et attend la dernière image.
+     * @param sceneFilePath Fichier de scène (la ligne camera est remplacée par la trajectoire)
+     * @param options Options de la ligne de commande
+     */
+    static void run(String sceneFilePath, CommandLineOptions options) {
+        try {
+            CameraPathParser pathParser = new CameraPathParser();
+            CameraPath path = pathParser.parse(options.getCameraPath());
+            int frameCount = options.getFrames() > 0 ? options.getFrames() : pathParser.getFrameCount();
+            if (frameCount < 1) {
+                logger.error("Nombre d'images inconnu : ajouter 'frames N' à la trajectoire ou --frames N.");
+                return;
+            }
+
+            RenderStatistics statistics = options.isStatisticsEnabled() ? new RenderStatistics() : null;
+            logger.info("Chargement de la scène : {}", sceneFilePath);
+            Scene scene = Main.loadPreparedScene(sceneFilePath, options, options.isCacheEnabled(), statistics);
+
+            ForkJoinPool pool = new ForkJoinPool(options.getThreads());
+            try {
+                Renderer renderer = new Renderer(options.getThreads(), options.getTileSize(), options.isPacketTracing(),
+                        options.isWavefront(), pool);
+                ImageWriter imageWriter = new ImageWriter();
+                logger.info("Animation de {} images ({} x {}) sur {} thread(s), {} images à la fois...",
+                        frameCount, scene.getWidth(), scene.getHeight(), options.getThreads(), FRAMES_IN_FLIGHT);
+                long startTime = System.nanoTime();
+                new AnimationRenderer(renderer, imageWriter::saveImage).render(scene, path, frameCount, statistics);
+                long elapsed = System.nanoTime() - startTime;
+                if (statistics != null) statistics.addPhaseTime(RenderStatistics.Phase.RENDER, elapsed);
+                logger.info("{} images écrites en {} ms ({} images/s) : {} ... {}", frameCount, elapsed / 1_000_000,
+                        String.format("%.2f", frameCount / (elapsed / 1e9)),
+                        frameFile(scene.getOutput(), 0, frameCount), frameFile(scene.getOutput(), frameCount - 1, frameCount));
+            } finally {
+                pool.shutdown();
+            }
+
+            if (statistics != null) {
+                logger.info(statistics.summary());
+                if (options.getStatisticsFile() != null) {
+                    statistics.writeJson(Paths.get(options.getStatisticsFile()));
+                    logger.info("Statistiques enregistrées : {}", options.getStatisticsFile());
+                }
+            }
+        } catch (ParsingException e) {
+            logger.error("Erreur lors de l'analyse :");
+            logger.error(e.getMessage());
+        } catch (IOException e) {
+            logger.error("Erreur d'entrée/sortie (IO) :");
+            logger.error(e.getMessage());
+        }
+    }
+
+    /**
+     * Rend et écrit toutes les images. Les noms des fichiers dérivent de la sortie de la scène
+     * (voir frameFile).
+     *
+     * @param scene Scène analysée ; sa caméra est remplacée image par image
+     * @param path Trajectoire de la caméra
+     * @param frameCount Nombre d'images
+     * @param statistics Statistiques à alimenter, ou null
+     * @throws IOException Si une image ne peut pas être écrite (le rendu s'arrête alors)
+     */
+    void render(Scene scene, CameraPath path, int frameCount, RenderStatistics statistics) throws IOException {
+        ExecutorService frames = Executors.newFixedThreadPool(FRAMES_IN_FLIGHT, runnable -> new Thread(runnable, "image"));
+        ExecutorService writes = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "écriture"));
+        Semaphore pending = new Semaphore(MAX_PENDING_FRAMES);
+        AtomicInteger nextFrame = new AtomicInteger();
+        // Premier échec (rendu ou écriture) : il arrête tout, et c'est lui qu'on signale
+        AtomicBoolean stopped = new AtomicBoolean();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+
+        Runnable frameLoop = () -> {
+            while (!stopped.get()) {
+                int frame = nextFrame.getAndIncrement();
+                if (frame >= frameCount) return;
+                pending.acquireUninterruptibly();
+                String file = frameFile(scene.getOutput(), frame, frameCount);
+                BufferedImage image;
+                try {
+                    image = renderer.render(frameScene(scene, path.frame(frame, frameCount), file), statistics, stopped::get);
+                } catch (RuntimeException e) {
+                    pending.release();
+                    if (!stopped.getAndSet(true)) failure.set(e);
+                    return;
+                }
+                writes.execute(() -> {
+                    try {
+                        writer.write(image, file);
+                    } catch (IOException | RuntimeException e) {
+                        if (!stopped.getAndSet(true)) failure.set(e);
+                    } finally {
+                        pending.release();
+                    }
+                });
+            }
+        };
+
+        try {
+            List<Future<?>> loops = new ArrayList<>();
+            for (int k = 0; k < FRAMES_IN_FLIGHT; k++) loops.add(frames.submit(frameLoop));
+            for (Future<?> loop : loops) loop.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (!stopped.getAndSet(true)) failure.set(new IOException("Animation interrompue."));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause()); // frameLoop ne laisse échapper aucune exception
+        } finally {
+            frames.shutdown();
+            writes.shutdown();
+            // Les images déjà rendues finissent d'être écrites
+            try {
+                while (!writes.awaitTermination(1, TimeUnit.MINUTES)) {
+                    logger.warn("Écriture des images toujours en cours...");
+                }
+            } catch (InterruptedException e) {
+                writes.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        Exception error = failure.get();
+        if (error instanceof IOException) throw (IOException) error;
+        if (error != null) throw (RuntimeException) error;
+    }
+
+    /**
+     * Scène d'une image : même contenu, caméra de la trajectoire et sortie numérotée.
+     */
+    private static Scene frameScene(Scene scene, Camera camera, String file) {
+        Scene view = new Scene();
+        view.setWidth(scene.getWidth());
+        view.setHeight(scene.getHeight());
+        view.setCamera(camera);
+        view.setOutput(file);
+        return scene.withView(view);
+    }
+
+    /**
+     * Nom du fichier d'une image : la sortie de la scène, numéro d'image inséré avant
+     * l'extension, sur au moins 4 chiffres (dragon.png : dragon_0000.png, dragon_0001.png...).
+     */
+    static String frameFile(String output, int frame, int frameCount) {
+        int digits = Math.max(4, String.valueOf(frameCount - 1).length());
+        String number = String.format("_%0" + digits + "d", frame);
+        int dot = output.lastIndexOf('.');
+        int separator = Math.max(output.lastIndexOf('/'), output.lastIndexOf('\\'));
+        if (dot <= separator + 1) return output + number;
+        return output.substring(0, dot) + number + output.substring(dot);
+    }
+}
@@ -0,0 +1,203 @@
+package main;
+
+import acceleration.BuildMethod;
+import imaging.Renderer;
+import parsing.SceneCache;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Options de la ligne de commande du lanceur de rayons.
+ * Syntaxe : [options] [fichier.scene]
+ */
+public class CommandLineOptions {
+
+    /** Aide affichée en cas d'option invalide. */
+    public static final String USAGE =
+            "Usage : java -jar raytracer.jar [--threads N] [--tile N] [--bvh sah|lbvh] [--wide] [--packets] [--wavefront] [--no-cache] [--stats] [--stats-json FICHIER] [--progressive MS] [fichier.scene]"
+            + "\n        java -jar raytracer.jar --daemon PORT [--queue N] [--scene-cache MO] [options de rendu]"
+            + "\n        java -jar raytracer.jar --client PORT [--inline] fichier.scene"
+            + "\n        java -jar raytracer.jar --http PORT [--workers N] [--queue N] [--timeout S] [--scene-cache MO] [options de rendu]"
+            + "\n        java -jar raytracer.jar --camera-path FICHIER [--frames N] [options de rendu] fichier.scene";
+
+    private String sceneFile;  // null : scène par défaut
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int tileSize = Renderer.DEFAULT_TILE_SIZE;
+    private BuildMethod buildMethod = BuildMethod.SAH;
+    private boolean wideBvh;
+    private boolean packets;
+    private boolean wavefront;
+    private boolean cacheEnabled = true;
+    private boolean statisticsEnabled;
+    private String statisticsFile; // null : pas de fichier JSON
+    private int daemonPort = -1;   // -1 : pas de démon
+    private int clientPort = -1;   // -1 : rendu local
+    private int queueCapacity = RenderDaemon.DEFAULT_QUEUE_CAPACITY;
+    private boolean inlineScene;
+    private int httpPort = -1;     // -1 : pas de service HTTP
+    private int workers = 1;
+    private int timeoutSeconds = HttpRenderService.DEFAULT_TIMEOUT_SECONDS;
+    private long sceneCacheBudget = SceneCache.defaultBudget(); // 0 : pas de cache
+    private String cameraPath;     // null : image fixe
+    private int frames;            // 0 : nombre d'images de la trajectoire
+    private int previewInterval = -1; // -1 : pas de rendu progressif
+
+    /**
+     * Analyse les arguments de la ligne de commande.
+     * @param args Arguments reçus par main
+     * @return Les options lues
+     * @throws IllegalArgumentException Si une option est inconnue ou mal formée
+     */
+    public static CommandLineOptions parse(String[] args) {
+        CommandLineOptions options = new CommandLineOptions();
+        Set<String> given = new HashSet<>(); // Options présentes, pour refuser celles qui seraient sans effet
+        for (int k = 0; k < args.length; k++) {
+            String arg = args[k];
+            if (arg.startsWith("--")) given.add(arg);
+            switch (arg) {
+                case "--threads": options.threads = parsePositiveInt(arg, args, ++k); break;
+                case "--tile": options.tileSize = parsePositiveInt(arg, args, ++k); break;
+                case "--bvh": options.buildMethod = BuildMethod.fromKey(requireValue(arg, args, ++k)); break;
+                case "--wide": options.wideBvh = true; break;
+                case "--packets": options.packets = true; break;
+                case "--wavefront": options.wavefront = true; break;
+                case "--no-cache": options.cacheEnabled = false; break;
+                case "--stats": options.statisticsEnabled = true; break;
+                case "--stats-json":
+                    options.statisticsFile = requireValue(arg, args, ++k);
+                    options.statisticsEnabled = true;
+                    break;
+                case "--daemon": options.daemonPort = parsePort(arg, args, ++k); break;
+                case "--client": options.clientPort = parsePort(arg, args, ++k); break;
+                case "--queue": options.queueCapacity = parsePositiveInt(arg, args, ++k); break;
+                case "--inline": options.inlineScene = true; break;
+                case "--http": options.httpPort = parsePort(arg, args, ++k); break;
+                case "--workers": options.workers = parsePositiveInt(arg, args, ++k); break;
+                case "--timeout": options.timeoutSeconds = parsePositiveInt(arg, args, ++k); break;
+                case "--camera-path": options.cameraPath = requireValue(arg, args, ++k); break;
+                case "--frames": options.frames = parsePositiveInt(arg, args, ++k); break;
+                case "--progressive": options.previewInterval = parseNonNegativeInt(arg, args, ++k); break;
+                case "--scene-cache": options.sceneCacheBudget = (long) parseNonNegativeInt(arg, args, ++k) << 20; break;
+                default:
+                    if (arg.startsWith("--")) throw new IllegalArgumentException("Option inconnue : " + arg);
+                    if (options.sceneFile != null) throw new IllegalArgumentException("Un seul fichier de scène attendu.");
+                    options.sceneFile = arg;
+            }
+        }
+        if ((options.daemonPort >= 0 ? 1 : 0) + (options.clientPort >= 0 ? 1 : 0) + (options.httpPort >= 0 ? 1 : 0) > 1) {
+            throw new IllegalArgumentException("--daemon, --client et --http sont incompatibles.");
+        }
+        if (options.clientPort >= 0 && options.sceneFile == null) {
+            throw new IllegalArgumentException("--client : fichier de scène attendu.");
+        }
+        if (given.contains("--queue") && options.daemonPort < 0 && options.httpPort < 0) {
+            throw new IllegalArgumentException("--queue s'utilise avec --daemon ou --http.");
+        }
+        if ((given.contains("--workers") || given.contains("--timeout")) && options.httpPort < 0) {
+            throw new IllegalArgumentException("--workers et --timeout s'utilisent avec --http.");
+        }
+        if (given.contains("--scene-cache") && options.daemonPort < 0 && options.httpPort < 0) {
+            throw new IllegalArgumentException("--scene-cache s'utilise avec --daemon ou --http.");
+        }
+        if (options.inlineScene && options.clientPort < 0) {
+            throw new IllegalArgumentException("--inline s'utilise avec --client.");
+        }
+        if (options.cameraPath != null && (options.daemonPort >= 0 || options.clientPort >= 0 || options.httpPort >= 0)) {
+            throw new IllegalArgumentException("--camera-path s'utilise sans --daemon, --client ni --http.");
+        }
+        if (options.frames > 0 && options.cameraPath == null) {
+            throw new IllegalArgumentException("--frames s'utilise avec --camera-path.");
+        }
+        if (options.previewInterval >= 0
+                && (options.daemonPort >= 0 || options.clientPort >= 0 || options.httpPort >= 0 || options.cameraPath != null)) {
+            throw new IllegalArgumentException("--progressive s'utilise pour une image fixe, sans --daemon, --client, --http ni --camera-path.");
+        }
+        return options;
+    }
+
+    private static String requireValue(String option, String[] args, int index) {
+        if (index >= args.length) throw new IllegalArgumentException("Valeur manquante pour " + option);
+        return args[index];
+    }
+
+    private static int parsePositiveInt(String option, String[] args, int index) {
+        requireValue(option, args, index);
+        try {
+            int value = Integer.parseInt(args[index]);
+            if (value < 1) throw new IllegalArgumentException(option + " : entier strictement positif attendu.");
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + " : entier attendu, reçu '" + args[index] + "'.");
+        }
+    }
+
+    private static int parseNonNegativeInt(String option, String[] args, int index) {
+        requireValue(option, args, index);
+        try {
+            int value = Integer.parseInt(args[index]);
+            if (value < 0) throw new IllegalArgumentException(option + " : entier positif ou nul attendu.");
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + " : entier attendu, reçu '" + args[index] + "'.");
+        }
+    }
+
+    private static int parsePort(String option, String[] args, int index) {
+        requireValue(option, args, index);
+        try {
+            int value = Integer.parseInt(args[index]);
+            if (value < 0 || value > 65535) throw new IllegalArgumentException(option + " : port entre 0 et 65535 attendu.");
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + " : entier attendu, reçu '" + args[index] + "'.");
+        }
+    }
+
+    /** Fichier de scène, ou null si aucun n'a été fourni. */
+    public String getSceneFile() { return sceneFile; }
+    /** Nombre de threads de rendu (par défaut : tous les cœurs). */
+    public int getThreads() { return threads; }
+    /** Côté des tuiles de rendu, en pixels. */
+    public int getTileSize() { return tileSize; }
+    /** Méthode de construction de la hiérarchie englobante. */
+    public BuildMethod getBuildMethod() { return buildMethod; }
+    /** Parcourir la hiérarchie avec 4 enfants par nœud (tests de boîtes SIMD si possible). */
+    public boolean isWideBvh() { return wideBvh; }
+    /** Tracer les rayons primaires et leurs rayons d'ombre par paquets de 4 x 4. */
+    public boolean isPacketTracing() { return packets; }
+    /** Tracer chaque tuile étape par étape (intégrateur wavefront) au lieu de pixel par pixel. */
+    public boolean isWavefront() { return wavefront; }
+    /** Utiliser et mettre à jour la scène compilée voisine du fichier de scène. */
+    public boolean isCacheEnabled() { return cacheEnabled; }
+    /** Compter rayons et tests d'intersection, mesurer les phases et afficher un résumé. */
+    public boolean isStatisticsEnabled() { return statisticsEnabled; }
+    /** Fichier JSON où écrire les statistiques, ou null. */
+    public String getStatisticsFile() { return statisticsFile; }
+    /** Lancer le démon de rendu au lieu d'un rendu unique. */
+    public boolean isDaemon() { return daemonPort >= 0; }
+    /** Confier le rendu à un démon déjà lancé. */
+    public boolean isClient() { return clientPort >= 0; }
+    /** Port local du démon (écoute ou connexion ; 0 pour un port libre au choix du système). */
+    public int getPort() { return daemonPort >= 0 ? daemonPort : clientPort; }
+    /** Nombre de travaux en attente au-delà duquel le démon refuse les demandes. */
+    public int getQueueCapacity() { return queueCapacity; }
+    /** Envoyer au démon le texte de la scène plutôt que son chemin. */
+    public boolean isInlineScene() { return inlineScene; }
+    /** Lancer le service HTTP de rendu. */
+    public boolean isHttpService() { return httpPort >= 0; }
+    /** Port local du service HTTP (0 pour un port libre au choix du système). */
+    public int getHttpPort() { return httpPort; }
+    /** Nombre de rendus simultanés du service HTTP. */
+    public int getWorkers() { return workers; }
+    /** Durée maximale d'un travail du service HTTP, attente comprise, en secondes. */
+    public int getTimeoutSeconds() { return timeoutSeconds; }
+    /** Mémoire des scènes gardées d'un travail à l'autre par le démon ou le service HTTP, en octets (0 : aucune). */
+    public long getSceneCacheBudget() { return sceneCacheBudget; }
+    /** Fichier de trajectoire de caméra pour rendre une animation, ou null pour une image fixe. */
+    public String getCameraPath() { return cameraPath; }
+    /** Nombre d'images de l'animation, ou 0 pour celui du fichier de trajectoire. */
+    public int getFrames() { return frames; }
+    /** Délai minimal entre deux aperçus d'un rendu progressif, en millisecondes, ou -1 pour un rendu direct. */
+    public int getPreviewInterval() { return previewInterval; }
+}
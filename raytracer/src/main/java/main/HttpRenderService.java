@@ -0,0 +1,355 @@
+package main;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import parsing.ParsingException;
+import parsing.SceneCache;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Service HTTP de rendu, sur l'interface locale, construit sur le serveur HTTP du JDK
+ * (com.sun.net.httpserver) : aucune dépendance de plus.
+ *
+ * <ul>
+ * <li>POST /render : le corps est le texte d'une scène ; la réponse est l'image PNG, encodée
+ * directement dans la réponse. Paramètres facultatifs : priority (entier, le plus grand passe
+ * d'abord ; 0 par défaut), timeout (secondes, attente comprise) et id (identifiant choisi par
+ * le client pour pouvoir annuler le travail). 429 si la file d'attente est pleine, 400 si la
+ * scène est invalide, 504 si le délai est dépassé, 409 si le travail a été annulé.</li>
+ * <li>DELETE /jobs/{id} : annule un travail, en attente ou en cours (le rendu s'arrête à la
+ * ligne de pixels suivante).</li>
+ * <li>GET /metrics : profondeur de la file, rendus par seconde, latences p50 et p99, scènes
+ * gardées en mémoire (voir {@link ServiceMetrics}).</li>
+ * </ul>
+ *
+ * Les travaux sont rendus par un nombre borné de workers, dans l'ordre des priorités puis
+ * d'arrivée. Chaque requête attend son travail sur un thread virtuel.
+ */
+public final class HttpRenderService implements Closeable {
+
+    /** Durée maximale d'un travail par défaut, attente comprise, en secondes. */
+    public static final int DEFAULT_TIMEOUT_SECONDS = 300;
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpRenderService.class);
+
+    /** Rendu du texte d'une scène (le vrai rendu, sauf dans les tests). */
+    interface SceneRenderer {
+        BufferedImage render(byte[] scene, BooleanSupplier cancelled) throws Exception;
+    }
+
+    /** Travail en attente ou en cours de rendu. */
+    private final class Job implements Runnable, Comparable<Job> {
+        final String id;
+        final int priority;
+        final long sequence;
+        final byte[] scene;
+        final long acceptedNanos;
+        final CompletableFuture<BufferedImage> result = new CompletableFuture<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile boolean cancelled;
+
+        Job(String id, int priority, long sequence, byte[] scene, long acceptedNanos) {
+            this.id = id;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.scene = scene;
+            this.acceptedNanos = acceptedNanos;
+        }
+
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) return; // Annulé pendant l'attente
+            queued.decrementAndGet();
+            running.incrementAndGet();
+            try {
+                BufferedImage image = renderer.render(scene, () -> cancelled);
+                long now = System.nanoTime();
+                metrics.recordCompletion(now - acceptedNanos, now);
+                logger.info("Travail {} rendu en {} ms (attente comprise)", id, (now - acceptedNanos) / 1_000_000);
+                result.complete(image);
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                running.decrementAndGet();
+                jobs.remove(id, this);
+            }
+        }
+
+        /** Retire le travail de la file, ou demande l'arrêt de son rendu. */
+        void cancel() {
+            cancelled = true;
+            if (started.compareAndSet(false, true)) {
+                workers.remove(this);
+                queued.decrementAndGet();
+                jobs.remove(id, this);
+                result.completeExceptionally(new CancellationException("Travail annulé avant son rendu."));
+            }
+        }
+
+        /** Priorité la plus haute d'abord, puis ordre d'arrivée. */
+        @Override
+        public int compareTo(Job other) {
+            if (priority != other.priority) return Integer.compare(other.priority, priority);
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final HttpServer server;
+    private final SceneRenderer renderer;
+    private final SceneCache sceneCache; // null : pas de scènes gardées (ou tests)
+    private final int queueCapacity;
+    private final long defaultTimeoutNanos;
+    private final ThreadPoolExecutor workers;
+    private final ExecutorService exchanges = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final ServiceMetrics metrics = new ServiceMetrics(System.nanoTime());
+
+    /**
+     * Prépare le service selon les options (port, workers, file, délai et options de rendu).
+     * @throws IOException Si le port ne peut pas être ouvert
+     */
+    HttpRenderService(CommandLineOptions options) throws IOException {
+        this(options, RenderJob.newSceneCache(options));
+    }
+
+    private HttpRenderService(CommandLineOptions options, SceneCache sceneCache) throws IOException {
+        this(options.getHttpPort(), options.getWorkers(), options.getQueueCapacity(), options.getTimeoutSeconds(),
+                (scene, cancelled) -> RenderJob.renderText(scene, options, sceneCache, null, cancelled).image, sceneCache);
+    }
+
+    HttpRenderService(int port, int workerCount, int queueCapacity, double timeoutSeconds, SceneRenderer renderer)
+            throws IOException {
+        this(port, workerCount, queueCapacity, timeoutSeconds, renderer, null);
+    }
+
+    private HttpRenderService(int port, int workerCount, int queueCapacity, double timeoutSeconds, SceneRenderer renderer,
+                              SceneCache sceneCache) throws IOException {
+        this.renderer = renderer;
+        this.sceneCache = sceneCache;
+        this.queueCapacity = queueCapacity;
+        this.defaultTimeoutNanos = (long) (timeoutSeconds * 1e9);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), runnable -> new Thread(runnable, "rendu-http-" + threadNumber.incrementAndGet()));
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/render", this::handleRender);
+        server.createContext("/jobs/", this::handleJob);
+        server.createContext("/metrics", this::handleMetrics);
+        server.setExecutor(exchanges);
+    }
+
+    /**
+     * Lance le service ; il tourne jusqu'à l'arrêt du processus.
+     * @param options Options de la ligne de commande
+     */
+    static void run(CommandLineOptions options) {
+        try {
+            HttpRenderService service = new HttpRenderService(options);
+            service.start();
+            logger.info("Service HTTP de rendu à l'écoute sur http://localhost:{}/ ({} worker(s), file de {} travaux, délai de {} s)",
+                    service.getPort(), options.getWorkers(), options.getQueueCapacity(), options.getTimeoutSeconds());
+        } catch (IOException e) {
+            logger.error("Service HTTP de rendu impossible à lancer : {}", e.getMessage());
+        }
+    }
+
+    /** Commence à servir les requêtes. */
+    void start() {
+        server.start();
+    }
+
+    /** Port d'écoute (utile quand le système l'a choisi). */
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /** Nombre de travaux en attente (hors travaux en cours). */
+    int getQueuedJobs() {
+        return queued.get();
+    }
+
+    /** Nombre de travaux en cours de rendu. */
+    int getRunningJobs() {
+        return running.get();
+    }
+
+    private void handleRender(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                sendText(exchange, 405, "Méthode non autorisée : POST attendu.");
+                return;
+            }
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            int priority;
+            long timeoutNanos;
+            try {
+                priority = Integer.parseInt(query.getOrDefault("priority", "0"));
+                timeoutNanos = query.containsKey("timeout")
+                        ? (long) (Double.parseDouble(query.get("timeout")) * 1e9) : defaultTimeoutNanos;
+            } catch (NumberFormatException e) {
+                sendText(exchange, 400, "Paramètre invalide : " + e.getMessage());
+                return;
+            }
+            if (timeoutNanos <= 0) {
+                sendText(exchange, 400, "Paramètre invalide : timeout doit être positif.");
+                return;
+            }
+            // Place réservée dans la file avant de lire la scène : un travail refusé ne coûte
+            // pas sa scène en mémoire (le corps non lu est abandonné avec la connexion)
+            if (queued.incrementAndGet() > queueCapacity) {
+                // Contre-pression : refus immédiat, le client réessaiera
+                queued.decrementAndGet();
+                metrics.rejected.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendText(exchange, 429, "File d'attente pleine (" + queueCapacity + " travaux en attente).");
+                return;
+            }
+            byte[] scene;
+            try {
+                scene = exchange.getRequestBody().readNBytes(RenderProtocol.MAX_SCENE + 1);
+            } catch (IOException e) {
+                queued.decrementAndGet();
+                throw e;
+            }
+            if (scene.length > RenderProtocol.MAX_SCENE) {
+                queued.decrementAndGet();
+                sendText(exchange, 413, "Scène trop volumineuse.");
+                return;
+            }
+
+            long number = sequence.incrementAndGet();
+            String id = query.getOrDefault("id", "job-" + number);
+            Job job = new Job(id, priority, number, scene, System.nanoTime());
+            if (jobs.putIfAbsent(id, job) != null) {
+                queued.decrementAndGet();
+                sendText(exchange, 409, "Un travail " + id + " est déjà en cours.");
+                return;
+            }
+            metrics.accepted.incrementAndGet();
+            workers.execute(job);
+            exchange.getResponseHeaders().set("X-Job-Id", id);
+
+            BufferedImage image;
+            try {
+                image = job.result.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                job.cancel();
+                metrics.timedOut.incrementAndGet();
+                sendText(exchange, 504, "Délai dépassé (" + timeoutNanos / 1e9 + " s).");
+                return;
+            } catch (CancellationException e) {
+                metrics.cancelled.incrementAndGet();
+                sendText(exchange, 409, "Travail " + id + " annulé.");
+                return;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                metrics.failed.incrementAndGet();
+                // Un nombre mal écrit dans la scène sort du parser en NumberFormatException
+                boolean invalidScene = cause instanceof ParsingException || cause instanceof IllegalArgumentException;
+                sendText(exchange, invalidScene ? 400 : 500,
+                        cause.getMessage() != null ? cause.getMessage() : cause.toString());
+                return;
+            } catch (InterruptedException e) {
+                job.cancel();
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            // Image encodée directement dans la réponse, envoyée par morceaux
+            exchange.getResponseHeaders().set("Content-Type", "image/png");
+            exchange.sendResponseHeaders(200, 0);
+            ImageIO.write(image, "PNG", exchange.getResponseBody());
+        }
+    }
+
+    private void handleJob(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("DELETE")) {
+                sendText(exchange, 405, "Méthode non autorisée : DELETE attendu.");
+                return;
+            }
+            String id = exchange.getRequestURI().getPath().substring("/jobs/".length());
+            Job job = jobs.get(id);
+            if (job == null) {
+                sendText(exchange, 404, "Travail inconnu ou terminé : " + id);
+                return;
+            }
+            job.cancel();
+            sendText(exchange, 202, "Annulation demandée : " + id);
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendText(exchange, 405, "Méthode non autorisée : GET attendu.");
+                return;
+            }
+            byte[] body = metrics.format(queued.get(), running.get(), sceneCache, System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return query;
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    /** Arrête le service et annule les travaux en attente ou en cours. */
+    @Override
+    public void close() {
+        server.stop(0);
+        for (Job job : jobs.values()) job.cancel();
+        workers.shutdownNow();
+        exchanges.shutdownNow();
+    }
+}
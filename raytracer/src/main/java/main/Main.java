@@ -1,15 +1,24 @@
 package main;
 
+import acceleration.BuildMethod;
+import acceleration.Bvh;
+import acceleration.UniformGrid;
+import parsing.CompiledScene;
+import parsing.SceneCache;
 import parsing.SceneFileParser;
 import parsing.ParsingException;
 import scene.Scene;
+import stats.RenderStatistics;
 import imaging.Renderer;
 import imaging.ImageWriter;
+import imaging.RefinementPass;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.function.BooleanSupplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,7 +29,10 @@ import org.slf4j.LoggerFactory;
 public class Main {
     /**
      * Programme principal du Raytracer.
-     * @param args Chemin du fichier de scène
+     * @param args Options (--threads N, --tile N, --bvh M, --wide, --packets, --wavefront, --no-cache, --stats, --stats-json F,
+     *             --daemon PORT, --queue N, --client PORT, --inline,
+     *             --http PORT, --workers N, --timeout S, --scene-cache MO,
+     *             --camera-path F, --frames N, --progressive MS) puis chemin du fichier de scène
      */
     private static final Logger logger = LoggerFactory.getLogger(Main.class);
 
@@ -28,12 +40,30 @@ public class Main {
     private static final String DEFAULT_SCENE_RESOURCE = "scenes/final_avec_bonus.scene";
 
     public static void main(String[] args) {
+        CommandLineOptions options;
+        try {
+            options = CommandLineOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            logger.error(e.getMessage());
+            logger.error(CommandLineOptions.USAGE);
+            return;
+        }
+
+        if (options.isDaemon()) {
+            RenderDaemon.run(options);
+            return;
+        }
+        if (options.isHttpService()) {
+            HttpRenderService.run(options);
+            return;
+        }
+
         String sceneFilePath;
 
         // 1. Determine the scene file path
-        if (args.length > 0) {
+        if (options.getSceneFile() != null) {
             // Case 1: Path provided as argument
-            sceneFilePath = args[0];
+            sceneFilePath = options.getSceneFile();
         } else {
             // Case 2: No argument, use default resource
             logger.info("Aucun argument fourni. Tentative de chargement de la ressource par défaut : {}", DEFAULT_SCENE_RESOURCE);
@@ -65,26 +95,39 @@ public class Main {
             }
         }
 
-        try {
-            // 2. Load the scene file
-            logger.info("Chargement de la scène : {}", sceneFilePath);
-            SceneFileParser parser = new SceneFileParser();
-            Scene scene = parser.parse(sceneFilePath);
-
-            // 3. Create the Renderer
-            Renderer renderer = new Renderer();
+        if (options.isClient()) {
+            RenderClient.run(options.getPort(), sceneFilePath, options.isInlineScene());
+            return;
+        }
+        if (options.getCameraPath() != null) {
+            AnimationRenderer.run(sceneFilePath, options);
+            return;
+        }
 
-            // 4. Render the image
-            logger.info("Rendu de l'image ( {} x {})..." , scene.getWidth(), scene.getHeight());
-            BufferedImage renderedImage = renderer.render(scene);
+        try {
+            RenderStatistics statistics = options.isStatisticsEnabled() ? new RenderStatistics() : null;
+            Rendering rendering = render(sceneFilePath, options, options.isCacheEnabled(), statistics);
+            Scene scene = rendering.scene;
+            BufferedImage renderedImage = rendering.image;
 
             // 5. Save the image
             ImageWriter writer = new ImageWriter();
             String outputFileName = scene.getOutput();
+            long startTime = System.nanoTime();
             writer.saveImage(renderedImage, outputFileName);
+            if (statistics != null) statistics.addPhaseTime(RenderStatistics.Phase.ENCODE, System.nanoTime() - startTime);
 
             logger.info("Image sauvegardée avec succès : {}" , outputFileName);
 
+            // 6. Statistics
+            if (statistics != null) {
+                logger.info(statistics.summary());
+                if (options.getStatisticsFile() != null) {
+                    statistics.writeJson(Paths.get(options.getStatisticsFile()));
+                    logger.info("Statistiques enregistrées : {}", options.getStatisticsFile());
+                }
+            }
+
         } catch (ParsingException e) {
             logger.error("Erreur lors de l'analyse du fichier scène :");
             logger.error(e.getMessage());
@@ -93,4 +136,169 @@ public class Main {
             logger.error(e.getMessage());
         }
     }
+
+    /** Scène chargée et image rendue. */
+    static final class Rendering {
+        final Scene scene;
+        final BufferedImage image;
+
+        Rendering(Scene scene, BufferedImage image) {
+            this.scene = scene;
+            this.image = image;
+        }
+    }
+
+    /**
+     * Charge une scène (étapes 2 et 3) et en fait le rendu (étape 4), selon les options.
+     * Partagé par le lancement direct, le démon de rendu et le service HTTP.
+     *
+     * @param sceneFilePath Fichier de scène texte
+     * @param options Options de rendu
+     * @param cacheEnabled Utiliser et mettre à jour la scène compilée
+     * @param statistics Statistiques à remplir, ou null
+     */
+    static Rendering render(String sceneFilePath, CommandLineOptions options, boolean cacheEnabled,
+                            RenderStatistics statistics) throws IOException, ParsingException {
+        return render(sceneFilePath, options, cacheEnabled, null, statistics, () -> false);
+    }
+
+    /**
+     * Comme {@link #render(String, CommandLineOptions, boolean, RenderStatistics)}, avec les
+     * scènes gardées en mémoire d'un rendu à l'autre et un rendu interrompu (CancellationException)
+     * dès que cancelled devient vrai.
+     *
+     * @param sceneCache Scènes déjà chargées par ce processus, ou null
+     * @param cancelled Vrai quand le rendu doit s'arrêter
+     */
+    static Rendering render(String sceneFilePath, CommandLineOptions options, boolean cacheEnabled, SceneCache sceneCache,
+                            RenderStatistics statistics, BooleanSupplier cancelled) throws IOException, ParsingException {
+        // 2. Load the scene file
+        logger.info("Chargement de la scène : {}", sceneFilePath);
+        Scene scene;
+        if (sceneCache == null) {
+            scene = loadPreparedScene(sceneFilePath, options, cacheEnabled, statistics);
+        } else {
+            long startTime = System.nanoTime();
+            boolean[] parsed = { false };
+            scene = sceneCache.load(sceneFilePath, options.getBuildMethod(), () -> {
+                parsed[0] = true;
+                return loadPreparedScene(sceneFilePath, options, cacheEnabled, statistics);
+            });
+            if (!parsed[0]) {
+                logger.info("Géométrie déjà en mémoire, seule la prise de vue a été lue ({} scène(s) gardée(s), {} Mo)",
+                        sceneCache.size(), sceneCache.getUsedBytes() >> 20);
+                if (statistics != null) statistics.addPhaseTime(RenderStatistics.Phase.PARSE, System.nanoTime() - startTime);
+            }
+        }
+
+        // 3. Create the Renderer
+        Renderer renderer = new Renderer(options.getThreads(), options.getTileSize(), options.isPacketTracing(),
+                options.isWavefront());
+
+        // 4. Render the image
+        logger.info("Rendu de l'image ( {} x {}) sur {} thread(s), tuiles de {} px{}{}..." ,
+                scene.getWidth(), scene.getHeight(), renderer.getThreads(), renderer.getTileSize(),
+                renderer.isWavefront() ? ", intégrateur wavefront" : "",
+                !renderer.isPacketTracing() ? ""
+                        : renderer.isWavefront() ? " par paquets de rayons" : ", rayons primaires par paquets de 4 x 4");
+        long startTime = System.nanoTime();
+        BufferedImage image;
+        if (options.getPreviewInterval() >= 0) {
+            image = renderProgressive(renderer, scene, options.getPreviewInterval(), statistics, cancelled);
+        } else {
+            image = renderer.render(scene, statistics, cancelled);
+        }
+        if (statistics != null) statistics.addPhaseTime(RenderStatistics.Phase.RENDER, System.nanoTime() - startTime);
+        return new Rendering(scene, image);
+    }
+
+    /**
+     * Rendu progressif : les aperçus successifs remplacent le fichier de sortie de la scène,
+     * jusqu'à l'image finale (écrite ensuite par l'appelant).
+     */
+    private static BufferedImage renderProgressive(Renderer renderer, Scene scene, long intervalMillis,
+                                                   RenderStatistics statistics, BooleanSupplier cancelled) {
+        logger.info("Rendu progressif en {} passes, un pixel sur {} d'abord, aperçus au plus toutes les {} ms (pixels tracés un par un)",
+                RefinementPass.schedule(Renderer.PROGRESSIVE_STEP).size(), Renderer.PROGRESSIVE_STEP, intervalMillis);
+        ImageWriter writer = new ImageWriter();
+        long startTime = System.nanoTime();
+        return renderer.renderProgressive(scene, statistics, cancelled, intervalMillis, (preview, pass, passCount) -> {
+            if (pass == passCount) return;
+            try {
+                writer.replaceImage(preview, scene.getOutput());
+                logger.info("Aperçu {}/{} écrit après {} ms : {}", pass, passCount,
+                        (System.nanoTime() - startTime) / 1_000_000, scene.getOutput());
+            } catch (IOException e) {
+                // Un aperçu manqué n'arrête pas le rendu
+                logger.warn("Aperçu {}/{} non écrit : {}", pass, passCount, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Charge la scène et la prépare au rendu selon les options (hiérarchie à 4 enfants).
+     * Une fois préparée, la scène n'est plus modifiée : elle peut être gardée en mémoire et
+     * rendue par plusieurs threads à la fois.
+     */
+    static Scene loadPreparedScene(String sceneFilePath, CommandLineOptions options, boolean cacheEnabled,
+                                   RenderStatistics statistics) throws IOException, ParsingException {
+        long startTime = System.nanoTime();
+        Scene scene = loadScene(sceneFilePath, cacheEnabled, options.getBuildMethod());
+        Bvh bvh = scene.getAccelerationStructure();
+        UniformGrid grid = scene.getGrid();
+        if (grid != null) {
+            logger.info("Grille régulière de {} x {} x {} cellules, {} références de primitives",
+                    grid.getResolution(0), grid.getResolution(1), grid.getResolution(2), grid.getReferenceCount());
+        }
+        if (statistics != null) {
+            // La construction de la structure a lieu pendant l'analyse : on la retranche
+            long buildTime = bvh != null ? bvh.getBuildTime() : grid != null ? grid.getBuildTime() : 0;
+            statistics.addPhaseTime(RenderStatistics.Phase.PARSE, System.nanoTime() - startTime - buildTime);
+            statistics.addPhaseTime(RenderStatistics.Phase.BUILD, buildTime);
+        }
+        if (options.isWideBvh() && bvh != null) {
+            bvh.widen(true);
+            logger.info("Hiérarchie à 4 enfants par nœud, tests de boîtes {}", bvh.isSimd()
+                    ? "SIMD (API Vector)"
+                    : "scalaires (lancer avec --add-modules jdk.incubator.vector pour l'API Vector)");
+            // Sans l'API Vector, le test primitive par primitive reste le plus rapide
+            if (Bvh.isSimdAvailable()) {
+                bvh.groupTriangles(true);
+                logger.info("Triangles des feuilles testés par blocs de 4 (API Vector)");
+            }
+        }
+        return scene;
+    }
+
+    /**
+     * Charge la scène depuis sa version compilée si elle est à jour, sinon analyse le texte
+     * et (re)crée la version compilée pour les prochains lancements.
+     * Une hiérarchie LBVH, construite pour un aperçu, n'est jamais enregistrée : la scène compilée
+     * garde un arbre SAH, plus efficace, qu'un aperçu peut relire sans rien construire.
+     */
+    static Scene loadScene(String sceneFilePath, boolean cacheEnabled, BuildMethod buildMethod)
+            throws IOException, ParsingException {
+        Path cacheFile = cacheEnabled ? CompiledScene.cacheFileFor(sceneFilePath) : null;
+        if (cacheFile != null) {
+            Scene scene = CompiledScene.read(sceneFilePath, cacheFile);
+            if (scene != null) {
+                logger.info("Scène compilée à jour, texte non analysé : {}", cacheFile);
+                return scene;
+            }
+        }
+
+        SceneFileParser parser = new SceneFileParser();
+        parser.setBuildMethod(buildMethod);
+        Scene scene = parser.parse(sceneFilePath);
+        if (cacheFile != null && buildMethod == BuildMethod.SAH) {
+            try {
+                CompiledScene.write(scene, parser.getSourceDigest(), cacheFile);
+                logger.info("Scène compilée enregistrée : {}", cacheFile);
+            } catch (IOException e) {
+                // Pas bloquant : la scène sera simplement analysée à nouveau la prochaine fois
+                logger.warn("Impossible d'enregistrer la scène compilée {} : {}", cacheFile, e.getMessage());
+            }
+        }
+        return scene;
+    }
 }
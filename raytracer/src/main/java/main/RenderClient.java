@@ -0,0 +1,58 @@
+package main;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Client du démon de rendu ({@link RenderDaemon}) : envoie un travail et attend l'image.
+ */
+final class RenderClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(RenderClient.class);
+
+    private RenderClient() {
+    }
+
+    /**
+     * Envoie un travail au démon du port local donné et attend sa réponse.
+     * @return L'image produite
+     * @throws IOException Si le démon est injoignable, a refusé le travail ou a échoué
+     */
+    static RenderJob.Result send(int port, RenderJob job) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            RenderProtocol.writeRequest(out, job);
+            return RenderProtocol.readResult(new BufferedInputStream(socket.getInputStream()));
+        }
+    }
+
+    /**
+     * Mode --client : fait rendre une scène par le démon. Avec le texte de la scène (--inline),
+     * l'image renvoyée est écrite ici, sous le nom donné par la ligne output.
+     *
+     * @param port Port local du démon
+     * @param sceneFile Fichier de scène
+     * @param inline Envoyer le texte de la scène plutôt que son chemin
+     */
+    static void run(int port, String sceneFile, boolean inline) {
+        try {
+            RenderJob job = inline
+                    ? RenderJob.ofText(Files.readAllBytes(Paths.get(sceneFile)))
+                    : RenderJob.ofFile(Paths.get(sceneFile));
+            RenderJob.Result result = send(port, job);
+            if (result.png != null) Files.write(Paths.get(result.output), result.png);
+            logger.info("Image sauvegardée avec succès : {}", result.output);
+        } catch (IOException e) {
+            logger.error("Rendu par le démon du port {} impossible : {}", port, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package main;
+
+import parsing.SceneCache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.file.NoSuchFileException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Démon de rendu : un processus qui reste lancé et rend les scènes que lui envoient ses clients
+ * (voir {@link RenderProtocol}), sur un port local. Chaque rendu profite ainsi d'une JVM déjà
+ * démarrée, de classes déjà chargées et d'un code déjà compilé par le JIT, là où un lancement
+ * par scène paie tout cela à chaque fois.
+ *
+ * Les travaux sont rendus un par un (chaque rendu occupe déjà tous les threads demandés), dans
+ * l'ordre d'arrivée. La file d'attente est bornée : au-delà, la demande est refusée aussitôt
+ * plutôt que d'accumuler des clients en attente.
+ */
+public final class RenderDaemon implements Closeable {
+
+    /** Nombre de travaux en attente accepté par défaut. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+    /** Délai accordé à un client pour envoyer sa demande, en millisecondes. */
+    static final int READ_TIMEOUT_MILLIS = 30_000;
+    /** Intervalle entre deux vérifications que le client d'un travail en attente est toujours là. */
+    static final long CLIENT_CHECK_MILLIS = 200;
+
+    private static final Logger logger = LoggerFactory.getLogger(RenderDaemon.class);
+
+    /** Exécution d'un travail (le rendu, sauf dans les tests). */
+    interface Worker {
+        RenderJob.Result run(RenderJob job) throws Exception;
+    }
+
+    private final ServerSocket server;
+    private final Worker worker;
+    private final int queueCapacity;
+    private final int readTimeoutMillis;
+    private final ThreadPoolExecutor jobs;
+    /** Places libres dans la file, réservées avant de lire la scène d'une demande. */
+    private final Semaphore slots;
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Ouvre le port d'écoute, sur l'interface locale seulement.
+     * @param options Port, taille de la file, mémoire des scènes gardées et options de rendu
+     * @throws IOException Si le port ne peut pas être ouvert
+     */
+    RenderDaemon(CommandLineOptions options) throws IOException {
+        this(options, RenderJob.newSceneCache(options));
+    }
+
+    private RenderDaemon(CommandLineOptions options, SceneCache sceneCache) throws IOException {
+        this(options.getPort(), options.getQueueCapacity(), job -> job.run(options, sceneCache));
+    }
+
+    RenderDaemon(int port, int queueCapacity, Worker worker) throws IOException {
+        this(port, queueCapacity, READ_TIMEOUT_MILLIS, worker);
+    }
+
+    RenderDaemon(int port, int queueCapacity, int readTimeoutMillis, Worker worker) throws IOException {
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.worker = worker;
+        this.queueCapacity = queueCapacity;
+        this.slots = new Semaphore(queueCapacity);
+        this.jobs = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> new Thread(runnable, "rendu"));
+    }
+
+    /**
+     * Lance le démon et sert les demandes jusqu'à l'arrêt du processus.
+     * @param options Options de la ligne de commande
+     */
+    static void run(CommandLineOptions options) {
+        try (RenderDaemon daemon = new RenderDaemon(options)) {
+            logger.info("Démon de rendu à l'écoute sur le port local {} (file de {} travaux)",
+                    daemon.getPort(), options.getQueueCapacity());
+            daemon.serve();
+        } catch (IOException e) {
+            logger.error("Démon de rendu arrêté : {}", e.getMessage());
+        }
+    }
+
+    /** Port d'écoute (utile quand le système l'a choisi). */
+    int getPort() {
+        return server.getLocalPort();
+    }
+
+    /** Nombre de travaux en attente (hors travail en cours). */
+    int getQueuedJobs() {
+        return jobs.getQueue().size();
+    }
+
+    /**
+     * Accepte les connexions jusqu'à la fermeture du démon. Chaque connexion est lue et attend
+     * son rendu sur un thread virtuel.
+     */
+    void serve() throws IOException {
+        while (true) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (SocketException e) {
+                if (server.isClosed()) return; // Arrêt demandé par close()
+                throw e;
+            }
+            connections.execute(() -> handle(socket));
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket) {
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            String line;
+            RenderJob job;
+            AtomicBoolean slot = new AtomicBoolean();
+            try {
+                // Un client muet ou qui n'envoie qu'une partie de sa demande ne garde pas la connexion
+                socket.setSoTimeout(readTimeoutMillis);
+                line = RenderProtocol.readRequestLine(in);
+                // Place réservée dans la file avant de lire la scène : un travail refusé ne coûte
+                // pas sa scène en mémoire
+                if (!slots.tryAcquire()) {
+                    logger.warn("File d'attente pleine, travail refusé : {}", line);
+                    RenderProtocol.writeError(out, "File d'attente pleine (" + queueCapacity + " travaux en attente).");
+                    return;
+                }
+                slot.set(true);
+                job = RenderProtocol.readRequest(line, in);
+            } catch (SocketTimeoutException e) {
+                releaseSlot(slot);
+                RenderProtocol.writeError(out, "Demande invalide : rien reçu depuis " + readTimeoutMillis + " ms.");
+                return;
+            } catch (IOException e) {
+                releaseSlot(slot);
+                RenderProtocol.writeError(out, "Demande invalide : " + e.getMessage());
+                return;
+            }
+
+            Future<RenderJob.Result> result;
+            try {
+                result = jobs.submit(() -> {
+                    releaseSlot(slot); // Sorti de la file
+                    return execute(job);
+                });
+            } catch (RejectedExecutionException e) {
+                releaseSlot(slot);
+                logger.warn("File d'attente pleine, travail refusé : {}", job);
+                RenderProtocol.writeError(out, "File d'attente pleine (" + queueCapacity + " travaux en attente).");
+                return;
+            }
+
+            try {
+                RenderProtocol.writeResult(out, awaitResult(socket, in, result, job));
+            } catch (CancellationException e) {
+                releaseSlot(slot);
+                return; // Client parti avant le rendu : personne à qui répondre
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof NoSuchFileException) {
+                    RenderProtocol.writeError(out, "Fichier introuvable : " + cause.getMessage());
+                } else {
+                    RenderProtocol.writeError(out, cause.getMessage() != null ? cause.getMessage() : cause.toString());
+                }
+            } catch (InterruptedException e) {
+                result.cancel(true);
+                releaseSlot(slot);
+                Thread.currentThread().interrupt();
+            }
+        } catch (IOException e) {
+            logger.warn("Connexion interrompue : {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Attend le résultat d'un travail en vérifiant que son client est toujours connecté : un
+     * travail dont le client est parti est retiré de la file (un rendu déjà commencé va au bout).
+     *
+     * @throws CancellationException Si le client est parti et le travail abandonné
+     */
+    private RenderJob.Result awaitResult(Socket socket, InputStream in, Future<RenderJob.Result> result, RenderJob job)
+            throws ExecutionException, InterruptedException, IOException {
+        socket.setSoTimeout(1);
+        while (true) {
+            try {
+                return result.get(CLIENT_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (isDisconnected(in) && result.cancel(false)) {
+                    jobs.purge();
+                    logger.info("Client parti, travail abandonné : {}", job);
+                }
+            }
+        }
+    }
+
+    /**
+     * Vrai si le client a fermé sa connexion : le protocole ne prévoit rien à lire avant la
+     * réponse, une fin de flux ne peut donc être qu'un départ.
+     */
+    private static boolean isDisconnected(InputStream in) {
+        try {
+            return in.read() < 0;
+        } catch (SocketTimeoutException e) {
+            return false; // Rien à lire : toujours là
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /** Rend la place réservée dans la file, une seule fois quel que soit le chemin suivi. */
+    private void releaseSlot(AtomicBoolean slot) {
+        if (slot.compareAndSet(true, false)) slots.release();
+    }
+
+    private RenderJob.Result execute(RenderJob job) throws Exception {
+        long startTime = System.nanoTime();
+        try {
+            RenderJob.Result result = worker.run(job);
+            logger.info("Travail terminé en {} ms : {}", (System.nanoTime() - startTime) / 1_000_000, result.output);
+            return result;
+        } catch (Exception e) {
+            logger.warn("Échec du travail {} : {}", job, e.getMessage());
+            throw e;
+        }
+    }
+
+    /** Ferme le port d'écoute et abandonne les travaux en attente. */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        jobs.shutdownNow();
+        connections.shutdownNow();
+    }
+}
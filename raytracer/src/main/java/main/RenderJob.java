@@ -0,0 +1,125 @@
+package main;
+
+import imaging.ImageWriter;
+import parsing.ParsingException;
+import parsing.SceneCache;
+import stats.RenderStatistics;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Travail de rendu confié au démon : un fichier de scène, ou le texte d'une scène.
+ * Un fichier est rendu comme par un lancement direct (scène compilée comprise) et l'image est
+ * écrite sur disque ; le texte d'une scène est rendu sans scène compilée et l'image est
+ * renvoyée encodée en PNG, à charge pour le client de l'écrire.
+ */
+final class RenderJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(RenderJob.class);
+
+    /** Image produite par un travail. */
+    static final class Result {
+        final String output;  // Chemin de l'image écrite, ou nom demandé par la scène (texte)
+        final byte[] png;     // Image encodée (texte seulement), null sinon
+
+        Result(String output, byte[] png) {
+            this.output = output;
+            this.png = png;
+        }
+    }
+
+    private final Path sceneFile;  // null pour un texte
+    private final byte[] sceneText; // null pour un fichier
+
+    private RenderJob(Path sceneFile, byte[] sceneText) {
+        this.sceneFile = sceneFile;
+        this.sceneText = sceneText;
+    }
+
+    /** Travail sur un fichier de scène, lu par le démon. */
+    static RenderJob ofFile(Path sceneFile) {
+        return new RenderJob(sceneFile.toAbsolutePath(), null);
+    }
+
+    /** Travail sur le texte d'une scène, envoyé par le client. */
+    static RenderJob ofText(byte[] sceneText) {
+        return new RenderJob(null, sceneText);
+    }
+
+    /**
+     * Cache des scènes d'un processus qui enchaîne les travaux, selon les options.
+     * @return Le cache, ou null si --scene-cache 0
+     */
+    static SceneCache newSceneCache(CommandLineOptions options) {
+        return options.getSceneCacheBudget() > 0 ? new SceneCache(options.getSceneCacheBudget()) : null;
+    }
+
+    /** Chemin du fichier de scène, ou null pour un texte. */
+    Path getSceneFile() { return sceneFile; }
+
+    /** Texte de la scène, ou null pour un fichier. */
+    byte[] getSceneText() { return sceneText; }
+
+    /**
+     * Fait le rendu.
+     * Pour un fichier, une sortie relative est placée dans le dossier de la scène : le démon ne
+     * connaît pas le dossier courant du client.
+     *
+     * @param options Options de rendu du démon
+     * @param sceneCache Scènes déjà chargées par le démon, ou null
+     * @return L'image produite
+     */
+    Result run(CommandLineOptions options, SceneCache sceneCache) throws IOException, ParsingException {
+        RenderStatistics statistics = options.isStatisticsEnabled() ? new RenderStatistics() : null;
+        if (sceneFile != null) {
+            Main.Rendering rendering = Main.render(sceneFile.toString(), options, options.isCacheEnabled(), sceneCache,
+                    statistics, () -> false);
+            Path output = sceneFile.resolveSibling(rendering.scene.getOutput());
+            new ImageWriter().saveImage(rendering.image, output.toString());
+            logStatistics(statistics);
+            return new Result(output.toString(), null);
+        }
+
+        Main.Rendering rendering = renderText(sceneText, options, sceneCache, statistics, () -> false);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(rendering.image, "PNG", png);
+        logStatistics(statistics);
+        return new Result(rendering.scene.getOutput(), png.toByteArray());
+    }
+
+    /**
+     * Rend le texte d'une scène. Le parser lit un fichier : le texte passe par un fichier
+     * temporaire, sans scène compilée.
+     *
+     * @param sceneCache Scènes déjà chargées par ce processus, ou null
+     * @param cancelled Vrai quand le rendu doit s'arrêter (voir Renderer)
+     */
+    static Main.Rendering renderText(byte[] sceneText, CommandLineOptions options, SceneCache sceneCache,
+                                     RenderStatistics statistics, BooleanSupplier cancelled)
+            throws IOException, ParsingException {
+        Path temporary = Files.createTempFile("raytracer-", ".scene");
+        try {
+            Files.write(temporary, sceneText);
+            return Main.render(temporary.toString(), options, false, sceneCache, statistics, cancelled);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void logStatistics(RenderStatistics statistics) {
+        if (statistics != null) logger.info(statistics.summary());
+    }
+
+    @Override
+    public String toString() {
+        return sceneFile != null ? sceneFile.toString() : "scène en ligne (" + sceneText.length + " octets)";
+    }
+}
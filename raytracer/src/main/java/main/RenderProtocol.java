@@ -0,0 +1,142 @@
+package main;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+/**
+ * Protocole entre le démon de rendu et ses clients : une demande, une réponse, par connexion.
+ *
+ * Demandes (une ligne UTF-8 terminée par '\n', suivie pour SCENE du texte de la scène) :
+ * <pre>
+ * RENDER chemin-absolu-du-fichier-de-scène
+ * SCENE taille-en-octets
+ * </pre>
+ * Réponses :
+ * <pre>
+ * OK chemin-de-l'image-écrite
+ * PNG taille-en-octets nom-de-sortie      (suivie de l'image encodée)
+ * ERROR message
+ * </pre>
+ */
+final class RenderProtocol {
+
+    /** Taille maximale d'une ligne d'en-tête. */
+    static final int MAX_LINE = 1 << 16;
+    /** Taille maximale d'un texte de scène (la plus grosse scène fournie fait moins de 4 Mo). */
+    static final int MAX_SCENE = 1 << 26;
+    /** Taille maximale d'une image renvoyée au client. */
+    static final int MAX_IMAGE = 1 << 30;
+
+    private RenderProtocol() {
+    }
+
+    /** Envoie la demande correspondant à un travail. */
+    static void writeRequest(OutputStream out, RenderJob job) throws IOException {
+        if (job.getSceneFile() != null) {
+            writeLine(out, "RENDER " + job.getSceneFile());
+        } else {
+            writeLine(out, "SCENE " + job.getSceneText().length);
+            out.write(job.getSceneText());
+        }
+        out.flush();
+    }
+
+    /**
+     * Lit la ligne d'en-tête d'une demande, sans le texte de scène qui la suit éventuellement.
+     * @throws IOException Si la connexion est interrompue
+     */
+    static String readRequestLine(InputStream in) throws IOException {
+        return readLine(in);
+    }
+
+    /**
+     * Lit la suite d'une demande (le texte de la scène pour SCENE).
+     * @param line Ligne d'en-tête lue par {@link #readRequestLine(InputStream)}
+     * @throws IOException Si la demande est mal formée ou la connexion interrompue
+     */
+    static RenderJob readRequest(String line, InputStream in) throws IOException {
+        if (line.startsWith("RENDER ")) {
+            return RenderJob.ofFile(Paths.get(line.substring("RENDER ".length())));
+        }
+        if (line.startsWith("SCENE ")) {
+            return RenderJob.ofText(readPayload(in, parseLength(line.substring("SCENE ".length()), MAX_SCENE)));
+        }
+        throw new IOException("Demande inconnue : " + line);
+    }
+
+    /** Envoie l'image produite. */
+    static void writeResult(OutputStream out, RenderJob.Result result) throws IOException {
+        if (result.png == null) {
+            writeLine(out, "OK " + result.output);
+        } else {
+            writeLine(out, "PNG " + result.png.length + " " + result.output);
+            out.write(result.png);
+        }
+        out.flush();
+    }
+
+    /** Envoie un refus ou une erreur (sur une seule ligne). */
+    static void writeError(OutputStream out, String message) throws IOException {
+        writeLine(out, "ERROR " + String.valueOf(message).replace('\n', ' ').replace('\r', ' '));
+        out.flush();
+    }
+
+    /**
+     * Lit la réponse du démon.
+     * @return L'image produite
+     * @throws IOException Si le démon a répondu par une erreur ou si la réponse est mal formée
+     */
+    static RenderJob.Result readResult(InputStream in) throws IOException {
+        String line = readLine(in);
+        if (line.startsWith("OK ")) {
+            return new RenderJob.Result(line.substring("OK ".length()), null);
+        }
+        if (line.startsWith("PNG ")) {
+            int space = line.indexOf(' ', "PNG ".length());
+            if (space < 0) throw new IOException("Réponse mal formée : " + line);
+            int length = parseLength(line.substring("PNG ".length(), space), MAX_IMAGE);
+            return new RenderJob.Result(line.substring(space + 1), readPayload(in, length));
+        }
+        if (line.startsWith("ERROR ")) {
+            throw new IOException(line.substring("ERROR ".length()));
+        }
+        throw new IOException("Réponse inconnue : " + line);
+    }
+
+    private static void writeLine(OutputStream out, String line) throws IOException {
+        out.write(line.getBytes(StandardCharsets.UTF_8));
+        out.write('\n');
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) throw new EOFException("Connexion fermée avant la fin de l'en-tête.");
+            if (line.size() >= MAX_LINE) throw new IOException("En-tête trop long.");
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    private static int parseLength(String text, int max) throws IOException {
+        try {
+            int length = Integer.parseInt(text.trim());
+            if (length < 0 || length > max) throw new IOException("Taille invalide : " + text);
+            return length;
+        } catch (NumberFormatException e) {
+            throw new IOException("Taille invalide : " + text);
+        }
+    }
+
+    private static byte[] readPayload(InputStream in, int length) throws IOException {
+        byte[] payload = in.readNBytes(length);
+        if (payload.length != length) throw new EOFException("Connexion fermée avant la fin des données.");
+        return payload;
+    }
+}
@@ -0,0 +1,126 @@
+package main;
+
+import parsing.SceneCache;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mesures du service HTTP de rendu, exposées par /metrics au format texte de Prometheus :
+ * compteurs de travaux par issue, débit et latence (attente comprise) des derniers rendus,
+ * et activité du cache des scènes.
+ */
+final class ServiceMetrics {
+
+    /** Nombre de rendus réussis gardés pour les quantiles de latence. */
+    static final int WINDOW = 1024;
+    /** Nombre de secondes sur lesquelles est mesuré le débit. */
+    static final int RATE_SECONDS = 60;
+
+    final AtomicLong accepted = new AtomicLong();
+    final AtomicLong completed = new AtomicLong();
+    final AtomicLong failed = new AtomicLong();
+    final AtomicLong rejected = new AtomicLong();
+    final AtomicLong cancelled = new AtomicLong();
+    final AtomicLong timedOut = new AtomicLong();
+
+    private final long startNanos;
+    // Anneau des latences des derniers rendus réussis
+    private final long[] latencies = new long[WINDOW];
+    private long recorded;
+    // Rendus réussis par seconde depuis le démarrage, sur un anneau d'une minute :
+    // le compteur d'une case n'est valable que pour la seconde notée à côté
+    private final long[] secondCounts = new long[RATE_SECONDS];
+    private final long[] seconds = new long[RATE_SECONDS];
+
+    ServiceMetrics(long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * Enregistre un rendu réussi.
+     * @param latencyNanos Durée entre l'acceptation et la fin du rendu
+     * @param finishNanos Date de fin (System.nanoTime)
+     */
+    synchronized void recordCompletion(long latencyNanos, long finishNanos) {
+        latencies[(int) (recorded % WINDOW)] = latencyNanos;
+        recorded++;
+        long second = secondOf(finishNanos);
+        int slot = (int) (second % RATE_SECONDS);
+        if (seconds[slot] != second) {
+            seconds[slot] = second;
+            secondCounts[slot] = 0;
+        }
+        secondCounts[slot]++;
+        completed.incrementAndGet();
+    }
+
+    /**
+     * Quantile des latences des derniers rendus (rang le plus proche).
+     * @param q Quantile dans ]0, 1]
+     * @return La latence en nanosecondes, ou 0 sans aucun rendu
+     */
+    synchronized long latencyQuantile(double q) {
+        int n = (int) Math.min(recorded, WINDOW);
+        if (n == 0) return 0;
+        long[] sorted = Arrays.copyOf(latencies, n);
+        Arrays.sort(sorted);
+        return sorted[Math.max(0, (int) Math.ceil(q * n) - 1)];
+    }
+
+    /**
+     * Rendus réussis par seconde sur la dernière minute (ou depuis le démarrage s'il est plus
+     * récent) : les RATE_SECONDS - 1 dernières secondes entières, plus la seconde en cours.
+     * Le débit n'est pas borné par la taille de l'anneau des latences.
+     * @param now Date courante (System.nanoTime)
+     */
+    synchronized double rendersPerSecond(long now) {
+        long current = secondOf(now);
+        long first = Math.max(0, current - RATE_SECONDS + 1);
+        long count = 0;
+        for (int slot = 0; slot < RATE_SECONDS; slot++) {
+            if (seconds[slot] >= first && seconds[slot] <= current) count += secondCounts[slot];
+        }
+        long window = now - startNanos - first * 1_000_000_000L;
+        return window <= 0 ? 0 : count / (window / 1e9);
+    }
+
+    private long secondOf(long nanos) {
+        return Math.max(0, nanos - startNanos) / 1_000_000_000L;
+    }
+
+    /**
+     * Mesures au format texte de Prometheus.
+     * @param queueDepth Travaux en attente
+     * @param running Travaux en cours de rendu
+     * @param sceneCache Scènes gardées par le service, ou null
+     * @param now Date courante (System.nanoTime)
+     */
+    String format(int queueDepth, int running, SceneCache sceneCache, long now) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("raytracer_queue_depth ").append(queueDepth).append('\n');
+        sb.append("raytracer_running_jobs ").append(running).append('\n');
+        appendTotal(sb, "accepted", accepted);
+        appendTotal(sb, "completed", completed);
+        appendTotal(sb, "failed", failed);
+        appendTotal(sb, "rejected", rejected);
+        appendTotal(sb, "cancelled", cancelled);
+        appendTotal(sb, "timeout", timedOut);
+        sb.append(String.format(Locale.ROOT, "raytracer_renders_per_second %.3f\n", rendersPerSecond(now)));
+        sb.append(String.format(Locale.ROOT, "raytracer_latency_ms{quantile=\"0.5\"} %.3f\n", latencyQuantile(0.5) / 1e6));
+        sb.append(String.format(Locale.ROOT, "raytracer_latency_ms{quantile=\"0.99\"} %.3f\n", latencyQuantile(0.99) / 1e6));
+        if (sceneCache != null) {
+            sb.append("raytracer_scene_cache_hits_total ").append(sceneCache.getHits()).append('\n');
+            sb.append("raytracer_scene_cache_misses_total ").append(sceneCache.getMisses()).append('\n');
+            sb.append("raytracer_scene_cache_evictions_total ").append(sceneCache.getEvictions()).append('\n');
+            sb.append("raytracer_scene_cache_entries ").append(sceneCache.size()).append('\n');
+            sb.append("raytracer_scene_cache_bytes ").append(sceneCache.getUsedBytes()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void appendTotal(StringBuilder sb, String status, AtomicLong counter) {
+        sb.append("raytracer_jobs_total{status=\"").append(status).append("\"} ").append(counter.get()).append('\n');
+    }
+}
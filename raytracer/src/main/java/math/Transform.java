@@ -0,0 +1,164 @@
+package math;
+
+/**
+ * Transformation affine de l'espace : p' = A p + t, où A est une matrice 3 x 3 inversible.
+ * Place les instances d'un maillage dans la scène (voir geometry.MeshInstance) : un rayon est
+ * ramené dans le repère de l'objet par la transformation inverse, une normale en revient par la
+ * transposée de l'inverse. Les méthodes sur composantes n'allouent rien.
+ */
+public final class Transform {
+
+    /** Transformation identité. */
+    public static final Transform IDENTITY = new Transform(new double[] {
+            1, 0, 0, 0,
+            0, 1, 0, 0,
+            0, 0, 1, 0});
+
+    private final double[] m;   // 3 lignes de 4 : ligne de A puis composante de t
+    private final double[] inv; // Transformation inverse, même rangement
+
+    private Transform(double[] m) {
+        this.m = m;
+        this.inv = invert(m);
+    }
+
+    /**
+     * Transformation donnée par ses coefficients.
+     * @param rows 12 valeurs : 3 lignes de 4 (ligne de A, puis composante de la translation)
+     * @return La transformation
+     * @throws IllegalArgumentException Si la matrice n'a pas 12 valeurs ou n'est pas inversible
+     */
+    public static Transform fromMatrix(double[] rows) {
+        if (rows.length != 12) {
+            throw new IllegalArgumentException("Une transformation affine a 12 coefficients.");
+        }
+        return new Transform(rows.clone());
+    }
+
+    /** Translation de (x, y, z). */
+    public static Transform translation(double x, double y, double z) {
+        return new Transform(new double[] {
+                1, 0, 0, x,
+                0, 1, 0, y,
+                0, 0, 1, z});
+    }
+
+    /**
+     * Changement d'échelle selon chaque axe.
+     * @throws IllegalArgumentException Si un facteur est nul
+     */
+    public static Transform scaling(double sx, double sy, double sz) {
+        return new Transform(new double[] {
+                sx, 0, 0, 0,
+                0, sy, 0, 0,
+                0, 0, sz, 0});
+    }
+
+    /**
+     * Rotation autour d'un axe passant par l'origine (formule de Rodrigues).
+     * @param ax Axe X (l'axe est normalisé)
+     * @param angle Angle en degrés, sens direct
+     * @throws IllegalArgumentException Si l'axe est nul
+     */
+    public static Transform rotation(double ax, double ay, double az, double angle) {
+        double len = Math.sqrt(ax * ax + ay * ay + az * az);
+        if (len < AbstractVec3.EPSILON) {
+            throw new IllegalArgumentException("L'axe de rotation est nul.");
+        }
+        double x = ax / len, y = ay / len, z = az / len;
+        double rad = Math.toRadians(angle);
+        double c = Math.cos(rad), s = Math.sin(rad), k = 1 - c;
+        return new Transform(new double[] {
+                c + x * x * k,     x * y * k - z * s, x * z * k + y * s, 0,
+                y * x * k + z * s, c + y * y * k,     y * z * k - x * s, 0,
+                z * x * k - y * s, z * y * k + x * s, c + z * z * k,     0});
+    }
+
+    /**
+     * Composition : cette transformation, puis next.
+     * @param next Transformation appliquée ensuite
+     * @return next ∘ this
+     */
+    public Transform then(Transform next) {
+        double[] a = next.m;
+        double[] r = new double[12];
+        for (int row = 0; row < 3; row++) {
+            for (int col = 0; col < 4; col++) {
+                double v = a[4 * row] * m[col] + a[4 * row + 1] * m[4 + col] + a[4 * row + 2] * m[8 + col];
+                r[4 * row + col] = col == 3 ? v + a[4 * row + 3] : v;
+            }
+        }
+        return new Transform(r);
+    }
+
+    /** Coefficients de la transformation (copie, même rangement que fromMatrix). */
+    public double[] getMatrix() {
+        return m.clone();
+    }
+
+    /** Image d'un point. @param out Reçoit les 3 composantes */
+    public void transformPoint(double x, double y, double z, double[] out) {
+        apply(m, x, y, z, 1, out);
+    }
+
+    /** Image d'une direction (la translation ne s'applique pas). @param out Reçoit les 3 composantes */
+    public void transformVector(double x, double y, double z, double[] out) {
+        apply(m, x, y, z, 0, out);
+    }
+
+    /** Antécédent d'un point. @param out Reçoit les 3 composantes */
+    public void inversePoint(double x, double y, double z, double[] out) {
+        apply(inv, x, y, z, 1, out);
+    }
+
+    /** Antécédent d'une direction. @param out Reçoit les 3 composantes */
+    public void inverseVector(double x, double y, double z, double[] out) {
+        apply(inv, x, y, z, 0, out);
+    }
+
+    /**
+     * Image d'une normale, par la transposée de l'inverse de A : elle reste orthogonale
+     * à la surface transformée, même sous un changement d'échelle non uniforme.
+     * @param out Reçoit les 3 composantes (non normalisées)
+     */
+    public void transformNormal(double x, double y, double z, double[] out) {
+        out[0] = inv[0] * x + inv[4] * y + inv[8] * z;
+        out[1] = inv[1] * x + inv[5] * y + inv[9] * z;
+        out[2] = inv[2] * x + inv[6] * y + inv[10] * z;
+    }
+
+    private static void apply(double[] a, double x, double y, double z, double w, double[] out) {
+        double rx = a[0] * x + a[1] * y + a[2] * z + a[3] * w;
+        double ry = a[4] * x + a[5] * y + a[6] * z + a[7] * w;
+        double rz = a[8] * x + a[9] * y + a[10] * z + a[11] * w;
+        out[0] = rx;
+        out[1] = ry;
+        out[2] = rz;
+    }
+
+    /** Inverse d'une transformation affine : [A⁻¹ | -A⁻¹ t], A⁻¹ par les cofacteurs. */
+    private static double[] invert(double[] a) {
+        double c00 = a[5] * a[10] - a[6] * a[9];
+        double c01 = a[6] * a[8] - a[4] * a[10];
+        double c02 = a[4] * a[9] - a[5] * a[8];
+        double det = a[0] * c00 + a[1] * c01 + a[2] * c02;
+        if (Math.abs(det) < 1e-12 || !Double.isFinite(det)) {
+            throw new IllegalArgumentException("Transformation non inversible.");
+        }
+        double id = 1.0 / det;
+        double[] r = new double[12];
+        r[0] = c00 * id;
+        r[1] = (a[2] * a[9] - a[1] * a[10]) * id;
+        r[2] = (a[1] * a[6] - a[2] * a[5]) * id;
+        r[4] = c01 * id;
+        r[5] = (a[0] * a[10] - a[2] * a[8]) * id;
+        r[6] = (a[2] * a[4] - a[0] * a[6]) * id;
+        r[8] = c02 * id;
+        r[9] = (a[1] * a[8] - a[0] * a[9]) * id;
+        r[10] = (a[0] * a[5] - a[1] * a[4]) * id;
+        for (int row = 0; row < 3; row++) {
+            r[4 * row + 3] = -(r[4 * row] * a[3] + r[4 * row + 1] * a[7] + r[4 * row + 2] * a[11]);
+        }
+        return r;
+    }
+}
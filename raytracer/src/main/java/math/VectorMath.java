@@ -0,0 +1,35 @@
+package math;
+
+/**
+ * Opérations de {@link Vector} sur des composantes double, sans allocation, pour les boucles
+ * internes du rendu. Chaque méthode refait les calculs de la méthode de Vector correspondante
+ * dans le même ordre : les résultats sont identiques au bit près.
+ */
+public final class VectorMath {
+
+    private VectorMath() {
+    }
+
+    /** Produit scalaire, comme {@link Vector#dot}. */
+    public static double dot(double ax, double ay, double az, double bx, double by, double bz) {
+        return ax * bx + ay * by + az * bz;
+    }
+
+    /**
+     * Vecteur normalisé, comme {@link Vector#normalize} (nul si la longueur est sous EPSILON).
+     * @param out Reçoit les 3 composantes
+     */
+    public static void normalize(double x, double y, double z, double[] out) {
+        double len = Math.sqrt(x * x + y * y + z * z);
+        if (len < AbstractVec3.EPSILON) {
+            out[0] = 0;
+            out[1] = 0;
+            out[2] = 0;
+            return;
+        }
+        double scale = 1.0 / len;
+        out[0] = x * scale;
+        out[1] = y * scale;
+        out[2] = z * scale;
+    }
+}
@@ -0,0 +1,112 @@
+package parsing;
+
+import math.Point;
+import math.Vector;
+import raytracer.Camera;
+import raytracer.CameraPath;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lit un fichier de trajectoire de caméra ({@link CameraPath}), même syntaxe que les scènes
+ * (commentaires sur leur propre ligne seulement) :
+ * <pre>
+ * # Nombre d'images (facultatif)
+ * frames 360
+ * # linear ou smooth (par défaut)
+ * interpolation smooth
+ * # Trajectoire fermée (facultatif) : la dernière clé reprend la première
+ * loop
+ * # Date, œil, point visé, haut, angle de vue
+ * key 0  10 15 10  0 5 -1  0 1 0  45
+ * key 1  -10 15 10  0 5 -1  0 1 0  45
+ * key 2  10 15 10  0 5 -1  0 1 0  45
+ * </pre>
+ */
+public class CameraPathParser {
+
+    private int frameCount; // 0 : non précisé
+
+    /**
+     * Lit et analyse un fichier de trajectoire.
+     * @param filePath Chemin du fichier à lire
+     * @return La trajectoire
+     * @throws IOException Si fichier illisible
+     * @throws ParsingException Si format ou données invalides
+     */
+    public CameraPath parse(String filePath) throws IOException, ParsingException {
+        frameCount = 0;
+        CameraPath.Interpolation interpolation = CameraPath.Interpolation.SMOOTH;
+        boolean loop = false;
+        double[] times = new double[16];
+        List<Camera> keys = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            SceneTokenizer tokens = new SceneTokenizer(channel);
+            while (tokens.nextLine()) {
+                String command = tokens.keyword(0);
+                switch (command) {
+                    case "frames":
+                        if (tokens.tokenCount() != 2) throw new ParsingException("Erreur 'frames': 1 argument attendu.");
+                        try {
+                            frameCount = tokens.getInt(1);
+                        } catch (NumberFormatException e) {
+                            throw new ParsingException("Erreur 'frames': nombre entier attendu.");
+                        }
+                        if (frameCount < 1) throw new ParsingException("Erreur 'frames': nombre strictement positif attendu.");
+                        break;
+                    case "interpolation":
+                        if (tokens.tokenCount() != 2) throw new ParsingException("Erreur 'interpolation': 1 argument attendu (linear ou smooth).");
+                        try {
+                            interpolation = CameraPath.Interpolation.fromKey(tokens.string(1));
+                        } catch (IllegalArgumentException e) {
+                            throw new ParsingException("Erreur 'interpolation': " + e.getMessage());
+                        }
+                        break;
+                    case "loop":
+                        if (tokens.tokenCount() != 1) throw new ParsingException("Erreur 'loop': aucun argument attendu.");
+                        loop = true;
+                        break;
+                    case "key":
+                        if (tokens.tokenCount() != 12) {
+                            throw new ParsingException("Erreur 'key': date, œil, point visé, haut et angle de vue attendus (11 nombres).");
+                        }
+                        try {
+                            if (keys.size() == times.length) times = Arrays.copyOf(times, 2 * times.length);
+                            times[keys.size()] = tokens.getDouble(1);
+                            keys.add(new Camera(
+                                    new Point(tokens.getDouble(2), tokens.getDouble(3), tokens.getDouble(4)),
+                                    new Point(tokens.getDouble(5), tokens.getDouble(6), tokens.getDouble(7)),
+                                    new Vector(tokens.getDouble(8), tokens.getDouble(9), tokens.getDouble(10)),
+                                    tokens.getDouble(11)));
+                        } catch (NumberFormatException e) {
+                            throw new ParsingException("Erreur 'key': nombre invalide.");
+                        }
+                        break;
+                    default:
+                        throw new ParsingException("Erreur: commande de trajectoire inconnue '" + command + "'.");
+                }
+            }
+        }
+
+        try {
+            return new CameraPath(Arrays.copyOf(times, keys.size()), keys, interpolation, loop);
+        } catch (IllegalArgumentException e) {
+            throw new ParsingException("Erreur 'key': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Nombre d'images demandé par le dernier fichier lu.
+     * @return Le nombre d'images, ou 0 si le fichier ne le précise pas
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+}
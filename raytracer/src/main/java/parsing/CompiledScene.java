@@ -0,0 +1,366 @@
+package parsing;
+
+import acceleration.Accelerator;
+import acceleration.Bvh;
+import geometry.MeshDefinition;
+import geometry.MeshInstance;
+import geometry.Plane;
+import geometry.Shape;
+import geometry.Sphere;
+import geometry.Triangle;
+import geometry.TriangleMesh;
+import imaging.Color;
+import math.AbstractVec3;
+import math.Point;
+import math.Transform;
+import math.Vector;
+import raytracer.AbstractLight;
+import raytracer.DirectionalLight;
+import raytracer.PointLight;
+import scene.Scene;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scène compilée : copie binaire d'une scène déjà analysée, rangée à côté du fichier texte.
+ *
+ * Le fichier contient les lumières, les matériaux, les formes (tampons de sommets et
+ * d'indices des maillages compris), les maillages instanciés avec leur hiérarchie, écrits une
+ * seule fois quel que soit le nombre d'instances, et la hiérarchie de volumes englobants déjà construite
+ * (une grille régulière, rapide à construire, est refaite à chaque chargement).
+ * Il est relu par projection mémoire (FileChannel.map) : les tampons sont copiés en bloc,
+ * sans objet par sommet ni par triangle, et la hiérarchie n'est pas reconstruite.
+ *
+ * L'en-tête mémorise l'empreinte de la source (voir {@link SceneFileParser#getSourceDigest()}).
+ * Les lignes size, camera et output n'en font pas partie : elles sont relues dans le texte à
+ * chaque chargement, si bien qu'on peut changer de point de vue sans invalider la scène compilée.
+ */
+public final class CompiledScene {
+
+    /** Extension ajoutée au nom du fichier de scène. */
+    public static final String EXTENSION = ".compiled";
+
+    private static final int MAGIC = 0x52545343; // "RTSC"
+    private static final int VERSION = 4;
+
+    private static final byte DIRECTIONAL_LIGHT = 0;
+    private static final byte POINT_LIGHT = 1;
+
+    private static final byte SPHERE = 0;
+    private static final byte PLANE = 1;
+    private static final byte TRIANGLE = 2;
+    private static final byte TRIANGLE_MESH = 3;
+    private static final byte MESH_INSTANCE = 4;
+
+    private CompiledScene() {
+    }
+
+    /**
+     * Chemin de la scène compilée associée à un fichier de scène.
+     * @param sceneFile Fichier de scène texte
+     * @return Fichier voisin portant l'extension {@value #EXTENSION}
+     */
+    public static Path cacheFileFor(String sceneFile) {
+        return Paths.get(sceneFile + EXTENSION);
+    }
+
+    /**
+     * Charge une scène depuis sa version compilée, si celle-ci correspond encore au fichier texte.
+     * Seuls les réglages de prise de vue sont lus dans le texte.
+     *
+     * @param sceneFile Fichier de scène texte
+     * @param cacheFile Scène compilée
+     * @return La scène, ou null si la scène compilée est absente, périmée ou illisible
+     * @throws IOException Si le fichier texte est illisible
+     * @throws ParsingException Si les réglages de prise de vue sont invalides
+     */
+    public static Scene read(String sceneFile, Path cacheFile) throws IOException, ParsingException {
+        if (!Files.isRegularFile(cacheFile)) return null;
+
+        SceneFileParser parser = new SceneFileParser();
+        Scene scene = parser.parseView(sceneFile);
+
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) return null;
+            byte[] digest = new byte[SourceFingerprint.LENGTH];
+            in.get(digest);
+            if (!Arrays.equals(digest, parser.getSourceDigest())) return null;
+
+            readContent(in, scene);
+            return scene;
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            return null; // Scène compilée tronquée ou corrompue : on repassera par le texte
+        }
+    }
+
+    /**
+     * Écrit la version compilée d'une scène. Le fichier est d'abord écrit à côté,
+     * puis renommé, pour ne jamais laisser de scène compilée à moitié écrite.
+     *
+     * @param scene Scène analysée (avec sa hiérarchie construite)
+     * @param sourceDigest Empreinte de la source, fournie par le parser
+     * @param cacheFile Fichier à écrire
+     * @throws IOException Si l'écriture échoue
+     */
+    public static void write(Scene scene, byte[] sourceDigest, Path cacheFile) throws IOException {
+        if (sourceDigest == null || sourceDigest.length != SourceFingerprint.LENGTH) {
+            throw new IllegalArgumentException("Empreinte de la source invalide.");
+        }
+        Path temporary = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.write(sourceDigest);
+            writeContent(out, scene);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void writeContent(DataOutputStream out, Scene scene) throws IOException {
+        out.writeInt(scene.getMaxDepth());
+        writeColor(out, scene.getAmbient());
+
+        out.writeInt(scene.getLights().size());
+        for (AbstractLight light : scene.getLights()) {
+            if (light instanceof DirectionalLight) {
+                out.writeByte(DIRECTIONAL_LIGHT);
+                writeVec3(out, ((DirectionalLight) light).getDirection());
+            } else if (light instanceof PointLight) {
+                out.writeByte(POINT_LIGHT);
+                writeVec3(out, ((PointLight) light).getPosition());
+            } else {
+                throw new IllegalArgumentException("Lumière non prise en charge : " + light.getClass().getName());
+            }
+            writeColor(out, light.getColor());
+        }
+
+        // Tampons de sommets, écrits une seule fois même s'ils sont partagés par plusieurs maillages
+        Map<double[], Integer> buffers = new IdentityHashMap<>();
+        Map<MeshDefinition, Integer> definitions = new IdentityHashMap<>();
+        for (Shape shape : scene.getShapes()) {
+            if (shape instanceof TriangleMesh) {
+                buffers.putIfAbsent(((TriangleMesh) shape).getVertexBuffer(), buffers.size());
+            } else if (shape instanceof MeshInstance) {
+                MeshDefinition definition = ((MeshInstance) shape).getDefinition();
+                definitions.putIfAbsent(definition, definitions.size());
+                buffers.putIfAbsent(definition.getMesh().getVertexBuffer(), buffers.size());
+            }
+        }
+        double[][] ordered = new double[buffers.size()][];
+        buffers.forEach((buffer, id) -> ordered[id] = buffer);
+        out.writeInt(ordered.length);
+        for (double[] buffer : ordered) {
+            out.writeInt(buffer.length);
+            for (double value : buffer) out.writeDouble(value);
+        }
+
+        // Maillages instanciés, avec leur hiérarchie de niveau bas
+        MeshDefinition[] orderedDefinitions = new MeshDefinition[definitions.size()];
+        definitions.forEach((definition, id) -> orderedDefinitions[id] = definition);
+        out.writeInt(orderedDefinitions.length);
+        for (MeshDefinition definition : orderedDefinitions) {
+            byte[] name = definition.getName().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(name.length);
+            out.write(name);
+            writeShape(out, definition.getMesh(), buffers, definitions);
+            definition.getAccelerationStructure().writeTo(out);
+        }
+
+        out.writeInt(scene.getShapes().size());
+        for (Shape shape : scene.getShapes()) {
+            writeShape(out, shape, buffers, definitions);
+        }
+
+        // Une grille régulière n'est pas enregistrée : elle se reconstruit en temps linéaire
+        out.writeByte(scene.getAccelerator().ordinal());
+        Bvh bvh = scene.getAccelerationStructure();
+        out.writeBoolean(bvh != null);
+        if (bvh != null) bvh.writeTo(out);
+    }
+
+    private static void writeShape(DataOutputStream out, Shape shape, Map<double[], Integer> buffers,
+                                   Map<MeshDefinition, Integer> definitions) throws IOException {
+        if (shape instanceof Sphere) {
+            out.writeByte(SPHERE);
+        } else if (shape instanceof Plane) {
+            out.writeByte(PLANE);
+        } else if (shape instanceof Triangle) {
+            out.writeByte(TRIANGLE);
+        } else if (shape instanceof TriangleMesh) {
+            out.writeByte(TRIANGLE_MESH);
+        } else if (shape instanceof MeshInstance) {
+            out.writeByte(MESH_INSTANCE);
+        } else {
+            throw new IllegalArgumentException("Forme non prise en charge : " + shape.getClass().getName());
+        }
+        writeColor(out, shape.getDiffuse());
+        writeColor(out, shape.getSpecular());
+        out.writeDouble(shape.getShininess());
+
+        if (shape instanceof Sphere) {
+            Sphere sphere = (Sphere) shape;
+            writeVec3(out, sphere.getCenter());
+            out.writeDouble(sphere.getRadius());
+        } else if (shape instanceof Plane) {
+            Plane plane = (Plane) shape;
+            writeVec3(out, plane.getPoint());
+            writeVec3(out, plane.getNormal());
+        } else if (shape instanceof Triangle) {
+            Triangle triangle = (Triangle) shape;
+            writeVec3(out, triangle.getA());
+            writeVec3(out, triangle.getB());
+            writeVec3(out, triangle.getC());
+        } else if (shape instanceof MeshInstance) {
+            MeshInstance instance = (MeshInstance) shape;
+            out.writeInt(definitions.get(instance.getDefinition()));
+            for (double value : instance.getTransform().getMatrix()) out.writeDouble(value);
+        } else {
+            TriangleMesh mesh = (TriangleMesh) shape;
+            out.writeInt(buffers.get(mesh.getVertexBuffer()));
+            int[] indices = mesh.getIndexBuffer();
+            out.writeInt(indices.length);
+            for (int index : indices) out.writeInt(index);
+        }
+    }
+
+    private static void readContent(ByteBuffer in, Scene scene) {
+        scene.setMaxDepth(in.getInt());
+        scene.setAmbient(readColor(in));
+
+        int lightCount = readCount(in, 1 + 6 * Double.BYTES);
+        for (int k = 0; k < lightCount; k++) {
+            byte type = in.get();
+            double x = in.getDouble(), y = in.getDouble(), z = in.getDouble();
+            Color color = readColor(in);
+            switch (type) {
+                case DIRECTIONAL_LIGHT: scene.addLight(new DirectionalLight(new Vector(x, y, z), color)); break;
+                case POINT_LIGHT: scene.addLight(new PointLight(new Point(x, y, z), color)); break;
+                default: throw new IllegalArgumentException("Type de lumière inconnu : " + type);
+            }
+        }
+
+        double[][] buffers = new double[readCount(in, Integer.BYTES)][];
+        for (int id = 0; id < buffers.length; id++) {
+            buffers[id] = new double[readCount(in, Double.BYTES)];
+            in.asDoubleBuffer().get(buffers[id]); // Copie en bloc depuis la projection mémoire
+            in.position(in.position() + Double.BYTES * buffers[id].length);
+        }
+
+        MeshDefinition[] definitions = new MeshDefinition[readCount(in, Integer.BYTES)];
+        for (int id = 0; id < definitions.length; id++) {
+            byte[] name = new byte[readCount(in, 1)];
+            in.get(name);
+            Shape shape = readShape(in, buffers, definitions);
+            if (!(shape instanceof TriangleMesh)) throw new IllegalArgumentException("Maillage attendu pour une définition.");
+            TriangleMesh mesh = (TriangleMesh) shape;
+            definitions[id] = new MeshDefinition(new String(name, StandardCharsets.UTF_8), mesh,
+                    Bvh.readFrom(List.of(mesh), in));
+        }
+
+        int shapeCount = readCount(in, 1);
+        for (int k = 0; k < shapeCount; k++) {
+            scene.addShape(readShape(in, buffers, definitions));
+        }
+
+        scene.setAccelerator(Accelerator.values()[readIndex(in.get(), Accelerator.values().length)]);
+        if (in.get() != 0) {
+            scene.setAccelerationStructure(Bvh.readFrom(scene.getShapes(), in));
+        } else {
+            scene.buildAccelerationStructure();
+        }
+    }
+
+    private static Shape readShape(ByteBuffer in, double[][] buffers, MeshDefinition[] definitions) {
+        byte type = in.get();
+        Color diffuse = readColor(in);
+        Color specular = readColor(in);
+        double shininess = in.getDouble();
+
+        switch (type) {
+            case SPHERE:
+                return new Sphere(readPoint(in), in.getDouble(), diffuse, specular, shininess);
+            case PLANE:
+                return Plane.withUnitNormal(readPoint(in), readVector(in), diffuse, specular, shininess);
+            case TRIANGLE:
+                return new Triangle(readPoint(in), readPoint(in), readPoint(in), diffuse, specular, shininess);
+            case TRIANGLE_MESH:
+                double[] vertices = buffers[readIndex(in.getInt(), buffers.length)];
+                int[] indices = new int[readCount(in, Integer.BYTES)];
+                in.asIntBuffer().get(indices);
+                in.position(in.position() + Integer.BYTES * indices.length);
+                return new TriangleMesh(vertices, indices, diffuse, specular, shininess);
+            case MESH_INSTANCE:
+                MeshDefinition definition = definitions[readIndex(in.getInt(), definitions.length)];
+                if (definition == null) throw new IllegalArgumentException("Définition de maillage pas encore lue.");
+                double[] matrix = new double[12];
+                in.asDoubleBuffer().get(matrix);
+                in.position(in.position() + Double.BYTES * matrix.length);
+                return new MeshInstance(definition, Transform.fromMatrix(matrix), diffuse, specular, shininess);
+            default:
+                throw new IllegalArgumentException("Type de forme inconnu : " + type);
+        }
+    }
+
+    /**
+     * Lit un nombre d'éléments et vérifie qu'il en reste assez à lire (au moins elementBytes
+     * octets chacun), avant toute allocation : un fichier corrompu ne doit pas réclamer des
+     * tableaux gigantesques ou de taille négative.
+     */
+    private static int readCount(ByteBuffer in, int elementBytes) {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining() / elementBytes) {
+            throw new IllegalArgumentException("Nombre d'éléments invalide : " + count);
+        }
+        return count;
+    }
+
+    /** Vérifie un indice lu dans le fichier. */
+    private static int readIndex(int index, int length) {
+        if (index < 0 || index >= length) throw new IllegalArgumentException("Indice invalide : " + index);
+        return index;
+    }
+
+    private static void writeVec3(DataOutputStream out, AbstractVec3 v) throws IOException {
+        out.writeDouble(v.getX());
+        out.writeDouble(v.getY());
+        out.writeDouble(v.getZ());
+    }
+
+    private static void writeColor(DataOutputStream out, Color color) throws IOException {
+        out.writeDouble(color.r());
+        out.writeDouble(color.g());
+        out.writeDouble(color.b());
+    }
+
+    private static Point readPoint(ByteBuffer in) {
+        return new Point(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    private static Vector readVector(ByteBuffer in) {
+        return new Vector(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    private static Color readColor(ByteBuffer in) {
+        return new Color(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+}
@@ -0,0 +1,181 @@
+package parsing;
+
+import acceleration.BuildMethod;
+import acceleration.Bvh;
+import acceleration.UniformGrid;
+import geometry.MeshDefinition;
+import geometry.MeshInstance;
+import geometry.Shape;
+import geometry.TriangleMesh;
+import scene.Scene;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/**
+ * Cache en mémoire des scènes analysées, pour un processus qui rend souvent la même géométrie
+ * (démon ou service de rendu) avec seulement une autre prise de vue.
+ *
+ * La clé est un SHA-256 de la source calculé par le parser ({@link SceneFileParser#getSourceSha256()}),
+ * qui couvre formes, sommets, matériaux et lumières mais pas les lignes size, camera et output,
+ * plus la méthode de construction de la hiérarchie. Les scènes viennent de clients différents :
+ * une empreinte CRC, linéaire, permettrait à l'un de fabriquer une scène qui prenne la place de
+ * celle d'un autre. Une scène trouvée dans le cache ne coûte que
+ * la lecture de ces trois lignes : ni analyse, ni construction de structure d'accélération.
+ *
+ * Les scènes gardées ne dépassent pas un budget de mémoire, estimé à partir de leurs tableaux
+ * (tampons des maillages, hiérarchies) ; au-delà, la moins récemment utilisée est abandonnée.
+ * Toutes les méthodes sont utilisables depuis plusieurs threads.
+ */
+public final class SceneCache {
+
+    /** Estimation de la taille d'une forme simple (sphère, plan, triangle) ou d'une lumière, objets référencés compris. */
+    static final long OBJECT_BYTES = 256;
+    /** Octets par triangle des tableaux précalculés d'un maillage (sommet A et deux arêtes). */
+    static final long TRIANGLE_DATA_BYTES = 9 * Double.BYTES;
+
+    /** Chargement d'une scène absente du cache (analyse du texte ou scène compilée). */
+    public interface Loader {
+        Scene load() throws IOException, ParsingException;
+    }
+
+    private static final class Entry {
+        final Scene scene;
+        final long bytes;
+
+        Entry(Scene scene, long bytes) {
+            this.scene = scene;
+            this.bytes = bytes;
+        }
+    }
+
+    private final long budget;
+    // Ordre d'accès : la première entrée est la moins récemment utilisée
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Crée un cache vide.
+     * @param budget Mémoire maximale occupée par les scènes gardées, en octets
+     */
+    public SceneCache(long budget) {
+        if (budget < 0) throw new IllegalArgumentException("Budget mémoire invalide : " + budget);
+        this.budget = budget;
+    }
+
+    /**
+     * Budget par défaut : un quart du tas maximal de la JVM, sans dépasser 512 Mo.
+     */
+    public static long defaultBudget() {
+        return Math.min(512L << 20, Runtime.getRuntime().maxMemory() / 4);
+    }
+
+    /**
+     * Charge une scène : depuis le cache si sa géométrie y est déjà, sinon avec loader, et la
+     * garde pour les prochains chargements. Seules les lignes de prise de vue sont lues dans
+     * le fichier quand la scène est trouvée.
+     *
+     * La scène rendue par loader est gardée telle quelle (préparations éventuelles comprises,
+     * comme une hiérarchie à 4 enfants) et partagée : elle ne doit plus être modifiée. Deux
+     * chargements simultanés d'une même scène absente l'analysent chacun.
+     *
+     * @param sceneFile Fichier de scène texte
+     * @param buildMethod Méthode de construction de la hiérarchie utilisée par loader
+     * @param loader Chargement complet, appelé seulement si la scène est absente
+     * @return La scène, avec la prise de vue du fichier
+     * @throws IOException Si le fichier est illisible
+     * @throws ParsingException Si le fichier est invalide
+     */
+    public Scene load(String sceneFile, BuildMethod buildMethod, Loader loader) throws IOException, ParsingException {
+        SceneFileParser parser = new SceneFileParser();
+        Scene view = parser.parseView(sceneFile, true);
+        String key = toHex(parser.getSourceSha256()) + '/' + buildMethod.name();
+
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null) hits++; else misses++;
+        }
+        if (entry != null) return entry.scene.withView(view);
+
+        Scene scene = loader.load();
+        put(key, scene, estimateBytes(scene));
+        return scene;
+    }
+
+    private synchronized void put(String key, Scene scene, long bytes) {
+        if (bytes > budget) return; // Ne tiendrait pas même seule : on ne vide pas le cache pour elle
+        Entry previous = entries.put(key, new Entry(scene, bytes));
+        if (previous != null) usedBytes -= previous.bytes;
+        usedBytes += bytes;
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (usedBytes > budget) {
+            usedBytes -= eldest.next().bytes;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /** Nombre de scènes gardées. */
+    public synchronized int size() { return entries.size(); }
+
+    /** Mémoire estimée des scènes gardées, en octets. */
+    public synchronized long getUsedBytes() { return usedBytes; }
+
+    /** Budget de mémoire, en octets. */
+    public long getBudget() { return budget; }
+
+    /** Chargements servis par le cache. */
+    public synchronized long getHits() { return hits; }
+
+    /** Chargements qui ont dû analyser la scène. */
+    public synchronized long getMisses() { return misses; }
+
+    /** Scènes abandonnées pour rester dans le budget. */
+    public synchronized long getEvictions() { return evictions; }
+
+    /**
+     * Estime la mémoire occupée par le contenu d'une scène : tableaux des maillages (un tampon de
+     * sommets partagé n'est compté qu'une fois), maillages instanciés avec leur hiérarchie,
+     * structure d'accélération, et une taille forfaitaire par forme simple et par lumière.
+     */
+    static long estimateBytes(Scene scene) {
+        Set<Object> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+        long bytes = OBJECT_BYTES * scene.getLights().size();
+        for (Shape shape : scene.getShapes()) bytes += estimateBytes(shape, counted);
+        Bvh bvh = scene.getAccelerationStructure();
+        if (bvh != null) bytes += bvh.getMemoryFootprint();
+        UniformGrid grid = scene.getGrid();
+        if (grid != null) bytes += grid.getMemoryFootprint();
+        return bytes;
+    }
+
+    private static long estimateBytes(Shape shape, Set<Object> counted) {
+        if (shape instanceof TriangleMesh) {
+            TriangleMesh mesh = (TriangleMesh) shape;
+            long bytes = OBJECT_BYTES + 4L * mesh.getIndexBuffer().length + TRIANGLE_DATA_BYTES * mesh.getTriangleCount();
+            if (counted.add(mesh.getVertexBuffer())) bytes += 8L * mesh.getVertexBuffer().length;
+            return bytes;
+        }
+        if (shape instanceof MeshInstance) {
+            MeshDefinition definition = ((MeshInstance) shape).getDefinition();
+            if (!counted.add(definition)) return OBJECT_BYTES;
+            return OBJECT_BYTES + estimateBytes(definition.getMesh(), counted)
+                    + definition.getAccelerationStructure().getMemoryFootprint();
+        }
+        return OBJECT_BYTES;
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(2 * bytes.length);
+        for (byte b : bytes) sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        return sb.toString();
+    }
+}
@@ -1,18 +1,22 @@
 package parsing;
 
+import acceleration.Accelerator;
+import acceleration.BuildMethod;
 import geometry.*;
 import raytracer.*;
 import imaging.Color;
 import math.Point;
+import math.Transform;
 import math.Vector;
 import scene.Scene;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.channels.FileChannel;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 public class SceneFileParser {
     /**
@@ -27,23 +31,47 @@ public class SceneFileParser {
     private double currentShininess = 0.0; // Par défaut
 
     private int maxVerts = 0;
-    private List<Point> vertices = new ArrayList<>();
+    private double[] vertexBuffer = new double[0]; // x, y, z consécutifs, partagé par les maillages
+    private int vertexCount = 0;
     private Color totalLightColor = new Color(0, 0, 0);
 
+    // Triangles consécutifs en attente, regroupés dans un même TriangleMesh
+    private int[] pendingIndices = new int[48];
+    private int pendingTriangles = 0;
+
+    // Maillages nommés, instanciables ; nom de celui en cours de définition (null sinon)
+    private final Map<String, MeshDefinition> meshDefinitions = new HashMap<>();
+    private String definedMesh;
+
     private boolean sizeSet = false;
     private boolean cameraSet = false;
 
+    // Empreinte du fichier (voir SourceFingerprint), lignes size, camera et output exclues
+    private byte[] sourceDigest;
+    private byte[] sourceSha256; // Calculé seulement sur demande, par parseView
+
+    private BuildMethod buildMethod = BuildMethod.SAH;
+
     public Scene parse(String filePath) throws IOException, ParsingException {
         Scene scene = new Scene();
+        meshDefinitions.clear(); // Les noms de maillages sont propres à chaque fichier
+        definedMesh = null;
+
+        // Lecture octet par octet : ni expression régulière ni String par ligne
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            SceneTokenizer tokens = new SceneTokenizer(channel, new SourceFingerprint());
+            while (tokens.nextLine()) {
+                String command = tokens.keyword(0);
+                if (isViewCommand(command)) tokens.excludeLineFromDigest();
+
+                if (definedMesh != null) {
+                    parseMeshDefinitionLine(tokens, command);
+                    continue;
+                }
 
-        try (BufferedReader reader = Files.newBufferedReader(Paths.get(filePath))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty() || line.startsWith("#")) continue;
-
-                String[] tokens = line.split("\\s+");
-                String command = tokens[0];
+                // Toute autre commande que 'tri' ou 'vertex' clôt le maillage en cours :
+                // les formes restent ainsi dans l'ordre du fichier et le matériau ne change pas dans un maillage
+                if (!command.equals("tri") && !command.equals("vertex")) flushMesh(scene);
 
                 switch (command) {
                     case "size": parseSize(tokens, scene); break;
@@ -57,46 +85,144 @@ public class SceneFileParser {
                     case "shininess": parseShininess(tokens); break;
                     // NOUVEAU JALON 6 : maxdepth
                     case "maxdepth": parseMaxDepth(tokens, scene); break;
+                    case "accelerator": parseAccelerator(tokens, scene); break;
 
                     case "directional": parseDirectional(tokens, scene); break;
                     case "point": parsePoint(tokens, scene); break;
                     case "maxverts": parseMaxVerts(tokens); break;
                     case "vertex": parseVertex(tokens); break;
                     case "sphere": parseSphere(tokens, scene); break;
-                    case "tri": parseTri(tokens, scene); break;
+                    case "tri": parseTri(tokens); break;
                     case "plane": parsePlane(tokens, scene); break;
+                    case "beginmesh": parseBeginMesh(tokens); break;
+                    case "endmesh": throw new ParsingException("Erreur 'endmesh': aucun maillage en cours de définition.");
+                    case "instance": parseInstance(tokens, scene); break;
                     default: break;
                 }
             }
+            sourceDigest = tokens.finishDigest();
+        }
+        if (definedMesh != null) {
+            throw new ParsingException("Erreur 'beginmesh': 'endmesh' manquant pour le maillage '" + definedMesh + "'.");
         }
+        flushMesh(scene);
+        checkViewSettings();
+
+        // La géométrie est complète : on construit la hiérarchie une seule fois
+        scene.buildAccelerationStructure(buildMethod);
+        return scene;
+    }
+
+    /**
+     * Lit uniquement les réglages de prise de vue (size, camera, output).
+     * Les autres lignes ne sont pas analysées : elles servent seulement au calcul
+     * de l'empreinte de la source (voir {@link #getSourceDigest()}).
+     *
+     * @param filePath Chemin du fichier à lire
+     * @return Scène ne contenant que la taille d'image, la caméra et le fichier de sortie
+     * @throws IOException Si fichier illisible
+     * @throws ParsingException Si une ligne de prise de vue est invalide ou manquante
+     */
+    Scene parseView(String filePath) throws IOException, ParsingException {
+        return parseView(filePath, false);
+    }
+
+    /**
+     * Comme {@link #parseView(String)}, en calculant aussi, si demandé, un SHA-256 des mêmes
+     * octets (voir {@link #getSourceSha256()}).
+     */
+    Scene parseView(String filePath, boolean withSha256) throws IOException, ParsingException {
+        Scene scene = new Scene();
+        SourceFingerprint fingerprint = new SourceFingerprint(withSha256);
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            SceneTokenizer tokens = new SceneTokenizer(channel, fingerprint);
+            while (tokens.nextLine()) {
+                String command = tokens.keyword(0);
+                if (!isViewCommand(command)) continue;
+                tokens.excludeLineFromDigest();
+                switch (command) {
+                    case "size": parseSize(tokens, scene); break;
+                    case "output": parseOutput(tokens, scene); break;
+                    case "camera": parseCamera(tokens, scene); break;
+                    default: break;
+                }
+            }
+            sourceDigest = tokens.finishDigest();
+            sourceSha256 = fingerprint.toSha256();
+        }
+        checkViewSettings();
+        return scene;
+    }
+
+    /**
+     * Choisit la méthode de construction de la hiérarchie en fin d'analyse (SAH par défaut).
+     * @param buildMethod Méthode de construction
+     */
+    public void setBuildMethod(BuildMethod buildMethod) {
+        this.buildMethod = buildMethod;
+    }
+
+    /**
+     * Empreinte ({@link SourceFingerprint}) du dernier fichier lu, calculée sur tout son contenu sauf les lignes
+     * size, camera et output : changer de point de vue ne change pas l'empreinte.
+     * @return L'empreinte, ou null si aucun fichier n'a été lu
+     */
+    public byte[] getSourceDigest() {
+        return sourceDigest == null ? null : sourceDigest.clone();
+    }
+
+    /**
+     * SHA-256 des mêmes octets que {@link #getSourceDigest()}, pour les sources dont on ne
+     * maîtrise pas le contenu.
+     * @return Le SHA-256, ou null si le dernier fichier a été lu sans le demander
+     */
+    byte[] getSourceSha256() {
+        return sourceSha256 == null ? null : sourceSha256.clone();
+    }
+
+    /** Réglages qui ne modifient que la prise de vue, pas le contenu de la scène. */
+    private static boolean isViewCommand(String command) {
+        return command.equals("size") || command.equals("camera") || command.equals("output");
+    }
+
+    private void checkViewSettings() throws ParsingException {
         if (!sizeSet) throw new ParsingException("Erreur: 'size' non défini.");
         if (!cameraSet) throw new ParsingException("Erreur: 'camera' non défini.");
-        return scene;
     }
 
-    private void parseShininess(String[] tokens) throws ParsingException {
-        if (tokens.length != 2) throw new ParsingException("Erreur 'shininess': 1 argument attendu.");
+    private void parseShininess(SceneTokenizer tokens) throws ParsingException {
+        if (tokens.tokenCount() != 2) throw new ParsingException("Erreur 'shininess': 1 argument attendu.");
         try {
-            this.currentShininess = Double.parseDouble(tokens[1]);
+            this.currentShininess = tokens.getDouble(1);
         } catch (NumberFormatException e) {
             throw new ParsingException("Erreur 'shininess': nombre invalide.");
         }
     }
 
-    private void parseMaxDepth(String[] tokens, Scene scene) throws ParsingException {
-        if (tokens.length != 2) throw new ParsingException("Erreur 'maxdepth': 1 argument attendu.");
+    private void parseMaxDepth(SceneTokenizer tokens, Scene scene) throws ParsingException {
+        if (tokens.tokenCount() != 2) throw new ParsingException("Erreur 'maxdepth': 1 argument attendu.");
         try {
-            int depth = Integer.parseInt(tokens[1]);
+            int depth = tokens.getInt(1);
             scene.setMaxDepth(depth);
         } catch (NumberFormatException e) {
             throw new ParsingException("Erreur 'maxdepth': nombre entier attendu.");
         }
     }
 
-    private void parseSphere(String[] tokens, Scene scene) throws ParsingException {
-        if (tokens.length != 5) throw new ParsingException("Erreur 'sphere'");
+    private void parseAccelerator(SceneTokenizer tokens, Scene scene) throws ParsingException {
+        if (tokens.tokenCount() != 2) throw new ParsingException("Erreur 'accelerator': 1 argument attendu (bvh ou grid).");
+        try {
+            scene.setAccelerator(Accelerator.fromKey(tokens.keyword(1)));
+        } catch (IllegalArgumentException e) {
+            throw new ParsingException("Erreur 'accelerator': " + e.getMessage());
+        }
+    }
+
+    private void parseSphere(SceneTokenizer tokens, Scene scene) throws ParsingException {
+        if (tokens.tokenCount() != 5) throw new ParsingException("Erreur 'sphere'");
         Point center = parsePoint(tokens, 1);
-        double radius = Double.parseDouble(tokens[4]);
+        double radius = tokens.getDouble(4);
 
         // Ajout de currentShininess au constructeur
         scene.addShape(new Sphere(center, radius, currentDiffuse, currentSpecular, currentShininess));
@@ -105,101 +231,189 @@ public class SceneFileParser {
     // ... Les autres méthodes de parsing (parseSize, parseCamera, etc.) restent identiques ...
     // Je réinclus les méthodes essentielles pour que le fichier soit complet et compilable.
 
-    private void parseSize(String[] tokens, Scene scene) throws ParsingException {
-        if (tokens.length != 3) throw new ParsingException("Erreur 'size'");
-        scene.setWidth(Integer.parseInt(tokens[1]));
-        scene.setHeight(Integer.parseInt(tokens[2]));
+    private void parseSize(SceneTokenizer tokens, Scene scene) throws ParsingException {
+        if (tokens.tokenCount() != 3) throw new ParsingException("Erreur 'size'");
+        scene.setWidth(tokens.getInt(1));
+        scene.setHeight(tokens.getInt(2));
         sizeSet = true;
     }
 
-    private void parseOutput(String[] tokens, Scene scene) throws ParsingException {
-        if (tokens.length != 2) throw new ParsingException("Erreur 'output'");
-        scene.setOutput(tokens[1]);
+    private void parseOutput(SceneTokenizer tokens, Scene scene) throws ParsingException {
+        if (tokens.tokenCount() != 2) throw new ParsingException("Erreur 'output'");
+        scene.setOutput(tokens.string(1));
     }
 
-    private void parseCamera(String[] tokens, Scene scene) throws ParsingException {
-        if (tokens.length != 11) throw new ParsingException("Erreur 'camera'");
-        scene.setCamera(new Camera(parsePoint(tokens, 1), parsePoint(tokens, 4), parseVector(tokens, 7), Double.parseDouble(tokens[10])));
+    private void parseCamera(SceneTokenizer tokens, Scene scene) throws ParsingException {
+        if (tokens.tokenCount() != 11) throw new ParsingException("Erreur 'camera'");
+        scene.setCamera(new Camera(parsePoint(tokens, 1), parsePoint(tokens, 4), parseVector(tokens, 7), tokens.getDouble(10)));
         cameraSet = true;
     }
 
-    private void parseAmbient(String[] tokens, Scene scene) throws ParsingException {
-        if (tokens.length != 4) throw new ParsingException("Erreur 'ambient'");
+    private void parseAmbient(SceneTokenizer tokens, Scene scene) throws ParsingException {
+        if (tokens.tokenCount() != 4) throw new ParsingException("Erreur 'ambient'");
         scene.setAmbient(parseColor(tokens, 1));
         checkDiffuseSum(scene.getAmbient(), currentDiffuse);
     }
 
-    private void parseDiffuse(String[] tokens, Scene scene) throws ParsingException {
-        if (tokens.length != 4) throw new ParsingException("Erreur 'diffuse'");
+    private void parseDiffuse(SceneTokenizer tokens, Scene scene) throws ParsingException {
+        if (tokens.tokenCount() != 4) throw new ParsingException("Erreur 'diffuse'");
         currentDiffuse = parseColor(tokens, 1);
         checkDiffuseSum(scene.getAmbient(), currentDiffuse);
     }
 
-    private void parseSpecular(String[] tokens) throws ParsingException {
-        if (tokens.length != 4) throw new ParsingException("Erreur 'specular'");
+    private void parseSpecular(SceneTokenizer tokens) throws ParsingException {
+        if (tokens.tokenCount() != 4) throw new ParsingException("Erreur 'specular'");
         currentSpecular = parseColor(tokens, 1);
     }
 
-    private void parseDirectional(String[] tokens, Scene scene) throws ParsingException {
-        if (tokens.length != 7) throw new ParsingException("Erreur 'directional'");
+    private void parseDirectional(SceneTokenizer tokens, Scene scene) throws ParsingException {
+        if (tokens.tokenCount() != 7) throw new ParsingException("Erreur 'directional'");
         Vector dir = parseVector(tokens, 1);
         Color col = parseColor(tokens, 4);
         validateLightIntensity(col);
         scene.addLight(new DirectionalLight(dir, col));
     }
 
-    private void parsePoint(String[] tokens, Scene scene) throws ParsingException {
-        if (tokens.length != 7) throw new ParsingException("Erreur 'point'");
+    private void parsePoint(SceneTokenizer tokens, Scene scene) throws ParsingException {
+        if (tokens.tokenCount() != 7) throw new ParsingException("Erreur 'point'");
         Point pos = parsePoint(tokens, 1);
         Color col = parseColor(tokens, 4);
         validateLightIntensity(col);
         scene.addLight(new PointLight(pos, col));
     }
 
-    private void parseMaxVerts(String[] tokens) throws ParsingException {
-        if (tokens.length != 2) throw new ParsingException("Erreur 'maxverts'");
-        maxVerts = Integer.parseInt(tokens[1]);
-        vertices = new ArrayList<>(maxVerts);
+    private void parseMaxVerts(SceneTokenizer tokens) throws ParsingException {
+        if (tokens.tokenCount() != 2) throw new ParsingException("Erreur 'maxverts'");
+        maxVerts = tokens.getInt(1);
+        vertexBuffer = new double[3 * maxVerts];
+        vertexCount = 0;
     }
 
-    private void parseVertex(String[] tokens) throws ParsingException {
-        if (tokens.length != 4) throw new ParsingException("Erreur 'vertex'");
-        if (vertices.size() >= maxVerts) throw new ParsingException("Erreur: trop de vertex.");
-        vertices.add(parsePoint(tokens, 1));
+    private void parseVertex(SceneTokenizer tokens) throws ParsingException {
+        if (tokens.tokenCount() != 4) throw new ParsingException("Erreur 'vertex'");
+        if (vertexCount >= maxVerts) throw new ParsingException("Erreur: trop de vertex.");
+        vertexBuffer[3 * vertexCount]     = tokens.getDouble(1);
+        vertexBuffer[3 * vertexCount + 1] = tokens.getDouble(2);
+        vertexBuffer[3 * vertexCount + 2] = tokens.getDouble(3);
+        vertexCount++;
     }
 
-    private void parseTri(String[] tokens, Scene scene) throws ParsingException {
-        if (tokens.length != 4) throw new ParsingException("Erreur 'tri'");
-        int iA = Integer.parseInt(tokens[1]);
-        int iB = Integer.parseInt(tokens[2]);
-        int iC = Integer.parseInt(tokens[3]);
+    private void parseTri(SceneTokenizer tokens) throws ParsingException {
+        if (tokens.tokenCount() != 4) throw new ParsingException("Erreur 'tri'");
+        int iA = tokens.getInt(1);
+        int iB = tokens.getInt(2);
+        int iC = tokens.getInt(3);
 
-        if (iA >= maxVerts || iB >= maxVerts || iC >= maxVerts || iA < 0 || iB < 0 || iC < 0)
+        if (iA >= maxVerts || iB >= maxVerts || iC >= maxVerts || iA < 0 || iB < 0 || iC < 0
+                || iA >= vertexCount || iB >= vertexCount || iC >= vertexCount)
             throw new ParsingException("Erreur 'tri': indices invalides.");
 
-        Point a = vertices.get(iA);
-        Point b = vertices.get(iB);
-        Point c = vertices.get(iC);
+        if (3 * pendingTriangles + 3 > pendingIndices.length) {
+            pendingIndices = Arrays.copyOf(pendingIndices, 2 * pendingIndices.length);
+        }
+        pendingIndices[3 * pendingTriangles]     = iA;
+        pendingIndices[3 * pendingTriangles + 1] = iB;
+        pendingIndices[3 * pendingTriangles + 2] = iC;
+        pendingTriangles++;
+    }
+
+    /**
+     * Ajoute à la scène les triangles en attente, sous forme d'un maillage indexé
+     * qui partage le tampon de sommets courant.
+     */
+    private void flushMesh(Scene scene) {
+        if (pendingTriangles == 0) return;
+        int[] indices = Arrays.copyOf(pendingIndices, 3 * pendingTriangles);
+        scene.addShape(new TriangleMesh(vertexBuffer, indices, currentDiffuse, currentSpecular, currentShininess));
+        pendingTriangles = 0;
+    }
+
+    private void parseBeginMesh(SceneTokenizer tokens) throws ParsingException {
+        if (tokens.tokenCount() != 2) throw new ParsingException("Erreur 'beginmesh': 1 argument attendu (nom du maillage).");
+        String name = tokens.string(1);
+        if (meshDefinitions.containsKey(name)) {
+            throw new ParsingException("Erreur 'beginmesh': maillage '" + name + "' déjà défini.");
+        }
+        definedMesh = name;
+    }
+
+    /**
+     * Ligne lue entre 'beginmesh' et 'endmesh' : seuls les sommets et les triangles y sont admis.
+     * Les triangles vont au maillage nommé, pas à la scène.
+     */
+    private void parseMeshDefinitionLine(SceneTokenizer tokens, String command) throws ParsingException {
+        switch (command) {
+            case "vertex": parseVertex(tokens); break;
+            case "tri": parseTri(tokens); break;
+            case "endmesh": parseEndMesh(tokens); break;
+            default:
+                throw new ParsingException("Erreur 'beginmesh': '" + command
+                        + "' interdit dans la définition du maillage '" + definedMesh + "'.");
+        }
+    }
 
-        scene.addShape(new Triangle(a, b, c, currentDiffuse, currentSpecular, currentShininess));
+    /**
+     * Termine la définition en cours : ses triangles forment un maillage partagé, dont la
+     * hiérarchie est construite une fois pour toutes ses instances.
+     */
+    private void parseEndMesh(SceneTokenizer tokens) throws ParsingException {
+        if (tokens.tokenCount() != 1) throw new ParsingException("Erreur 'endmesh': aucun argument attendu.");
+        if (pendingTriangles == 0) {
+            throw new ParsingException("Erreur 'endmesh': le maillage '" + definedMesh + "' ne contient aucun triangle.");
+        }
+        int[] indices = Arrays.copyOf(pendingIndices, 3 * pendingTriangles);
+        TriangleMesh mesh = new TriangleMesh(vertexBuffer, indices, currentDiffuse, currentSpecular, currentShininess);
+        meshDefinitions.put(definedMesh, new MeshDefinition(definedMesh, mesh));
+        pendingTriangles = 0;
+        definedMesh = null;
+    }
+
+    /**
+     * instance nom tx ty tz [ax ay az angle [sx sy sz]] : copie d'un maillage défini, mise à
+     * l'échelle, tournée de angle degrés autour de l'axe (ax, ay, az) puis translatée, avec le
+     * matériau courant.
+     */
+    private void parseInstance(SceneTokenizer tokens, Scene scene) throws ParsingException {
+        int count = tokens.tokenCount();
+        if (count != 5 && count != 9 && count != 12) {
+            throw new ParsingException("Erreur 'instance': nom, translation, puis rotation (axe et angle) et échelle facultatives attendus.");
+        }
+        String name = tokens.string(1);
+        MeshDefinition definition = meshDefinitions.get(name);
+        if (definition == null) throw new ParsingException("Erreur 'instance': maillage '" + name + "' inconnu.");
+
+        try {
+            Transform transform = Transform.IDENTITY;
+            if (count == 12) {
+                transform = Transform.scaling(tokens.getDouble(9), tokens.getDouble(10), tokens.getDouble(11));
+            }
+            if (count >= 9) {
+                transform = transform.then(Transform.rotation(
+                        tokens.getDouble(5), tokens.getDouble(6), tokens.getDouble(7), tokens.getDouble(8)));
+            }
+            transform = transform.then(Transform.translation(tokens.getDouble(2), tokens.getDouble(3), tokens.getDouble(4)));
+            scene.addShape(new MeshInstance(definition, transform, currentDiffuse, currentSpecular, currentShininess));
+        } catch (IllegalArgumentException e) {
+            throw new ParsingException("Erreur 'instance': " + e.getMessage());
+        }
     }
 
-    private void parsePlane(String[] tokens, Scene scene) throws ParsingException {
-        if (tokens.length != 7) throw new ParsingException("Erreur 'plane'");
+    private void parsePlane(SceneTokenizer tokens, Scene scene) throws ParsingException {
+        if (tokens.tokenCount() != 7) throw new ParsingException("Erreur 'plane'");
         Point p = parsePoint(tokens, 1);
         Vector n = parseVector(tokens, 4);
         scene.addShape(new Plane(p, n, currentDiffuse, currentSpecular, currentShininess));
     }
 
     // Helpers
-    private Point parsePoint(String[] tokens, int idx) {
-        return new Point(Double.parseDouble(tokens[idx]), Double.parseDouble(tokens[idx+1]), Double.parseDouble(tokens[idx+2]));
+    private Point parsePoint(SceneTokenizer tokens, int idx) {
+        return new Point(tokens.getDouble(idx), tokens.getDouble(idx+1), tokens.getDouble(idx+2));
     }
-    private Vector parseVector(String[] tokens, int idx) {
-        return new Vector(Double.parseDouble(tokens[idx]), Double.parseDouble(tokens[idx+1]), Double.parseDouble(tokens[idx+2]));
+    private Vector parseVector(SceneTokenizer tokens, int idx) {
+        return new Vector(tokens.getDouble(idx), tokens.getDouble(idx+1), tokens.getDouble(idx+2));
     }
-    private Color parseColor(String[] tokens, int idx) {
-        return new Color(Double.parseDouble(tokens[idx]), Double.parseDouble(tokens[idx+1]), Double.parseDouble(tokens[idx+2]));
+    private Color parseColor(SceneTokenizer tokens, int idx) {
+        return new Color(tokens.getDouble(idx), tokens.getDouble(idx+1), tokens.getDouble(idx+2));
     }
     private void checkDiffuseSum(Color ambient, Color diffuse) throws ParsingException {
         if (ambient.r() + diffuse.r() > 1.0 || ambient.g() + diffuse.g() > 1.0 || ambient.b() + diffuse.b() > 1.0)
@@ -0,0 +1,365 @@
+package parsing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Découpeur de fichier de scène travaillant directement sur les octets.
+ *
+ * Le fichier est lu par blocs depuis un canal ; chaque ligne est découpée en jetons
+ * repérés par leurs bornes dans le tampon, sans expression régulière ni String
+ * intermédiaire. Les nombres sont convertis directement en double ou en int.
+ *
+ * Le découpage reproduit celui de l'ancien parseur ({@code line.trim().split("\\s+")}) :
+ * lignes terminées par \n, \r ou \r\n, blancs de début et de fin ignorés, lignes vides
+ * et lignes commençant par # sautées.
+ * La conversion des nombres donne exactement le même résultat que Double.parseDouble
+ * et Integer.parseInt, y compris l'exception levée pour un nombre mal formé.
+ */
+final class SceneTokenizer {
+
+    static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    // Commandes connues : renvoyées sans allocation par keyword()
+    private static final String[] KEYWORDS = {
+            "vertex", "tri", "size", "output", "camera", "ambient", "diffuse", "specular",
+            "shininess", "maxdepth", "directional", "point", "maxverts", "sphere", "plane", "accelerator",
+            "beginmesh", "endmesh", "instance"
+    };
+    private static final byte[][] KEYWORD_BYTES = new byte[KEYWORDS.length][];
+    static {
+        for (int k = 0; k < KEYWORDS.length; k++) {
+            KEYWORD_BYTES[k] = KEYWORDS[k].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    // Puissances de 10 représentables exactement en double
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int MAX_EXACT_DIGITS = 15; // < 2^53 : mantisse exacte
+
+    private final ReadableByteChannel channel;
+    private byte[] buffer;
+    private int position; // Début de la partie non encore lue du tampon
+    private int limit;    // Fin des octets valides du tampon
+    private boolean endOfInput;
+    private boolean skipLineFeed; // La ligne précédente finissait par \r : un \n qui suit en fait partie
+
+    private int[] tokenStart = new int[16];
+    private int[] tokenEnd = new int[16];
+    private int tokenCount;
+    private int rawLineStart; // Début de la ligne courante, blancs compris
+    private int lineEnd;      // Fin de la ligne courante, sans les blancs de fin
+    private boolean tokenized; // Tous les jetons de la ligne courante sont découpés
+
+    // Empreinte facultative des octets lus, hors lignes retirées par excludeLineFromDigest()
+    private final SourceFingerprint digest;
+    private int digestFrom; // Début des octets lus pas encore ajoutés à l'empreinte
+
+    /**
+     * @param channel Canal lu jusqu'à la fin (non fermé par le découpeur)
+     */
+    SceneTokenizer(ReadableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE, null);
+    }
+
+    /**
+     * @param channel Canal lu jusqu'à la fin (non fermé par le découpeur)
+     * @param digest Empreinte à calculer sur les octets lus, ou null
+     */
+    SceneTokenizer(ReadableByteChannel channel, SourceFingerprint digest) {
+        this(channel, DEFAULT_BUFFER_SIZE, digest);
+    }
+
+    SceneTokenizer(ReadableByteChannel channel, int bufferSize, SourceFingerprint digest) {
+        this.channel = channel;
+        this.buffer = new byte[bufferSize];
+        this.digest = digest;
+    }
+
+    /**
+     * Passe à la prochaine ligne utile (non vide et hors commentaire).
+     * @return false à la fin du fichier
+     * @throws IOException Si la lecture du canal échoue
+     */
+    boolean nextLine() throws IOException {
+        while (true) {
+            int end = findLineEnd();
+            if (end < 0) return false;
+
+            int begin = position;
+            rawLineStart = begin;
+            position = end + 1;
+            skipLineFeed = buffer[end] == '\r';
+
+            if (splitLine(begin, end)) return true;
+        }
+    }
+
+    /** Nombre de jetons de la ligne courante (commande comprise). */
+    int tokenCount() {
+        if (!tokenized) split();
+        return tokenCount;
+    }
+
+    /**
+     * Jeton i sous forme de chaîne. Pour les commandes connues, la constante
+     * correspondante est renvoyée sans allocation.
+     */
+    String keyword(int i) {
+        if (i > 0 && !tokenized) split();
+        int start = tokenStart[i];
+        int length = tokenEnd[i] - start;
+        for (int k = 0; k < KEYWORD_BYTES.length; k++) {
+            byte[] candidate = KEYWORD_BYTES[k];
+            if (candidate.length == length
+                    && Arrays.equals(buffer, start, start + length, candidate, 0, length)) {
+                return KEYWORDS[k];
+            }
+        }
+        return string(i);
+    }
+
+    /**
+     * Retire la ligne courante de l'empreinte. Les octets lus entre deux lignes retirées
+     * sont ajoutés à l'empreinte d'un seul bloc.
+     */
+    void excludeLineFromDigest() {
+        if (digest == null) return;
+        digest.update(buffer, digestFrom, rawLineStart - digestFrom);
+        digestFrom = position;
+    }
+
+    /**
+     * Termine l'empreinte une fois tout le fichier lu.
+     * @return L'empreinte, ou null si le découpeur n'en calcule pas
+     */
+    byte[] finishDigest() {
+        if (digest == null) return null;
+        digest.update(buffer, digestFrom, position - digestFrom);
+        digestFrom = position;
+        return digest.toBytes();
+    }
+
+    /** Jeton i décodé en UTF-8. */
+    String string(int i) {
+        if (i > 0 && !tokenized) split();
+        return new String(buffer, tokenStart[i], tokenEnd[i] - tokenStart[i], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Jeton i converti en double, comme Double.parseDouble.
+     * @throws NumberFormatException Si le jeton n'est pas un nombre
+     */
+    double getDouble(int i) {
+        if (i > 0 && !tokenized) split();
+        int p = tokenStart[i];
+        int end = tokenEnd[i];
+
+        boolean negative = false;
+        if (buffer[p] == '-' || buffer[p] == '+') {
+            negative = buffer[p] == '-';
+            p++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int pendingZeros = 0;   // Zéros lus mais pas encore reportés dans la mantisse
+        int fractionDigits = 0;
+        boolean anyDigit = false;
+        boolean inFraction = false;
+
+        for (; p < end; p++) {
+            int c = buffer[p];
+            if (c >= '0' && c <= '9') {
+                anyDigit = true;
+                if (inFraction) fractionDigits++;
+                if (c == '0') {
+                    if (mantissa != 0) pendingZeros++;
+                    continue;
+                }
+                significantDigits += pendingZeros + 1;
+                if (significantDigits > MAX_EXACT_DIGITS) return Double.parseDouble(string(i));
+                for (; pendingZeros > 0; pendingZeros--) mantissa *= 10;
+                mantissa = mantissa * 10 + (c - '0');
+            } else if (c == '.' && !inFraction) {
+                inFraction = true;
+            } else {
+                break;
+            }
+        }
+        if (!anyDigit) return Double.parseDouble(string(i));
+
+        int exponent = pendingZeros - fractionDigits;
+        if (p < end) {
+            // Seul un exposant décimal simple est traité ici ; le reste (suffixes d/f, hexadécimal...)
+            // est délégué à Double.parseDouble
+            if (buffer[p] != 'e' && buffer[p] != 'E') return Double.parseDouble(string(i));
+            p++;
+            boolean negativeExponent = false;
+            if (p < end && (buffer[p] == '-' || buffer[p] == '+')) {
+                negativeExponent = buffer[p] == '-';
+                p++;
+            }
+            if (p == end || end - p > 4) return Double.parseDouble(string(i));
+            int explicit = 0;
+            for (; p < end; p++) {
+                int c = buffer[p];
+                if (c < '0' || c > '9') return Double.parseDouble(string(i));
+                explicit = explicit * 10 + (c - '0');
+            }
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+
+        double value;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (exponent == 0) {
+            value = mantissa;
+        } else if (exponent > 0 && exponent < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[exponent]; // Un seul arrondi : résultat correct
+        } else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return Double.parseDouble(string(i));
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Jeton i converti en int, comme Integer.parseInt.
+     * @throws NumberFormatException Si le jeton n'est pas un entier
+     */
+    int getInt(int i) {
+        if (i > 0 && !tokenized) split();
+        int p = tokenStart[i];
+        int end = tokenEnd[i];
+        boolean negative = false;
+        if (buffer[p] == '-' || buffer[p] == '+') {
+            negative = buffer[p] == '-';
+            p++;
+        }
+        // Au plus 9 chiffres : pas de dépassement possible
+        if (p == end || end - p > 9) return Integer.parseInt(string(i));
+        int value = 0;
+        for (; p < end; p++) {
+            int c = buffer[p];
+            if (c < '0' || c > '9') return Integer.parseInt(string(i));
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Découpe la ligne [start, end[ en jetons.
+     * @return false si la ligne est vide ou est un commentaire
+     */
+    private boolean splitLine(int start, int end) {
+        // Équivalent de trim() : tout caractère <= ' ' est ignoré aux extrémités
+        while (start < end && (buffer[start] & 0xFF) <= ' ') start++;
+        while (end > start && (buffer[end - 1] & 0xFF) <= ' ') end--;
+        if (start == end || buffer[start] == '#') return false;
+
+        // Seule la commande est découpée tout de suite : le reste de la ligne
+        // ne l'est qu'à la première lecture d'un autre jeton (voir split())
+        lineEnd = end;
+        int p = start;
+        while (p < end && !isSeparator(buffer[p])) p++;
+        tokenCount = 0;
+        addToken(start, p);
+        tokenized = p == end;
+        return true;
+    }
+
+    /** Découpe le reste de la ligne courante, après la commande. */
+    private void split() {
+        int p = tokenEnd[0];
+        while (p < lineEnd) {
+            while (p < lineEnd && isSeparator(buffer[p])) p++;
+            int tokenBegin = p;
+            while (p < lineEnd && !isSeparator(buffer[p])) p++;
+            addToken(tokenBegin, p);
+        }
+        tokenized = true;
+    }
+
+    // Caractères de la classe \s des expressions régulières Java
+    private static boolean isSeparator(byte c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+
+    private void addToken(int start, int end) {
+        if (tokenCount == tokenStart.length) {
+            tokenStart = Arrays.copyOf(tokenStart, 2 * tokenCount);
+            tokenEnd = Arrays.copyOf(tokenEnd, 2 * tokenCount);
+        }
+        tokenStart[tokenCount] = start;
+        tokenEnd[tokenCount] = end;
+        tokenCount++;
+    }
+
+    /**
+     * Position du terminateur de la ligne commençant à position, en rechargeant
+     * le tampon si besoin. Une dernière ligne sans terminateur est considérée
+     * comme terminée par la fin du fichier.
+     * @return Indice du terminateur (ou limit en fin de fichier), -1 s'il ne reste rien
+     */
+    private int findLineEnd() throws IOException {
+        // Fin d'un terminateur \r\n (le tampon ne sert plus à la ligne précédente)
+        if (skipLineFeed) {
+            if (position == limit) fill();
+            if (position < limit && buffer[position] == '\n') position++;
+            skipLineFeed = false;
+        }
+        int scan = position;
+        while (true) {
+            for (; scan < limit; scan++) {
+                byte c = buffer[scan];
+                if (c == '\n' || c == '\r') return scan;
+            }
+            if (endOfInput) {
+                if (position == limit) return -1;
+                // Terminateur virtuel : on s'assure qu'il reste une case pour lui
+                if (limit == buffer.length) {
+                    scan -= position;
+                    compact();
+                }
+                buffer[limit] = '\n';
+                return limit++;
+            }
+            scan -= position;
+            compact();
+            fill();
+        }
+    }
+
+    /** Ramène la partie non lue en tête du tampon, en l'agrandissant s'il est plein. */
+    private void compact() {
+        if (digest != null) {
+            digest.update(buffer, digestFrom, position - digestFrom);
+            digestFrom = 0;
+        }
+        int remaining = limit - position;
+        if (remaining == buffer.length) {
+            buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+        } else {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        }
+        position = 0;
+        limit = remaining;
+    }
+
+    /** Complète le tampon depuis le canal. */
+    private void fill() throws IOException {
+        if (endOfInput) return;
+        if (limit == buffer.length) compact();
+        int read = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit));
+        if (read < 0) endOfInput = true;
+        else limit += read;
+    }
+}
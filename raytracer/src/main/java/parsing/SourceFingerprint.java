@@ -0,0 +1,66 @@
+package parsing;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+
+/**
+ * Empreinte d'un fichier source, pour savoir si sa version compilée est encore à jour.
+ *
+ * Deux sommes de contrôle de polynômes différents (CRC-32C et CRC-32) et le nombre d'octets :
+ * 128 bits en tout. Ce n'est pas une empreinte cryptographique, mais les deux calculs sont
+ * des intrinsèques de la JVM, donc quasi gratuits même avant compilation à la volée
+ * (un SHA-256 du même fichier coûte plus que tout le reste du chargement).
+ *
+ * Elle suffit à détecter une source modifiée, pas une source fabriquée pour en imiter une autre :
+ * quand les sources viennent de clients (cache de scènes d'un service), un SHA-256 des mêmes
+ * octets est calculé en plus, sur demande.
+ */
+final class SourceFingerprint {
+
+    /** Taille de l'empreinte en octets. */
+    static final int LENGTH = 16;
+
+    private final CRC32C crc32c = new CRC32C();
+    private final CRC32 crc32 = new CRC32();
+    private final MessageDigest sha256; // null : pas de SHA-256
+    private long length;
+
+    SourceFingerprint() {
+        this(false);
+    }
+
+    /**
+     * @param withSha256 Calculer aussi un SHA-256 des mêmes octets (voir {@link #toSha256()})
+     */
+    SourceFingerprint(boolean withSha256) {
+        try {
+            sha256 = withSha256 ? MessageDigest.getInstance("SHA-256") : null;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Algorithme que toute JVM doit fournir
+        }
+    }
+
+    void update(byte[] bytes, int offset, int count) {
+        crc32c.update(bytes, offset, count);
+        crc32.update(bytes, offset, count);
+        if (sha256 != null) sha256.update(bytes, offset, count);
+        length += count;
+    }
+
+    /** Empreinte des octets ajoutés jusqu'ici. */
+    byte[] toBytes() {
+        return ByteBuffer.allocate(LENGTH)
+                .putInt((int) crc32c.getValue())
+                .putInt((int) crc32.getValue())
+                .putLong(length)
+                .array();
+    }
+
+    /** SHA-256 des octets ajoutés, ou null s'il n'a pas été demandé. À n'appeler qu'une fois. */
+    byte[] toSha256() {
+        return sha256 == null ? null : sha256.digest();
+    }
+}
@@ -35,4 +35,24 @@ public abstract class AbstractLight {
      * @return Distance à la source
      */
     public abstract double getDistance(Point p);
+
+    /**
+     * Vecteur L depuis un point donné par ses composantes, sans allocation pour les lumières
+     * de base ; par défaut, getL(Point) est appelé.
+     * @param out Reçoit les 3 composantes de L
+     */
+    public void getL(double px, double py, double pz, double[] out) {
+        Vector l = getL(new Point(px, py, pz));
+        out[0] = l.getX();
+        out[1] = l.getY();
+        out[2] = l.getZ();
+    }
+
+    /**
+     * Distance de la lumière à un point donné par ses composantes ; par défaut,
+     * getDistance(Point) est appelé.
+     */
+    public double getDistance(double px, double py, double pz) {
+        return getDistance(new Point(px, py, pz));
+    }
 }
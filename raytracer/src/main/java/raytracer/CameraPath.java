@@ -0,0 +1,201 @@
+package raytracer;
+
+import math.Point;
+import math.Vector;
+
+import java.util.List;
+
+/**
+ * Trajectoire de caméra pour une animation : des positions clés datées, entre lesquelles la
+ * caméra (œil, point visé, vecteur haut et angle de vue) est interpolée.
+ *
+ * L'interpolation est linéaire, ou lisse (spline de Catmull-Rom : la courbe passe par chaque
+ * clé, sans cassure). Une trajectoire en boucle se termine par la clé de départ ; ses images
+ * couvrent la boucle sans répéter la première, pour un tour de table qui s'enchaîne sans à-coup.
+ */
+public final class CameraPath {
+
+    /** Mode d'interpolation entre deux clés. */
+    public enum Interpolation {
+        LINEAR("linear"),
+        SMOOTH("smooth");
+
+        private final String key;
+
+        Interpolation(String key) {
+            this.key = key;
+        }
+
+        /** Nom utilisé dans les fichiers de trajectoire. */
+        public String getKey() { return key; }
+
+        /**
+         * @param key Nom du mode (linear ou smooth)
+         * @throws IllegalArgumentException Si le mode est inconnu
+         */
+        public static Interpolation fromKey(String key) {
+            for (Interpolation interpolation : values()) {
+                if (interpolation.key.equals(key)) return interpolation;
+            }
+            throw new IllegalArgumentException("Interpolation inconnue : " + key + " (linear ou smooth attendu).");
+        }
+    }
+
+    // 10 valeurs par clé : œil (3), point visé (3), haut (3), angle de vue
+    private static final int STRIDE = 10;
+
+    private final double[] times;
+    private final double[] values;
+    private final Interpolation interpolation;
+    private final boolean loop;
+
+    /**
+     * Crée une trajectoire.
+     * @param times Date de chaque clé, strictement croissante
+     * @param keys Caméra de chaque clé
+     * @param interpolation Interpolation entre les clés
+     * @param loop Trajectoire fermée : la dernière clé doit être identique à la première
+     * @throws IllegalArgumentException Si les clés sont incohérentes
+     */
+    public CameraPath(double[] times, List<Camera> keys, Interpolation interpolation, boolean loop) {
+        if (times.length != keys.size()) throw new IllegalArgumentException("Une date par clé attendue.");
+        if (keys.size() < 2) throw new IllegalArgumentException("Au moins deux clés attendues.");
+        for (int k = 1; k < times.length; k++) {
+            if (!(times[k] > times[k - 1])) {
+                throw new IllegalArgumentException("Dates des clés non strictement croissantes : " + times[k - 1] + " puis " + times[k] + ".");
+            }
+        }
+        this.times = times.clone();
+        this.values = new double[STRIDE * keys.size()];
+        for (int k = 0; k < keys.size(); k++) {
+            Camera camera = keys.get(k);
+            int o = STRIDE * k;
+            values[o] = camera.getLookFrom().getX();
+            values[o + 1] = camera.getLookFrom().getY();
+            values[o + 2] = camera.getLookFrom().getZ();
+            values[o + 3] = camera.getLookAt().getX();
+            values[o + 4] = camera.getLookAt().getY();
+            values[o + 5] = camera.getLookAt().getZ();
+            values[o + 6] = camera.getUp().getX();
+            values[o + 7] = camera.getUp().getY();
+            values[o + 8] = camera.getUp().getZ();
+            values[o + 9] = camera.getFov();
+        }
+        if (loop) {
+            if (keys.size() < 3) throw new IllegalArgumentException("Trajectoire en boucle : au moins trois clés attendues.");
+            int last = STRIDE * (keys.size() - 1);
+            for (int c = 0; c < STRIDE; c++) {
+                if (values[c] != values[last + c]) {
+                    throw new IllegalArgumentException("Trajectoire en boucle : la dernière clé doit reprendre la première.");
+                }
+            }
+        }
+        this.interpolation = interpolation;
+        this.loop = loop;
+    }
+
+    public int getKeyCount() { return times.length; }
+    public double getStartTime() { return times[0]; }
+    public double getEndTime() { return times[times.length - 1]; }
+    public Interpolation getInterpolation() { return interpolation; }
+    public boolean isLoop() { return loop; }
+
+    /**
+     * Date de l'image frame sur frameCount : les images sont régulièrement espacées, de la
+     * première clé à la dernière comprise (à la dernière exclue pour une boucle).
+     */
+    public double frameTime(int frame, int frameCount) {
+        if (frameCount < 1 || frame < 0 || frame >= frameCount) {
+            throw new IllegalArgumentException("Image " + frame + " hors de [0, " + frameCount + "[.");
+        }
+        double duration = getEndTime() - getStartTime();
+        if (loop) return getStartTime() + duration * frame / frameCount;
+        if (frameCount == 1) return getStartTime();
+        // La dernière image tombe exactement sur la dernière clé
+        return frame == frameCount - 1 ? getEndTime() : getStartTime() + duration * frame / (frameCount - 1);
+    }
+
+    /** Caméra de l'image frame sur frameCount (voir frameTime). */
+    public Camera frame(int frame, int frameCount) {
+        return cameraAt(frameTime(frame, frameCount));
+    }
+
+    /**
+     * Caméra à une date donnée. Avant la première clé ou après la dernière, la caméra reste
+     * sur la clé la plus proche (une boucle, elle, recommence).
+     */
+    public Camera cameraAt(double time) {
+        int n = times.length;
+        if (loop) {
+            double duration = getEndTime() - getStartTime();
+            time = getStartTime() + ((time - getStartTime()) % duration + duration) % duration;
+        } else if (time <= times[0]) {
+            return cameraOf(values, 0);
+        } else if (time >= times[n - 1]) {
+            return cameraOf(values, STRIDE * (n - 1));
+        }
+
+        // Segment [times[i], times[i + 1]] qui contient la date
+        int i = 0;
+        while (i < n - 2 && time >= times[i + 1]) i++;
+        double t0 = times[i];
+        double t1 = times[i + 1];
+        double dt = t1 - t0;
+        double u = (time - t0) / dt;
+        if (u == 0) return cameraOf(values, STRIDE * i);
+
+        double[] out = new double[STRIDE];
+        if (interpolation == Interpolation.LINEAR) {
+            for (int c = 0; c < STRIDE; c++) {
+                double a = values[STRIDE * i + c];
+                double b = values[STRIDE * (i + 1) + c];
+                out[c] = a + (b - a) * u;
+            }
+            return cameraOf(out, 0);
+        }
+
+        // Hermite cubique, tangentes de Catmull-Rom (différences centrées, à pas de temps variable)
+        double h00 = (2 * u - 3) * u * u + 1;
+        double h10 = ((u - 2) * u + 1) * u;
+        double h01 = (3 - 2 * u) * u * u;
+        double h11 = (u - 1) * u * u;
+        for (int c = 0; c < STRIDE; c++) {
+            double p0 = values[STRIDE * i + c];
+            double p1 = values[STRIDE * (i + 1) + c];
+            out[c] = h00 * p0 + h10 * dt * tangent(i, c) + h01 * p1 + h11 * dt * tangent(i + 1, c);
+        }
+        return cameraOf(out, 0);
+    }
+
+    /**
+     * Dérivée de la composante c à la clé k : pente entre les clés voisines. Aux extrémités
+     * d'une trajectoire ouverte, pente du seul segment ; dans une boucle, les voisines de la
+     * clé de départ (et d'arrivée) sont de l'autre côté de la boucle.
+     */
+    private double tangent(int k, int c) {
+        int n = times.length;
+        double duration = getEndTime() - getStartTime();
+        int previous = k - 1;
+        int next = k + 1;
+        double previousTime;
+        double nextTime;
+        if (loop) {
+            // Clés 0 et n - 1 identiques : la voisine d'avant la 0 est la n - 2, un tour plus tôt
+            previousTime = previous >= 0 ? times[previous] : times[n - 2] - duration;
+            if (previous < 0) previous = n - 2;
+            nextTime = next < n ? times[next] : times[1] + duration;
+            if (next >= n) next = 1;
+        } else {
+            if (previous < 0) previous = k;
+            if (next >= n) next = k;
+            previousTime = times[previous];
+            nextTime = times[next];
+        }
+        return (values[STRIDE * next + c] - values[STRIDE * previous + c]) / (nextTime - previousTime);
+    }
+
+    private static Camera cameraOf(double[] v, int o) {
+        return new Camera(new Point(v[o], v[o + 1], v[o + 2]), new Point(v[o + 3], v[o + 4], v[o + 5]),
+                new Vector(v[o + 6], v[o + 7], v[o + 8]), v[o + 9]);
+    }
+}
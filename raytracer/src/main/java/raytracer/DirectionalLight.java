@@ -35,4 +35,16 @@ public class DirectionalLight extends AbstractLight {
         // Une lumière directionnelle est considérée comme étant à l'infini
         return Double.POSITIVE_INFINITY;
     }
-}
\ No newline at end of file
+
+    @Override
+    public void getL(double px, double py, double pz, double[] out) {
+        out[0] = direction.getX();
+        out[1] = direction.getY();
+        out[2] = direction.getZ();
+    }
+
+    @Override
+    public double getDistance(double px, double py, double pz) {
+        return Double.POSITIVE_INFINITY;
+    }
+}
@@ -0,0 +1,29 @@
+package raytracer;
+
+import geometry.Shape;
+
+/**
+ * Impact le plus proche d'un rayon, réutilisable d'une requête à l'autre : distance, forme et
+ * primitive touchées. C'est la version sans allocation d'{@link Intersection} ; les données
+ * de surface se calculent ensuite à la demande (Shape.normalAt).
+ */
+public final class HitRecord {
+
+    private double t;
+    private Shape shape;
+    private int primitive;
+
+    /** Enregistre un impact. */
+    public void set(double t, Shape shape, int primitive) {
+        this.t = t;
+        this.shape = shape;
+        this.primitive = primitive;
+    }
+
+    /** Distance de l'impact sur le rayon. */
+    public double getT() { return t; }
+    /** Forme touchée. */
+    public Shape getShape() { return shape; }
+    /** Primitive touchée dans la forme. */
+    public int getPrimitive() { return primitive; }
+}
@@ -4,6 +4,7 @@ import geometry.Shape;
 import imaging.Color;
 import math.Point;
 import math.Vector;
+import math.VectorMath;
 
 public class Intersection {
     /**
@@ -52,26 +53,50 @@ public class Intersection {
      */
     public Color calculateColor(AbstractLight light, Vector eyeDir) {
         Vector l = light.getL(this.point);
-        Color lightColor = light.getColor();
+        double[] contribution = new double[3];
+        lightContribution(normal.getX(), normal.getY(), normal.getZ(), l.getX(), l.getY(), l.getZ(),
+                eyeDir.getX(), eyeDir.getY(), eyeDir.getZ(),
+                light.getColor(), this.diffuse, this.specular, this.shininess, contribution);
+        return new Color(contribution[0], contribution[1], contribution[2]);
+    }
 
+    /**
+     * Contribution d'une lumière en un point, sur des composantes double et sans allocation.
+     * Les couleurs sont limitées à [0, 1] après chaque opération, comme le font les
+     * constructeurs de Color : le résultat est celui de calculateColor, au bit près.
+     *
+     * @param nx Normale au point (nx, ny, nz)
+     * @param lx Direction vers la lumière (lx, ly, lz), voir AbstractLight.getL
+     * @param ex Direction vers la caméra (ex, ey, ez)
+     * @param out Reçoit les 3 composantes de la couleur
+     */
+    static void lightContribution(double nx, double ny, double nz, double lx, double ly, double lz,
+                                  double ex, double ey, double ez, Color lightColor,
+                                  Color diffuse, Color specular, double shininess, double[] out) {
         // --- 1. Diffuse (Lambert) ---
-        double nDotL = Math.max(this.normal.dot(l), 0.0);
-        Color diffuseTerm = lightColor.multiply(nDotL).schur(this.diffuse);
+        double nDotL = Math.max(VectorMath.dot(nx, ny, nz, lx, ly, lz), 0.0);
+        double diffuseR = Color.clamp(Color.clamp(lightColor.r() * nDotL) * diffuse.r());
+        double diffuseG = Color.clamp(Color.clamp(lightColor.g() * nDotL) * diffuse.g());
+        double diffuseB = Color.clamp(Color.clamp(lightColor.b() * nDotL) * diffuse.b());
 
         // --- 2. Specular (Blinn-Phong) ---
-        Color specularTerm = new Color(0, 0, 0);
+        double specularR = 0, specularG = 0, specularB = 0;
 
         // On ne calcule le spéculaire que si la lumière éclaire la surface (nDotL > 0)
         if (nDotL > 0) {
             // Vecteur H (Halfway) = (LightDir + EyeDir) normalisé
-            Vector h = l.add(eyeDir).normalize();
+            VectorMath.normalize(lx + ex, ly + ey, lz + ez, out);
 
-            double nDotH = Math.max(this.normal.dot(h), 0.0);
-            double specularIntensity = Math.pow(nDotH, this.shininess);
+            double nDotH = Math.max(VectorMath.dot(nx, ny, nz, out[0], out[1], out[2]), 0.0);
+            double specularIntensity = Math.pow(nDotH, shininess);
 
-            specularTerm = lightColor.multiply(specularIntensity).schur(this.specular);
+            specularR = Color.clamp(Color.clamp(lightColor.r() * specularIntensity) * specular.r());
+            specularG = Color.clamp(Color.clamp(lightColor.g() * specularIntensity) * specular.g());
+            specularB = Color.clamp(Color.clamp(lightColor.b() * specularIntensity) * specular.b());
         }
 
-        return diffuseTerm.add(specularTerm);
+        out[0] = Color.clamp(diffuseR + specularR);
+        out[1] = Color.clamp(diffuseG + specularG);
+        out[2] = Color.clamp(diffuseB + specularB);
     }
 }
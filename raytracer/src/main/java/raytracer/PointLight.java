@@ -3,6 +3,7 @@ package raytracer;
 import imaging.Color;
 import math.Point;
 import math.Vector;
+import math.VectorMath;
 
 /**
  * Source de lumière ponctuelle locale
@@ -38,4 +39,15 @@ public class PointLight extends AbstractLight {
         // On retourne la norme (longueur) du vecteur
         return Math.sqrt(v.dot(v));
     }
-}
\ No newline at end of file
+
+    @Override
+    public void getL(double px, double py, double pz, double[] out) {
+        VectorMath.normalize(position.getX() - px, position.getY() - py, position.getZ() - pz, out);
+    }
+
+    @Override
+    public double getDistance(double px, double py, double pz) {
+        double vx = position.getX() - px, vy = position.getY() - py, vz = position.getZ() - pz;
+        return Math.sqrt(VectorMath.dot(vx, vy, vz, vx, vy, vz));
+    }
+}
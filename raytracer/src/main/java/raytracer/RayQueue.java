@@ -0,0 +1,135 @@
+package raytracer;
+
+import math.Point;
+import math.Ray;
+import math.Vector;
+
+import java.util.Arrays;
+
+/**
+ * File de rayons d'une étape de {@link WavefrontIntegrator}, en structure de tableaux :
+ * origine, direction, distance maximale (rayons d'ombre) et case propriétaire de chaque rayon
+ * (pixel, point d'impact de l'étape précédente, ou couple impact-lumière).
+ *
+ * La file peut être triée par direction puis par origine, pour que des rayons voisins
+ * parcourent les mêmes nœuds de la hiérarchie l'un après l'autre.
+ */
+final class RayQueue {
+
+    /** Bits de la clé de tri : octant (3), direction (3 x 4) puis origine (3 x 10). */
+    private static final int KEY_BITS = 3 + 12 + 30;
+
+    private double[] ox, oy, oz;
+    private double[] dx, dy, dz;
+    private double[] distance;
+    private int[] owner;
+    private int size;
+
+    RayQueue(int capacity) {
+        capacity = Math.max(capacity, 1);
+        ox = new double[capacity]; oy = new double[capacity]; oz = new double[capacity];
+        dx = new double[capacity]; dy = new double[capacity]; dz = new double[capacity];
+        distance = new double[capacity];
+        owner = new int[capacity];
+    }
+
+    /** Vide la file (la capacité est conservée). */
+    void clear() {
+        size = 0;
+    }
+
+    int size() { return size; }
+
+    int owner(int k) { return owner[k]; }
+
+    double distance(int k) { return distance[k]; }
+
+    /**
+     * Ajoute un rayon à la file.
+     * @param distance Distance maximale (rayon d'ombre), ou +infini
+     * @param owner Case à laquelle rapporter le résultat du rayon
+     */
+    void add(Ray ray, double distance, int owner) {
+        if (size == this.owner.length) grow();
+        Point o = ray.getOrigin();
+        Vector d = ray.getDirection();
+        ox[size] = o.getX(); oy[size] = o.getY(); oz[size] = o.getZ();
+        dx[size] = d.getX(); dy[size] = d.getY(); dz[size] = d.getZ();
+        this.distance[size] = distance;
+        this.owner[size] = owner;
+        size++;
+    }
+
+    /** Rayon d'indice k, reconstruit à l'identique depuis les tableaux. */
+    Ray ray(int k) {
+        return new Ray(new Point(ox[k], oy[k], oz[k]), new Vector(dx[k], dy[k], dz[k]));
+    }
+
+    /**
+     * Trie la file par octant et direction quantifiée, puis par code de Morton de l'origine
+     * dans la boîte des origines de la file. Le tri est stable.
+     */
+    void sort() {
+        if (size < 2) return;
+        double[] lo = { ox[0], oy[0], oz[0] };
+        double[] hi = lo.clone();
+        for (int k = 1; k < size; k++) {
+            lo[0] = Math.min(lo[0], ox[k]); hi[0] = Math.max(hi[0], ox[k]);
+            lo[1] = Math.min(lo[1], oy[k]); hi[1] = Math.max(hi[1], oy[k]);
+            lo[2] = Math.min(lo[2], oz[k]); hi[2] = Math.max(hi[2], oz[k]);
+        }
+
+        // Clé et indice dans un même long : l'indice départage les clés égales (tri stable)
+        int indexBits = 32 - Integer.numberOfLeadingZeros(size - 1);
+        int drop = Math.max(0, KEY_BITS - (63 - indexBits));
+        long[] order = new long[size];
+        for (int k = 0; k < size; k++) {
+            long octant = (dx[k] < 0 ? 4 : 0) | (dy[k] < 0 ? 2 : 0) | (dz[k] < 0 ? 1 : 0);
+            long direction = interleave(cell(dx[k], -1, 1, 15), cell(dy[k], -1, 1, 15), cell(dz[k], -1, 1, 15), 4);
+            long origin = interleave(cell(ox[k], lo[0], hi[0], 1023), cell(oy[k], lo[1], hi[1], 1023),
+                    cell(oz[k], lo[2], hi[2], 1023), 10);
+            long key = (octant << 42 | direction << 30 | origin) >>> drop;
+            order[k] = key << indexBits | k;
+        }
+        Arrays.sort(order);
+
+        int mask = (1 << indexBits) - 1;
+        int[] permutation = new int[size];
+        for (int k = 0; k < size; k++) permutation[k] = (int) (order[k] & mask);
+        ox = permute(ox, permutation); oy = permute(oy, permutation); oz = permute(oz, permutation);
+        dx = permute(dx, permutation); dy = permute(dy, permutation); dz = permute(dz, permutation);
+        distance = permute(distance, permutation);
+        int[] owners = new int[owner.length];
+        for (int k = 0; k < size; k++) owners[k] = owner[permutation[k]];
+        owner = owners;
+    }
+
+    /** Cellule d'une valeur sur une grille de cells + 1 cases entre lo et hi. */
+    private static int cell(double value, double lo, double hi, int cells) {
+        if (!(hi > lo)) return 0;
+        return (int) Math.max(0, Math.min(cells, (value - lo) / (hi - lo) * cells));
+    }
+
+    /** Entrelace les bits de trois coordonnées (x, y, z, de poids fort à faible). */
+    private static long interleave(int x, int y, int z, int bits) {
+        long code = 0;
+        for (int bit = bits - 1; bit >= 0; bit--) {
+            code = code << 3 | (x >>> bit & 1) << 2 | (y >>> bit & 1) << 1 | (z >>> bit & 1);
+        }
+        return code;
+    }
+
+    private double[] permute(double[] values, int[] permutation) {
+        double[] result = new double[values.length];
+        for (int k = 0; k < size; k++) result[k] = values[permutation[k]];
+        return result;
+    }
+
+    private void grow() {
+        int capacity = 2 * owner.length;
+        ox = Arrays.copyOf(ox, capacity); oy = Arrays.copyOf(oy, capacity); oz = Arrays.copyOf(oz, capacity);
+        dx = Arrays.copyOf(dx, capacity); dy = Arrays.copyOf(dy, capacity); dz = Arrays.copyOf(dz, capacity);
+        distance = Arrays.copyOf(distance, capacity);
+        owner = Arrays.copyOf(owner, capacity);
+    }
+}
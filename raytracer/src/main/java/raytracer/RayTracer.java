@@ -1,11 +1,16 @@
 package raytracer;
 
+import acceleration.RayPacket;
 import imaging.Color;
 import math.Ray;
 import math.Vector;
 import math.Point;
-import java.util.Optional;
+import math.VectorMath;
+import geometry.Shape;
+import java.util.List;
 import scene.Scene;
+import stats.RayCounters;
+import stats.RenderStatistics;
 
 /**
  * Moteur raytracing principal : calcule la couleur d’un pixel par lancer de rayon et récursion.
@@ -22,9 +27,22 @@ public class RayTracer {
     private final double pixelHeight;
     private final int width;
     private final int height;
+    private final RenderStatistics statistics; // null : aucune statistique
+    // Tampons de calcul de chaque thread : le tracé d'un pixel n'alloue que sa couleur finale
+    private final ThreadLocal<Scratch> scratch;
 
     public RayTracer(Scene scene) {
+        this(scene, null);
+    }
+
+    /**
+     * Instancie le core raytracer en comptant rayons et tests d'intersection.
+     * @param scene Scène à lancer
+     * @param statistics Statistiques à alimenter, ou null
+     */
+    public RayTracer(Scene scene, RenderStatistics statistics) {
         this.scene = scene;
+        this.statistics = statistics;
         this.width = scene.getWidth();
         this.height = scene.getHeight();
         this.onb = new OrthonormalBasis(scene.getCamera());
@@ -34,6 +52,7 @@ public class RayTracer {
 
         double aspectRatio = (double)this.width / (double)this.height;
         this.pixelWidth = this.pixelHeight * aspectRatio;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(scene.getMaxDepth()));
     }
 
     /**
@@ -43,80 +62,295 @@ public class RayTracer {
      * @return Couleur calculée
      */
     public Color getPixelColor(int i, int j) {
-        Ray viewRay = calculateRay(i, j);
-        return computeColor(viewRay, 1);
+        Scratch s = scratch.get();
+        double[] d = s.vector;
+        calculateDirection(i, j, d);
+        double dx = d[0], dy = d[1], dz = d[2];
+        Point origin = scene.getCamera().getLookFrom();
+
+        RayCounters counters = statistics == null ? null : statistics.counters();
+        if (counters != null) counters.countPrimaryRay();
+        double[] color = s.colors[1];
+        trace(origin.getX(), origin.getY(), origin.getZ(), dx, dy, dz, 1, counters, s, color);
+        return new Color(color[0], color[1], color[2]);
+    }
+
+    /**
+     * Calcule les couleurs d'un bloc de pixels d'au plus RayPacket.MAX_SIZE pixels (4 x 4 par exemple).
+     * Les rayons primaires du bloc sont tracés en paquet, puis, pour chaque lumière, les rayons
+     * d'ombre partant de leurs points d'impact ; les réflexions, moins cohérentes, sont tracées
+     * rayon par rayon. Les couleurs sont exactement celles de getPixelColor.
+     * Avec des statistiques, les pixels sont calculés un par un pour compter chaque test.
+     *
+     * @param x Abscisse du coin haut gauche du bloc
+     * @param y Ordonnée du coin haut gauche du bloc
+     * @param w Largeur du bloc
+     * @param h Hauteur du bloc
+     * @param out Reçoit les w * h couleurs, ligne par ligne
+     */
+    public void getPixelColors(int x, int y, int w, int h, Color[] out) {
+        int n = w * h;
+        if (statistics != null || n > RayPacket.MAX_SIZE || scene.getMaxDepth() < 1) {
+            for (int k = 0; k < n; k++) {
+                out[k] = getPixelColor(x + k % w, y + k / w);
+            }
+            return;
+        }
+
+        RayPacket primary = new RayPacket();
+        for (int k = 0; k < n; k++) {
+            primary.add(calculateRay(x + k % w, y + k / w));
+        }
+        Intersection[] hits = new Intersection[n];
+        scene.findClosestIntersections(primary, hits);
+
+        // Rayons d'ombre des pixels touchés : un paquet par lumière
+        List<AbstractLight> lights = scene.getLights();
+        boolean[][] shadowed = new boolean[n][lights.size()];
+        RayPacket shadowRays = new RayPacket();
+        int[] owners = new int[n];
+        double[] distances = new double[n];
+        boolean[] blocked = new boolean[n];
+        for (int index = 0; index < lights.size(); index++) {
+            AbstractLight light = lights.get(index);
+            shadowRays.clear();
+            for (int k = 0; k < n; k++) {
+                if (hits[k] == null) continue;
+                Point p = hits[k].getPoint();
+                owners[shadowRays.size()] = k;
+                distances[shadowRays.size()] = light.getDistance(p);
+                shadowRays.add(new Ray(p, light.getL(p)));
+            }
+            scene.areShadowed(shadowRays, distances, blocked);
+            for (int s = 0; s < shadowRays.size(); s++) {
+                shadowed[owners[s]][index] = blocked[s];
+            }
+        }
+
+        for (int k = 0; k < n; k++) {
+            out[k] = hits[k] == null ? new Color(0, 0, 0) : shade(primary.get(k), hits[k], 1, null, shadowed[k]);
+        }
     }
 
     /**
      * Méthode récursive pour calculer la couleur (Directe + Réfléchie).
      * @param ray Le rayon à tracer
      * @param depth La profondeur actuelle de récursion
+     * @param counters Compteurs du thread courant, ou null
      * @return La couleur résultante
      */
-    private Color computeColor(Ray ray, int depth) {
+    private Color computeColor(Ray ray, int depth, RayCounters counters) {
+        Point o = ray.getOrigin();
+        Vector d = ray.getDirection();
+        Scratch s = scratch.get();
+        double[] color = s.colors[depth];
+        trace(o.getX(), o.getY(), o.getZ(), d.getX(), d.getY(), d.getZ(), depth, counters, s, color);
+        return new Color(color[0], color[1], color[2]);
+    }
+
+    /**
+     * Calcul récursif de la couleur (Directe + Réfléchie) sur des composantes double, sans
+     * allocation : mêmes opérations, dans le même ordre, que shade et Intersection.calculateColor,
+     * les couleurs étant limitées à [0, 1] après chaque opération comme le fait Color.
+     * @param depth La profondeur actuelle de récursion
+     * @param counters Compteurs du thread courant, ou null
+     * @param s Tampons du thread courant
+     * @param out Reçoit les 3 composantes de la couleur (s.colors[depth])
+     */
+    private void trace(double ox, double oy, double oz, double dx, double dy, double dz,
+                       int depth, RayCounters counters, Scratch s, double[] out) {
+        out[0] = 0; // Fond noir
+        out[1] = 0;
+        out[2] = 0;
         // Arrêt de la récursion si on dépasse maxdepth
-        if (depth > scene.getMaxDepth()) {
-            return new Color(0, 0, 0);
-        }
+        if (depth > scene.getMaxDepth()) return;
 
-        Optional<Intersection> closestIntersection = scene.findClosestIntersection(ray);
+        if (counters != null) counters.countTrace(depth);
 
-        if (closestIntersection.isPresent()) {
-            Intersection intersection = closestIntersection.get();
-            Point p = intersection.getPoint();
-            Vector n = intersection.getNormal();
+        HitRecord hit = s.hits[depth];
+        if (!scene.findClosestHit(ox, oy, oz, dx, dy, dz, hit, counters)) return;
 
-            // Vecteur vue (inverse du rayon incident)
-            Vector eyeDir = ray.getDirection().multiply(-1).normalize();
+        // Point d'impact P = Origine + t * Direction, et sa normale
+        double t = hit.getT();
+        double px = ox + dx * t, py = oy + dy * t, pz = oz + dz * t;
+        Shape shape = hit.getShape();
+        double[] v = s.vector;
+        shape.normalAt(hit.getPrimitive(), ox, oy, oz, dx, dy, dz, t, v);
+        double nx = v[0], ny = v[1], nz = v[2];
 
-            // --- 1. Eclairage Direct (Lambert + Phong) ---
-            Color finalColor = scene.getAmbient(); // On part de l'ambiante
+        // Vecteur vue (inverse du rayon incident)
+        VectorMath.normalize(dx * -1, dy * -1, dz * -1, v);
+        double ex = v[0], ey = v[1], ez = v[2];
 
-            for (AbstractLight light : scene.getLights()) {
-                Vector l = light.getL(p);
-                double distToLight = light.getDistance(p);
+        // --- 1. Eclairage Direct (Lambert + Phong) ---
+        Color specular = shape.getSpecular();
+        directLight(px, py, pz, nx, ny, nz, ex, ey, ez, shape.getDiffuse(), specular, shape.getShininess(),
+                counters, null, 0, s, out);
 
-                Ray shadowRay = new Ray(p, l);
-                boolean isInShadow = scene.isShadowed(shadowRay, distToLight);
+        // --- 2. Eclairage Indirect (Réflexion) ---
+        boolean isReflective = (specular.r() > 0 || specular.g() > 0 || specular.b() > 0);
+        if (!isReflective || depth >= scene.getMaxDepth()) return;
 
-                if (!isInShadow) {
-                    Color contribution = intersection.calculateColor(light, eyeDir);
-                    finalColor = finalColor.add(contribution);
-                }
-            }
+        // r = d + 2 * (n . (-d)) * n, normalisé
+        double k = 2 * VectorMath.dot(nx, ny, nz, ex, ey, ez);
+        VectorMath.normalize(dx + nx * k, dy + ny * k, dz + nz * k, v);
+
+        // Appel récursif
+        if (counters != null) counters.countReflectionRay();
+        double[] reflected = s.colors[depth + 1];
+        trace(px, py, pz, v[0], v[1], v[2], depth + 1, counters, s, reflected);
+
+        // Mélange : CouleurFinale += Specular * ReflectedColor
+        out[0] = Color.clamp(out[0] + Color.clamp(specular.r() * reflected[0]));
+        out[1] = Color.clamp(out[1] + Color.clamp(specular.g() * reflected[1]));
+        out[2] = Color.clamp(out[2] + Color.clamp(specular.b() * reflected[2]));
+    }
+
+    /**
+     * Couleur d'un point d'impact : éclairage direct puis réflexion (récursive).
+     * @param ray Le rayon qui a touché le point
+     * @param intersection Le point touché
+     * @param depth La profondeur de ce rayon
+     * @param counters Compteurs du thread courant, ou null
+     * @param shadowed Ombre de chaque lumière si elle est déjà connue (paquet), ou null
+     * @return La couleur résultante
+     */
+    private Color shade(Ray ray, Intersection intersection, int depth, RayCounters counters, boolean[] shadowed) {
+        // Vecteur vue (inverse du rayon incident)
+        Vector eyeDir = ray.getDirection().multiply(-1).normalize();
 
-            // --- 2. Eclairage Indirect (Réflexion - JALON 6) ---
-            // On ne calcule la réflexion que si l'objet est spéculaire (brillant)
-            // et qu'on n'a pas atteint la limite de profondeur.
-            Color specularColor = intersection.getSpecular();
+        // --- 1. Eclairage Direct (Lambert + Phong) ---
+        Color finalColor = directLight(intersection, eyeDir, counters, shadowed, 0);
 
-            // Vérifie si l'objet a une composante spéculaire (n'est pas noir)
-            boolean isReflective = (specularColor.r() > 0 || specularColor.g() > 0 || specularColor.b() > 0);
+        // --- 2. Eclairage Indirect (Réflexion - JALON 6) ---
+        Ray reflectedRay = reflectedRay(ray, intersection, eyeDir, depth);
+        if (reflectedRay != null) {
+            // Appel récursif
+            if (counters != null) counters.countReflectionRay();
+            Color reflectedColor = computeColor(reflectedRay, depth + 1, counters);
 
-            if (isReflective && depth < scene.getMaxDepth()) {
-                // Calcul du rayon réfléchi R
-                // Formule : r = d + 2 * (n . (-d)) * n
-                // Ici ray.getDirection() est 'd'. eyeDir est '-d'.
-                double nDotV = n.dot(eyeDir);
-                Vector rDir = ray.getDirection().add(n.multiply(2 * nDotV)).normalize();
+            // Mélange : CouleurFinale += Specular * ReflectedColor
+            finalColor = finalColor.add(intersection.getSpecular().schur(reflectedColor));
+        }
 
-                // Créer le rayon réfléchi (partant de P avec un léger décalage pour éviter l'auto-intersection)
-                Ray reflectedRay = new Ray(p, rDir);
+        return finalColor;
+    }
 
-                // Appel récursif
-                Color reflectedColor = computeColor(reflectedRay, depth + 1);
+    /**
+     * Eclairage direct d'un point d'impact : ambiante, puis chaque lumière non masquée.
+     * @param intersection Le point touché
+     * @param eyeDir Direction vers l'observateur (inverse du rayon incident, normalisée)
+     * @param counters Compteurs du thread courant, ou null
+     * @param shadowed Ombre de chaque lumière à partir de la case offset si elle est déjà connue,
+     *                 ou null pour lancer les rayons d'ombre ici
+     * @param offset Case de la première lumière dans shadowed
+     * @return La couleur directe
+     */
+    Color directLight(Intersection intersection, Vector eyeDir, RayCounters counters, boolean[] shadowed, int offset) {
+        Point p = intersection.getPoint();
+        Vector n = intersection.getNormal();
+        Scratch s = scratch.get();
+        double[] color = s.direct;
+        directLight(p.getX(), p.getY(), p.getZ(), n.getX(), n.getY(), n.getZ(),
+                eyeDir.getX(), eyeDir.getY(), eyeDir.getZ(),
+                intersection.getDiffuse(), intersection.getSpecular(), intersection.getShininess(),
+                counters, shadowed, offset, s, color);
+        return new Color(color[0], color[1], color[2]);
+    }
+
+    /**
+     * Eclairage direct sur des composantes double, sans allocation (voir directLight).
+     * @param s Tampons du thread courant
+     * @param out Reçoit les 3 composantes de la couleur
+     */
+    private void directLight(double px, double py, double pz, double nx, double ny, double nz,
+                             double ex, double ey, double ez, Color diffuse, Color specular, double shininess,
+                             RayCounters counters, boolean[] shadowed, int offset, Scratch s, double[] out) {
+        Color ambient = scene.getAmbient(); // On part de l'ambiante
+        double r = ambient.r(), g = ambient.g(), b = ambient.b();
 
-                // Mélange : CouleurFinale += Specular * ReflectedColor
-                finalColor = finalColor.add(specularColor.schur(reflectedColor));
+        double[] l = s.light;
+        double[] contribution = s.contribution;
+        List<AbstractLight> lights = scene.getLights();
+        for (int index = 0; index < lights.size(); index++) {
+            AbstractLight light = lights.get(index);
+            light.getL(px, py, pz, l);
+            boolean isInShadow;
+            if (shadowed != null) {
+                isInShadow = shadowed[offset + index];
+            } else {
+                double distToLight = light.getDistance(px, py, pz);
+
+                if (counters != null) counters.countShadowRay();
+                isInShadow = scene.isShadowed(px, py, pz, l[0], l[1], l[2], distToLight, counters);
+            }
+
+            if (!isInShadow) {
+                Intersection.lightContribution(nx, ny, nz, l[0], l[1], l[2], ex, ey, ez,
+                        light.getColor(), diffuse, specular, shininess, contribution);
+                r = Color.clamp(r + contribution[0]);
+                g = Color.clamp(g + contribution[1]);
+                b = Color.clamp(b + contribution[2]);
             }
+        }
+        out[0] = r;
+        out[1] = g;
+        out[2] = b;
+    }
+
+    /**
+     * Rayon réfléchi en un point d'impact, si la surface est spéculaire (brillante)
+     * et que la limite de profondeur n'est pas atteinte.
+     * @param ray Le rayon qui a touché le point
+     * @param intersection Le point touché
+     * @param eyeDir Direction vers l'observateur (inverse du rayon incident, normalisée)
+     * @param depth La profondeur du rayon incident
+     * @return Le rayon réfléchi, ou null
+     */
+    Ray reflectedRay(Ray ray, Intersection intersection, Vector eyeDir, int depth) {
+        Color specularColor = intersection.getSpecular();
 
-            return finalColor;
-        } else {
-            return new Color(0, 0, 0); // Fond noir
+        // Vérifie si l'objet a une composante spéculaire (n'est pas noir)
+        boolean isReflective = (specularColor.r() > 0 || specularColor.g() > 0 || specularColor.b() > 0);
+        if (!isReflective || depth >= scene.getMaxDepth()) {
+            return null;
         }
+
+        // Calcul du rayon réfléchi R
+        // Formule : r = d + 2 * (n . (-d)) * n
+        // Ici ray.getDirection() est 'd'. eyeDir est '-d'.
+        Vector n = intersection.getNormal();
+        double nDotV = n.dot(eyeDir);
+        Vector rDir = ray.getDirection().add(n.multiply(2 * nDotV)).normalize();
+
+        // Le rayon réfléchi part de P (l'epsilon de la scène évite l'auto-intersection)
+        return new Ray(intersection.getPoint(), rDir);
     }
 
-    private Ray calculateRay(int i, int j) {
+    /** Scène rendue. */
+    Scene getScene() { return scene; }
+
+    /** Statistiques alimentées, ou null. */
+    RenderStatistics getStatistics() { return statistics; }
+
+    /**
+     * Direction normalisée du rayon primaire du pixel (i, j), sans allocation :
+     * celle de calculateRay, au bit près.
+     * @param out Reçoit les 3 composantes
+     */
+    private void calculateDirection(int i, int j, double[] out) {
+        double a = (pixelWidth * (i - (width / 2.0) + 0.5)) / (width / 2.0);
+        double b = (pixelHeight * ((height / 2.0) - j + 0.5)) / (height / 2.0);
+
+        Vector u = onb.getU(), v = onb.getV(), w = onb.getW();
+        VectorMath.normalize(
+                u.getX() * a + v.getX() * b - w.getX(),
+                u.getY() * a + v.getY() * b - w.getY(),
+                u.getZ() * a + v.getZ() * b - w.getZ(), out);
+    }
+
+    /** Rayon primaire passant par le centre du pixel (i, j). */
+    Ray calculateRay(int i, int j) {
         double a = (pixelWidth * (i - (width / 2.0) + 0.5)) / (width / 2.0);
         double b = (pixelHeight * ((height / 2.0) - j + 0.5)) / (height / 2.0);
 
@@ -128,4 +362,24 @@ public class RayTracer {
         Point origin = scene.getCamera().getLookFrom();
         return new Ray(origin, d);
     }
+
+    /**
+     * Tampons de calcul d'un thread : un impact et une couleur par profondeur de récursion,
+     * plus quelques vecteurs de travail.
+     */
+    private static final class Scratch {
+        final HitRecord[] hits;
+        final double[][] colors;
+        final double[] vector = new double[3];       // Normale, vue, réflexion
+        final double[] light = new double[3];        // Direction vers la lumière
+        final double[] contribution = new double[3]; // Apport d'une lumière
+        final double[] direct = new double[3];       // Eclairage direct (version à objets)
+
+        Scratch(int maxDepth) {
+            // Profondeurs 1 à maxDepth + 1 (la dernière ne fait que renvoyer du noir)
+            hits = new HitRecord[maxDepth + 2];
+            colors = new double[maxDepth + 2][3];
+            for (int depth = 0; depth < hits.length; depth++) hits[depth] = new HitRecord();
+        }
+    }
 }
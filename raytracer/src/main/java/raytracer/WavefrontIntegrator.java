@@ -0,0 +1,197 @@
+package raytracer;
+
+import acceleration.RayPacket;
+import imaging.Color;
+import math.Point;
+import math.Ray;
+import math.Vector;
+import scene.Scene;
+import stats.RayCounters;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Intégrateur "wavefront" : au lieu de suivre chaque pixel récursivement (RayTracer.getPixelColor),
+ * il trace les rayons d'un bloc de pixels étape par étape.
+ *
+ * À chaque profondeur, tous les rayons de la file sont intersectés d'un coup ; les points touchés
+ * émettent une file de rayons d'ombre (un par lumière), puis l'éclairage direct est calculé et
+ * les surfaces spéculaires émettent la file de rayons réfléchis de l'étape suivante, jusqu'à
+ * Scene.getMaxDepth(). Les files de rayons réfléchis sont triées par direction puis par origine
+ * ({@link RayQueue}) pour que des rayons voisins se suivent dans la hiérarchie.
+ *
+ * Les couleurs sont recomposées de la dernière étape vers la première avec les mêmes opérations
+ * que la récursion (directe + spéculaire x réfléchie) : elles sont identiques à celles de
+ * getPixelColor. Un intégrateur n'est pas partagé entre threads (files réutilisées).
+ */
+public final class WavefrontIntegrator {
+
+    private final RayTracer rayTracer;
+    private final Scene scene;
+    private final boolean packets;
+    private final RayQueue shadowQueue = new RayQueue(256);
+
+    // Requêtes par paquets (files triées découpées en paquets de RayPacket.MAX_SIZE)
+    private final RayPacket packet = new RayPacket();
+    private final Intersection[] packetHits = new Intersection[RayPacket.MAX_SIZE];
+    private final double[] packetDistances = new double[RayPacket.MAX_SIZE];
+    private final boolean[] packetBlocked = new boolean[RayPacket.MAX_SIZE];
+
+    /** Rayons, impacts et couleurs d'une profondeur. */
+    private static final class Stage {
+        final RayQueue queue;
+        Ray[] rays;
+        Intersection[] hits;
+        Color[] colors; // Directe, puis complétée par la réflexion
+
+        Stage(RayQueue queue) {
+            this.queue = queue;
+        }
+    }
+
+    /**
+     * @param rayTracer Traceur dont on reprend la caméra, la scène et les statistiques
+     * @param packets Intersecter les files par paquets de rayons (voir {@link RayPacket})
+     */
+    public WavefrontIntegrator(RayTracer rayTracer, boolean packets) {
+        this.rayTracer = rayTracer;
+        this.scene = rayTracer.getScene();
+        this.packets = packets;
+    }
+
+    /**
+     * Calcule les couleurs d'un bloc de pixels.
+     * @param x Abscisse du coin haut gauche du bloc
+     * @param y Ordonnée du coin haut gauche du bloc
+     * @param w Largeur du bloc
+     * @param h Hauteur du bloc
+     * @param out Reçoit les w * h couleurs, ligne par ligne
+     */
+    public void trace(int x, int y, int w, int h, Color[] out) {
+        int n = w * h;
+        RayCounters counters = rayTracer.getStatistics() == null ? null : rayTracer.getStatistics().counters();
+        if (scene.getMaxDepth() < 1) {
+            for (int k = 0; k < n; k++) out[k] = new Color(0, 0, 0);
+            return;
+        }
+
+        // Étape 1 : rayons primaires, déjà cohérents dans l'ordre des lignes
+        RayQueue primary = new RayQueue(n);
+        for (int k = 0; k < n; k++) {
+            if (counters != null) counters.countPrimaryRay();
+            primary.add(rayTracer.calculateRay(x + k % w, y + k / w), Double.POSITIVE_INFINITY, k);
+        }
+
+        List<Stage> stages = new ArrayList<>();
+        Stage stage = new Stage(primary);
+        for (int depth = 1; stage != null; depth++) {
+            stages.add(stage);
+            stage = traceStage(stage, depth, counters);
+        }
+
+        // Recomposition : chaque rayon réfléchi complète la couleur du point qui l'a émis
+        for (int d = stages.size() - 1; d > 0; d--) {
+            Stage child = stages.get(d);
+            Stage parent = stages.get(d - 1);
+            for (int k = 0; k < child.queue.size(); k++) {
+                int from = child.queue.owner(k);
+                Color reflected = child.colors[k] == null ? new Color(0, 0, 0) : child.colors[k];
+                parent.colors[from] = parent.colors[from].add(parent.hits[from].getSpecular().schur(reflected));
+            }
+        }
+
+        Stage first = stages.get(0);
+        for (int k = 0; k < n; k++) {
+            Color color = first.colors[k];
+            out[first.queue.owner(k)] = color == null ? new Color(0, 0, 0) : color; // Fond noir
+        }
+    }
+
+    /**
+     * Trace une étape : impacts, rayons d'ombre, éclairage direct.
+     * @return L'étape des rayons réfléchis, ou null s'il n'y en a aucun
+     */
+    private Stage traceStage(Stage stage, int depth, RayCounters counters) {
+        RayQueue queue = stage.queue;
+        int size = queue.size();
+        stage.rays = new Ray[size];
+        stage.hits = new Intersection[size];
+        stage.colors = new Color[size];
+        for (int k = 0; k < size; k++) stage.rays[k] = queue.ray(k);
+
+        // 1. Impacts de toute la file
+        if (packets && counters == null) {
+            for (int start = 0; start < size; start += RayPacket.MAX_SIZE) {
+                int count = Math.min(RayPacket.MAX_SIZE, size - start);
+                packet.clear();
+                for (int k = 0; k < count; k++) packet.add(stage.rays[start + k]);
+                scene.findClosestIntersections(packet, packetHits);
+                System.arraycopy(packetHits, 0, stage.hits, start, count);
+            }
+        } else {
+            for (int k = 0; k < size; k++) {
+                if (counters != null) counters.countTrace(depth);
+                stage.hits[k] = scene.findClosestIntersection(stage.rays[k], counters).orElse(null);
+            }
+        }
+
+        // 2. Rayons d'ombre : un par point touché et par lumière. Ils partent des impacts de la file,
+        // dans son ordre (lignes de pixels, ou file réfléchie déjà triée) : les trier à nouveau
+        // coûte plus qu'il ne rapporte
+        List<AbstractLight> lights = scene.getLights();
+        int lightCount = lights.size();
+        shadowQueue.clear();
+        for (int k = 0; k < size; k++) {
+            if (stage.hits[k] == null) continue;
+            Point p = stage.hits[k].getPoint();
+            for (int index = 0; index < lightCount; index++) {
+                AbstractLight light = lights.get(index);
+                shadowQueue.add(new Ray(p, light.getL(p)), light.getDistance(p), k * lightCount + index);
+            }
+        }
+        boolean[] shadowed = new boolean[size * lightCount];
+        traceShadows(shadowed, counters);
+
+        // 3. Éclairage direct et file des rayons réfléchis
+        RayQueue reflections = null;
+        for (int k = 0; k < size; k++) {
+            Intersection hit = stage.hits[k];
+            if (hit == null) continue;
+            Ray ray = stage.rays[k];
+            Vector eyeDir = ray.getDirection().multiply(-1).normalize();
+            stage.colors[k] = rayTracer.directLight(hit, eyeDir, counters, shadowed, k * lightCount);
+            Ray reflectedRay = rayTracer.reflectedRay(ray, hit, eyeDir, depth);
+            if (reflectedRay != null) {
+                if (counters != null) counters.countReflectionRay();
+                if (reflections == null) reflections = new RayQueue(size);
+                reflections.add(reflectedRay, Double.POSITIVE_INFINITY, k);
+            }
+        }
+        if (reflections == null) return null;
+        reflections.sort();
+        return new Stage(reflections);
+    }
+
+    /** Teste la file des rayons d'ombre et reporte le résultat dans la case de chacun. */
+    private void traceShadows(boolean[] shadowed, RayCounters counters) {
+        int size = shadowQueue.size();
+        if (packets && counters == null) {
+            for (int start = 0; start < size; start += RayPacket.MAX_SIZE) {
+                int count = Math.min(RayPacket.MAX_SIZE, size - start);
+                packet.clear();
+                for (int k = 0; k < count; k++) {
+                    packet.add(shadowQueue.ray(start + k));
+                    packetDistances[k] = shadowQueue.distance(start + k);
+                }
+                scene.areShadowed(packet, packetDistances, packetBlocked);
+                for (int k = 0; k < count; k++) shadowed[shadowQueue.owner(start + k)] = packetBlocked[k];
+            }
+            return;
+        }
+        for (int k = 0; k < size; k++) {
+            if (counters != null) counters.countShadowRay();
+            shadowed[shadowQueue.owner(k)] = scene.isShadowed(shadowQueue.ray(k), shadowQueue.distance(k), counters);
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package scene;
 
+import acceleration.Accelerator;
+import acceleration.BuildMethod;
+import acceleration.Bvh;
+import acceleration.RayPacket;
+import acceleration.UniformGrid;
 import geometry.Shape;
 import imaging.Color;
 import math.Ray;
 import raytracer.AbstractLight;
 import raytracer.Camera;
+import raytracer.HitRecord;
 import raytracer.Intersection;
+import stats.RayCounters;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -16,6 +23,9 @@ import java.util.Optional;
  */
 public class Scene {
 
+    /** Distance minimale d'un impact, pour éviter l'auto-intersection. */
+    private static final double SELF_INTERSECTION_EPSILON = 1e-4;
+
     private int width;
     private int height;
     private Camera camera;
@@ -24,6 +34,9 @@ public class Scene {
     private final List<AbstractLight> lights = new ArrayList<>();
     private final List<Shape> shapes = new ArrayList<>();
     private int maxDepth = 1;
+    private Accelerator accelerator = Accelerator.BVH; // Structure construite par buildAccelerationStructure
+    private Bvh bvh; // Hiérarchie de volumes englobants (null tant qu'elle n'est pas construite)
+    private UniformGrid grid; // Grille régulière, à la place de la hiérarchie (voir Accelerator.GRID)
     // Getters
     public int getWidth() { return width; }
     public int getHeight() { return height; }
@@ -48,6 +61,81 @@ public class Scene {
     }
     public void addShape(Shape shape) {
         this.shapes.add(shape);
+        this.bvh = null; // La hiérarchie doit être reconstruite
+        this.grid = null;
+    }
+
+    /**
+     * Scène de même contenu, avec la prise de vue (taille, caméra, sortie) d'une autre scène.
+     * Formes, lumières et structure d'accélération sont partagées, pas copiées : aucune des
+     * deux scènes ne doit plus recevoir de formes.
+     * @param view Scène dont on reprend la prise de vue (voir SceneFileParser.parseView)
+     * @return La nouvelle scène
+     */
+    public Scene withView(Scene view) {
+        Scene scene = new Scene();
+        scene.width = view.width;
+        scene.height = view.height;
+        scene.camera = view.camera;
+        scene.output = view.output;
+        scene.ambient = ambient;
+        scene.maxDepth = maxDepth;
+        scene.lights.addAll(lights);
+        scene.shapes.addAll(shapes);
+        scene.accelerator = accelerator;
+        scene.bvh = bvh;
+        scene.grid = grid;
+        return scene;
+    }
+
+    /**
+     * Construit la hiérarchie de volumes englobants sur les formes de la scène, ou la grille
+     * régulière si la scène l'a choisie (voir setAccelerator).
+     * À appeler une fois la scène complète (le parser le fait en fin de lecture).
+     * Sans hiérarchie, les requêtes retombent sur un parcours linéaire des formes.
+     */
+    public void buildAccelerationStructure() {
+        buildAccelerationStructure(BuildMethod.SAH);
+    }
+
+    /**
+     * Construit la hiérarchie de volumes englobants avec la méthode choisie, ou la grille
+     * régulière si la scène l'a choisie (la méthode est alors sans effet).
+     * @param method Méthode de construction (SAH, ou LBVH pour un aperçu rapide)
+     */
+    public void buildAccelerationStructure(BuildMethod method) {
+        if (accelerator == Accelerator.GRID) {
+            this.bvh = null;
+            this.grid = new UniformGrid(shapes);
+            return;
+        }
+        this.grid = null;
+        this.bvh = new Bvh(shapes, method, Runtime.getRuntime().availableProcessors());
+    }
+
+    /** Structure d'accélération choisie pour la scène (hiérarchie par défaut). */
+    public Accelerator getAccelerator() { return accelerator; }
+
+    /**
+     * Choisit la structure d'accélération construite par buildAccelerationStructure.
+     * @param accelerator Hiérarchie ou grille régulière
+     */
+    public void setAccelerator(Accelerator accelerator) { this.accelerator = accelerator; }
+
+    /** Hiérarchie de volumes englobants, ou null si elle n'a pas été construite (ou si la scène utilise une grille). */
+    public Bvh getAccelerationStructure() { return bvh; }
+
+    /** Grille régulière, ou null si la scène n'en utilise pas. */
+    public UniformGrid getGrid() { return grid; }
+
+    /**
+     * Installe une hiérarchie déjà construite (par exemple relue depuis une scène compilée).
+     * Elle doit avoir été construite sur les formes actuelles de la scène, dans le même ordre.
+     * Une grille éventuelle est abandonnée ; avec null, les requêtes parcourent toutes les formes.
+     */
+    public void setAccelerationStructure(Bvh bvh) {
+        this.bvh = bvh;
+        this.grid = null;
     }
 
     /**
@@ -57,21 +145,119 @@ public class Scene {
      * ou vide s'il n'y a pas d'intersection.
      */
     public Optional<Intersection> findClosestIntersection(Ray ray) {
-        Optional<Intersection> closest = Optional.empty();
+        return findClosestIntersection(ray, null);
+    }
+
+    /**
+     * Calcule l'intersection la plus proche en comptant les tests rayon-primitive.
+     * @param ray Le rayon à tester
+     * @param counters Compteurs du thread courant, ou null pour ne rien compter
+     * @return L'intersection la plus proche, ou vide
+     */
+    public Optional<Intersection> findClosestIntersection(Ray ray, RayCounters counters) {
+        if (grid != null) {
+            return grid.findClosestIntersection(ray, SELF_INTERSECTION_EPSILON, counters);
+        }
+        if (bvh != null) {
+            return bvh.findClosestIntersection(ray, SELF_INTERSECTION_EPSILON, counters);
+        }
+
+        // Phase 1 : distances seules, sans allocation
+        Shape closestShape = null;
+        int closestPrimitive = 0;
         double minT = Double.MAX_VALUE;
 
         for (Shape shape : shapes) {
-            Optional<Intersection> hit = shape.intersect(ray);
-            if (hit.isPresent()) {
-                double t = hit.get().getT();
-                if (t > 1e-4 && t < minT) { // epsilon pour éviter l'auto-intersection
+            for (int primitive = 0; primitive < shape.getPrimitiveCount(); primitive++) {
+                double t = shape.hitDistance(primitive, ray);
+                if (counters != null) counters.countTest(shape, t > SELF_INTERSECTION_EPSILON);
+                if (t > SELF_INTERSECTION_EPSILON && t < minT) { // epsilon pour éviter l'auto-intersection
                     minT = t;
-                    closest = hit;
+                    closestShape = shape;
+                    closestPrimitive = primitive;
                 }
             }
         }
-        return closest;
+
+        // Phase 2 : données de surface pour la seule primitive retenue
+        if (closestShape == null) {
+            return Optional.empty();
+        }
+        return Optional.of(closestShape.surfaceAt(closestPrimitive, ray, minT));
     }
+
+    /**
+     * Impact le plus proche d'un rayon donné par ses composantes, sans aucune allocation.
+     * Même résultat que findClosestIntersection ; les données de surface se calculent ensuite
+     * à la demande (Shape.normalAt).
+     * @param out Reçoit l'impact s'il existe
+     * @param counters Compteurs du thread courant, ou null pour ne rien compter
+     * @return true si un impact est trouvé
+     */
+    public boolean findClosestHit(double ox, double oy, double oz, double dx, double dy, double dz,
+                                  HitRecord out, RayCounters counters) {
+        if (grid != null) {
+            return grid.findClosestHit(ox, oy, oz, dx, dy, dz, SELF_INTERSECTION_EPSILON, out, counters);
+        }
+        if (bvh != null) {
+            return bvh.findClosestHit(ox, oy, oz, dx, dy, dz, SELF_INTERSECTION_EPSILON, out, counters);
+        }
+
+        Shape closestShape = null;
+        int closestPrimitive = 0;
+        double minT = Double.MAX_VALUE;
+
+        for (Shape shape : shapes) {
+            for (int primitive = 0; primitive < shape.getPrimitiveCount(); primitive++) {
+                double t = shape.hitDistance(primitive, ox, oy, oz, dx, dy, dz);
+                if (counters != null) counters.countTest(shape, t > SELF_INTERSECTION_EPSILON);
+                if (t > SELF_INTERSECTION_EPSILON && t < minT) {
+                    minT = t;
+                    closestShape = shape;
+                    closestPrimitive = primitive;
+                }
+            }
+        }
+
+        if (closestShape == null) {
+            return false;
+        }
+        out.set(minT, closestShape, closestPrimitive);
+        return true;
+    }
+    /**
+     * Calcule l'intersection la plus proche de chaque rayon d'un paquet (voir {@link RayPacket}).
+     * Les résultats sont ceux de findClosestIntersection, rayon par rayon.
+     * @param packet Les rayons à tester
+     * @param out Reçoit l'intersection de chaque rayon, ou null s'il ne touche rien
+     */
+    public void findClosestIntersections(RayPacket packet, Intersection[] out) {
+        if (bvh != null) {
+            bvh.findClosestIntersections(packet, SELF_INTERSECTION_EPSILON, out);
+            return;
+        }
+        for (int k = 0; k < packet.size(); k++) {
+            out[k] = findClosestIntersection(packet.get(k)).orElse(null);
+        }
+    }
+
+    /**
+     * Vérifie pour chaque rayon d'un paquet si son point de départ est à l'ombre.
+     * Les résultats sont ceux de isShadowed, rayon par rayon.
+     * @param packet Les rayons d'ombre (par exemple vers une même lumière)
+     * @param lightDistances Distance jusqu'à la lumière pour chaque rayon
+     * @param out Reçoit true pour chaque rayon bloqué
+     */
+    public void areShadowed(RayPacket packet, double[] lightDistances, boolean[] out) {
+        if (bvh != null) {
+            bvh.areOccluded(packet, SELF_INTERSECTION_EPSILON, lightDistances, out);
+            return;
+        }
+        for (int k = 0; k < packet.size(); k++) {
+            out[k] = isShadowed(packet.get(k), lightDistances[k]);
+        }
+    }
+
     /**
      * Vérifie si un point est à l'ombre pour une lumière donnée.
      * @param shadowRay Le rayon qui part du point vers la lumière
@@ -79,15 +265,64 @@ public class Scene {
      * @return true si un objet bloque la lumière
      */
     public boolean isShadowed(Ray shadowRay, double lightDistance) {
+        return isShadowed(shadowRay, lightDistance, null);
+    }
+
+    /**
+     * Vérifie si un point est à l'ombre, en comptant les tests rayon-primitive.
+     * @param shadowRay Le rayon qui part du point vers la lumière
+     * @param lightDistance La distance jusqu'à la lumière
+     * @param counters Compteurs du thread courant, ou null pour ne rien compter
+     * @return true si un objet bloque la lumière
+     */
+    public boolean isShadowed(Ray shadowRay, double lightDistance, RayCounters counters) {
+        if (grid != null) {
+            return grid.isOccluded(shadowRay, SELF_INTERSECTION_EPSILON, lightDistance, counters);
+        }
+        if (bvh != null) {
+            return bvh.isOccluded(shadowRay, SELF_INTERSECTION_EPSILON, lightDistance, counters);
+        }
+
         for (Shape shape : shapes) {
-            Optional<Intersection> hit = shape.intersect(shadowRay);
-            if (hit.isPresent()) {
-                double t = hit.get().getT();
-                if (t > 1e-4 && t < lightDistance) {
-                    return true;
-                }
+            if (counters == null) {
+                if (shape.occludes(shadowRay, SELF_INTERSECTION_EPSILON, lightDistance)) return true;
+                continue;
+            }
+            // Même test que Shape.occludes, primitive par primitive pour les compter
+            for (int primitive = 0; primitive < shape.getPrimitiveCount(); primitive++) {
+                double t = shape.hitDistance(primitive, shadowRay);
+                boolean hit = t > SELF_INTERSECTION_EPSILON && t < lightDistance;
+                counters.countTest(shape, hit);
+                if (hit) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Vérifie si un point est à l'ombre, le rayon d'ombre étant donné par ses composantes.
+     * Même résultat que isShadowed(shadowRay, ...), sans aucune allocation.
+     * @param lightDistance La distance jusqu'à la lumière
+     * @param counters Compteurs du thread courant, ou null pour ne rien compter
+     * @return true si un objet bloque la lumière
+     */
+    public boolean isShadowed(double ox, double oy, double oz, double dx, double dy, double dz,
+                              double lightDistance, RayCounters counters) {
+        if (grid != null) {
+            return grid.isOccluded(ox, oy, oz, dx, dy, dz, SELF_INTERSECTION_EPSILON, lightDistance, counters);
+        }
+        if (bvh != null) {
+            return bvh.isOccluded(ox, oy, oz, dx, dy, dz, SELF_INTERSECTION_EPSILON, lightDistance, counters);
+        }
+
+        for (Shape shape : shapes) {
+            for (int primitive = 0; primitive < shape.getPrimitiveCount(); primitive++) {
+                double t = shape.hitDistance(primitive, ox, oy, oz, dx, dy, dz);
+                boolean hit = t > SELF_INTERSECTION_EPSILON && t < lightDistance;
+                if (counters != null) counters.countTest(shape, hit);
+                if (hit) return true;
             }
         }
         return false;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,51 @@
+package stats;
+
+import geometry.Shape;
+
+/**
+ * Compteurs d'un seul thread de rendu : de simples champs long, sans synchronisation.
+ * Chaque thread reçoit les siens par {@link RenderStatistics#counters()} ;
+ * ils ne sont additionnés qu'à la lecture des statistiques, une fois le rendu terminé.
+ */
+public final class RayCounters {
+
+    long primaryRays;
+    long shadowRays;
+    long reflectionRays;
+    long tracedRays;   // Appels de RayTracer.computeColor
+    long depthSum;     // Somme des profondeurs de ces appels
+    final long[] tests = new long[ShapeKind.values().length];
+    final long[] hits = new long[ShapeKind.values().length];
+
+    RayCounters() {
+    }
+
+    /** Un rayon primaire (un par pixel). */
+    public void countPrimaryRay() { primaryRays++; }
+
+    /** Un rayon d'ombre (un par lumière et par impact). */
+    public void countShadowRay() { shadowRays++; }
+
+    /** Un rayon réfléchi. */
+    public void countReflectionRay() { reflectionRays++; }
+
+    /**
+     * Un rayon tracé par RayTracer.computeColor.
+     * @param depth Profondeur de récursion de ce rayon (1 pour un rayon primaire)
+     */
+    public void countTrace(int depth) {
+        tracedRays++;
+        depthSum += depth;
+    }
+
+    /**
+     * Un test rayon-primitive.
+     * @param shape Forme testée
+     * @param hit true si le test a trouvé un impact dans l'intervalle du rayon
+     */
+    public void countTest(Shape shape, boolean hit) {
+        int kind = ShapeKind.of(shape).ordinal();
+        tests[kind]++;
+        if (hit) hits[kind]++;
+    }
+}
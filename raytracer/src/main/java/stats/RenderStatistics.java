@@ -0,0 +1,179 @@
+package stats;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistiques facultatives d'un rendu : rayons lancés, tests d'intersection par famille
+ * de formes, profondeur moyenne de récursion et durée de chaque phase.
+ *
+ * Les compteurs de rayons sont propres à chaque thread ({@link RayCounters}) et ne coûtent
+ * qu'une incrémentation de champ ; les lectures les additionnent et ne doivent donc être faites
+ * qu'une fois le rendu terminé. Sans objet de statistiques (null), le moteur ne compte rien.
+ */
+public final class RenderStatistics {
+
+    /** Phases mesurées d'un lancement. */
+    public enum Phase {
+        PARSE("parse", "analyse"),
+        BUILD("build", "construction"),
+        RENDER("render", "rendu"),
+        ENCODE("encode", "encodage");
+
+        private final String key;
+        private final String label;
+
+        Phase(String key, String label) {
+            this.key = key;
+            this.label = label;
+        }
+    }
+
+    private final Queue<RayCounters> allCounters = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<RayCounters> threadCounters = ThreadLocal.withInitial(this::newCounters);
+    private final LongAdder[] phaseNanos = new LongAdder[Phase.values().length];
+
+    public RenderStatistics() {
+        for (int k = 0; k < phaseNanos.length; k++) {
+            phaseNanos[k] = new LongAdder();
+        }
+    }
+
+    private RayCounters newCounters() {
+        RayCounters counters = new RayCounters();
+        allCounters.add(counters);
+        return counters;
+    }
+
+    /**
+     * Compteurs du thread courant. À récupérer une fois par pixel (ou par tuile)
+     * puis à transmettre au moteur, plutôt qu'à chaque test.
+     */
+    public RayCounters counters() {
+        return threadCounters.get();
+    }
+
+    /**
+     * Ajoute une durée à une phase.
+     * @param phase Phase mesurée
+     * @param nanos Durée en nanosecondes
+     */
+    public void addPhaseTime(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()].add(nanos);
+    }
+
+    /** Durée cumulée d'une phase, en nanosecondes. */
+    public long getPhaseTime(Phase phase) {
+        return phaseNanos[phase.ordinal()].sum();
+    }
+
+    public long getPrimaryRays() {
+        long sum = 0;
+        for (RayCounters c : allCounters) sum += c.primaryRays;
+        return sum;
+    }
+
+    public long getShadowRays() {
+        long sum = 0;
+        for (RayCounters c : allCounters) sum += c.shadowRays;
+        return sum;
+    }
+
+    public long getReflectionRays() {
+        long sum = 0;
+        for (RayCounters c : allCounters) sum += c.reflectionRays;
+        return sum;
+    }
+
+    /** Profondeur moyenne des rayons tracés (1 = rayon primaire), 0 si aucun rayon. */
+    public double getAverageDepth() {
+        long traced = 0;
+        long depthSum = 0;
+        for (RayCounters c : allCounters) {
+            traced += c.tracedRays;
+            depthSum += c.depthSum;
+        }
+        return traced == 0 ? 0.0 : (double) depthSum / traced;
+    }
+
+    /** Nombre de tests rayon-primitive sur une famille de formes. */
+    public long getIntersectionTests(ShapeKind kind) {
+        long sum = 0;
+        for (RayCounters c : allCounters) sum += c.tests[kind.ordinal()];
+        return sum;
+    }
+
+    /** Nombre de tests ayant trouvé un impact dans l'intervalle du rayon. */
+    public long getHits(ShapeKind kind) {
+        long sum = 0;
+        for (RayCounters c : allCounters) sum += c.hits[kind.ordinal()];
+        return sum;
+    }
+
+    /** Nombre de tests sans impact. */
+    public long getMisses(ShapeKind kind) {
+        return getIntersectionTests(kind) - getHits(kind);
+    }
+
+    /**
+     * Résumé lisible, sur plusieurs lignes.
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder("Statistiques de rendu :");
+        sb.append(String.format(Locale.ROOT, "%n  Rayons : %d primaires, %d d'ombre, %d réfléchis",
+                getPrimaryRays(), getShadowRays(), getReflectionRays()));
+        sb.append(String.format(Locale.ROOT, "%n  Profondeur moyenne : %.3f", getAverageDepth()));
+        sb.append(String.format("%n  Tests d'intersection :"));
+        for (ShapeKind kind : ShapeKind.values()) {
+            long tests = getIntersectionTests(kind);
+            if (tests == 0) continue;
+            sb.append(String.format(Locale.ROOT, "%n    %-8s %d tests, %d impacts, %d échecs",
+                    kind.getLabel(), tests, getHits(kind), getMisses(kind)));
+        }
+        sb.append(String.format("%n  Temps :"));
+        for (Phase phase : Phase.values()) {
+            sb.append(String.format(Locale.ROOT, " %s %.1f ms", phase.label, getPhaseTime(phase) / 1e6));
+            if (phase.ordinal() < phaseNanos.length - 1) sb.append(',');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Statistiques au format JSON.
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{\n");
+        sb.append(String.format(Locale.ROOT, "  \"rays\": {\"primary\": %d, \"shadow\": %d, \"reflection\": %d},%n",
+                getPrimaryRays(), getShadowRays(), getReflectionRays()));
+        sb.append(String.format(Locale.ROOT, "  \"averageDepth\": %.6f,%n", getAverageDepth()));
+        sb.append("  \"intersections\": {");
+        ShapeKind[] kinds = ShapeKind.values();
+        for (int k = 0; k < kinds.length; k++) {
+            sb.append(String.format(Locale.ROOT, "%n    \"%s\": {\"tests\": %d, \"hits\": %d, \"misses\": %d}%s",
+                    kinds[k].getLabel(), getIntersectionTests(kinds[k]), getHits(kinds[k]), getMisses(kinds[k]),
+                    k < kinds.length - 1 ? "," : ""));
+        }
+        sb.append("\n  },\n  \"phasesMs\": {");
+        Phase[] phases = Phase.values();
+        for (int k = 0; k < phases.length; k++) {
+            sb.append(String.format(Locale.ROOT, "\"%s\": %.3f%s",
+                    phases[k].key, getPhaseTime(phases[k]) / 1e6, k < phases.length - 1 ? ", " : ""));
+        }
+        sb.append("}\n}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Écrit les statistiques au format JSON.
+     * @param file Fichier de sortie (remplacé s'il existe)
+     */
+    public void writeJson(Path file) throws IOException {
+        Files.writeString(file, toJson(), StandardCharsets.UTF_8);
+    }
+}
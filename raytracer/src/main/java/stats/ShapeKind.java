@@ -0,0 +1,43 @@
+package stats;
+
+import geometry.MeshInstance;
+import geometry.Plane;
+import geometry.Shape;
+import geometry.Sphere;
+import geometry.Triangle;
+import geometry.TriangleMesh;
+
+/**
+ * Familles de formes distinguées par les statistiques d'intersection.
+ * Les triangles isolés et ceux des maillages sont comptés ensemble ; une instance de maillage
+ * compte pour un test, quel que soit le nombre de triangles testés dans sa hiérarchie.
+ */
+public enum ShapeKind {
+    SPHERE("sphere"),
+    TRIANGLE("triangle"),
+    PLANE("plane"),
+    INSTANCE("instance"),
+    OTHER("other");
+
+    private final String label;
+
+    ShapeKind(String label) {
+        this.label = label;
+    }
+
+    /** Nom court, utilisé dans le résumé et dans le fichier JSON. */
+    public String getLabel() { return label; }
+
+    /**
+     * Famille d'une forme.
+     * @param shape Forme testée
+     * @return Sa famille (OTHER pour une forme inconnue)
+     */
+    public static ShapeKind of(Shape shape) {
+        if (shape instanceof Triangle || shape instanceof TriangleMesh) return TRIANGLE;
+        if (shape instanceof Sphere) return SPHERE;
+        if (shape instanceof Plane) return PLANE;
+        if (shape instanceof MeshInstance) return INSTANCE;
+        return OTHER;
+    }
+}
@@ -0,0 +1,267 @@
+package acceleration;
+
+import geometry.Plane;
+import geometry.Shape;
+import geometry.Sphere;
+import geometry.Triangle;
+import imaging.Color;
+import math.Point;
+import math.Ray;
+import math.Vector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import raytracer.Intersection;
+import scene.Scene;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static acceleration.RandomGeometry.randomPoint;
+import static acceleration.RandomGeometry.randomVector;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vérifie que la hiérarchie de volumes englobants donne exactement
+ * les mêmes résultats que le parcours linéaire de la scène.
+ */
+class BvhTest {
+
+    private Scene linearScene;
+    private Scene bvhScene;
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        random = new Random(42);
+        linearScene = new Scene();
+        bvhScene = new Scene();
+
+        Color diffuse = new Color(0.5, 0.5, 0.5);
+        Color specular = new Color(0.2, 0.2, 0.2);
+        for (int k = 0; k < 300; k++) {
+            Shape shape;
+            if (k % 3 == 0) {
+                shape = new Sphere(randomPoint(random, 10), 0.1 + random.nextDouble(), diffuse, specular, 10);
+            } else {
+                Point a = randomPoint(random, 10);
+                shape = new Triangle(a, a.add(randomVector(random)), a.add(randomVector(random)), diffuse, specular, 10);
+            }
+            linearScene.addShape(shape);
+            bvhScene.addShape(shape);
+        }
+        Plane floor = new Plane(new Point(0, -12, 0), new Vector(0, 1, 0), diffuse, specular, 10);
+        linearScene.addShape(floor);
+        bvhScene.addShape(floor);
+
+        bvhScene.buildAccelerationStructure();
+    }
+
+    @Test
+    void testStructureSeparatesUnboundedShapes() {
+        Bvh bvh = bvhScene.getAccelerationStructure();
+        assertNotNull(bvh);
+        assertEquals(300, bvh.getBoundedCount());
+        assertEquals(1, bvh.getUnboundedCount(), "Le plan doit rester hors de l'arbre.");
+        assertTrue(bvh.getDepth() > 1);
+    }
+
+    @Test
+    void testClosestIntersectionMatchesLinearScan() {
+        for (int k = 0; k < 5000; k++) {
+            Ray ray = new Ray(randomPoint(random, 15), randomVector(random).normalize());
+            Optional<Intersection> expected = linearScene.findClosestIntersection(ray);
+            Optional<Intersection> actual = bvhScene.findClosestIntersection(ray);
+
+            assertEquals(expected.isPresent(), actual.isPresent(), "Présence de l'impact différente.");
+            if (expected.isPresent()) {
+                assertEquals(expected.get().getT(), actual.get().getT(), "Distance différente.");
+                assertSame(expected.get().getShape(), actual.get().getShape(), "Forme touchée différente.");
+            }
+        }
+    }
+
+    @Test
+    void testShadowQueryMatchesLinearScan() {
+        for (int k = 0; k < 5000; k++) {
+            Ray ray = new Ray(randomPoint(random, 15), randomVector(random).normalize());
+            double distance = k % 2 == 0 ? Double.POSITIVE_INFINITY : random.nextDouble() * 10;
+            assertEquals(linearScene.isShadowed(ray, distance), bvhScene.isShadowed(ray, distance),
+                    "Résultat d'ombre différent.");
+        }
+    }
+
+    @Test
+    void testParallelBuildIsDeterministic() throws IOException {
+        // Assez de primitives pour que la construction soit découpée en tâches
+        Color c = new Color(0.5, 0.5, 0.5);
+        List<Shape> shapes = new ArrayList<>();
+        for (int k = 0; k < 10000; k++) {
+            Point a = randomPoint(random, 50);
+            shapes.add(new Triangle(a, a.add(randomVector(random)), a.add(randomVector(random)), c, c, 1));
+        }
+
+        byte[] serial = serialize(new Bvh(shapes, 1));
+        assertArrayEquals(serial, serialize(new Bvh(shapes, 4)), "L'arbre dépend du nombre de threads.");
+        assertArrayEquals(serial, serialize(new Bvh(shapes, 7)), "L'arbre dépend du nombre de threads.");
+    }
+
+    @Test
+    void testCoincidentCentroidsAreSplit() {
+        // Centres tous confondus : aucune coupe par classes, la plage est coupée en deux
+        Color c = new Color(0.5, 0.5, 0.5);
+        Scene scene = new Scene();
+        for (int k = 0; k < 50; k++) {
+            scene.addShape(new Sphere(new Point(0, 0, 0), 1 + k * 0.01, c, c, 1));
+        }
+        scene.buildAccelerationStructure();
+        assertTrue(scene.getAccelerationStructure().getDepth() > 1);
+
+        Optional<Intersection> hit = scene.findClosestIntersection(new Ray(new Point(0, 0, -5), new Vector(0, 0, 1)));
+        assertTrue(hit.isPresent());
+        assertSame(scene.getShapes().get(49), hit.get().getShape(), "La plus grande sphère est touchée en premier.");
+    }
+
+    @Test
+    void testLinearBuildMatchesLinearScan() {
+        Scene lbvhScene = new Scene();
+        for (Shape shape : linearScene.getShapes()) lbvhScene.addShape(shape);
+        lbvhScene.buildAccelerationStructure(BuildMethod.LBVH);
+
+        Bvh bvh = lbvhScene.getAccelerationStructure();
+        assertEquals(300, bvh.getBoundedCount());
+        assertEquals(1, bvh.getUnboundedCount(), "Le plan doit rester hors de l'arbre.");
+        for (int k = 0; k < 5000; k++) {
+            Ray ray = new Ray(randomPoint(random, 15), randomVector(random).normalize());
+            Optional<Intersection> expected = linearScene.findClosestIntersection(ray);
+            Optional<Intersection> actual = lbvhScene.findClosestIntersection(ray);
+
+            assertEquals(expected.isPresent(), actual.isPresent(), "Présence de l'impact différente.");
+            if (expected.isPresent()) {
+                assertEquals(expected.get().getT(), actual.get().getT(), "Distance différente.");
+                assertSame(expected.get().getShape(), actual.get().getShape(), "Forme touchée différente.");
+            }
+            double distance = k % 2 == 0 ? Double.POSITIVE_INFINITY : random.nextDouble() * 10;
+            assertEquals(linearScene.isShadowed(ray, distance), lbvhScene.isShadowed(ray, distance),
+                    "Résultat d'ombre différent.");
+        }
+    }
+
+    @Test
+    void testLinearBuildIsDeterministic() throws IOException {
+        Color c = new Color(0.5, 0.5, 0.5);
+        List<Shape> shapes = new ArrayList<>();
+        for (int k = 0; k < 10000; k++) {
+            Point a = randomPoint(random, 50);
+            shapes.add(new Triangle(a, a.add(randomVector(random)), a.add(randomVector(random)), c, c, 1));
+        }
+
+        byte[] serial = serialize(new Bvh(shapes, BuildMethod.LBVH, 1));
+        assertArrayEquals(serial, serialize(new Bvh(shapes, BuildMethod.LBVH, 4)), "L'arbre dépend du nombre de threads.");
+        assertFalse(Arrays.equals(serial, serialize(new Bvh(shapes, BuildMethod.SAH, 1))));
+    }
+
+    @Test
+    void testMortonCodeInterleavesBits() {
+        assertEquals(0b100, Bvh.mortonCode(1, 0, 0));
+        assertEquals(0b010, Bvh.mortonCode(0, 1, 0));
+        assertEquals(0b001, Bvh.mortonCode(0, 0, 1));
+        assertEquals(0b111000, Bvh.mortonCode(2, 2, 2));
+        int max = (1 << 21) - 1;
+        assertEquals(Long.MAX_VALUE, Bvh.mortonCode(max, max, max), "Les 63 bits doivent être utilisés.");
+    }
+
+    @Test
+    void testSavedTreeIsRestoredAndChecked() throws IOException {
+        List<Shape> shapes = bvhScene.getShapes();
+        byte[] saved = serialize(bvhScene.getAccelerationStructure());
+        Bvh restored = Bvh.readFrom(shapes, ByteBuffer.wrap(saved));
+        assertArrayEquals(saved, serialize(restored));
+        assertEquals(bvhScene.getAccelerationStructure().getDepth(), restored.getDepth());
+
+        // Enfant droit de la racine pointant sur son enfant gauche : ce n'est plus un arbre
+        ByteBuffer corrupt = ByteBuffer.wrap(saved.clone());
+        int primitiveCount = corrupt.getInt(0);
+        int nodeCount = corrupt.getInt(4 + 4 * primitiveCount);
+        corrupt.putInt(8 + 4 * primitiveCount + 48 * nodeCount, 1);
+        assertThrows(IllegalArgumentException.class, () -> Bvh.readFrom(shapes, corrupt));
+    }
+
+    private static byte[] serialize(Bvh bvh) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bvh.writeTo(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void testTieGoesToFirstShape() {
+        Color c = new Color(0.5, 0.5, 0.5);
+        Scene scene = new Scene();
+        Sphere first = new Sphere(new Point(0, 0, 0), 1, c, c, 1);
+        Sphere second = new Sphere(new Point(0, 0, 0), 1, c, c, 1);
+        for (int k = 0; k < 20; k++) {
+            scene.addShape(new Sphere(new Point(3 * k + 5, 0, 0), 1, c, c, 1));
+        }
+        scene.addShape(first);
+        scene.addShape(second);
+        scene.buildAccelerationStructure();
+
+        Optional<Intersection> hit = scene.findClosestIntersection(new Ray(new Point(0, 0, -5), new Vector(0, 0, 1)));
+        assertTrue(hit.isPresent());
+        assertSame(first, hit.get().getShape(), "À distance égale, la première forme ajoutée doit l'emporter.");
+    }
+
+    @Test
+    void testPacketsMatchSingleRays() {
+        assertPacketsMatchLinearScan();
+        // Mêmes paquets avec les triangles des feuilles testés par blocs
+        bvhScene.getAccelerationStructure().groupTriangles(true);
+        assertPacketsMatchLinearScan();
+    }
+
+    private void assertPacketsMatchLinearScan() {
+        RayPacket packet = new RayPacket();
+        Intersection[] hits = new Intersection[RayPacket.MAX_SIZE];
+        double[] distances = new double[RayPacket.MAX_SIZE];
+        boolean[] shadowed = new boolean[RayPacket.MAX_SIZE];
+        for (int k = 0; k < 600; k++) {
+            packet.clear();
+            Point origin = randomPoint(random, 15);
+            Vector direction = randomVector(random);
+            Point light = randomPoint(random, 15);
+            for (int r = 0; r < RayPacket.MAX_SIZE; r++) {
+                switch (k % 3) {
+                    case 0: // Rayons primaires : même origine, directions voisines
+                        packet.add(new Ray(origin, direction.add(randomVector(random).multiply(0.05)).normalize()));
+                        break;
+                    case 1: // Rayons d'ombre : origines voisines, vers un même point
+                        Point p = origin.add(randomVector(random).multiply(0.5));
+                        packet.add(new Ray(p, light.subtract(p).normalize()));
+                        break;
+                    default: // Paquet divergent
+                        packet.add(new Ray(randomPoint(random, 15), randomVector(random).normalize()));
+                }
+                distances[r] = k % 2 == 0 ? Double.POSITIVE_INFINITY : random.nextDouble() * 10;
+            }
+
+            bvhScene.findClosestIntersections(packet, hits);
+            bvhScene.areShadowed(packet, distances, shadowed);
+            for (int r = 0; r < packet.size(); r++) {
+                Optional<Intersection> expected = linearScene.findClosestIntersection(packet.get(r));
+                assertEquals(expected.isPresent(), hits[r] != null, "Présence de l'impact différente.");
+                if (expected.isPresent()) {
+                    assertEquals(expected.get().getT(), hits[r].getT(), "Distance différente.");
+                    assertSame(expected.get().getShape(), hits[r].getShape(), "Forme touchée différente.");
+                }
+                assertEquals(linearScene.isShadowed(packet.get(r), distances[r]), shadowed[r],
+                        "Résultat d'ombre différent.");
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package acceleration;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vérifie le tri par base : ordre des clés, stabilité et indépendance vis-à-vis du nombre de threads.
+ */
+class RadixSortTest {
+
+    @Test
+    void testSortsKeysAndKeepsEqualKeysInOrder() {
+        Random random = new Random(7);
+        int n = 200_000;
+        long[] keys = new long[n];
+        int[] values = new int[n];
+        for (int k = 0; k < n; k++) {
+            keys[k] = random.nextInt(1000) * 1_000_000_007L; // Beaucoup de doublons, bits de poids fort utilisés
+            values[k] = k;
+        }
+        long[] expected = keys.clone();
+        Arrays.sort(expected);
+
+        RadixSort.sort(keys, values, 63, null);
+
+        assertArrayEquals(expected, keys);
+        for (int k = 1; k < n; k++) {
+            if (keys[k] == keys[k - 1]) assertTrue(values[k] > values[k - 1], "Tri instable en " + k);
+        }
+    }
+
+    @Test
+    void testParallelSortMatchesSerial() {
+        Random random = new Random(11);
+        int n = 300_000;
+        long[] serialKeys = new long[n];
+        int[] serialValues = new int[n];
+        for (int k = 0; k < n; k++) {
+            serialKeys[k] = random.nextLong() >>> 1;
+            serialValues[k] = k;
+        }
+        long[] parallelKeys = serialKeys.clone();
+        int[] parallelValues = serialValues.clone();
+
+        RadixSort.sort(serialKeys, serialValues, 63, null);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            RadixSort.sort(parallelKeys, parallelValues, 63, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertArrayEquals(serialKeys, parallelKeys);
+        assertArrayEquals(serialValues, parallelValues);
+    }
+
+    @Test
+    void testEmptyAndSingleKey() {
+        RadixSort.sort(new long[0], new int[0], 63, null);
+        long[] keys = { 42 };
+        int[] values = { 3 };
+        RadixSort.sort(keys, values, 63, null);
+        assertEquals(42, keys[0]);
+        assertEquals(3, values[0]);
+    }
+}
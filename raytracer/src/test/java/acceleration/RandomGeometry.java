@@ -0,0 +1,27 @@
+package acceleration;
+
+import math.Point;
+import math.Vector;
+
+import java.util.Random;
+
+/**
+ * Points et vecteurs aléatoires communs aux tests des structures d'accélération.
+ */
+final class RandomGeometry {
+
+    private RandomGeometry() {
+    }
+
+    /** Point uniforme dans le cube [-extent, extent]³. */
+    static Point randomPoint(Random random, double extent) {
+        return new Point((random.nextDouble() * 2 - 1) * extent,
+                (random.nextDouble() * 2 - 1) * extent,
+                (random.nextDouble() * 2 - 1) * extent);
+    }
+
+    /** Vecteur de composantes uniformes dans [-1, 1] (non normalisé). */
+    static Vector randomVector(Random random) {
+        return new Vector(random.nextDouble() * 2 - 1, random.nextDouble() * 2 - 1, random.nextDouble() * 2 - 1);
+    }
+}
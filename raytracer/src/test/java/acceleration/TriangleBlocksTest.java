@@ -0,0 +1,196 @@
+package acceleration;
+
+import geometry.Shape;
+import geometry.Sphere;
+import geometry.Triangle;
+import geometry.TriangleMesh;
+import imaging.Color;
+import math.Point;
+import math.Ray;
+import math.Vector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import raytracer.Intersection;
+import scene.Scene;
+
+import java.util.Optional;
+import java.util.Random;
+
+import static acceleration.RandomGeometry.randomPoint;
+import static acceleration.RandomGeometry.randomVector;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Vérifie que les tests de triangles par blocs, scalaires ou SIMD, donnent exactement
+ * les distances de Triangle.hitDistance et les mêmes impacts que le parcours linéaire.
+ */
+class TriangleBlocksTest {
+
+    private static final int W = TriangleBlocks.LANES;
+
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        random = new Random(5);
+    }
+
+    @Test
+    void testSimdKernelMatchesScalarTriangle() {
+        assumeTrue(Bvh.isSimdAvailable(), "API Vector indisponible (--add-modules jdk.incubator.vector, AVX)");
+        double[] block = new double[9 * W];
+        double[][] triangles = new double[W][];
+        double[] out = new double[1];
+        for (int k = 0; k < 20000; k++) {
+            for (int lane = 0; lane < W; lane++) {
+                triangles[lane] = randomTriangle(k);
+                for (int v = 0; v < 9; v++) block[v * W + lane] = triangles[lane][v];
+            }
+            // Rayons visant un sommet, un milieu d'arête, ou parallèles au plan du premier triangle
+            Point o = randomPoint(random, 8);
+            double[] aim = triangles[random.nextInt(W)];
+            Vector d;
+            switch (k % 4) {
+                case 0: d = new Vector(aim[0] - o.getX(), aim[1] - o.getY(), aim[2] - o.getZ()); break;
+                case 1: d = new Vector(aim[0] + aim[3] / 2 - o.getX(), aim[1] + aim[4] / 2 - o.getY(),
+                        aim[2] + aim[5] / 2 - o.getZ()); break;
+                case 2: d = new Vector(triangles[0][3] + triangles[0][6], triangles[0][4] + triangles[0][7],
+                        triangles[0][5] + triangles[0][8]); break;
+                default: d = randomVector(random);
+            }
+            double tMin = k % 3 == 0 ? 1e-4 : random.nextDouble() * 5;
+
+            double[] expected = new double[W];
+            double min = Double.POSITIVE_INFINITY;
+            for (int lane = 0; lane < W; lane++) {
+                double[] tri = triangles[lane];
+                expected[lane] = Triangle.hitDistance(o.getX(), o.getY(), o.getZ(), d.getX(), d.getY(), d.getZ(),
+                        tri[0], tri[1], tri[2], tri[3], tri[4], tri[5], tri[6], tri[7], tri[8]);
+                if (expected[lane] > tMin) min = Math.min(min, expected[lane]);
+
+                // Une voie seule : même distance au bit près
+                long hit = VectorTriangles.nearest(block, 0, 1 << lane, o.getX(), o.getY(), o.getZ(),
+                        d.getX(), d.getY(), d.getZ(), tMin, out);
+                if (expected[lane] > tMin && expected[lane] != Shape.NO_HIT) {
+                    assertEquals(1L << lane, hit, "Voie " + lane + " manquée.");
+                    assertEquals(expected[lane], out[0], "Voie " + lane + " différente.");
+                } else {
+                    assertEquals(0L, hit, "Voie " + lane + " touchée à tort.");
+                }
+            }
+
+            // Quatre voies : réduction au minimum, voies à égalité signalées
+            long hits = VectorTriangles.nearest(block, 0, (1 << W) - 1, o.getX(), o.getY(), o.getZ(),
+                    d.getX(), d.getY(), d.getZ(), tMin, out);
+            assertEquals(min, out[0]);
+            for (int lane = 0; lane < W; lane++) {
+                boolean tied = min != Double.POSITIVE_INFINITY && expected[lane] == min;
+                assertEquals(tied, (hits & (1L << lane)) != 0, "Voie " + lane + " mal signalée.");
+            }
+        }
+    }
+
+    @Test
+    void testScalarBlocksMatchLinearScan() {
+        assertMatchesLinearScan(false, false);
+        assertMatchesLinearScan(false, true);
+    }
+
+    @Test
+    void testSimdBlocksMatchLinearScan() {
+        assumeTrue(Bvh.isSimdAvailable(), "API Vector indisponible (--add-modules jdk.incubator.vector, AVX)");
+        assertMatchesLinearScan(true, false);
+        assertMatchesLinearScan(true, true);
+    }
+
+    @Test
+    void testSharedEdgeTieKeepsFirstPrimitive() {
+        // Deux triangles d'un maillage partagent l'arête x = 0 : un rayon qui la vise les touche
+        // à la même distance, et le premier ajouté à la scène doit l'emporter
+        Color c = new Color(0.5, 0.5, 0.5);
+        double[] vertices = { 0, -1, 0,  0, 1, 0,  -1, 0, 0,  1, 0, 0 };
+        Scene scene = new Scene();
+        scene.addShape(new TriangleMesh(vertices, new int[] { 0, 1, 3, 0, 1, 2 }, c, c, 1));
+        scene.addShape(new Triangle(new Point(0, -1, 0), new Point(0, 1, 0), new Point(-1, 0, 0), c, c, 1));
+        scene.buildAccelerationStructure();
+        Bvh bvh = scene.getAccelerationStructure();
+        Ray ray = new Ray(new Point(0, 0.25, 3), new Vector(0, 0, -1));
+        double expectedT = scene.findClosestIntersection(ray).orElseThrow().getT();
+
+        bvh.groupTriangles(true);
+        assertTrue(bvh.isGrouped());
+        Optional<Intersection> hit = scene.findClosestIntersection(ray);
+        assertTrue(hit.isPresent());
+        assertEquals(expectedT, hit.get().getT());
+        assertSame(scene.getShapes().get(0), hit.get().getShape());
+        assertEquals(-1.0, hit.get().getNormal().getZ(), 1e-12, "La normale doit être celle du premier triangle du maillage.");
+    }
+
+    private void assertMatchesLinearScan(boolean simd, boolean wide) {
+        Color diffuse = new Color(0.5, 0.5, 0.5);
+        Color specular = new Color(0.2, 0.2, 0.2);
+        Scene linearScene = new Scene();
+        for (int k = 0; k < 400; k++) {
+            if (k % 5 == 0) {
+                linearScene.addShape(new Sphere(randomPoint(random, 10), 0.1 + random.nextDouble(), diffuse, specular, 10));
+            } else {
+                Point a = randomPoint(random, 10);
+                linearScene.addShape(new Triangle(a, a.add(randomVector(random)), a.add(randomVector(random)), diffuse, specular, 10));
+            }
+        }
+        // Maillage dont les triangles partagent leurs arêtes
+        int n = 12;
+        double[] vertices = new double[3 * (n + 1) * (n + 1)];
+        for (int i = 0; i <= n; i++) {
+            for (int j = 0; j <= n; j++) {
+                int v = 3 * (i * (n + 1) + j);
+                vertices[v] = i - n / 2.0;
+                vertices[v + 1] = random.nextDouble();
+                vertices[v + 2] = j - n / 2.0;
+            }
+        }
+        int[] indices = new int[6 * n * n];
+        for (int i = 0, f = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                int v = i * (n + 1) + j;
+                indices[f++] = v; indices[f++] = v + 1; indices[f++] = v + n + 1;
+                indices[f++] = v + 1; indices[f++] = v + n + 2; indices[f++] = v + n + 1;
+            }
+        }
+        linearScene.addShape(new TriangleMesh(vertices, indices, diffuse, specular, 10));
+
+        Scene groupedScene = new Scene();
+        for (Shape shape : linearScene.getShapes()) groupedScene.addShape(shape);
+        groupedScene.buildAccelerationStructure();
+        Bvh bvh = groupedScene.getAccelerationStructure();
+        if (wide) bvh.widen(simd);
+        bvh.groupTriangles(simd);
+        assertEquals(simd, bvh.isSimdGrouped());
+
+        for (int k = 0; k < 5000; k++) {
+            Ray ray = new Ray(randomPoint(random, 15), randomVector(random).normalize());
+            Optional<Intersection> expected = linearScene.findClosestIntersection(ray);
+            Optional<Intersection> actual = groupedScene.findClosestIntersection(ray);
+
+            assertEquals(expected.isPresent(), actual.isPresent(), "Présence de l'impact différente.");
+            if (expected.isPresent()) {
+                assertEquals(expected.get().getT(), actual.get().getT(), "Distance différente.");
+                assertSame(expected.get().getShape(), actual.get().getShape(), "Forme touchée différente.");
+                assertEquals(expected.get().getNormal(), actual.get().getNormal(), "Triangle touché différent.");
+            }
+            double distance = k % 2 == 0 ? Double.POSITIVE_INFINITY : random.nextDouble() * 10;
+            assertEquals(linearScene.isShadowed(ray, distance), groupedScene.isShadowed(ray, distance),
+                    "Résultat d'ombre différent.");
+        }
+    }
+
+    /** Sommet A et arêtes d'un triangle aléatoire, parfois dégénéré. */
+    private double[] randomTriangle(int k) {
+        Point a = randomPoint(random, 5);
+        Vector e1 = randomVector(random);
+        Vector e2 = k % 11 == 0 ? e1.multiply(2) : randomVector(random);
+        return new double[] { a.getX(), a.getY(), a.getZ(), e1.getX(), e1.getY(), e1.getZ(),
+                e2.getX(), e2.getY(), e2.getZ() };
+    }
+}
@@ -0,0 +1,174 @@
+package acceleration;
+
+import geometry.Plane;
+import geometry.Shape;
+import geometry.Sphere;
+import geometry.Triangle;
+import imaging.Color;
+import math.Point;
+import math.Ray;
+import math.Vector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import raytracer.Intersection;
+import scene.Scene;
+import stats.RenderStatistics;
+import stats.ShapeKind;
+
+import java.util.Optional;
+import java.util.Random;
+
+import static acceleration.RandomGeometry.randomPoint;
+import static acceleration.RandomGeometry.randomVector;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vérifie que la grille régulière donne exactement les mêmes résultats
+ * que le parcours linéaire de la scène, et qu'elle ne teste chaque primitive qu'une fois par rayon.
+ */
+class UniformGridTest {
+
+    private Scene linearScene;
+    private Scene gridScene;
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        random = new Random(42);
+        linearScene = new Scene();
+        gridScene = new Scene();
+        gridScene.setAccelerator(Accelerator.GRID);
+
+        Color diffuse = new Color(0.5, 0.5, 0.5);
+        Color specular = new Color(0.2, 0.2, 0.2);
+        for (int k = 0; k < 300; k++) {
+            Shape shape;
+            if (k % 3 == 0) {
+                shape = new Sphere(randomPoint(random, 10), 0.1 + random.nextDouble(), diffuse, specular, 10);
+            } else {
+                Point a = randomPoint(random, 10);
+                shape = new Triangle(a, a.add(randomVector(random)), a.add(randomVector(random)), diffuse, specular, 10);
+            }
+            linearScene.addShape(shape);
+            gridScene.addShape(shape);
+        }
+        Plane floor = new Plane(new Point(0, -12, 0), new Vector(0, 1, 0), diffuse, specular, 10);
+        linearScene.addShape(floor);
+        gridScene.addShape(floor);
+
+        gridScene.buildAccelerationStructure();
+    }
+
+    @Test
+    void testStructureSeparatesUnboundedShapes() {
+        UniformGrid grid = gridScene.getGrid();
+        assertNotNull(grid);
+        assertNull(gridScene.getAccelerationStructure(), "La grille remplace la hiérarchie.");
+        assertEquals(1, grid.getUnboundedCount(), "Le plan doit rester hors de la grille.");
+        assertTrue(grid.getCellCount() > 1);
+        assertTrue(grid.getReferenceCount() >= 300);
+    }
+
+    @Test
+    void testResolutionFollowsPrimitiveCount() {
+        UniformGrid grid = gridScene.getGrid();
+        // Scène à peu près cubique : DENSITY cellules par primitive, à l'arrondi près
+        double expected = UniformGrid.DENSITY * 300;
+        assertTrue(grid.getCellCount() > expected / 2 && grid.getCellCount() < expected * 2,
+                "Nombre de cellules inattendu : " + grid.getCellCount());
+
+        // Scène plate : une seule couche de cellules
+        Color c = new Color(0.5, 0.5, 0.5);
+        Scene flat = new Scene();
+        flat.setAccelerator(Accelerator.GRID);
+        flat.addShape(new Triangle(new Point(0, 0, 0), new Point(10, 0, 0), new Point(0, 0, 10), c, c, 1));
+        flat.addShape(new Triangle(new Point(10, 0, 10), new Point(10, 0, 0), new Point(0, 0, 10), c, c, 1));
+        flat.buildAccelerationStructure();
+        assertEquals(1, flat.getGrid().getResolution(1));
+    }
+
+    @Test
+    void testClosestIntersectionMatchesLinearScan() {
+        for (int k = 0; k < 5000; k++) {
+            Ray ray = new Ray(randomPoint(random, 15), randomVector(random).normalize());
+            Optional<Intersection> expected = linearScene.findClosestIntersection(ray);
+            Optional<Intersection> actual = gridScene.findClosestIntersection(ray);
+
+            assertEquals(expected.isPresent(), actual.isPresent(), "Présence de l'impact différente.");
+            if (expected.isPresent()) {
+                assertEquals(expected.get().getT(), actual.get().getT(), "Distance différente.");
+                assertSame(expected.get().getShape(), actual.get().getShape(), "Forme touchée différente.");
+            }
+        }
+    }
+
+    @Test
+    void testShadowQueryMatchesLinearScan() {
+        for (int k = 0; k < 5000; k++) {
+            Ray ray = new Ray(randomPoint(random, 15), randomVector(random).normalize());
+            double distance = k % 2 == 0 ? Double.POSITIVE_INFINITY : random.nextDouble() * 10;
+            assertEquals(linearScene.isShadowed(ray, distance), gridScene.isShadowed(ray, distance),
+                    "Résultat d'ombre différent.");
+        }
+    }
+
+    @Test
+    void testAxisAlignedRaysMatchLinearScan() {
+        // Directions parallèles aux plans des cellules, origines dedans et dehors
+        Vector[] directions = { new Vector(1, 0, 0), new Vector(0, -1, 0), new Vector(0, 0, 1), new Vector(-1, 0, 0) };
+        for (int k = 0; k < 2000; k++) {
+            Ray ray = new Ray(randomPoint(random, 15), directions[k % directions.length]);
+            Optional<Intersection> expected = linearScene.findClosestIntersection(ray);
+            Optional<Intersection> actual = gridScene.findClosestIntersection(ray);
+            assertEquals(expected.map(Intersection::getT), actual.map(Intersection::getT));
+        }
+    }
+
+    @Test
+    void testMailboxTestsEachPrimitiveOnce() {
+        // Une grande sphère couvre toutes les cellules ; le rayon la traverse de part en part
+        Color c = new Color(0.5, 0.5, 0.5);
+        Scene scene = new Scene();
+        scene.setAccelerator(Accelerator.GRID);
+        scene.addShape(new Sphere(new Point(0, 0, 0), 10, c, c, 1));
+        for (int k = 0; k < 200; k++) {
+            scene.addShape(new Sphere(randomPoint(random, 10), 0.2, c, c, 1));
+        }
+        scene.buildAccelerationStructure();
+        assertTrue(scene.getGrid().getReferenceCount() >= scene.getGrid().getCellCount());
+
+        RenderStatistics statistics = new RenderStatistics();
+        Ray ray = new Ray(new Point(-20, 0.01, 0.02), new Vector(1, 0, 0));
+        scene.isShadowed(ray, 1e-3, statistics.counters()); // Aucun obstacle aussi près : toutes les cellules
+        assertTrue(statistics.getIntersectionTests(ShapeKind.SPHERE) <= scene.getShapes().size(),
+                "Une primitive a été testée plusieurs fois.");
+
+        statistics = new RenderStatistics();
+        ray = new Ray(new Point(0, 0.01, 0.02), new Vector(1, 0, 0));
+        assertTrue(scene.findClosestIntersection(ray, statistics.counters()).isPresent());
+        assertTrue(statistics.getIntersectionTests(ShapeKind.SPHERE) <= scene.getShapes().size());
+    }
+
+    @Test
+    void testEmptyAndUnboundedOnlyScenes() {
+        Color c = new Color(0.5, 0.5, 0.5);
+        Scene scene = new Scene();
+        scene.setAccelerator(Accelerator.GRID);
+        scene.buildAccelerationStructure();
+        assertEquals(0, scene.getGrid().getCellCount());
+        assertTrue(scene.findClosestIntersection(new Ray(new Point(0, 0, 0), new Vector(0, 0, 1))).isEmpty());
+
+        scene.addShape(new Plane(new Point(0, 0, 5), new Vector(0, 0, -1), c, c, 1));
+        scene.buildAccelerationStructure();
+        Optional<Intersection> hit = scene.findClosestIntersection(new Ray(new Point(0, 0, 0), new Vector(0, 0, 1)));
+        assertTrue(hit.isPresent());
+        assertEquals(5.0, hit.get().getT(), 1e-12);
+    }
+
+    @Test
+    void testAcceleratorKeys() {
+        assertEquals(Accelerator.GRID, Accelerator.fromKey("grid"));
+        assertEquals(Accelerator.BVH, Accelerator.fromKey("bvh"));
+        assertThrows(IllegalArgumentException.class, () -> Accelerator.fromKey("kd"));
+    }
+}
@@ -0,0 +1,134 @@
+package acceleration;
+
+import geometry.BoundingBox;
+import geometry.Plane;
+import geometry.Shape;
+import geometry.Sphere;
+import geometry.Triangle;
+import imaging.Color;
+import math.Point;
+import math.Ray;
+import math.Vector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import raytracer.Intersection;
+import scene.Scene;
+
+import java.util.Optional;
+import java.util.Random;
+
+import static acceleration.RandomGeometry.randomPoint;
+import static acceleration.RandomGeometry.randomVector;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Vérifie que la version à 4 enfants par nœud, scalaire ou SIMD,
+ * donne exactement les mêmes résultats que le parcours linéaire.
+ */
+class WideBvhTest {
+
+    private Scene linearScene;
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        random = new Random(3);
+        linearScene = new Scene();
+        Color diffuse = new Color(0.5, 0.5, 0.5);
+        Color specular = new Color(0.2, 0.2, 0.2);
+        for (int k = 0; k < 500; k++) {
+            Shape shape;
+            if (k % 4 == 0) {
+                shape = new Sphere(randomPoint(random, 10), 0.1 + random.nextDouble(), diffuse, specular, 10);
+            } else {
+                Point a = randomPoint(random, 10);
+                shape = new Triangle(a, a.add(randomVector(random)), a.add(randomVector(random)), diffuse, specular, 10);
+            }
+            linearScene.addShape(shape);
+        }
+        linearScene.addShape(new Plane(new Point(0, -12, 0), new Vector(0, 1, 0), diffuse, specular, 10));
+    }
+
+    @Test
+    void testScalarWideMatchesLinearScan() {
+        assertMatchesLinearScan(false);
+    }
+
+    @Test
+    void testSimdWideMatchesLinearScan() {
+        assumeTrue(Bvh.isSimdAvailable(), "API Vector indisponible (--add-modules jdk.incubator.vector, AVX)");
+        assertMatchesLinearScan(true);
+    }
+
+    @Test
+    void testSimdSlabsMatchScalarBoxTest() {
+        assumeTrue(Bvh.isSimdAvailable(), "API Vector indisponible (--add-modules jdk.incubator.vector, AVX)");
+        int w = WideBvh.WIDTH;
+        double[] bounds = new double[6 * w];
+        BoundingBox[] boxes = new BoundingBox[w];
+        double[] out = new double[w];
+        for (int k = 0; k < 20000; k++) {
+            for (int lane = 0; lane < w; lane++) {
+                Point a = randomPoint(random, 5);
+                // Boîtes plates de temps en temps : composantes NaN et distances égales
+                Point b = k % 5 == 0 ? new Point(a.getX(), a.getY() + 1, a.getZ() + 1) : a.add(randomVector(random));
+                boxes[lane] = new BoundingBox(a, b);
+                for (int axis = 0; axis < 3; axis++) {
+                    bounds[axis * w + lane] = boxes[lane].getMin(axis);
+                    bounds[(axis + 3) * w + lane] = boxes[lane].getMax(axis);
+                }
+            }
+            Point o = k % 7 == 0 ? new Point(boxes[0].getMinX(), 0, 0) : randomPoint(random, 8);
+            Vector d = k % 3 == 0 ? new Vector(0, random.nextDouble() - 0.5, 1) : randomVector(random);
+            double tMax = k % 2 == 0 ? Double.MAX_VALUE : random.nextDouble() * 10;
+
+            VectorSlabs.entries(bounds, 0, o.getX(), o.getY(), o.getZ(),
+                    1.0 / d.getX(), 1.0 / d.getY(), 1.0 / d.getZ(), tMax, out);
+            for (int lane = 0; lane < w; lane++) {
+                double expected = boxes[lane].entryDistance(o.getX(), o.getY(), o.getZ(),
+                        1.0 / d.getX(), 1.0 / d.getY(), 1.0 / d.getZ(), tMax);
+                assertEquals(expected, out[lane], "Voie " + lane + " différente.");
+            }
+        }
+    }
+
+    @Test
+    void testSmallTreeWithLeafRoot() {
+        Color c = new Color(0.5, 0.5, 0.5);
+        Scene scene = new Scene();
+        scene.addShape(new Sphere(new Point(0, 0, -5), 1, c, c, 1));
+        scene.buildAccelerationStructure();
+        scene.getAccelerationStructure().widen(false);
+        assertTrue(scene.getAccelerationStructure().isWide());
+
+        Optional<Intersection> hit = scene.findClosestIntersection(new Ray(new Point(0, 0, 0), new Vector(0, 0, -1)));
+        assertTrue(hit.isPresent());
+        assertEquals(4.0, hit.get().getT(), 1e-9);
+        assertFalse(scene.isShadowed(new Ray(new Point(0, 0, 0), new Vector(0, 0, 1)), 100));
+    }
+
+    private void assertMatchesLinearScan(boolean simd) {
+        Scene wideScene = new Scene();
+        for (Shape shape : linearScene.getShapes()) wideScene.addShape(shape);
+        wideScene.buildAccelerationStructure();
+        Bvh bvh = wideScene.getAccelerationStructure();
+        bvh.widen(simd);
+        assertEquals(simd, bvh.isSimd());
+
+        for (int k = 0; k < 5000; k++) {
+            Ray ray = new Ray(randomPoint(random, 15), randomVector(random).normalize());
+            Optional<Intersection> expected = linearScene.findClosestIntersection(ray);
+            Optional<Intersection> actual = wideScene.findClosestIntersection(ray);
+
+            assertEquals(expected.isPresent(), actual.isPresent(), "Présence de l'impact différente.");
+            if (expected.isPresent()) {
+                assertEquals(expected.get().getT(), actual.get().getT(), "Distance différente.");
+                assertSame(expected.get().getShape(), actual.get().getShape(), "Forme touchée différente.");
+            }
+            double distance = k % 2 == 0 ? Double.POSITIVE_INFINITY : random.nextDouble() * 10;
+            assertEquals(linearScene.isShadowed(ray, distance), wideScene.isShadowed(ray, distance),
+                    "Résultat d'ombre différent.");
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package geometry;
+
+import imaging.Color;
+import math.Point;
+import math.Vector;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests pour les boîtes englobantes et le test rayon-boîte.
+ */
+class BoundingBoxTest {
+
+    private final BoundingBox unitBox = new BoundingBox(new Point(-1, -1, -1), new Point(1, 1, 1));
+
+    @Test
+    void testUnionAndSurfaceArea() {
+        BoundingBox other = new BoundingBox(new Point(0, 0, 0), new Point(3, 1, 1));
+        BoundingBox union = unitBox.union(other);
+
+        assertEquals(new Point(-1, -1, -1), union.getMin());
+        assertEquals(new Point(3, 1, 1), union.getMax());
+        assertEquals(24.0, unitBox.surfaceArea(), 1e-12, "Un cube de côté 2 a une aire de 24.");
+        assertEquals(0.0, BoundingBox.EMPTY.surfaceArea(), "La boîte vide a une aire nulle.");
+        assertEquals(unitBox.getMin(), BoundingBox.EMPTY.union(unitBox).getMin(), "EMPTY est neutre pour l'union.");
+    }
+
+    @Test
+    void testEntryDistance_HitFromOutside() {
+        double t = unitBox.entryDistance(0, 0, -5, 1 / 0.0, 1 / 0.0, 1.0, Double.POSITIVE_INFINITY);
+        assertEquals(4.0, t, 1e-12, "Le rayon entre dans la boîte à z = -1.");
+    }
+
+    @Test
+    void testEntryDistance_OriginInside() {
+        double t = unitBox.entryDistance(0, 0, 0, 1.0, 1.0, 1.0, Double.POSITIVE_INFINITY);
+        assertEquals(0.0, t, "Un rayon partant de l'intérieur entre à t = 0.");
+    }
+
+    @Test
+    void testEntryDistance_MissAndBehind() {
+        assertEquals(Double.POSITIVE_INFINITY,
+                unitBox.entryDistance(0, 5, -5, 1 / 0.0, 1 / 0.0, 1.0, Double.POSITIVE_INFINITY),
+                "Rayon parallèle à côté de la boîte.");
+        assertEquals(Double.POSITIVE_INFINITY,
+                unitBox.entryDistance(0, 0, 5, 1 / 0.0, 1 / 0.0, 1.0, Double.POSITIVE_INFINITY),
+                "Boîte derrière l'origine.");
+        assertEquals(Double.POSITIVE_INFINITY,
+                unitBox.entryDistance(0, 0, -5, 1 / 0.0, 1 / 0.0, 1.0, 3.0),
+                "Boîte au-delà de tMax.");
+    }
+
+    @Test
+    void testShapeBounds() {
+        Color c = new Color(0.5, 0.5, 0.5);
+        Sphere sphere = new Sphere(new Point(1, 2, 3), 2, c, c, 1);
+        Triangle triangle = new Triangle(new Point(0, 0, 0), new Point(2, -1, 0), new Point(1, 3, 4), c, c, 1);
+        Plane plane = new Plane(new Point(0, 0, 0), new Vector(0, 1, 0), c, c, 1);
+
+        assertEquals(new Point(-1, 0, 1), sphere.getBoundingBox().getMin());
+        assertEquals(new Point(3, 4, 5), sphere.getBoundingBox().getMax());
+        assertEquals(new Point(0, -1, 0), triangle.getBoundingBox().getMin());
+        assertEquals(new Point(2, 3, 4), triangle.getBoundingBox().getMax());
+        assertTrue(sphere.isBounded());
+        assertFalse(plane.isBounded(), "Un plan est infini.");
+    }
+}
@@ -0,0 +1,87 @@
+package geometry;
+
+import imaging.Color;
+import math.Point;
+import math.Ray;
+import math.Vector;
+import org.junit.jupiter.api.Test;
+import raytracer.Intersection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de l'intersection en deux phases : distance seule, puis données de surface.
+ */
+class HitDistanceTest {
+
+    private final Color diffuse = new Color(0.5, 0.2, 0.1);
+    private final Color specular = new Color(0.3, 0.3, 0.3);
+    private final Ray ray = new Ray(new Point(0, 0, -5), new Vector(0, 0, 1));
+
+    @Test
+    void testSphereTwoPhases() {
+        Sphere sphere = new Sphere(new Point(0, 0, 0), 1.0, diffuse, specular, 20);
+
+        double t = sphere.hitDistance(ray);
+        assertEquals(4.0, t, 1e-12);
+
+        Intersection hit = sphere.surfaceAt(ray, t);
+        assertEquals(new Point(0, 0, -1), hit.getPoint());
+        assertEquals(new Vector(0, 0, -1), hit.getNormal());
+        assertEquals(t, hit.getT());
+        assertSame(sphere, hit.getShape());
+        assertEquals(diffuse, hit.getDiffuse());
+        assertEquals(20, hit.getShininess());
+    }
+
+    @Test
+    void testTriangleAndPlaneTwoPhases() {
+        Triangle triangle = new Triangle(new Point(-1, -1, 0), new Point(1, -1, 0), new Point(0, 1, 0), diffuse, specular, 5);
+        Plane plane = new Plane(new Point(0, 0, 2), new Vector(0, 0, -1), diffuse, specular, 5);
+
+        assertEquals(5.0, triangle.hitDistance(ray), 1e-12);
+        assertEquals(7.0, plane.hitDistance(ray), 1e-12);
+        assertEquals(new Point(0, 0, 2), plane.surfaceAt(ray, 7.0).getPoint());
+        assertEquals(plane.getNormal(), plane.surfaceAt(ray, 7.0).getNormal());
+    }
+
+    @Test
+    void testMissReturnsNoHit() {
+        Ray away = new Ray(new Point(0, 0, -5), new Vector(0, 0, -1));
+        assertEquals(Shape.NO_HIT, new Sphere(new Point(0, 0, 0), 1.0, diffuse, specular, 1).hitDistance(away));
+        assertEquals(Shape.NO_HIT, new Plane(new Point(0, 0, 0), new Vector(0, 0, 1), diffuse, specular, 1).hitDistance(away));
+        assertTrue(new Sphere(new Point(0, 0, 0), 1.0, diffuse, specular, 1).intersect(away).isEmpty());
+    }
+
+    @Test
+    void testComponentsMatchRay() {
+        double[] vertices = { -1, -1, 1, 1, -1, 1, 0, 1, 1, 0, 0, 3 };
+        Shape[] shapes = {
+                new Sphere(new Point(0.2, -0.1, 0.3), 1.0, diffuse, specular, 1),
+                new Triangle(new Point(-1, -1, 0), new Point(1, -1, 0), new Point(0, 1, 0.5), diffuse, specular, 1),
+                new Plane(new Point(0, 0, 2), new Vector(0.1, 0.2, -1).normalize(), diffuse, specular, 1),
+                new TriangleMesh(vertices, new int[] { 0, 1, 2, 0, 2, 3 }, diffuse, specular, 1)
+        };
+        java.util.Random random = new java.util.Random(5);
+        double[] normal = new double[3];
+        for (int k = 0; k < 200; k++) {
+            Point o = new Point(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -5);
+            Vector d = new Vector(random.nextDouble() * 0.4 - 0.2, random.nextDouble() * 0.4 - 0.2, 1).normalize();
+            Ray r = new Ray(o, d);
+            for (Shape shape : shapes) {
+                for (int primitive = 0; primitive < shape.getPrimitiveCount(); primitive++) {
+                    double t = shape.hitDistance(primitive, o.getX(), o.getY(), o.getZ(), d.getX(), d.getY(), d.getZ());
+                    assertEquals(shape.hitDistance(primitive, r), t);
+                    if (t == Shape.NO_HIT) continue;
+
+                    // La normale calculée sur composantes est exactement celle de surfaceAt
+                    shape.normalAt(primitive, o.getX(), o.getY(), o.getZ(), d.getX(), d.getY(), d.getZ(), t, normal);
+                    Vector expected = shape.surfaceAt(primitive, r, t).getNormal();
+                    assertEquals(expected.getX(), normal[0]);
+                    assertEquals(expected.getY(), normal[1]);
+                    assertEquals(expected.getZ(), normal[2]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package geometry;
+
+import imaging.Color;
+import math.Point;
+import math.Ray;
+import math.Transform;
+import math.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests des instances de maillage : une instance doit se comporter comme le maillage
+ * transformé dans le repère de la scène, sans en copier les triangles.
+ */
+class MeshInstanceTest {
+
+    private static final double TOLERANCE = 1e-9;
+
+    private final Color diffuse = new Color(0.5, 0.5, 0.5);
+    private final Color specular = new Color(0.2, 0.2, 0.2);
+
+    private static TriangleMesh randomMesh(Random random, int vertexCount, int triangleCount, Color diffuse, Color specular) {
+        double[] buffer = new double[3 * vertexCount];
+        for (int k = 0; k < buffer.length; k++) buffer[k] = random.nextDouble() * 2 - 1;
+        int[] tris = new int[3 * triangleCount];
+        for (int k = 0; k < tris.length; k++) tris[k] = random.nextInt(vertexCount);
+        return new TriangleMesh(buffer, tris, diffuse, specular, 10);
+    }
+
+    /** Copie du maillage dont les sommets sont transformés dans le repère de la scène. */
+    private static TriangleMesh transformed(TriangleMesh mesh, Transform transform, Color diffuse, Color specular) {
+        double[] source = mesh.getVertexBuffer();
+        double[] buffer = new double[source.length];
+        double[] p = new double[3];
+        for (int i = 0; i < source.length; i += 3) {
+            transform.transformPoint(source[i], source[i + 1], source[i + 2], p);
+            System.arraycopy(p, 0, buffer, i, 3);
+        }
+        return new TriangleMesh(buffer, mesh.getIndexBuffer(), diffuse, specular, 10);
+    }
+
+    @Test
+    void testMatchesTransformedMesh() {
+        Random random = new Random(5);
+        TriangleMesh mesh = randomMesh(random, 40, 60, diffuse, specular);
+        Transform transform = Transform.scaling(1.5, 0.5, 2)
+                .then(Transform.rotation(0.3, 1, 0.2, 50))
+                .then(Transform.translation(3, -1, 2));
+        MeshInstance instance = new MeshInstance(new MeshDefinition("m", mesh), transform, diffuse, specular, 10);
+        TriangleMesh expected = transformed(mesh, transform, diffuse, specular);
+
+        int hits = 0;
+        for (int r = 0; r < 2000; r++) {
+            Point origin = new Point(3 + random.nextDouble() * 8 - 4, -1 + random.nextDouble() * 8 - 4, 2 + random.nextDouble() * 8 - 4);
+            Vector direction = new Vector(random.nextDouble() * 2 - 1, random.nextDouble() * 2 - 1, random.nextDouble() * 2 - 1).normalize();
+            Ray ray = new Ray(origin, direction);
+            double t = expected.hitDistance(ray);
+            double actual = instance.hitDistance(ray);
+            if (t == Shape.NO_HIT) {
+                assertEquals(Shape.NO_HIT, actual);
+                continue;
+            }
+            hits++;
+            assertEquals(t, actual, TOLERANCE);
+            Vector n = expected.surfaceAt(ray, t).getNormal();
+            Vector m = instance.surfaceAt(ray, actual).getNormal();
+            assertEquals(n.getX(), m.getX(), 1e-6);
+            assertEquals(n.getY(), m.getY(), 1e-6);
+            assertEquals(n.getZ(), m.getZ(), 1e-6);
+            assertSame(diffuse, instance.surfaceAt(ray, actual).getDiffuse());
+        }
+        assertTrue(hits > 100, "trop peu d'impacts pour que le test soit significatif : " + hits);
+    }
+
+    @Test
+    void testBoundingBoxContainsTransformedMesh() {
+        Random random = new Random(9);
+        TriangleMesh mesh = randomMesh(random, 20, 20, diffuse, specular);
+        Transform transform = Transform.rotation(1, 1, 0, 30).then(Transform.translation(-5, 2, 0));
+        BoundingBox box = new MeshInstance(new MeshDefinition("m", mesh), transform, diffuse, specular, 10).getBoundingBox();
+        BoundingBox exact = transformed(mesh, transform, diffuse, specular).getBoundingBox();
+        for (int axis = 0; axis < 3; axis++) {
+            assertTrue(box.getMin(axis) <= exact.getMin(axis) + TOLERANCE);
+            assertTrue(box.getMax(axis) >= exact.getMax(axis) - TOLERANCE);
+        }
+    }
+
+    @Test
+    void testInstancesShareGeometry() {
+        TriangleMesh mesh = randomMesh(new Random(1), 10, 8, diffuse, specular);
+        MeshDefinition definition = new MeshDefinition("m", mesh);
+        MeshInstance a = new MeshInstance(definition, Transform.translation(1, 0, 0), diffuse, specular, 10);
+        MeshInstance b = new MeshInstance(definition, Transform.translation(-1, 0, 0), specular, diffuse, 5);
+        assertEquals(1, a.getPrimitiveCount());
+        assertSame(a.getDefinition().getAccelerationStructure(), b.getDefinition().getAccelerationStructure());
+        assertSame(a.getDefinition().getMesh().getVertexBuffer(), b.getDefinition().getMesh().getVertexBuffer());
+        assertSame(specular, b.getDiffuse());
+    }
+
+    @Test
+    void testSelfIntersectionIsSkipped() {
+        // Deux carrés parallèles en z = 0 et z = 1 : un rayon parti du premier touche le second
+        double[] vertices = {0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0, 1, 1, 0, 1, 0, 1, 1};
+        int[] indices = {0, 1, 2, 3, 4, 5};
+        MeshDefinition definition = new MeshDefinition("m", new TriangleMesh(vertices, indices, diffuse, specular, 10));
+        MeshInstance instance = new MeshInstance(definition, Transform.IDENTITY, diffuse, specular, 10);
+        Ray ray = new Ray(new Point(0.2, 0.2, 1e-9), new Vector(0, 0, 1));
+        assertEquals(1.0, instance.hitDistance(ray), TOLERANCE);
+    }
+}
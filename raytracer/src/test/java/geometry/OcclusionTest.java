@@ -0,0 +1,65 @@
+package geometry;
+
+import imaging.Color;
+import math.Point;
+import math.Ray;
+import math.Vector;
+import org.junit.jupiter.api.Test;
+import raytracer.Intersection;
+
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vérifie que le test d'occultation des formes répond comme intersect().
+ */
+class OcclusionTest {
+
+    private final Color color = new Color(0.5, 0.5, 0.5);
+    private final Random random = new Random(7);
+
+    @Test
+    void testSphereOcclusion() {
+        Sphere sphere = new Sphere(new Point(0, 0, 0), 1.0, color, color, 10);
+        Ray ray = new Ray(new Point(0, 0, -5), new Vector(0, 0, 1));
+
+        assertTrue(sphere.occludes(ray, 1e-4, 10), "La sphère est entre l'origine et t = 10.");
+        assertFalse(sphere.occludes(ray, 1e-4, 3), "La sphère est au-delà de t = 3.");
+        assertFalse(sphere.occludes(new Ray(new Point(0, 5, -5), new Vector(0, 0, 1)), 1e-4, 10));
+        assertConsistent(sphere);
+    }
+
+    @Test
+    void testTriangleOcclusion() {
+        Triangle triangle = new Triangle(new Point(-1, -1, 0), new Point(1, -1, 0), new Point(0, 1, 0), color, color, 10);
+        Ray ray = new Ray(new Point(0, 0, -5), new Vector(0, 0, 1));
+
+        assertTrue(triangle.occludes(ray, 1e-4, Double.POSITIVE_INFINITY));
+        assertFalse(triangle.occludes(ray, 1e-4, 5), "tMax est exclu.");
+        assertConsistent(triangle);
+    }
+
+    @Test
+    void testPlaneOcclusion() {
+        Plane plane = new Plane(new Point(0, -1, 0), new Vector(0, 1, 0), color, color, 10);
+
+        assertTrue(plane.occludes(new Ray(new Point(0, 0, 0), new Vector(0, -1, 0)), 1e-4, 2));
+        assertFalse(plane.occludes(new Ray(new Point(0, 0, 0), new Vector(1, 0, 0)), 1e-4, 2), "Rayon parallèle.");
+        assertConsistent(plane);
+    }
+
+    private void assertConsistent(Shape shape) {
+        for (int k = 0; k < 2000; k++) {
+            Ray ray = new Ray(
+                    new Point(random.nextDouble() * 6 - 3, random.nextDouble() * 6 - 3, random.nextDouble() * 6 - 3),
+                    new Vector(random.nextDouble() * 2 - 1, random.nextDouble() * 2 - 1, random.nextDouble() * 2 - 1).normalize());
+            double tMax = random.nextDouble() * 5;
+
+            Optional<Intersection> hit = shape.intersect(ray);
+            boolean expected = hit.isPresent() && hit.get().getT() > 1e-4 && hit.get().getT() < tMax;
+            assertEquals(expected, shape.occludes(ray, 1e-4, tMax), "occludes() diffère de intersect().");
+        }
+    }
+}
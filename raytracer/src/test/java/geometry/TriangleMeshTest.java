@@ -0,0 +1,90 @@
+package geometry;
+
+import imaging.Color;
+import math.Point;
+import math.Ray;
+import math.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du maillage indexé : il doit se comporter exactement comme des Triangle isolés.
+ */
+class TriangleMeshTest {
+
+    private final Color diffuse = new Color(0.5, 0.5, 0.5);
+    private final Color specular = new Color(0.2, 0.2, 0.2);
+
+    // Carré unité dans le plan z = 0, découpé en deux triangles
+    private final double[] vertices = {0, 0, 0, 1, 0, 0, 0, 1, 0, 1, 1, 0};
+    private final int[] indices = {0, 1, 2, 1, 3, 2};
+
+    @Test
+    void testMatchesIndividualTriangles() {
+        Random random = new Random(7);
+        double[] buffer = new double[3 * 30];
+        for (int k = 0; k < buffer.length; k++) buffer[k] = random.nextDouble() * 4 - 2;
+        int[] tris = new int[3 * 20];
+        for (int k = 0; k < tris.length; k++) tris[k] = random.nextInt(30);
+
+        TriangleMesh mesh = new TriangleMesh(buffer, tris, diffuse, specular, 10);
+        Triangle[] triangles = new Triangle[20];
+        for (int tri = 0; tri < 20; tri++) {
+            triangles[tri] = new Triangle(mesh.getVertex(tri, 0), mesh.getVertex(tri, 1), mesh.getVertex(tri, 2),
+                    diffuse, specular, 10);
+        }
+
+        for (int r = 0; r < 500; r++) {
+            Point origin = new Point(random.nextDouble() * 8 - 4, random.nextDouble() * 8 - 4, random.nextDouble() * 8 - 4);
+            Vector direction = new Vector(random.nextDouble() * 2 - 1, random.nextDouble() * 2 - 1, random.nextDouble() * 2 - 1).normalize();
+            Ray ray = new Ray(origin, direction);
+            for (int tri = 0; tri < 20; tri++) {
+                double t = triangles[tri].hitDistance(ray);
+                assertEquals(t, mesh.hitDistance(tri, ray));
+                if (t != Shape.NO_HIT) {
+                    assertEquals(triangles[tri].surfaceAt(ray, t).getNormal(), mesh.surfaceAt(tri, ray, t).getNormal());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testClosestTriangleAndSurface() {
+        TriangleMesh mesh = new TriangleMesh(vertices, indices, diffuse, specular, 10);
+        Ray ray = new Ray(new Point(0.75, 0.75, -2), new Vector(0, 0, 1));
+
+        assertEquals(2, mesh.getPrimitiveCount());
+        assertEquals(Shape.NO_HIT, mesh.hitDistance(0, ray));
+        assertEquals(2.0, mesh.hitDistance(1, ray), 1e-12);
+        assertEquals(2.0, mesh.hitDistance(ray), 1e-12);
+        assertEquals(new Point(0.75, 0.75, 0), mesh.surfaceAt(ray, 2.0).getPoint());
+        assertSame(mesh, mesh.surfaceAt(ray, 2.0).getShape());
+        assertTrue(mesh.occludes(ray, 1e-4, 10));
+        assertFalse(mesh.occludes(ray, 1e-4, 1));
+    }
+
+    @Test
+    void testBoundingBoxes() {
+        TriangleMesh mesh = new TriangleMesh(vertices, indices, diffuse, specular, 10);
+
+        BoundingBox all = mesh.getBoundingBox();
+        assertEquals(new Point(0, 0, 0), all.getMin());
+        assertEquals(new Point(1, 1, 0), all.getMax());
+
+        BoundingBox second = mesh.getBoundingBox(1);
+        assertEquals(new Point(0, 0, 0), second.getMin());
+        assertEquals(new Point(1, 1, 0), second.getMax());
+        assertEquals(new Point(1, 0, 0), mesh.getVertex(1, 0));
+    }
+
+    @Test
+    void testInvalidIndicesThrow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TriangleMesh(vertices, new int[]{0, 1, 4}, diffuse, specular, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TriangleMesh(vertices, new int[]{0, 1}, diffuse, specular, 1));
+    }
+}
@@ -0,0 +1,26 @@
+package imaging;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comparaison d'images pixel à pixel, commune aux tests qui vérifient qu'un rendu ne change pas
+ * l'image (parallèle, paquets, scène compilée ou gardée en mémoire, animation...).
+ */
+public final class ImageAssertions {
+
+    private ImageAssertions() {
+    }
+
+    /** Vérifie que deux images ont la même taille et exactement les mêmes pixels. */
+    public static void assertSameImage(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth(), "Largeur différente.");
+        assertEquals(expected.getHeight(), actual.getHeight(), "Hauteur différente.");
+        for (int j = 0; j < expected.getHeight(); j++) {
+            for (int i = 0; i < expected.getWidth(); i++) {
+                assertEquals(expected.getRGB(i, j), actual.getRGB(i, j), "Pixel (" + i + ", " + j + ") différent.");
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package imaging;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import parsing.SceneFileParser;
+import scene.Scene;
+import stats.RenderStatistics;
+
+import java.awt.image.BufferedImage;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static imaging.ImageAssertions.assertSameImage;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vérifie que le rendu parallèle par tuiles est identique au rendu séquentiel.
+ */
+class RendererTest {
+
+    private static Scene scene;
+    private static BufferedImage serialImage;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        URL sceneUrl = RendererTest.class.getClassLoader().getResource("test_global_jalon5.scene");
+        assertNotNull(sceneUrl, "Impossible de trouver test_global_jalon5.scene");
+        scene = new SceneFileParser().parse(Paths.get(sceneUrl.toURI()).toString());
+        serialImage = new Renderer().render(scene);
+    }
+
+    @Test
+    void testParallelRenderMatchesSerial() {
+        // Taille de tuile impaire : les tuiles de bord sont partielles
+        BufferedImage parallelImage = new Renderer(4, 7).render(scene);
+        assertSameImage(serialImage, parallelImage);
+    }
+
+    @Test
+    void testSingleTileLargerThanImage() {
+        BufferedImage parallelImage = new Renderer(3, 1000).render(scene);
+        assertSameImage(serialImage, parallelImage);
+    }
+
+    @Test
+    void testPacketRenderMatchesSerial() {
+        // Tuiles de 7 px : blocs de 4 x 4 complets et partiels
+        assertSameImage(serialImage, new Renderer(1, 7, true).render(scene));
+        assertSameImage(serialImage, new Renderer(3, 16, true).render(scene));
+    }
+
+    @Test
+    void testWavefrontRenderMatchesSerial() {
+        assertSameImage(serialImage, new Renderer(1, 7, false, true).render(scene));
+        assertSameImage(serialImage, new Renderer(3, 16, false, true).render(scene));
+        assertSameImage(serialImage, new Renderer(2, 13, true, true).render(scene));
+    }
+
+    @Test
+    void testImageIsIntRgb() {
+        // Le tampon de pixels est enveloppé tel quel : l'image doit rester une TYPE_INT_RGB ordinaire
+        assertEquals(BufferedImage.TYPE_INT_RGB, serialImage.getType());
+        assertEquals(BufferedImage.TYPE_INT_RGB, new Renderer(2, 16).render(scene).getType());
+    }
+
+    @Test
+    void testTileSplitCoversImage() {
+        List<Tile> tiles = Tile.split(10, 5, 4);
+        assertEquals(6, tiles.size(), "3 colonnes x 2 lignes de tuiles attendues.");
+
+        int area = 0;
+        for (Tile tile : tiles) area += tile.getWidth() * tile.getHeight();
+        assertEquals(50, area, "Les tuiles doivent couvrir exactement l'image.");
+
+        Tile last = tiles.get(tiles.size() - 1);
+        assertEquals(8, last.getX());
+        assertEquals(4, last.getY());
+        assertEquals(2, last.getWidth());
+        assertEquals(1, last.getHeight());
+    }
+
+    @Test
+    void testCancelledRenderStops() {
+        for (Renderer renderer : List.of(new Renderer(), new Renderer(1, 7, true), new Renderer(3, 16),
+                new Renderer(2, 13, false, true))) {
+            // Annulation demandée au troisième point de contrôle : le rendu ne va pas au bout
+            AtomicInteger checks = new AtomicInteger();
+            assertThrows(CancellationException.class,
+                    () -> renderer.render(scene, null, () -> checks.incrementAndGet() > 2));
+            assertTrue(checks.get() >= 3);
+        }
+        // Jamais annulé : image identique
+        assertSameImage(serialImage, new Renderer(2, 16).render(scene, null, () -> false));
+    }
+
+    @Test
+    void testSharedPoolRenderMatchesSerial() {
+        // Deux rendus simultanés sur un même pool, qui reste ouvert après eux
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            Renderer renderer = new Renderer(3, 16, false, false, pool);
+            CompletableFuture<BufferedImage> other = CompletableFuture.supplyAsync(() -> renderer.render(scene));
+            assertSameImage(serialImage, renderer.render(scene));
+            assertSameImage(serialImage, other.join());
+            assertFalse(pool.isShutdown());
+            assertSameImage(serialImage, new Renderer(1, 7, true, false, pool).render(scene));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testProgressiveRenderMatchesSerial() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            for (Renderer renderer : List.of(new Renderer(), new Renderer(3, 4), new Renderer(2, 16, true, true, pool))) {
+                List<Integer> passes = new ArrayList<>();
+                List<BufferedImage> previews = new ArrayList<>();
+                BufferedImage image = renderer.renderProgressive(scene, null, () -> false, 0, (preview, pass, passCount) -> {
+                    assertEquals(RefinementPass.schedule(Renderer.PROGRESSIVE_STEP).size(), passCount);
+                    passes.add(pass);
+                    previews.add(preview);
+                });
+                assertSameImage(serialImage, image);
+                // Délai nul : un aperçu par passe, le dernier étant l'image finale
+                assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9), passes);
+                assertSame(image, previews.get(previews.size() - 1));
+                // Premier aperçu : des blocs de 16 x 16 pixels de la couleur de leur coin
+                BufferedImage first = previews.get(0);
+                assertEquals(serialImage.getWidth(), first.getWidth());
+                assertEquals(serialImage.getRGB(16, 32), first.getRGB(31, 47));
+                assertEquals(serialImage.getRGB(0, 0), first.getRGB(15, 15));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testProgressiveRenderTracesEachPixelOnce() {
+        RenderStatistics statistics = new RenderStatistics();
+        List<Integer> passes = new ArrayList<>();
+        new Renderer(2, 8).renderProgressive(scene, statistics, () -> false, 60_000, (preview, pass, passCount) -> passes.add(pass));
+        assertEquals((long) scene.getWidth() * scene.getHeight(), statistics.getPrimaryRays());
+        // Long délai : seulement le premier aperçu et l'image finale
+        assertEquals(List.of(1, 9), passes);
+
+        AtomicInteger checks = new AtomicInteger();
+        assertThrows(CancellationException.class, () -> new Renderer(2, 8).renderProgressive(scene, null,
+                () -> checks.incrementAndGet() > 2, 0, (preview, pass, passCount) -> { }));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Renderer().renderProgressive(scene, null, () -> false, -1, (preview, pass, passCount) -> { }));
+    }
+
+    @Test
+    void testRefinementScheduleCoversImageOnce() {
+        // Adam7 pour un pas de 8
+        List<RefinementPass> adam7 = RefinementPass.schedule(8);
+        assertEquals(7, adam7.size());
+        RefinementPass third = adam7.get(2);
+        assertEquals(List.of(0, 4, 4, 8), List.of(third.getOffsetX(), third.getOffsetY(), third.getStepX(), third.getStepY()));
+
+        for (int[] size : new int[][] { { 37, 23 }, { 16, 16 }, { 1, 1 }, { 5, 40 } }) {
+            int width = size[0];
+            int height = size[1];
+            int[] traced = new int[width * height];
+            int tracedStepX = Renderer.PROGRESSIVE_STEP;
+            for (RefinementPass pass : RefinementPass.schedule(Renderer.PROGRESSIVE_STEP)) {
+                for (int row = 0; row < pass.rows(height); row++) {
+                    for (int column = 0; column < pass.columns(width); column++) {
+                        traced[(pass.getOffsetY() + row * pass.getStepY()) * width + pass.getOffsetX() + column * pass.getStepX()]++;
+                    }
+                }
+                // Après la passe, la grille de pas getTracedStepX x getTracedStepY est entièrement tracée
+                for (int y = 0; y < height; y += pass.getTracedStepY()) {
+                    for (int x = 0; x < width; x += pass.getTracedStepX()) {
+                        assertEquals(1, traced[y * width + x], "Pixel (" + x + ", " + y + ") pas encore tracé");
+                    }
+                }
+                assertTrue(pass.getTracedStepX() <= tracedStepX);
+                tracedStepX = pass.getTracedStepX();
+            }
+            for (int k = 0; k < traced.length; k++) {
+                assertEquals(1, traced[k], "Pixel " + k + " de l'image " + width + " x " + height);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> RefinementPass.schedule(12));
+    }
+
+    @Test
+    void testInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new Renderer(0, 16));
+        assertThrows(IllegalArgumentException.class, () -> new Renderer(2, 0));
+    }
+}
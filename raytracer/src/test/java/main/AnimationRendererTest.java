@@ -0,0 +1,116 @@
+package main;
+
+import imaging.Renderer;
+import math.Point;
+import math.Vector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import parsing.SceneFileParser;
+import raytracer.Camera;
+import raytracer.CameraPath;
+import scene.Scene;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static imaging.ImageAssertions.assertSameImage;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du rendu d'animation : images identiques à un rendu par scène, noms des fichiers,
+ * arrêt sur erreur d'écriture.
+ */
+class AnimationRendererTest {
+
+    @TempDir
+    static Path tempDir;
+
+    private static String sceneText;
+    private static Scene scene;
+
+    // Deux clés : face à la sphère, puis de côté
+    private static final String KEY_0 = "camera 0 0 4 0 0 0 0 1 0 45";
+    private static final String KEY_1 = "camera 4 0 0 0 0 0 0 1 0 30";
+    private static final CameraPath PATH = new CameraPath(new double[] { 0, 1 }, List.of(
+            new Camera(new Point(0, 0, 4), new Point(0, 0, 0), new Vector(0, 1, 0), 45),
+            new Camera(new Point(4, 0, 0), new Point(0, 0, 0), new Vector(0, 1, 0), 30)),
+            CameraPath.Interpolation.LINEAR, false);
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        sceneText = Files.readString(Paths.get(AnimationRendererTest.class.getClassLoader().getResource("test0.scene").toURI()));
+        assertTrue(sceneText.contains(KEY_0));
+        scene = parse(sceneText);
+    }
+
+    private static Scene parse(String text) throws Exception {
+        Path file = tempDir.resolve("scene.txt");
+        Files.writeString(file, text);
+        return new SceneFileParser().parse(file.toString());
+    }
+
+    @Test
+    void testFramesMatchSceneRenders() throws Exception {
+        Map<String, BufferedImage> written = new ConcurrentHashMap<>();
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            Renderer renderer = new Renderer(3, 16, false, false, pool);
+            new AnimationRenderer(renderer, (image, file) -> written.put(file, image)).render(scene, PATH, 5, null);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(5, written.size());
+        for (int frame = 0; frame < 5; frame++) {
+            assertTrue(written.containsKey(String.format("test-output_%04d.png", frame)), "image " + frame + " absente");
+        }
+        // Les images des clés sont celles des scènes qui portent la caméra de la clé
+        assertSameImage(new Renderer().render(scene), written.get("test-output_0000.png"));
+        assertSameImage(new Renderer().render(parse(sceneText.replace(KEY_0, KEY_1))), written.get("test-output_0004.png"));
+        // L'image du milieu n'est ni l'une ni l'autre
+        BufferedImage middle = written.get("test-output_0002.png");
+        assertTrue(differentPixels(written.get("test-output_0000.png"), middle) > 0);
+        assertTrue(differentPixels(written.get("test-output_0004.png"), middle) > 0);
+    }
+
+    @Test
+    void testWriteFailureStopsAnimation() {
+        AtomicInteger writes = new AtomicInteger();
+        AnimationRenderer animation = new AnimationRenderer(new Renderer(2, 16), (image, file) -> {
+            writes.incrementAndGet();
+            throw new IOException("Disque plein");
+        });
+        IOException e = assertThrows(IOException.class, () -> animation.render(scene, PATH, 200, null));
+        assertEquals("Disque plein", e.getMessage());
+        // Au plus les images déjà rendues ou en cours au moment de l'échec
+        assertTrue(writes.get() <= AnimationRenderer.MAX_PENDING_FRAMES, writes.get() + " écritures");
+    }
+
+    @Test
+    void testFrameFile() {
+        assertEquals("dragon_0000.png", AnimationRenderer.frameFile("dragon.png", 0, 360));
+        assertEquals("out/dragon_0359.png", AnimationRenderer.frameFile("out/dragon.png", 359, 360));
+        assertEquals("dragon_00042.png", AnimationRenderer.frameFile("dragon.png", 42, 12000));
+        assertEquals("rendus.v2/image_0003", AnimationRenderer.frameFile("rendus.v2/image", 3, 10));
+        assertEquals(".png_0001", AnimationRenderer.frameFile(".png", 1, 10));
+    }
+
+    private static int differentPixels(BufferedImage a, BufferedImage b) {
+        int count = 0;
+        for (int y = 0; y < a.getHeight(); y++) {
+            for (int x = 0; x < a.getWidth(); x++) {
+                if (a.getRGB(x, y) != b.getRGB(x, y)) count++;
+            }
+        }
+        return count;
+    }
+}
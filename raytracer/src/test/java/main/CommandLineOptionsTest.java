@@ -0,0 +1,160 @@
+package main;
+
+import acceleration.BuildMethod;
+import imaging.Renderer;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandLineOptionsTest {
+
+    @Test
+    void testDefaults() {
+        CommandLineOptions options = CommandLineOptions.parse(new String[0]);
+        assertNull(options.getSceneFile());
+        assertEquals(Runtime.getRuntime().availableProcessors(), options.getThreads());
+        assertEquals(Renderer.DEFAULT_TILE_SIZE, options.getTileSize());
+        assertTrue(options.isCacheEnabled());
+        assertEquals(BuildMethod.SAH, options.getBuildMethod());
+    }
+
+    @Test
+    void testBuildMethod() {
+        assertEquals(BuildMethod.LBVH, CommandLineOptions.parse(new String[] { "--bvh", "lbvh" }).getBuildMethod());
+        assertEquals(BuildMethod.SAH, CommandLineOptions.parse(new String[] { "--bvh", "sah" }).getBuildMethod());
+        assertFalse(CommandLineOptions.parse(new String[0]).isWideBvh());
+        assertTrue(CommandLineOptions.parse(new String[] { "--wide", "scene.scene" }).isWideBvh());
+        assertFalse(CommandLineOptions.parse(new String[0]).isPacketTracing());
+        assertTrue(CommandLineOptions.parse(new String[] { "--packets" }).isPacketTracing());
+        assertFalse(CommandLineOptions.parse(new String[0]).isWavefront());
+        assertTrue(CommandLineOptions.parse(new String[] { "--wavefront", "--packets" }).isWavefront());
+    }
+
+    @Test
+    void testThreadsTileAndScene() {
+        CommandLineOptions options = CommandLineOptions.parse(
+                new String[] { "--threads", "8", "--tile", "16", "scene.scene" });
+        assertEquals("scene.scene", options.getSceneFile());
+        assertEquals(8, options.getThreads());
+        assertEquals(16, options.getTileSize());
+    }
+
+    @Test
+    void testNoCache() {
+        CommandLineOptions options = CommandLineOptions.parse(new String[] { "--no-cache", "scene.scene" });
+        assertFalse(options.isCacheEnabled());
+        assertEquals("scene.scene", options.getSceneFile());
+    }
+
+    @Test
+    void testStatistics() {
+        assertFalse(CommandLineOptions.parse(new String[0]).isStatisticsEnabled());
+
+        CommandLineOptions summaryOnly = CommandLineOptions.parse(new String[] { "--stats" });
+        assertTrue(summaryOnly.isStatisticsEnabled());
+        assertNull(summaryOnly.getStatisticsFile());
+
+        CommandLineOptions json = CommandLineOptions.parse(new String[] { "--stats-json", "stats.json", "scene.scene" });
+        assertTrue(json.isStatisticsEnabled(), "--stats-json implique --stats.");
+        assertEquals("stats.json", json.getStatisticsFile());
+        assertEquals("scene.scene", json.getSceneFile());
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[] { "--threads" }));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[] { "--threads", "0" }));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[] { "--tile", "abc" }));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[] { "--unknown" }));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[] { "--stats-json" }));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[] { "--bvh", "octree" }));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[] { "a.scene", "b.scene" }));
+    }
+
+    @Test
+    void testDaemonAndClient() {
+        CommandLineOptions defaults = CommandLineOptions.parse(new String[0]);
+        assertFalse(defaults.isDaemon());
+        assertFalse(defaults.isClient());
+
+        CommandLineOptions daemon = CommandLineOptions.parse(new String[] { "--daemon", "7070", "--queue", "4", "--wide" });
+        assertTrue(daemon.isDaemon());
+        assertEquals(7070, daemon.getPort());
+        assertEquals(4, daemon.getQueueCapacity());
+
+        CommandLineOptions client = CommandLineOptions.parse(new String[] { "--client", "7070", "--inline", "scene.scene" });
+        assertTrue(client.isClient());
+        assertTrue(client.isInlineScene());
+        assertEquals(7070, client.getPort());
+
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[] { "--client", "7070" }));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[] { "--daemon", "70000" }));
+        assertThrows(IllegalArgumentException.class,
+                () -> CommandLineOptions.parse(new String[] { "--daemon", "1", "--client", "2", "scene.scene" }));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[] { "--inline", "scene.scene" }));
+        // Option sans effet hors du démon ou du service HTTP
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[] { "--queue", "4" }));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[] { "--client", "7070", "--queue", "4", "a.scene" }));
+    }
+
+    @Test
+    void testHttpService() {
+        CommandLineOptions defaults = CommandLineOptions.parse(new String[0]);
+        assertFalse(defaults.isHttpService());
+        assertEquals(1, defaults.getWorkers());
+        assertEquals(HttpRenderService.DEFAULT_TIMEOUT_SECONDS, defaults.getTimeoutSeconds());
+
+        CommandLineOptions http = CommandLineOptions.parse(new String[] {
+                "--http", "8080", "--workers", "2", "--queue", "8", "--timeout", "30", "--threads", "4" });
+        assertTrue(http.isHttpService());
+        assertEquals(8080, http.getHttpPort());
+        assertEquals(2, http.getWorkers());
+        assertEquals(8, http.getQueueCapacity());
+        assertEquals(30, http.getTimeoutSeconds());
+        assertTrue(defaults.getSceneCacheBudget() > 0);
+        assertEquals(64L << 20, CommandLineOptions.parse(new String[] { "--http", "1", "--scene-cache", "64" }).getSceneCacheBudget());
+        assertEquals(0, CommandLineOptions.parse(new String[] { "--daemon", "1", "--scene-cache", "0" }).getSceneCacheBudget());
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[] { "--http", "1", "--scene-cache", "-1" }));
+        // Sans effet pour un rendu unique
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[] { "--scene-cache", "64" }));
+        assertThrows(IllegalArgumentException.class,
+                () -> CommandLineOptions.parse(new String[] { "--scene-cache", "64", "--camera-path", "tour.path" }));
+
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[] { "--http", "1", "--daemon", "2" }));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[] { "--http", "1", "--workers", "0" }));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[] { "--http", "1", "--timeout", "x" }));
+        // Options sans effet hors du service HTTP
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[] { "--workers", "2" }));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[] { "--daemon", "1", "--timeout", "30" }));
+    }
+
+    @Test
+    void testCameraPath() {
+        CommandLineOptions defaults = CommandLineOptions.parse(new String[0]);
+        assertNull(defaults.getCameraPath());
+        assertEquals(0, defaults.getFrames());
+
+        CommandLineOptions animation = CommandLineOptions.parse(new String[] { "--camera-path", "tour.path", "--frames", "120" });
+        assertEquals("tour.path", animation.getCameraPath());
+        assertEquals(120, animation.getFrames());
+
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[] { "--frames", "12" }));
+        assertThrows(IllegalArgumentException.class,
+                () -> CommandLineOptions.parse(new String[] { "--camera-path", "tour.path", "--frames", "0" }));
+        assertThrows(IllegalArgumentException.class,
+                () -> CommandLineOptions.parse(new String[] { "--camera-path", "tour.path", "--daemon", "4" }));
+        assertThrows(IllegalArgumentException.class,
+                () -> CommandLineOptions.parse(new String[] { "--camera-path", "tour.path", "--http", "8080" }));
+    }
+
+    @Test
+    void testProgressive() {
+        assertEquals(-1, CommandLineOptions.parse(new String[0]).getPreviewInterval());
+        assertEquals(500, CommandLineOptions.parse(new String[] { "--progressive", "500", "scene.scene" }).getPreviewInterval());
+        assertEquals(0, CommandLineOptions.parse(new String[] { "--progressive", "0" }).getPreviewInterval());
+
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[] { "--progressive", "-5" }));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[] { "--progressive", "100", "--http", "8080" }));
+        assertThrows(IllegalArgumentException.class,
+                () -> CommandLineOptions.parse(new String[] { "--progressive", "100", "--camera-path", "tour.path" }));
+    }
+}
@@ -0,0 +1,186 @@
+package main;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static imaging.ImageAssertions.assertSameImage;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du service HTTP de rendu : image PNG, erreurs, file bornée et priorités, délai,
+ * annulation et mesures.
+ */
+class HttpRenderServiceTest {
+
+    private static final String SCENE = String.join("\n",
+            "size 24 16",
+            "camera 0 0 5 0 0 0 0 1 0 45",
+            "output http.png",
+            "ambient 0.1 0.1 0.1",
+            "diffuse 0.5 0.2 0.2",
+            "point 2 3 4 0.6 0.6 0.6",
+            "sphere 0 0 0 1");
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private HttpRenderService service;
+
+    private void start(HttpRenderService started) {
+        service = started;
+        started.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) service.close();
+    }
+
+    private URI uri(String pathAndQuery) {
+        return URI.create("http://localhost:" + service.getPort() + pathAndQuery);
+    }
+
+    private HttpRequest post(String query, String scene) {
+        return HttpRequest.newBuilder(uri("/render" + query)).POST(HttpRequest.BodyPublishers.ofString(scene)).build();
+    }
+
+    private HttpResponse<String> sendText(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String metrics() throws IOException, InterruptedException {
+        return sendText(HttpRequest.newBuilder(uri("/metrics")).build()).body();
+    }
+
+    @Test
+    void testRendersSceneAsPng() throws Exception {
+        CommandLineOptions options = CommandLineOptions.parse(new String[] { "--http", "0", "--threads", "2" });
+        start(new HttpRenderService(options));
+
+        HttpResponse<byte[]> response = client.send(post("", SCENE), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, response.statusCode());
+        assertEquals("image/png", response.headers().firstValue("Content-Type").orElse(null));
+        assertTrue(response.headers().firstValue("X-Job-Id").isPresent());
+
+        // Même image qu'un rendu direct
+        BufferedImage expected = RenderJob.renderText(SCENE.getBytes(StandardCharsets.UTF_8), options, null, null, () -> false).image;
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(response.body()));
+        assertEquals(24, image.getWidth());
+        assertSameImage(expected, image);
+
+        // Autre point de vue, même géométrie : la scène gardée en mémoire sert à nouveau
+        String moved = SCENE.replace("camera 0 0 5", "camera 1 1 5");
+        HttpResponse<byte[]> second = client.send(post("", moved), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, second.statusCode());
+        BufferedImage expectedMoved = RenderJob.renderText(moved.getBytes(StandardCharsets.UTF_8), options, null, null, () -> false).image;
+        assertSameImage(expectedMoved, ImageIO.read(new ByteArrayInputStream(second.body())));
+
+        String metrics = metrics();
+        assertTrue(metrics.contains("raytracer_queue_depth 0\n"), metrics);
+        assertTrue(metrics.contains("raytracer_jobs_total{status=\"completed\"} 2\n"), metrics);
+        assertTrue(metrics.contains("raytracer_latency_ms{quantile=\"0.99\"} "), metrics);
+        assertTrue(metrics.contains("raytracer_scene_cache_misses_total 1\n"), metrics);
+        assertTrue(metrics.contains("raytracer_scene_cache_hits_total 1\n"), metrics);
+        assertTrue(metrics.contains("raytracer_scene_cache_entries 1\n"), metrics);
+    }
+
+    @Test
+    void testInvalidRequests() throws Exception {
+        start(new HttpRenderService(CommandLineOptions.parse(new String[] { "--http", "0", "--threads", "1" })));
+
+        HttpResponse<String> response = sendText(post("", SCENE.replace("sphere 0 0 0 1", "sphere 0 0")));
+        assertEquals(400, response.statusCode());
+        assertEquals("Erreur 'sphere'\n", response.body());
+        // Jeton numérique mal formé : la scène est invalide, pas le service
+        assertEquals(400, sendText(post("", SCENE.replace("sphere 0 0 0 1", "sphere 0 0 x 1"))).statusCode());
+        assertEquals(400, sendText(post("?priority=haute", SCENE)).statusCode());
+        assertEquals(400, sendText(post("?timeout=0", SCENE)).statusCode());
+        assertEquals(405, sendText(HttpRequest.newBuilder(uri("/render")).build()).statusCode());
+        assertEquals(404, sendText(HttpRequest.newBuilder(uri("/jobs/inconnu")).DELETE().build()).statusCode());
+        assertTrue(metrics().contains("raytracer_jobs_total{status=\"failed\"} 2\n"));
+    }
+
+    @Test
+    void testFullQueueAndPriorities() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+        start(new HttpRenderService(0, 1, 2, 10, (scene, cancelled) -> {
+            order.add(new String(scene, StandardCharsets.UTF_8));
+            started.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        }));
+
+        CompletableFuture<HttpResponse<String>> first = client.sendAsync(post("", "a"), HttpResponse.BodyHandlers.ofString());
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        CompletableFuture<HttpResponse<String>> low = client.sendAsync(post("?priority=0", "b"), HttpResponse.BodyHandlers.ofString());
+        while (service.getQueuedJobs() < 1) Thread.sleep(5);
+        CompletableFuture<HttpResponse<String>> high = client.sendAsync(post("?priority=5", "c"), HttpResponse.BodyHandlers.ofString());
+        while (service.getQueuedJobs() < 2) Thread.sleep(5);
+
+        // Un travail en cours, deux en attente : la file est pleine
+        HttpResponse<String> rejected = sendText(post("", "d"));
+        assertEquals(429, rejected.statusCode());
+        assertEquals("1", rejected.headers().firstValue("Retry-After").orElse(null));
+        assertTrue(metrics().contains("raytracer_queue_depth 2\n"));
+        // Refus avant la lecture de la scène : le service répond sans attendre le corps annoncé
+        try (Socket socket = new Socket("localhost", service.getPort())) {
+            socket.setSoTimeout(10_000);
+            socket.getOutputStream().write(("POST /render HTTP/1.1\r\nHost: localhost\r\nContent-Length: 1000000000\r\n\r\nsize")
+                    .getBytes(StandardCharsets.US_ASCII));
+            socket.getOutputStream().flush();
+            String status = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+            assertTrue(status.startsWith("HTTP/1.1 429"), status);
+        }
+
+        release.countDown();
+        assertEquals(200, first.get(10, TimeUnit.SECONDS).statusCode());
+        assertEquals(200, low.get(10, TimeUnit.SECONDS).statusCode());
+        assertEquals(200, high.get(10, TimeUnit.SECONDS).statusCode());
+        // La priorité la plus haute passe avant le travail arrivé plus tôt
+        assertEquals(List.of("a", "c", "b"), order);
+        assertTrue(metrics().contains("raytracer_jobs_total{status=\"rejected\"} 2\n"));
+    }
+
+    @Test
+    void testTimeoutAndCancellation() throws Exception {
+        start(new HttpRenderService(0, 1, 4, 10, (scene, cancelled) -> {
+            while (!cancelled.getAsBoolean()) Thread.sleep(5);
+            throw new CancellationException("Rendu interrompu.");
+        }));
+
+        // Délai dépassé : le travail est annulé et le worker libéré
+        HttpResponse<String> timedOut = sendText(post("?timeout=0.2", SCENE));
+        assertEquals(504, timedOut.statusCode());
+        while (service.getRunningJobs() > 0) Thread.sleep(5);
+
+        CompletableFuture<HttpResponse<String>> pending = client.sendAsync(post("?id=long", SCENE), HttpResponse.BodyHandlers.ofString());
+        while (service.getRunningJobs() < 1) Thread.sleep(5);
+        HttpResponse<String> deleted = sendText(HttpRequest.newBuilder(uri("/jobs/long")).DELETE().build());
+        assertEquals(202, deleted.statusCode());
+        assertEquals(409, pending.get(10, TimeUnit.SECONDS).statusCode());
+
+        String metrics = metrics();
+        assertTrue(metrics.contains("raytracer_jobs_total{status=\"timeout\"} 1\n"), metrics);
+        assertTrue(metrics.contains("raytracer_jobs_total{status=\"cancelled\"} 1\n"), metrics);
+        assertTrue(metrics.contains("raytracer_running_jobs 0\n"), metrics);
+    }
+}
@@ -35,8 +35,9 @@ public class MainIntegrationTest {
 
     @AfterEach
     void tearDown() throws Exception {
-        // Nettoyer le fichier de sortie après le test
+        // Nettoyer le fichier de sortie et la scène compilée après le test
         Files.deleteIfExists(Paths.get(OUTPUT_FILENAME));
+        Files.deleteIfExists(Paths.get(sceneFilePath + ".compiled"));
     }
 
     @Test
@@ -0,0 +1,209 @@
+package main;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static imaging.ImageAssertions.assertSameImage;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du démon de rendu : travaux sur fichier et sur texte, erreurs, file d'attente bornée et clients muets ou partis.
+ */
+class RenderDaemonTest {
+
+    private static final String SCENE = String.join("\n",
+            "size 24 16",
+            "camera 0 0 5 0 0 0 0 1 0 45",
+            "output daemon.png",
+            "ambient 0.1 0.1 0.1",
+            "diffuse 0.5 0.2 0.2",
+            "point 2 3 4 0.6 0.6 0.6",
+            "sphere 0 0 0 1");
+
+    @TempDir
+    Path tempDir;
+
+    private RenderDaemon daemon;
+
+    private void start(RenderDaemon started) {
+        daemon = started;
+        Thread thread = new Thread(() -> {
+            try {
+                started.serve();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (daemon != null) daemon.close();
+    }
+
+    @Test
+    void testRendersFileAndText() throws IOException {
+        CommandLineOptions options = CommandLineOptions.parse(new String[] { "--daemon", "0", "--threads", "2", "--no-cache" });
+        start(new RenderDaemon(options));
+        Path scene = Files.writeString(tempDir.resolve("a.scene"), SCENE);
+
+        // Fichier : l'image est écrite à côté de la scène
+        RenderJob.Result written = RenderClient.send(daemon.getPort(), RenderJob.ofFile(scene));
+        assertNull(written.png);
+        assertEquals(tempDir.resolve("daemon.png").toString(), written.output);
+        BufferedImage fromFile = ImageIO.read(tempDir.resolve("daemon.png").toFile());
+        assertEquals(24, fromFile.getWidth());
+
+        // Texte : l'image revient encodée, identique
+        RenderJob.Result sent = RenderClient.send(daemon.getPort(), RenderJob.ofText(SCENE.getBytes(StandardCharsets.UTF_8)));
+        assertEquals("daemon.png", sent.output);
+        assertSameImage(fromFile, ImageIO.read(new ByteArrayInputStream(sent.png)));
+    }
+
+    @Test
+    void testErrorsAreReported() throws IOException {
+        start(new RenderDaemon(CommandLineOptions.parse(new String[] { "--daemon", "0", "--threads", "1" })));
+        byte[] invalid = SCENE.replace("sphere 0 0 0 1", "sphere 0 0").getBytes(StandardCharsets.UTF_8);
+
+        IOException e = assertThrows(IOException.class,
+                () -> RenderClient.send(daemon.getPort(), RenderJob.ofText(invalid)));
+        assertEquals("Erreur 'sphere'", e.getMessage());
+        Path missing = tempDir.resolve("absente.scene");
+        e = assertThrows(IOException.class, () -> RenderClient.send(daemon.getPort(), RenderJob.ofFile(missing)));
+        assertEquals("Fichier introuvable : " + missing, e.getMessage());
+    }
+
+    @Test
+    void testFullQueueRejectsJobs() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        start(new RenderDaemon(0, 1, job -> {
+            started.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return new RenderJob.Result(job.toString(), null);
+        }));
+        RenderJob job = RenderJob.ofFile(tempDir.resolve("x.scene"));
+
+        CompletableFuture<RenderJob.Result> running = CompletableFuture.supplyAsync(() -> sendUnchecked(job));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        CompletableFuture<RenderJob.Result> queued = CompletableFuture.supplyAsync(() -> sendUnchecked(job));
+        while (daemon.getQueuedJobs() < 1) Thread.sleep(5);
+
+        // Un travail en cours, un en attente : la file est pleine
+        IOException e = assertThrows(IOException.class, () -> RenderClient.send(daemon.getPort(), job));
+        assertEquals("File d'attente pleine (1 travaux en attente).", e.getMessage());
+
+        release.countDown();
+        assertNotNull(running.get(10, TimeUnit.SECONDS));
+        assertNotNull(queued.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testFullQueueRefusesSceneBeforeReadingIt() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        start(new RenderDaemon(0, 1, job -> {
+            started.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return new RenderJob.Result(job.toString(), null);
+        }));
+        RenderJob job = RenderJob.ofFile(tempDir.resolve("x.scene"));
+        CompletableFuture<RenderJob.Result> running = CompletableFuture.supplyAsync(() -> sendUnchecked(job));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        CompletableFuture<RenderJob.Result> queued = CompletableFuture.supplyAsync(() -> sendUnchecked(job));
+        while (daemon.getQueuedJobs() < 1) Thread.sleep(5);
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+            // En-tête seul : le refus arrive sans attendre la scène annoncée
+            socket.getOutputStream().write("SCENE 1000000\n".getBytes(StandardCharsets.UTF_8));
+            socket.setSoTimeout(10_000);
+            IOException e = assertThrows(IOException.class,
+                    () -> RenderProtocol.readResult(new BufferedInputStream(socket.getInputStream())));
+            assertEquals("File d'attente pleine (1 travaux en attente).", e.getMessage());
+        }
+        release.countDown();
+        assertNotNull(running.get(10, TimeUnit.SECONDS));
+        assertNotNull(queued.get(10, TimeUnit.SECONDS));
+
+        // Une scène annoncée au-delà de la taille maximale est refusée sans être lue
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+            socket.getOutputStream().write(("SCENE " + (RenderProtocol.MAX_SCENE + 1) + "\n").getBytes(StandardCharsets.UTF_8));
+            socket.setSoTimeout(10_000);
+            IOException e = assertThrows(IOException.class,
+                    () -> RenderProtocol.readResult(new BufferedInputStream(socket.getInputStream())));
+            assertEquals("Demande invalide : Taille invalide : " + (RenderProtocol.MAX_SCENE + 1), e.getMessage());
+        }
+        assertNotNull(RenderClient.send(daemon.getPort(), job));
+    }
+
+    @Test
+    void testSilentClientTimesOut() throws Exception {
+        start(new RenderDaemon(0, 1, 200, job -> new RenderJob.Result(job.toString(), null)));
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+            // Demande incomplète : pas de fin de ligne
+            socket.getOutputStream().write("RENDER x.sc".getBytes(StandardCharsets.UTF_8));
+            socket.setSoTimeout(10_000);
+            IOException e = assertThrows(IOException.class,
+                    () -> RenderProtocol.readResult(new BufferedInputStream(socket.getInputStream())));
+            assertEquals("Demande invalide : rien reçu depuis 200 ms.", e.getMessage());
+        }
+    }
+
+    @Test
+    void testDisconnectedClientLeavesQueue() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> rendered = new CopyOnWriteArrayList<>();
+        start(new RenderDaemon(0, 1, job -> {
+            rendered.add(job.toString());
+            started.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return new RenderJob.Result(job.toString(), null);
+        }));
+        RenderJob first = RenderJob.ofFile(tempDir.resolve("a.scene"));
+        RenderJob abandoned = RenderJob.ofFile(tempDir.resolve("b.scene"));
+
+        CompletableFuture<RenderJob.Result> running = CompletableFuture.supplyAsync(() -> sendUnchecked(first));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            RenderProtocol.writeRequest(out, abandoned);
+            while (daemon.getQueuedJobs() < 1) Thread.sleep(5);
+        }
+        // Le client parti, son travail quitte la file sans être rendu
+        while (daemon.getQueuedJobs() > 0) Thread.sleep(5);
+        release.countDown();
+        assertNotNull(running.get(10, TimeUnit.SECONDS));
+        assertNotNull(RenderClient.send(daemon.getPort(), first));
+        assertEquals(List.of(first.toString(), first.toString()), rendered);
+    }
+
+    private RenderJob.Result sendUnchecked(RenderJob job) {
+        try {
+            return RenderClient.send(daemon.getPort(), job);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package main;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests des mesures du service HTTP : débit et quantiles de latence.
+ */
+class ServiceMetricsTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void testRateIsNotCappedByLatencyWindow() {
+        // 50 rendus par seconde pendant une minute : bien plus que l'anneau des latences
+        long start = 1_000 * SECOND;
+        ServiceMetrics metrics = new ServiceMetrics(start);
+        for (int k = 0; k < 3000; k++) metrics.recordCompletion(80_000_000, start + k * SECOND / 50);
+        assertEquals(50, metrics.rendersPerSecond(start + 60 * SECOND), 1e-9);
+        assertEquals(3000, metrics.completed.get());
+
+        // Une minute plus tard, au même rythme : les anciennes secondes ne comptent plus
+        for (int k = 3000; k < 6000; k++) metrics.recordCompletion(80_000_000, start + k * SECOND / 50);
+        assertEquals(50, metrics.rendersPerSecond(start + 120 * SECOND), 1e-9);
+        // Puis plus rien pendant une minute
+        assertEquals(0, metrics.rendersPerSecond(start + 181 * SECOND));
+    }
+
+    @Test
+    void testRateSinceStart() {
+        long start = 5 * SECOND;
+        ServiceMetrics metrics = new ServiceMetrics(start);
+        assertEquals(0, metrics.rendersPerSecond(start));
+        for (int k = 0; k < 20; k++) metrics.recordCompletion(1, start + k * SECOND / 10);
+        // Moins d'une minute depuis le démarrage : le débit est rapporté à la durée écoulée
+        assertEquals(10, metrics.rendersPerSecond(start + 2 * SECOND), 1e-9);
+    }
+
+    @Test
+    void testLatencyQuantiles() {
+        ServiceMetrics metrics = new ServiceMetrics(0);
+        assertEquals(0, metrics.latencyQuantile(0.5));
+        for (int k = 1; k <= 100; k++) metrics.recordCompletion(k, k);
+        assertEquals(50, metrics.latencyQuantile(0.5));
+        assertEquals(99, metrics.latencyQuantile(0.99));
+        // Au-delà de l'anneau, seules les WINDOW dernières latences comptent
+        for (int k = 0; k < ServiceMetrics.WINDOW; k++) metrics.recordCompletion(1000, 200);
+        assertEquals(1000, metrics.latencyQuantile(0.5));
+    }
+}
@@ -0,0 +1,94 @@
+package math;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests des transformations affines : inverse, composition et transport des normales.
+ */
+class TransformTest {
+
+    private static final double TOLERANCE = 1e-9;
+
+    private static Transform sample() {
+        return Transform.scaling(2, 0.5, 3)
+                .then(Transform.rotation(1, 2, -1, 37))
+                .then(Transform.translation(4, -1, 2.5));
+    }
+
+    @Test
+    void testInverseUndoesTransform() {
+        Transform transform = sample();
+        Random random = new Random(3);
+        double[] image = new double[3];
+        double[] back = new double[3];
+        for (int k = 0; k < 100; k++) {
+            double x = random.nextGaussian(), y = random.nextGaussian(), z = random.nextGaussian();
+            transform.transformPoint(x, y, z, image);
+            transform.inversePoint(image[0], image[1], image[2], back);
+            assertArrayEquals(new double[] { x, y, z }, back, TOLERANCE);
+            transform.transformVector(x, y, z, image);
+            transform.inverseVector(image[0], image[1], image[2], back);
+            assertArrayEquals(new double[] { x, y, z }, back, TOLERANCE);
+        }
+    }
+
+    @Test
+    void testCompositionOrder() {
+        // Échelle puis translation : l'origine va en (1, 0, 0), le point (1, 0, 0) en (3, 0, 0)
+        Transform transform = Transform.scaling(2, 2, 2).then(Transform.translation(1, 0, 0));
+        double[] out = new double[3];
+        transform.transformPoint(0, 0, 0, out);
+        assertArrayEquals(new double[] { 1, 0, 0 }, out, TOLERANCE);
+        transform.transformPoint(1, 0, 0, out);
+        assertArrayEquals(new double[] { 3, 0, 0 }, out, TOLERANCE);
+        // Une direction ne subit pas la translation
+        transform.transformVector(1, 0, 0, out);
+        assertArrayEquals(new double[] { 2, 0, 0 }, out, TOLERANCE);
+    }
+
+    @Test
+    void testRotationQuarterTurn() {
+        double[] out = new double[3];
+        Transform.rotation(0, 0, 2, 90).transformPoint(1, 0, 0, out);
+        assertArrayEquals(new double[] { 0, 1, 0 }, out, TOLERANCE);
+    }
+
+    @Test
+    void testNormalStaysOrthogonalToSurface() {
+        Transform transform = sample();
+        // Plan engendré par u et v, de normale u x v
+        Vector u = new Vector(1, 0.3, -0.2);
+        Vector v = new Vector(-0.4, 1, 0.7);
+        Vector n = u.cross(v);
+        double[] tu = new double[3];
+        double[] tv = new double[3];
+        double[] tn = new double[3];
+        transform.transformVector(u.getX(), u.getY(), u.getZ(), tu);
+        transform.transformVector(v.getX(), v.getY(), v.getZ(), tv);
+        transform.transformNormal(n.getX(), n.getY(), n.getZ(), tn);
+        assertEquals(0, VectorMath.dot(tu[0], tu[1], tu[2], tn[0], tn[1], tn[2]), TOLERANCE);
+        assertEquals(0, VectorMath.dot(tv[0], tv[1], tv[2], tn[0], tn[1], tn[2]), TOLERANCE);
+    }
+
+    @Test
+    void testMatrixRoundTrip() {
+        Transform transform = sample();
+        double[] out = new double[3];
+        double[] expected = new double[3];
+        Transform copy = Transform.fromMatrix(transform.getMatrix());
+        transform.transformPoint(1, 2, 3, expected);
+        copy.transformPoint(1, 2, 3, out);
+        assertArrayEquals(expected, out);
+    }
+
+    @Test
+    void testInvalidTransforms() {
+        assertThrows(IllegalArgumentException.class, () -> Transform.scaling(1, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> Transform.rotation(0, 0, 0, 30));
+        assertThrows(IllegalArgumentException.class, () -> Transform.fromMatrix(new double[9]));
+    }
+}
@@ -0,0 +1,41 @@
+package math;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Les opérations sur composantes doivent donner exactement les résultats de Vector.
+ */
+class VectorMathTest {
+
+    @Test
+    void testNormalizeMatchesVector() {
+        Random random = new Random(11);
+        double[] out = new double[3];
+        for (int k = 0; k < 1000; k++) {
+            Vector v = new Vector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian());
+            Vector expected = v.normalize();
+            VectorMath.normalize(v.getX(), v.getY(), v.getZ(), out);
+            assertEquals(expected.getX(), out[0]);
+            assertEquals(expected.getY(), out[1]);
+            assertEquals(expected.getZ(), out[2]);
+        }
+    }
+
+    @Test
+    void testNormalizeZeroVector() {
+        double[] out = { 1, 1, 1 };
+        VectorMath.normalize(0, 0, 0, out);
+        assertArrayEquals(new double[] { 0, 0, 0 }, out);
+    }
+
+    @Test
+    void testDot() {
+        Vector a = new Vector(1.5, -2, 3);
+        Vector b = new Vector(0.25, 4, -1);
+        assertEquals(a.dot(b), VectorMath.dot(1.5, -2, 3, 0.25, 4, -1));
+    }
+}
@@ -0,0 +1,101 @@
+package parsing;
+
+import math.Point;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import raytracer.CameraPath;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de lecture des fichiers de trajectoire de caméra.
+ */
+class CameraPathParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final CameraPathParser parser = new CameraPathParser();
+
+    @Test
+    void testParseTurntable() throws Exception {
+        CameraPath path = parser.parse(createTempPathFile(
+                "# Tour de table\n"
+                + "frames 90\n"
+                + "interpolation smooth\n"
+                + "loop\n"
+                + "key 0   0 1 5   0 0 0   0 1 0  40\n"
+                + "key 1   5 1 0   0 0 0   0 1 0  40\n"
+                + "key 2   0 1 -5  0 0 0   0 1 0  40\n"
+                + "key 3   0 1 5   0 0 0   0 1 0  40\n").toString());
+        assertEquals(90, parser.getFrameCount());
+        assertEquals(4, path.getKeyCount());
+        assertEquals(CameraPath.Interpolation.SMOOTH, path.getInterpolation());
+        assertTrue(path.isLoop());
+        assertEquals(3, path.getEndTime());
+        assertEquals(new Point(5, 1, 0), path.cameraAt(1).getLookFrom());
+    }
+
+    @Test
+    void testParseDocumentedExample() throws Exception {
+        // Exemple de la documentation de CameraPathParser, tel quel
+        CameraPath path = parser.parse(createTempPathFile(
+                "# Nombre d'images (facultatif)\n"
+                + "frames 360\n"
+                + "# linear ou smooth (par défaut)\n"
+                + "interpolation smooth\n"
+                + "# Trajectoire fermée (facultatif) : la dernière clé reprend la première\n"
+                + "loop\n"
+                + "# Date, œil, point visé, haut, angle de vue\n"
+                + "key 0  10 15 10  0 5 -1  0 1 0  45\n"
+                + "key 1  -10 15 10  0 5 -1  0 1 0  45\n"
+                + "key 2  10 15 10  0 5 -1  0 1 0  45\n").toString());
+        assertEquals(360, parser.getFrameCount());
+        assertEquals(3, path.getKeyCount());
+        assertTrue(path.isLoop());
+        assertEquals(new Point(-10, 15, 10), path.cameraAt(1).getLookFrom());
+    }
+
+    @Test
+    void testDefaults() throws Exception {
+        CameraPath path = parser.parse(createTempPathFile(
+                "key 0  0 0 4  0 0 0  0 1 0  45\nkey 2.5  0 0 8  0 0 0  0 1 0  30\n").toString());
+        assertEquals(0, parser.getFrameCount());
+        assertEquals(CameraPath.Interpolation.SMOOTH, path.getInterpolation());
+        assertFalse(path.isLoop());
+        assertEquals(2.5, path.getEndTime());
+    }
+
+    @Test
+    void testInvalidPaths() {
+        String key = "key 0  0 0 4  0 0 0  0 1 0  45\n";
+        assertParsingError("camera 0 0 4 0 0 0 0 1 0 45", "Erreur: commande de trajectoire inconnue 'camera'.");
+        assertParsingError("frames 0\n" + key, "Erreur 'frames': nombre strictement positif attendu.");
+        assertParsingError("frames x\n" + key, "Erreur 'frames': nombre entier attendu.");
+        assertParsingError("interpolation cubic\n" + key,
+                "Erreur 'interpolation': Interpolation inconnue : cubic (linear ou smooth attendu).");
+        assertParsingError("key 0 0 0 4", "Erreur 'key': date, œil, point visé, haut et angle de vue attendus (11 nombres).");
+        assertParsingError(key, "Erreur 'key': Au moins deux clés attendues.");
+        assertParsingError(key + key, "Erreur 'key': Dates des clés non strictement croissantes : 0.0 puis 0.0.");
+    }
+
+    private void assertParsingError(String content, String message) {
+        Path file = createTempPathFile(content);
+        ParsingException e = assertThrows(ParsingException.class, () -> parser.parse(file.toString()));
+        assertEquals(message, e.getMessage());
+    }
+
+    private Path createTempPathFile(String content) {
+        try {
+            Path filePath = tempDir.resolve("camera.path");
+            Files.writeString(filePath, content);
+            return filePath;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create temp path file", e);
+        }
+    }
+}
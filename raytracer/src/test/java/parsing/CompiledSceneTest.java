@@ -0,0 +1,196 @@
+package parsing;
+
+import acceleration.Accelerator;
+import geometry.MeshInstance;
+import geometry.TriangleMesh;
+import imaging.Renderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import scene.Scene;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static imaging.ImageAssertions.assertSameImage;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la scène compilée : relecture fidèle et invalidation quand la source change.
+ */
+class CompiledSceneTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final String GEOMETRY = String.join("\n",
+            "maxdepth 3",
+            "ambient 0.1 0.1 0.1",
+            "directional 0 1 1 0.4 0.4 0.4",
+            "point 2 3 4 0.5 0.5 0.5",
+            "diffuse 0.6 0.3 0.2",
+            "specular 0.5 0.5 0.5",
+            "shininess 20",
+            "sphere 0 0 0 1",
+            "plane 0 -1 0 0 1 0.2",
+            "maxverts 4",
+            "vertex -2 -1 -1",
+            "vertex 2 -1 -1",
+            "vertex 2 2 -1",
+            "vertex -2 2 -1",
+            "tri 0 1 2",
+            "tri 0 2 3",
+            "diffuse 0.1 0.7 0.1",
+            "tri 1 2 3");
+
+    private Path writeScene(String name, String camera, String geometry) throws IOException {
+        String content = String.join("\n", "size 40 30", "output out.png", camera, geometry);
+        return Files.writeString(tempDir.resolve(name), content);
+    }
+
+    @Test
+    void testCompiledSceneRendersIdentically() throws IOException {
+        Path source = writeScene("a.scene", "camera 0 0 6 0 0 0 0 1 0 45", GEOMETRY);
+        SceneFileParser parser = new SceneFileParser();
+        Scene parsed = parser.parse(source.toString());
+        Path cache = CompiledScene.cacheFileFor(source.toString());
+        CompiledScene.write(parsed, parser.getSourceDigest(), cache);
+
+        Scene loaded = CompiledScene.read(source.toString(), cache);
+
+        assertNotNull(loaded);
+        assertEquals(parsed.getShapes().size(), loaded.getShapes().size());
+        assertEquals(parsed.getLights().size(), loaded.getLights().size());
+        assertEquals(parsed.getMaxDepth(), loaded.getMaxDepth());
+        assertNotNull(loaded.getAccelerationStructure());
+        assertEquals(2, ((TriangleMesh) loaded.getShapes().get(2)).getTriangleCount());
+        // Le tampon de sommets reste partagé entre les deux maillages
+        assertSame(((TriangleMesh) loaded.getShapes().get(2)).getVertexBuffer(),
+                ((TriangleMesh) loaded.getShapes().get(3)).getVertexBuffer());
+        assertSameImage(new Renderer().render(parsed), new Renderer().render(loaded));
+    }
+
+    @Test
+    void testGridSceneIsRebuiltOnLoad() throws IOException {
+        Path source = writeScene("g.scene", "camera 0 0 6 0 0 0 0 1 0 45", "accelerator grid\n" + GEOMETRY);
+        SceneFileParser parser = new SceneFileParser();
+        Scene parsed = parser.parse(source.toString());
+        Path cache = CompiledScene.cacheFileFor(source.toString());
+        CompiledScene.write(parsed, parser.getSourceDigest(), cache);
+
+        Scene loaded = CompiledScene.read(source.toString(), cache);
+
+        assertNotNull(loaded);
+        assertEquals(Accelerator.GRID, loaded.getAccelerator());
+        assertNotNull(loaded.getGrid());
+        assertNull(loaded.getAccelerationStructure());
+        assertSameImage(new Renderer().render(parsed), new Renderer().render(loaded));
+        assertCorruptBodyIsRejected(source);
+    }
+
+    @Test
+    void testMeshDefinitionIsWrittenOnce() throws IOException {
+        String instances = String.join("\n",
+                "beginmesh carre",
+                "tri 0 1 2",
+                "tri 0 2 3",
+                "endmesh",
+                "instance carre 0 0 -1 0 1 0 30 0.5 0.5 0.5",
+                "diffuse 0.7 0.1 0.1",
+                "instance carre 1 -1 0",
+                "instance carre -2 0 1 1 0 0 -20");
+        Path source = writeScene("i.scene", "camera 0 0 6 0 0 0 0 1 0 45", GEOMETRY + "\n" + instances);
+        SceneFileParser parser = new SceneFileParser();
+        Scene parsed = parser.parse(source.toString());
+        Path cache = CompiledScene.cacheFileFor(source.toString());
+        CompiledScene.write(parsed, parser.getSourceDigest(), cache);
+
+        Scene loaded = CompiledScene.read(source.toString(), cache);
+
+        assertNotNull(loaded);
+        int count = loaded.getShapes().size();
+        MeshInstance first = (MeshInstance) loaded.getShapes().get(count - 3);
+        MeshInstance last = (MeshInstance) loaded.getShapes().get(count - 1);
+        assertSame(first.getDefinition(), last.getDefinition());
+        // Le maillage instancié partage toujours le tampon de sommets des autres maillages
+        assertSame(((TriangleMesh) loaded.getShapes().get(2)).getVertexBuffer(),
+                first.getDefinition().getMesh().getVertexBuffer());
+        assertSameImage(new Renderer().render(parsed), new Renderer().render(loaded));
+        assertCorruptBodyIsRejected(source);
+    }
+
+    @Test
+    void testCameraChangeKeepsCompiledScene() throws IOException {
+        Path source = writeScene("b.scene", "camera 0 0 6 0 0 0 0 1 0 45", GEOMETRY);
+        SceneFileParser parser = new SceneFileParser();
+        Path cache = CompiledScene.cacheFileFor(source.toString());
+        CompiledScene.write(parser.parse(source.toString()), parser.getSourceDigest(), cache);
+
+        writeScene("b.scene", "camera 3 1 5 0 0 0 0 1 0 30", GEOMETRY);
+        Scene loaded = CompiledScene.read(source.toString(), cache);
+
+        assertNotNull(loaded);
+        assertEquals(30, loaded.getCamera().getFov());
+        Scene parsed = new SceneFileParser().parse(source.toString());
+        assertSameImage(new Renderer().render(parsed), new Renderer().render(loaded));
+    }
+
+    @Test
+    void testGeometryChangeInvalidatesCompiledScene() throws IOException {
+        Path source = writeScene("c.scene", "camera 0 0 6 0 0 0 0 1 0 45", GEOMETRY);
+        SceneFileParser parser = new SceneFileParser();
+        Path cache = CompiledScene.cacheFileFor(source.toString());
+        CompiledScene.write(parser.parse(source.toString()), parser.getSourceDigest(), cache);
+
+        writeScene("c.scene", "camera 0 0 6 0 0 0 0 1 0 45", GEOMETRY.replace("sphere 0 0 0 1", "sphere 0 0 0 2"));
+
+        assertNull(CompiledScene.read(source.toString(), cache));
+    }
+
+    @Test
+    void testMissingOrCorruptCompiledScene() throws IOException {
+        Path source = writeScene("d.scene", "camera 0 0 6 0 0 0 0 1 0 45", GEOMETRY);
+        Path cache = CompiledScene.cacheFileFor(source.toString());
+        assertNull(CompiledScene.read(source.toString(), cache));
+
+        SceneFileParser parser = new SceneFileParser();
+        CompiledScene.write(parser.parse(source.toString()), parser.getSourceDigest(), cache);
+        byte[] bytes = Files.readAllBytes(cache);
+        Files.write(cache, java.util.Arrays.copyOf(bytes, bytes.length / 2)); // Fichier tronqué
+
+        assertNull(CompiledScene.read(source.toString(), cache));
+    }
+
+    @Test
+    void testCorruptBodyIsRejected() throws IOException {
+        assertCorruptBodyIsRejected(writeScene("e.scene", "camera 0 0 6 0 0 0 0 1 0 45", GEOMETRY));
+    }
+
+    /**
+     * L'en-tête intact, le corps tronqué ou altéré octet par octet : la relecture rend une scène
+     * ou null, sans jamais laisser échapper d'exception.
+     */
+    private void assertCorruptBodyIsRejected(Path source) throws IOException {
+        SceneFileParser parser = new SceneFileParser();
+        Path cache = CompiledScene.cacheFileFor(source.toString());
+        CompiledScene.write(parser.parse(source.toString()), parser.getSourceDigest(), cache);
+        byte[] bytes = Files.readAllBytes(cache);
+        int header = 2 * Integer.BYTES + SourceFingerprint.LENGTH;
+
+        for (int length = header; length < bytes.length; length++) {
+            Files.write(cache, Arrays.copyOf(bytes, length));
+            assertNull(CompiledScene.read(source.toString(), cache), "Scène compilée tronquée à " + length + " octets");
+        }
+        for (int k = header; k < bytes.length; k++) {
+            for (byte value : new byte[] { (byte) 0x80, (byte) 0xff, 0x7f, 0x01 }) {
+                byte[] corrupt = bytes.clone();
+                corrupt[k] = value;
+                Files.write(cache, corrupt);
+                int offset = k;
+                assertDoesNotThrow(() -> CompiledScene.read(source.toString(), cache), "Octet " + offset + " altéré");
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package parsing;
+
+import acceleration.BuildMethod;
+import imaging.Renderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import scene.Scene;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+
+import static imaging.ImageAssertions.assertSameImage;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du cache des scènes : réutilisation quand seule la prise de vue change, éviction
+ * selon le budget de mémoire.
+ */
+class SceneCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final String GEOMETRY = String.join("\n",
+            "ambient 0.1 0.1 0.1",
+            "point 2 3 4 0.5 0.5 0.5",
+            "diffuse 0.6 0.3 0.2",
+            "sphere 0 0 0 1",
+            "maxverts 4",
+            "vertex -2 -1 -1",
+            "vertex 2 -1 -1",
+            "vertex 2 2 -1",
+            "vertex -2 2 -1",
+            "tri 0 1 2",
+            "tri 0 2 3");
+
+    private Path writeScene(String name, String view, String geometry) throws IOException {
+        return Files.writeString(tempDir.resolve(name), view + "\n" + geometry);
+    }
+
+    private static Scene parse(Path file) throws IOException, ParsingException {
+        return new SceneFileParser().parse(file.toString());
+    }
+
+    @Test
+    void testViewChangeReusesGeometry() throws Exception {
+        SceneCache cache = new SceneCache(1 << 20);
+        Path first = writeScene("a.scene", "size 40 30\ncamera 0 0 6 0 0 0 0 1 0 45\noutput a.png", GEOMETRY);
+        Path second = writeScene("b.scene", "size 20 10\ncamera 1 2 6 0 0 0 0 1 0 30\noutput b.png", GEOMETRY);
+
+        Scene parsed = cache.load(first.toString(), BuildMethod.SAH, () -> parse(first));
+        Scene reused = cache.load(second.toString(), BuildMethod.SAH, () -> fail("La géométrie aurait dû être réutilisée."));
+
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        // Contenu partagé, prise de vue du second fichier
+        assertSame(parsed.getAccelerationStructure(), reused.getAccelerationStructure());
+        assertSame(parsed.getShapes().get(1), reused.getShapes().get(1));
+        assertEquals(20, reused.getWidth());
+        assertEquals("b.png", reused.getOutput());
+        assertEquals(40, parsed.getWidth());
+        assertSameImage(new Renderer().render(parse(second)), new Renderer().render(reused));
+    }
+
+    @Test
+    void testKeyIsSha256OfGeometry() throws Exception {
+        Path file = writeScene("k.scene", "size 40 30\ncamera 0 0 6 0 0 0 0 1 0 45\noutput k.png", GEOMETRY + "\n");
+        SceneFileParser parser = new SceneFileParser();
+
+        parser.parseView(file.toString());
+        assertNull(parser.getSourceSha256());
+        parser.parseView(file.toString(), true);
+        // Lignes de prise de vue exclues : seul le reste du fichier compte
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest((GEOMETRY + "\n").getBytes(StandardCharsets.UTF_8)),
+                parser.getSourceSha256());
+    }
+
+    @Test
+    void testGeometryOrBuildMethodChangeMisses() throws Exception {
+        SceneCache cache = new SceneCache(1 << 20);
+        Path first = writeScene("a.scene", "size 40 30\ncamera 0 0 6 0 0 0 0 1 0 45", GEOMETRY);
+        Path moved = writeScene("b.scene", "size 40 30\ncamera 0 0 6 0 0 0 0 1 0 45", GEOMETRY.replace("sphere 0 0 0 1", "sphere 0 1 0 1"));
+        Path material = writeScene("c.scene", "size 40 30\ncamera 0 0 6 0 0 0 0 1 0 45", GEOMETRY.replace("diffuse 0.6", "diffuse 0.5"));
+
+        cache.load(first.toString(), BuildMethod.SAH, () -> parse(first));
+        cache.load(moved.toString(), BuildMethod.SAH, () -> parse(moved));
+        cache.load(material.toString(), BuildMethod.SAH, () -> parse(material));
+        cache.load(first.toString(), BuildMethod.LBVH, () -> parse(first));
+
+        assertEquals(0, cache.getHits());
+        assertEquals(4, cache.getMisses());
+        assertEquals(4, cache.size());
+    }
+
+    @Test
+    void testLeastRecentlyUsedSceneIsEvicted() throws Exception {
+        Path a = writeScene("a.scene", "size 40 30\ncamera 0 0 6 0 0 0 0 1 0 45", GEOMETRY);
+        Path b = writeScene("b.scene", "size 40 30\ncamera 0 0 6 0 0 0 0 1 0 45", GEOMETRY + "\nsphere 3 0 0 1");
+        Path c = writeScene("c.scene", "size 40 30\ncamera 0 0 6 0 0 0 0 1 0 45", GEOMETRY + "\nsphere 0 3 0 1");
+        long size = SceneCache.estimateBytes(parse(c));
+        assertTrue(size > 0);
+        // Place pour deux scènes de cette taille, pas trois
+        SceneCache cache = new SceneCache(2 * size + size / 2);
+
+        cache.load(a.toString(), BuildMethod.SAH, () -> parse(a));
+        cache.load(b.toString(), BuildMethod.SAH, () -> parse(b));
+        cache.load(a.toString(), BuildMethod.SAH, () -> fail("a devrait être gardée."));
+        cache.load(c.toString(), BuildMethod.SAH, () -> parse(c));
+
+        // b, la moins récemment utilisée, a laissé sa place
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertTrue(cache.getUsedBytes() <= cache.getBudget());
+        cache.load(a.toString(), BuildMethod.SAH, () -> fail("a devrait être gardée."));
+        cache.load(c.toString(), BuildMethod.SAH, () -> fail("c devrait être gardée."));
+        cache.load(b.toString(), BuildMethod.SAH, () -> parse(b));
+        assertEquals(4, cache.getMisses());
+
+        // Une scène plus grande que le budget n'est pas gardée, et ne vide pas le cache
+        SceneCache small = new SceneCache(size / 2);
+        small.load(a.toString(), BuildMethod.SAH, () -> parse(a));
+        assertEquals(0, small.size());
+        assertEquals(0, small.getUsedBytes());
+    }
+
+    @Test
+    void testSharedBuffersAreCountedOnce() throws Exception {
+        // Deux maillages (matériaux différents) sur le même tampon de sommets
+        Path one = writeScene("one.scene", "size 4 4\ncamera 0 0 6 0 0 0 0 1 0 45", GEOMETRY);
+        Path two = writeScene("two.scene", "size 4 4\ncamera 0 0 6 0 0 0 0 1 0 45", GEOMETRY + "\ndiffuse 0.1 0.7 0.1\ntri 1 2 3");
+        Scene single = parse(one);
+        Scene shared = parse(two);
+        long extra = SceneCache.estimateBytes(shared) - SceneCache.estimateBytes(single);
+        long treeGrowth = shared.getAccelerationStructure().getMemoryFootprint()
+                - single.getAccelerationStructure().getMemoryFootprint();
+        // Un triangle de plus : indices et données précalculées, pas de second tampon de sommets
+        assertEquals(SceneCache.OBJECT_BYTES + 3 * Integer.BYTES + SceneCache.TRIANGLE_DATA_BYTES + treeGrowth, extra);
+    }
+}
@@ -3,8 +3,10 @@ package parsing;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import acceleration.Accelerator;
 import scene.Scene;
 import geometry.*;
+import imaging.Color;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -96,7 +98,52 @@ class SceneFileParserTest {
 
         assertNotNull(scene);
         assertEquals(1, scene.getShapes().size());
-        assertInstanceOf(Triangle.class, scene.getShapes().get(0));
+        assertInstanceOf(TriangleMesh.class, scene.getShapes().get(0));
+        assertEquals(1, ((TriangleMesh) scene.getShapes().get(0)).getTriangleCount());
+    }
+
+    @Test
+    void testConsecutiveTrianglesShareOneMesh() throws IOException, ParsingException {
+        String sceneContent = String.join("\n",
+            "size 800 600",
+            "camera 0 0 5 0 0 0 0 1 0 45",
+            "maxverts 4",
+            "vertex 0 0 0",
+            "vertex 1 0 0",
+            "vertex 0 1 0",
+            "vertex 1 1 0",
+            "diffuse 0.5 0.5 0.5",
+            "tri 0 1 2",
+            "tri 1 3 2",
+            "diffuse 1 0 0",
+            "tri 0 1 3",
+            "output test.png"
+        );
+
+        Scene scene = parser.parse(createTempSceneFile(sceneContent).toString());
+
+        // Un changement de matériau clôt le maillage en cours
+        assertEquals(2, scene.getShapes().size());
+        assertEquals(2, ((TriangleMesh) scene.getShapes().get(0)).getTriangleCount());
+        assertEquals(1, ((TriangleMesh) scene.getShapes().get(1)).getTriangleCount());
+        assertEquals(new Color(1, 0, 0), scene.getShapes().get(1).getDiffuse());
+    }
+
+    @Test
+    void testTriangleReferencingUndefinedVertexThrows() throws IOException {
+        String sceneContent = String.join("\n",
+            "size 800 600",
+            "camera 0 0 5 0 0 0 0 1 0 45",
+            "maxverts 3",
+            "vertex 0 0 0",
+            "vertex 1 0 0",
+            "tri 0 1 2",
+            "output test.png"
+        );
+
+        Path scenePath = createTempSceneFile(sceneContent);
+        ParsingException e = assertThrows(ParsingException.class, () -> parser.parse(scenePath.toString()));
+        assertEquals("Erreur 'tri': indices invalides.", e.getMessage());
     }
 
     @Test
@@ -167,6 +214,87 @@ class SceneFileParserTest {
         assertThrows(ParsingException.class, () -> parser.parse(scenePath.toString()));
     }
 
+    @Test
+    void testParseAccelerator() throws IOException, ParsingException {
+        String sceneContent = String.join("\n",
+            "size 800 600",
+            "camera 0 0 5 0 0 0 0 1 0 45",
+            "accelerator grid",
+            "sphere 0 0 0 1",
+            "output test.png"
+        );
+
+        Scene scene = parser.parse(createTempSceneFile(sceneContent).toString());
+        assertEquals(Accelerator.GRID, scene.getAccelerator());
+        assertNotNull(scene.getGrid());
+        assertNull(scene.getAccelerationStructure());
+
+        Path invalid = createTempSceneFile(sceneContent.replace("accelerator grid", "accelerator octree"));
+        ParsingException e = assertThrows(ParsingException.class, () -> parser.parse(invalid.toString()));
+        assertEquals("Erreur 'accelerator': Structure d'accélération inconnue : octree", e.getMessage());
+    }
+
+    @Test
+    void testParseMeshInstances() throws IOException, ParsingException {
+        String sceneContent = String.join("\n",
+            "size 800 600",
+            "camera 0 0 5 0 0 0 0 1 0 45",
+            "maxverts 4",
+            "vertex 0 0 0",
+            "vertex 1 0 0",
+            "vertex 0 1 0",
+            "vertex 1 1 0",
+            "beginmesh carre",
+            "tri 0 1 2",
+            "tri 1 3 2",
+            "endmesh",
+            "diffuse 0.2 0.4 0.6",
+            "instance carre 0 0 -2",
+            "diffuse 0.6 0.4 0.2",
+            "instance carre 1 2 3 0 1 0 90",
+            "instance carre 1 2 3 0 1 0 90 2 2 2",
+            "output test.png"
+        );
+
+        Scene scene = parser.parse(createTempSceneFile(sceneContent).toString());
+
+        // Les triangles de la définition ne sont pas ajoutés à la scène : seulement les instances
+        assertEquals(3, scene.getShapes().size());
+        MeshInstance first = assertInstanceOf(MeshInstance.class, scene.getShapes().get(0));
+        MeshInstance second = assertInstanceOf(MeshInstance.class, scene.getShapes().get(1));
+        assertSame(first.getDefinition(), second.getDefinition());
+        assertEquals(2, first.getDefinition().getMesh().getTriangleCount());
+        assertEquals(new Color(0.2, 0.4, 0.6), first.getDiffuse());
+        assertEquals(new Color(0.6, 0.4, 0.2), second.getDiffuse());
+        assertEquals(-2, first.getBoundingBox().getMinZ(), 1e-12);
+        assertEquals(4, scene.getShapes().get(2).getBoundingBox().getMaxY(), 1e-12);
+    }
+
+    @Test
+    void testInvalidMeshInstances() {
+        String header = String.join("\n", "size 800 600", "camera 0 0 5 0 0 0 0 1 0 45",
+            "maxverts 3", "vertex 0 0 0", "vertex 1 0 0", "vertex 0 1 0", "");
+
+        assertParsingError(header + "instance inconnu 0 0 0", "Erreur 'instance': maillage 'inconnu' inconnu.");
+        assertParsingError(header + "beginmesh m\ntri 0 1 2", "Erreur 'beginmesh': 'endmesh' manquant pour le maillage 'm'.");
+        assertParsingError(header + "beginmesh m\nsphere 0 0 0 1\nendmesh",
+            "Erreur 'beginmesh': 'sphere' interdit dans la définition du maillage 'm'.");
+        assertParsingError(header + "beginmesh m\nendmesh", "Erreur 'endmesh': le maillage 'm' ne contient aucun triangle.");
+        assertParsingError(header + "endmesh", "Erreur 'endmesh': aucun maillage en cours de définition.");
+        assertParsingError(header + "beginmesh m\ntri 0 1 2\nendmesh\nbeginmesh m",
+            "Erreur 'beginmesh': maillage 'm' déjà défini.");
+        assertParsingError(header + "beginmesh m\ntri 0 1 2\nendmesh\ninstance m 0 0 0 1 0 0 45 1 0 1",
+            "Erreur 'instance': Transformation non inversible.");
+        assertThrows(ParsingException.class,
+            () -> parser.parse(createTempSceneFile(header + "beginmesh m\ntri 0 1 2\nendmesh\ninstance m 0 0").toString()));
+    }
+
+    private void assertParsingError(String content, String message) {
+        Path file = createTempSceneFile(content);
+        ParsingException e = assertThrows(ParsingException.class, () -> parser.parse(file.toString()));
+        assertEquals(message, e.getMessage());
+    }
+
     private Path createTempSceneFile(String content) {
         try {
             Path filePath = tempDir.resolve("scene.txt");
@@ -0,0 +1,157 @@
+package parsing;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du découpeur d'octets : mêmes jetons que trim().split("\\s+"),
+ * mêmes nombres que Double.parseDouble et Integer.parseInt.
+ */
+class SceneTokenizerTest {
+
+    private static SceneTokenizer tokenizer(String content, int bufferSize) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return new SceneTokenizer(Channels.newChannel(new ByteArrayInputStream(bytes)), bufferSize, null);
+    }
+
+    private static List<List<String>> lines(String content, int bufferSize) throws IOException {
+        SceneTokenizer tokens = tokenizer(content, bufferSize);
+        List<List<String>> lines = new ArrayList<>();
+        while (tokens.nextLine()) {
+            List<String> line = new ArrayList<>();
+            for (int i = 0; i < tokens.tokenCount(); i++) line.add(tokens.string(i));
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    // Découpage de référence : celui de l'ancien parseur
+    private static List<List<String>> referenceLines(String content) {
+        List<List<String>> lines = new ArrayList<>();
+        for (String line : content.split("\r\n|\r|\n")) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            lines.add(List.of(line.split("\\s+")));
+        }
+        return lines;
+    }
+
+    @Test
+    void testLinesMatchRegexSplit() throws IOException {
+        String content = "  size 640\t480  \r\n"
+                + "# commentaire\n"
+                + "\n"
+                + "   \t \n"
+                + "camera 0 0 5   0 0 0 0 1 0 45\r"
+                + "output images/été.png\r\n"
+                + "sphere 1 2 3 4";
+        List<List<String>> expected = referenceLines(content);
+        assertEquals(expected, lines(content, 1 << 16));
+        assertEquals(4, expected.size());
+    }
+
+    @Test
+    void testLinesSpanningBufferBoundaries() throws IOException {
+        StringBuilder content = new StringBuilder();
+        Random random = new Random(3);
+        for (int k = 0; k < 200; k++) {
+            content.append(k % 7 == 0 ? "\r\n" : "\n");
+            content.append("vertex ").append(random.nextDouble()).append(' ')
+                    .append(-random.nextDouble()).append("  ").append(random.nextInt());
+        }
+        String text = content.toString();
+        // Tampons minuscules : lignes coupées et tampon agrandi
+        for (int bufferSize : new int[]{1, 2, 7, 64}) {
+            assertEquals(referenceLines(text), lines(text, bufferSize), "taille de tampon " + bufferSize);
+        }
+    }
+
+    @Test
+    void testDoublesMatchParseDouble() throws IOException {
+        List<String> samples = new ArrayList<>(List.of(
+                "0", "-0", "-0.0", "+1", "1.", ".5", "+.5", "0.1", "0.30000000000000004", "1e5", "1E-5",
+                "2.5e+3", "1e22", "1e23", "1e-22", "1e-300", "123456789012345", "1234567890123456789",
+                "000000.000100", "1000000000000000000000", "3.14159265358979323846", "1.0f", "2d",
+                "0x1p3", "Infinity", "-Infinity", "NaN", "4.9e-324", "1.7976931348623157e308"));
+        Random random = new Random(11);
+        for (int k = 0; k < 2000; k++) {
+            samples.add(Double.toString((random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(20) - 10)));
+            samples.add(String.format(java.util.Locale.ROOT, "%.6f", random.nextGaussian() * 100));
+        }
+
+        SceneTokenizer tokens = tokenizer(String.join(" ", samples), 64);
+        assertTrue(tokens.nextLine());
+        assertEquals(samples.size(), tokens.tokenCount());
+        for (int i = 0; i < samples.size(); i++) {
+            double expected = Double.parseDouble(samples.get(i));
+            assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(tokens.getDouble(i)),
+                    samples.get(i));
+        }
+    }
+
+    @Test
+    void testIntegersMatchParseInt() throws IOException {
+        SceneTokenizer tokens = tokenizer("0 -7 +42 2147483647 -2147483648 007", 64);
+        assertTrue(tokens.nextLine());
+        int[] expected = {0, -7, 42, Integer.MAX_VALUE, Integer.MIN_VALUE, 7};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], tokens.getInt(i));
+        }
+    }
+
+    @Test
+    void testMalformedNumbersThrowLikeTheJdk() throws IOException {
+        SceneTokenizer tokens = tokenizer("1.2.3 abc 1e - 2147483648 1.5", 64);
+        assertTrue(tokens.nextLine());
+        assertThrows(NumberFormatException.class, () -> tokens.getDouble(0));
+        assertThrows(NumberFormatException.class, () -> tokens.getDouble(1));
+        assertThrows(NumberFormatException.class, () -> tokens.getDouble(2));
+        assertThrows(NumberFormatException.class, () -> tokens.getDouble(3));
+        assertThrows(NumberFormatException.class, () -> tokens.getInt(4));
+        assertThrows(NumberFormatException.class, () -> tokens.getInt(5));
+    }
+
+    // Empreinte du contenu, lignes camera exclues
+    private static byte[] digestWithoutCameraLines(String content, int bufferSize) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        SceneTokenizer tokens = new SceneTokenizer(Channels.newChannel(new ByteArrayInputStream(bytes)),
+                bufferSize, new SourceFingerprint());
+        while (tokens.nextLine()) {
+            if (tokens.keyword(0).equals("camera")) tokens.excludeLineFromDigest();
+        }
+        return tokens.finishDigest();
+    }
+
+    @Test
+    void testDigestIgnoresExcludedLines() throws IOException {
+        String a = "size 10 10\ncamera 0 0 5 0 0 0 0 1 0 45\nsphere 0 0 0 1\n";
+        String b = "size 10 10\ncamera 1 2 3 0 0 0 0 1 0 30\nsphere 0 0 0 1\n";
+        String c = "size 10 10\ncamera 0 0 5 0 0 0 0 1 0 45\nsphere 0 0 0 2\n";
+
+        byte[] reference = digestWithoutCameraLines(a, 1 << 16);
+        for (int bufferSize : new int[]{1, 5, 64}) {
+            assertArrayEquals(reference, digestWithoutCameraLines(a, bufferSize), "taille de tampon " + bufferSize);
+            assertArrayEquals(reference, digestWithoutCameraLines(b, bufferSize));
+        }
+        assertFalse(java.util.Arrays.equals(reference, digestWithoutCameraLines(c, 1 << 16)));
+    }
+
+    @Test
+    void testKnownKeywordsAreShared() throws IOException {
+        SceneTokenizer tokens = tokenizer("vertex 1 2 3\nfoo", 64);
+        assertTrue(tokens.nextLine());
+        assertSame("vertex", tokens.keyword(0));
+        assertTrue(tokens.nextLine());
+        assertEquals("foo", tokens.keyword(0));
+        assertFalse(tokens.nextLine());
+    }
+}
@@ -0,0 +1,96 @@
+package raytracer;
+
+import math.Point;
+import math.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la trajectoire de caméra : passage par les clés, interpolation, boucle et dates des images.
+ */
+class CameraPathTest {
+
+    private static Camera camera(double x, double z, double fov) {
+        return new Camera(new Point(x, 1, z), new Point(0, 0, 0), new Vector(0, 1, 0), fov);
+    }
+
+    // Tour de table : quatre positions autour de l'origine, retour au départ
+    private static final List<Camera> TURNTABLE = List.of(
+            camera(0, 5, 40), camera(5, 0, 40), camera(0, -5, 40), camera(-5, 0, 40), camera(0, 5, 40));
+    private static final double[] TURNTABLE_TIMES = { 0, 1, 2, 3, 4 };
+
+    @Test
+    void testPathGoesThroughKeys() {
+        for (CameraPath.Interpolation interpolation : CameraPath.Interpolation.values()) {
+            CameraPath path = new CameraPath(TURNTABLE_TIMES, TURNTABLE, interpolation, true);
+            for (int k = 0; k < TURNTABLE.size(); k++) {
+                Camera key = path.cameraAt(TURNTABLE_TIMES[k]);
+                Camera expected = TURNTABLE.get(k % 4);
+                assertEquals(expected.getLookFrom(), key.getLookFrom());
+                assertEquals(expected.getFov(), key.getFov());
+            }
+        }
+    }
+
+    @Test
+    void testLinearInterpolation() {
+        CameraPath path = new CameraPath(new double[] { 0, 2 }, List.of(camera(0, 4, 30), camera(4, 0, 50)),
+                CameraPath.Interpolation.LINEAR, false);
+        Camera middle = path.cameraAt(1);
+        assertEquals(new Point(2, 1, 2), middle.getLookFrom());
+        assertEquals(40, middle.getFov(), 1e-12);
+        // Hors de la trajectoire : la caméra reste sur la clé la plus proche
+        assertEquals(new Point(0, 1, 4), path.cameraAt(-1).getLookFrom());
+        assertEquals(new Point(4, 1, 0), path.cameraAt(3).getLookFrom());
+    }
+
+    @Test
+    void testSmoothLoopIsSymmetricAndRound() {
+        CameraPath path = new CameraPath(TURNTABLE_TIMES, TURNTABLE, CameraPath.Interpolation.SMOOTH, true);
+        // Entre deux clés, la spline s'écarte du segment vers l'extérieur du cercle
+        Point halfway = path.cameraAt(0.5).getLookFrom();
+        assertEquals(halfway.getX(), halfway.getZ(), 1e-12);
+        double radius = Math.hypot(halfway.getX(), halfway.getZ());
+        assertTrue(radius > 5 / Math.sqrt(2) && radius < 5.5, "rayon " + radius);
+        // Même écart sur chaque quart, y compris celui qui referme la boucle
+        Point lastQuarter = path.cameraAt(3.5).getLookFrom();
+        assertEquals(radius, Math.hypot(lastQuarter.getX(), lastQuarter.getZ()), 1e-12);
+        // La boucle recommence au-delà de la dernière clé
+        assertEquals(halfway, path.cameraAt(4.5).getLookFrom());
+    }
+
+    @Test
+    void testFrameTimes() {
+        CameraPath loop = new CameraPath(TURNTABLE_TIMES, TURNTABLE, CameraPath.Interpolation.SMOOTH, true);
+        // Boucle : la dernière image précède le retour au départ
+        assertEquals(0, loop.frameTime(0, 8));
+        assertEquals(3.5, loop.frameTime(7, 8));
+
+        CameraPath open = new CameraPath(new double[] { 0, 1, 3 }, List.of(camera(0, 4, 30), camera(1, 4, 30), camera(2, 4, 30)),
+                CameraPath.Interpolation.LINEAR, false);
+        // Trajectoire ouverte : première et dernière images sur la première et la dernière clé
+        assertEquals(0, open.frameTime(0, 4));
+        assertEquals(1, open.frameTime(1, 4));
+        assertEquals(3, open.frameTime(3, 4));
+        assertEquals(new Point(2, 1, 4), open.frame(3, 4).getLookFrom());
+        assertThrows(IllegalArgumentException.class, () -> open.frameTime(4, 4));
+    }
+
+    @Test
+    void testInvalidPaths() {
+        List<Camera> two = List.of(camera(0, 4, 30), camera(1, 4, 30));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CameraPath(new double[] { 0 }, two, CameraPath.Interpolation.LINEAR, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CameraPath(new double[] { 1, 1 }, two, CameraPath.Interpolation.LINEAR, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CameraPath(new double[] { 0 }, List.of(camera(0, 4, 30)), CameraPath.Interpolation.LINEAR, false));
+        // Boucle dont la dernière clé ne reprend pas la première
+        assertThrows(IllegalArgumentException.class, () -> new CameraPath(new double[] { 0, 1, 2 },
+                List.of(camera(0, 4, 30), camera(1, 4, 30), camera(2, 4, 30)), CameraPath.Interpolation.SMOOTH, true));
+        assertThrows(IllegalArgumentException.class, () -> CameraPath.Interpolation.fromKey("cubic"));
+    }
+}
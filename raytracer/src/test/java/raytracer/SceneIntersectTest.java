@@ -81,4 +81,34 @@ class SceneIntersectTest {
         // Ne doit rien trouver
         assertFalse(hit.isPresent(), "La scène n'aurait pas dû trouver d'intersection.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFindClosestHitMatchesIntersection() {
+        Ray ray = new Ray(new Point(0, 0, -5), new Vector(0, 0, 1));
+        HitRecord hit = new HitRecord();
+
+        assertTrue(scene.findClosestHit(0, 0, -5, 0, 0, 1, hit, null));
+        Intersection expected = scene.findClosestIntersection(ray).orElseThrow();
+        assertEquals(expected.getT(), hit.getT());
+        assertSame(expected.getShape(), hit.getShape());
+
+        // Même chose avec la hiérarchie englobante
+        scene.buildAccelerationStructure();
+        assertTrue(scene.findClosestHit(0, 0, -5, 0, 0, 1, hit, null));
+        assertEquals(expected.getT(), hit.getT());
+        assertSame(sphereClose, hit.getShape());
+
+        assertFalse(scene.findClosestHit(0, 3, -5, 0, 0, 1, hit, null));
+    }
+
+    @Test
+    void testIsShadowedOnComponents() {
+        // Entre les deux sphères, vers la plus lointaine puis vers le haut
+        assertTrue(scene.isShadowed(0, 0, 2, 0, 0, 1, 10, null));
+        assertFalse(scene.isShadowed(0, 0, 2, 0, 0, 1, 1.5, null));
+        assertFalse(scene.isShadowed(0, 0, 2, 0, 1, 0, 10, null));
+        scene.buildAccelerationStructure();
+        assertTrue(scene.isShadowed(0, 0, 2, 0, 0, 1, 10, null));
+        assertFalse(scene.isShadowed(0, 0, 2, 0, 0, 1, 1.5, null));
+    }
+}
@@ -0,0 +1,115 @@
+package raytracer;
+
+import imaging.Color;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import parsing.SceneFileParser;
+import scene.Scene;
+import stats.RenderStatistics;
+import stats.ShapeKind;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vérifie que l'intégrateur wavefront donne exactement les couleurs et les comptes de rayons
+ * de l'intégrateur récursif, sur une scène à réflexions multiples.
+ */
+class WavefrontIntegratorTest {
+
+    private static Scene scene;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        // Deux miroirs face à face, une sphère mate et deux lumières : chemins de profondeurs variées
+        File sceneFile = File.createTempFile("test_wavefront", ".scene");
+        sceneFile.deleteOnExit();
+        String content = "size 40 30\n" +
+                "output test_wavefront.png\n" +
+                "camera 0 1 6 0 0 0 0 1 0 60\n" +
+                "ambient 0.05 0.05 0.05\n" +
+                "maxdepth 4\n" +
+                "point 2 4 3 0.7 0.7 0.7\n" +
+                "directional -1 -1 -1 0.3 0.3 0.3\n" +
+                "diffuse 0.2 0.2 0.3\n" +
+                "specular 0.7 0.7 0.7\n" +
+                "shininess 50\n" +
+                "sphere -1 0 0 1\n" +
+                "sphere 1.2 0.2 -0.5 0.8\n" +
+                "diffuse 0.8 0.1 0.1\n" +
+                "specular 0 0 0\n" +
+                "shininess 1\n" +
+                "sphere 0 0 2 0.4\n" +
+                "diffuse 0.5 0.5 0.5\n" +
+                "specular 0.3 0.3 0.3\n" +
+                "plane 0 -1 0 0 1 0\n";
+        Files.write(sceneFile.toPath(), content.getBytes());
+        scene = new SceneFileParser().parse(sceneFile.getAbsolutePath());
+    }
+
+    @Test
+    void testColorsMatchRecursiveIntegrator() {
+        assertMatchesRecursive(false);
+    }
+
+    @Test
+    void testPacketQueuesMatchRecursiveIntegrator() {
+        assertMatchesRecursive(true);
+    }
+
+    @Test
+    void testStatisticsMatchRecursiveIntegrator() {
+        RenderStatistics recursive = new RenderStatistics();
+        RayTracer rayTracer = new RayTracer(scene, recursive);
+        for (int j = 0; j < scene.getHeight(); j++) {
+            for (int i = 0; i < scene.getWidth(); i++) rayTracer.getPixelColor(i, j);
+        }
+
+        RenderStatistics wavefront = new RenderStatistics();
+        Color[] colors = new Color[scene.getWidth() * scene.getHeight()];
+        new WavefrontIntegrator(new RayTracer(scene, wavefront), false)
+                .trace(0, 0, scene.getWidth(), scene.getHeight(), colors);
+
+        assertEquals(recursive.getPrimaryRays(), wavefront.getPrimaryRays());
+        assertEquals(recursive.getShadowRays(), wavefront.getShadowRays());
+        assertEquals(recursive.getReflectionRays(), wavefront.getReflectionRays());
+        assertTrue(wavefront.getReflectionRays() > 0, "La scène doit produire des réflexions.");
+        assertEquals(recursive.getAverageDepth(), wavefront.getAverageDepth());
+        for (ShapeKind kind : ShapeKind.values()) {
+            assertEquals(recursive.getIntersectionTests(kind), wavefront.getIntersectionTests(kind));
+        }
+    }
+
+    @Test
+    void testZeroDepthIsBlack() {
+        Scene flat = new Scene();
+        flat.setWidth(3);
+        flat.setHeight(2);
+        flat.setCamera(scene.getCamera());
+        flat.setMaxDepth(0);
+        Color[] colors = new Color[6];
+        new WavefrontIntegrator(new RayTracer(flat), false).trace(0, 0, 3, 2, colors);
+        for (Color color : colors) assertEquals(0, color.toRGB());
+    }
+
+    private void assertMatchesRecursive(boolean packets) {
+        RayTracer rayTracer = new RayTracer(scene);
+        WavefrontIntegrator integrator = new WavefrontIntegrator(rayTracer, packets);
+        // Blocs de tailles variées, dont un bloc partiel en bas à droite
+        int[][] blocks = { { 0, 0, 40, 30 }, { 3, 5, 7, 9 }, { 36, 27, 4, 3 } };
+        for (int[] block : blocks) {
+            int x = block[0], y = block[1], w = block[2], h = block[3];
+            Color[] colors = new Color[w * h];
+            integrator.trace(x, y, w, h, colors);
+            for (int k = 0; k < w * h; k++) {
+                Color expected = rayTracer.getPixelColor(x + k % w, y + k / w);
+                String pixel = "Pixel (" + (x + k % w) + ", " + (y + k / w) + ") différent.";
+                assertEquals(expected.r(), colors[k].r(), pixel);
+                assertEquals(expected.g(), colors[k].g(), pixel);
+                assertEquals(expected.b(), colors[k].b(), pixel);
+            }
+        }
+    }
+}
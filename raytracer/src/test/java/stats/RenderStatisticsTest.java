@@ -0,0 +1,112 @@
+package stats;
+
+import imaging.Renderer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import parsing.SceneFileParser;
+import scene.Scene;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static imaging.ImageAssertions.assertSameImage;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vérifie les compteurs de rayons et de tests d'intersection.
+ */
+class RenderStatisticsTest {
+
+    private static final String SCENE =
+            "size 40 30\n" +
+            "output stats.png\n" +
+            "camera 0 1 6 0 0 0 0 1 0 60\n" +
+            "ambient 0.1 0.1 0.1\n" +
+            "maxdepth 3\n" +
+            "point 0 5 5 0.8 0.8 0.8\n" +
+            "directional 1 1 1 0.2 0.2 0.2\n" +
+            "diffuse 0.2 0.2 0.2\n" +
+            "specular 0.5 0.5 0.5\n" +
+            "shininess 50\n" +
+            "sphere 0 0 0 1\n" +
+            "diffuse 0.6 0 0\n" +
+            "specular 0 0 0\n" +
+            "maxverts 3\n" +
+            "vertex -3 -1 -2\n" +
+            "vertex 3 -1 -2\n" +
+            "vertex 0 3 -2\n" +
+            "tri 0 1 2\n" +
+            "diffuse 0 0.5 0\n" +
+            "plane 0 -1 0 0 1 0\n";
+
+    @TempDir
+    static Path tempDir;
+
+    private static Scene scene;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        Path sceneFile = tempDir.resolve("stats.scene");
+        Files.writeString(sceneFile, SCENE);
+        scene = new SceneFileParser().parse(sceneFile.toString());
+    }
+
+    @Test
+    void testCountsRays() {
+        RenderStatistics statistics = new RenderStatistics();
+        new Renderer().render(scene, statistics);
+
+        assertEquals(40 * 30, statistics.getPrimaryRays());
+        assertTrue(statistics.getReflectionRays() > 0, "La sphère miroir renvoie des rayons réfléchis.");
+        assertTrue(statistics.getShadowRays() > 0);
+        double depth = statistics.getAverageDepth();
+        assertTrue(depth > 1.0 && depth <= 3.0, "Profondeur moyenne hors bornes : " + depth);
+
+        for (ShapeKind kind : new ShapeKind[] { ShapeKind.SPHERE, ShapeKind.TRIANGLE, ShapeKind.PLANE }) {
+            assertTrue(statistics.getIntersectionTests(kind) > 0, "Aucun test pour " + kind);
+            assertTrue(statistics.getHits(kind) > 0, "Aucun impact pour " + kind);
+            assertEquals(statistics.getIntersectionTests(kind),
+                    statistics.getHits(kind) + statistics.getMisses(kind));
+        }
+        assertEquals(0, statistics.getIntersectionTests(ShapeKind.OTHER));
+    }
+
+    @Test
+    void testStatisticsDoNotChangeImage() {
+        BufferedImage plain = new Renderer(3, 8).render(scene);
+        BufferedImage counted = new Renderer(3, 8).render(scene, new RenderStatistics());
+        assertSameImage(plain, counted);
+    }
+
+    @Test
+    void testParallelCountsMatchSerial() {
+        RenderStatistics serial = new RenderStatistics();
+        new Renderer().render(scene, serial);
+        RenderStatistics parallel = new RenderStatistics();
+        new Renderer(4, 7).render(scene, parallel);
+
+        assertEquals(serial.getPrimaryRays(), parallel.getPrimaryRays());
+        assertEquals(serial.getShadowRays(), parallel.getShadowRays());
+        assertEquals(serial.getReflectionRays(), parallel.getReflectionRays());
+        assertEquals(serial.getAverageDepth(), parallel.getAverageDepth());
+        for (ShapeKind kind : ShapeKind.values()) {
+            assertEquals(serial.getIntersectionTests(kind), parallel.getIntersectionTests(kind));
+            assertEquals(serial.getHits(kind), parallel.getHits(kind));
+        }
+    }
+
+    @Test
+    void testJsonAndSummary() {
+        RenderStatistics statistics = new RenderStatistics();
+        new Renderer().render(scene, statistics);
+        statistics.addPhaseTime(RenderStatistics.Phase.RENDER, 2_500_000);
+
+        String json = statistics.toJson();
+        assertTrue(json.contains("\"primary\": 1200"), json);
+        assertTrue(json.contains("\"sphere\": {\"tests\": "), json);
+        assertTrue(json.contains("\"render\": 2.500"), json);
+        assertTrue(statistics.summary().contains("1200 primaires"), statistics.summary());
+    }
+}